@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.benchmarks;
+
+import example.customers.Customer;
+import example.customers.Customer.Address;
+import example.customers.Customer.Address.Location;
+import example.stores.Store;
+import example.stores.StoreInitializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.PagedResources.PageMetadata;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.core.EvoInflectorRelProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.hateoas.hal.Jackson2HalModule.HalHandlerInstantiator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmarks for rendering HAL representations of a {@link Page} of {@link Store}s and a single {@link Customer}. Uses
+ * a plain HAL-enabled {@link ObjectMapper} as Spring Data REST's mapper requires a web request to build links.
+ *
+ * @author Oliver Gierke
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HalSerializationBenchmarks {
+
+	private static final String BASE = "http://localhost:8081/stores/";
+
+	@Param({ "20", "100" }) int size;
+
+	ObjectMapper mapper;
+	Page<Store> stores;
+	Resource<Customer> customer;
+
+	@Setup
+	public void setUp() throws Exception {
+
+		this.mapper = new ObjectMapper();
+		this.mapper.registerModule(new Jackson2HalModule());
+		this.mapper.setHandlerInstantiator(new HalHandlerInstantiator(new EvoInflectorRelProvider(), null, null));
+
+		List<Store> stores = StoreInitializer.readStores();
+		this.stores = new PageImpl<>(stores.subList(0, size), new PageRequest(0, size), stores.size());
+
+		Location location = new Location(40.740337, -73.995146);
+		Customer customer = new Customer("Oliver", "Gierke",
+				new Address("625 Avenue of the Americas", "10011", "New York", location));
+
+		this.customer = new Resource<>(customer, new Link("http://localhost:8080/customers/" + customer.getId()),
+				new Link(BASE + "search/findByAddressLocationNear?location=40.740337,-73.995146&distance=50km",
+						"stores-nearby"),
+				new Link(BASE + "search/nearest?location=40.740337,-73.995146&k=5", "stores-nearest"));
+	}
+
+	@Benchmark
+	public byte[] pageOfStores() throws Exception {
+
+		List<Resource<Store>> content = new ArrayList<>(stores.getNumberOfElements());
+
+		for (Store store : stores) {
+			content.add(new Resource<>(store, new Link(BASE + store.getId())));
+		}
+
+		PageMetadata metadata = new PageMetadata(stores.getSize(), stores.getNumber(), stores.getTotalElements(),
+				stores.getTotalPages());
+
+		return mapper.writeValueAsBytes(new PagedResources<>(content, metadata, new Link(BASE + "?page=0")));
+	}
+
+	@Benchmark
+	public byte[] customer() throws Exception {
+		return mapper.writeValueAsBytes(customer);
+	}
+}
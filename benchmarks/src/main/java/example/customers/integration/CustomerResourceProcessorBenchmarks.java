@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.customers.Customer;
+import example.customers.Customer.Address;
+import example.customers.Customer.Address.Location;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.noop.NoopDiscoveryClient;
+import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resource;
+
+/**
+ * Benchmarks for {@link CustomerResourceProcessor}. {@link #process()} renders customers through the processor,
+ * {@link #expandTemplate()} measures the generic template expansion the processor used before as baseline. Run with
+ * {@code -prof gc} to compare the allocations per operation ({@code gc.alloc.rate.norm}).
+ *
+ * @author Oliver Gierke
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomerResourceProcessorBenchmarks {
+
+	static final Link BY_LOCATION = new Link(
+			"http://localhost:8081/stores/search/findByAddressLocationNear{?location,distance,page,size,sort}", "by-location");
+	static final Link NEAREST = new Link("http://localhost:8081/stores/search/nearest{?location,k}", "nearest");
+	static final Link BY_LOCATIONS = new Link("http://localhost:8081/stores/search/by-locations", "by-locations");
+	static final DiscoveryClient DISCOVERY = new NoopDiscoveryClient(
+			new DefaultServiceInstance("customers", "localhost", 8080, false));
+
+	/**
+	 * The number of distinct customer locations rendered.
+	 */
+	@Param({ "1", "1000", "100000" }) int locations;
+
+	CustomerResourceProcessor processor;
+	AdaptiveLinkRefresher refresher;
+	NearbyStoresClient client;
+	Customer[] customers;
+	int index;
+
+	@Setup
+	public void setUp() {
+
+		NearbyStoresProperties properties = new NearbyStoresProperties();
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+
+		this.refresher = new AdaptiveLinkRefresher(Collections.emptyMap(), (name, value) -> {}, 100, 30000);
+
+		this.client = new NearbyStoresClient(resource(BY_LOCATIONS), cache, refresher, () -> null,
+				new InstanceLatencyTracker(10_000, 1_000), new StoreShards(DISCOVERY, properties), properties,
+				new RestTemplateBuilder());
+
+		this.processor = new CustomerResourceProcessor(resource(BY_LOCATION), resource(NEAREST), properties,
+				new NearbyStores(properties, cache, client));
+
+		Random random = new Random(42);
+		this.customers = new Customer[locations];
+
+		for (int i = 0; i < locations; i++) {
+
+			Location location = new Location(40.5 + random.nextDouble(), -74.5 + random.nextDouble());
+			customers[i] = new Customer("Dave", "Matthews", new Address("street", "zip", "New York", location));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		refresher.destroy();
+		client.destroy();
+	}
+
+	@Benchmark
+	public Resource<Customer> process() {
+		return processor.process(new Resource<>(nextCustomer()));
+	}
+
+	@Benchmark
+	public Link expandTemplate() {
+
+		Location location = nextCustomer().getAddress().getLocation();
+
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("location", String.format("%s,%s", location.getLatitude(), location.getLongitude()));
+		parameters.put("distance", "50km");
+
+		return BY_LOCATION.expand(parameters).withRel(CustomerResourceProcessor.STORES_NEARBY_REL);
+	}
+
+	private Customer nextCustomer() {
+
+		Customer customer = customers[index];
+		index = index + 1 == customers.length ? 0 : index + 1;
+
+		return customer;
+	}
+
+	private static DiscoveredResource resource(Link link) {
+
+		return new DiscoveredResource(() -> null, traverson -> traverson.follow()) {
+
+			/* 
+			 * (non-Javadoc)
+			 * @see org.springframework.cloud.client.hypermedia.DiscoveredResource#getLink()
+			 */
+			@Override
+			public Link getLink() {
+				return link;
+			}
+		};
+	}
+}
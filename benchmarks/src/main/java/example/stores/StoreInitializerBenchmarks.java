@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Benchmarks for reading the stores to import, parsing {@code starbucks.csv} via {@link StoreInitializer#readStores()}
+ * and, for comparison, materializing all stores from a binary {@link StoreSnapshot}.
+ *
+ * @author Oliver Gierke
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StoreInitializerBenchmarks {
+
+	Path snapshot;
+
+	@Setup
+	public void setUp() throws Exception {
+
+		this.snapshot = Files.createTempFile("stores", ".snapshot");
+
+		new StoreSnapshot.Builder(StoreSnapshot.fingerprint(new ClassPathResource(StoreInitializer.STORES))) //
+				.add(StoreInitializer.readStores()) //
+				.writeTo(snapshot);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(snapshot);
+	}
+
+	@Benchmark
+	public List<Store> readStores() throws Exception {
+		return StoreInitializer.readStores();
+	}
+
+	@Benchmark
+	public List<Store> readSnapshot() throws Exception {
+
+		StoreSnapshot stores = StoreSnapshot.read(new FileSystemResource(snapshot.toFile())).get();
+
+		return stores.getStores(0, stores.size());
+	}
+}
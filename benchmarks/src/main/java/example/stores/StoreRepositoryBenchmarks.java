@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+
+/**
+ * Benchmarks for {@link StoreRepository#findByAddressLocationNear(Point, Distance, Pageable)} against an embedded
+ * MongoDB populated with all stores. The store service is bootstrapped without its web layer and configuration file,
+ * as the customer service's {@code application.properties} is on the classpath, too.
+ *
+ * @author Oliver Gierke
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoreRepositoryBenchmarks {
+
+	private static final int LOCATIONS = 1024;
+
+	@Param({ "1", "10", "50" }) double kilometers;
+	@Param({ "false", "true" }) boolean index;
+
+	ConfigurableApplicationContext context;
+	StoreRepository repository;
+	Point[] locations;
+	Distance distance;
+	Pageable pageable;
+	int position;
+
+	@Setup
+	public void setUp() throws Exception {
+
+		this.context = new SpringApplicationBuilder(StoreApplication.class) //
+				.web(false) //
+				.properties("spring.config.name=store-benchmarks", //
+						"spring.data.mongodb.port=0", //
+						"spring.jmx.enabled=false", //
+						"eureka.client.enabled=false", //
+						"stores.snapshot.location=", //
+						"stores.index.enabled=" + index, //
+						"spring.autoconfigure.exclude=" //
+								+ "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration," //
+								+ "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration," //
+								+ "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration") //
+				.run();
+
+		StoreImportPipeline pipeline = context.getBean(StoreImportPipeline.class);
+
+		if (!pipeline.awaitCompletion(5, TimeUnit.MINUTES) || pipeline.getStatus() != StoreImportPipeline.Status.COMPLETED) {
+			throw new IllegalStateException("Store import did not complete!");
+		}
+
+		this.repository = context.getBean(StoreRepository.class);
+		this.distance = new Distance(kilometers, Metrics.KILOMETERS);
+		this.pageable = new PageRequest(0, 20);
+
+		// Locations in and around New York City
+		Random random = new Random(42);
+		this.locations = new Point[LOCATIONS];
+
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations[i] = new Point(-74.5 + random.nextDouble(), 40.5 + random.nextDouble());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<Store> findByAddressLocationNear() {
+
+		Point location = locations[position];
+		position = (position + 1) % LOCATIONS;
+
+		return repository.findByAddressLocationNear(location, distance, pageable);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.geo;
+
+/**
+ * Great-circle distance calculations on a spherical earth.
+ *
+ * @author Oliver Gierke
+ */
+public final class Distances {
+
+	/**
+	 * The mean earth radius in kilometers.
+	 */
+	public static final double EARTH_RADIUS = 6371.0088;
+
+	private Distances() {}
+
+	/**
+	 * Returns the great-circle distance between the given coordinates in kilometers (haversine formula).
+	 *
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param otherLatitude in degrees.
+	 * @param otherLongitude in degrees.
+	 * @return
+	 */
+	public static double between(double latitude, double longitude, double otherLatitude, double otherLongitude) {
+
+		double latitudeDelta = Math.toRadians(otherLatitude - latitude);
+		double longitudeDelta = Math.toRadians(otherLongitude - longitude);
+
+		double a = Math.pow(Math.sin(latitudeDelta / 2), 2) + Math.cos(Math.toRadians(latitude))
+				* Math.cos(Math.toRadians(otherLatitude)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * Returns the bounding box of the circle with the given radius around the given coordinates as
+	 * {@code [minLatitude, minLongitude, maxLatitude, maxLongitude]}. Longitudes might exceed {@code [-180, 180]} if
+	 * the circle crosses the antimeridian. Circles containing a pole span all longitudes.
+	 *
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param kilometers the radius in kilometers.
+	 * @return
+	 */
+	public static double[] boundingBox(double latitude, double longitude, double kilometers) {
+
+		double radius = kilometers / EARTH_RADIUS;
+		double latitudeDelta = Math.toDegrees(radius);
+		double minLatitude = latitude - latitudeDelta, maxLatitude = latitude + latitudeDelta;
+
+		// Half the east-west extent of the circle, wider than the latitude delta scaled by the cosine of the latitude
+		double longitudeDelta = minLatitude <= -90 || maxLatitude >= 90 || radius >= Math.PI / 2 //
+				? 180 //
+				: Math.toDegrees(Math.asin(Math.min(1, Math.sin(radius) / Math.cos(Math.toRadians(latitude)))));
+
+		return new double[] { minLatitude, longitude - longitudeDelta, maxLatitude, longitude + longitudeDelta };
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.geo;
+
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.springframework.util.Assert;
+
+/**
+ * Encoding and decoding of <a href="https://en.wikipedia.org/wiki/Geohash">geohashes</a> as well as covering bounding
+ * boxes with geohash cells.
+ *
+ * @author Oliver Gierke
+ */
+public final class Geohash {
+
+	private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+	private static final int[] DECODE = new int['z' + 1];
+
+	public static final int MAX_PRECISION = 12;
+
+	static {
+
+		Arrays.fill(DECODE, -1);
+
+		for (int i = 0; i < BASE32.length; i++) {
+			DECODE[BASE32[i]] = i;
+		}
+	}
+
+	private Geohash() {}
+
+	/**
+	 * Returns whether the given {@link String} only consists of geohash characters.
+	 *
+	 * @param geohash must not be {@literal null}.
+	 * @return
+	 */
+	public static boolean isValid(String geohash) {
+
+		Assert.notNull(geohash, "Geohash must not be null!");
+
+		for (int i = 0; i < geohash.length(); i++) {
+
+			char character = geohash.charAt(i);
+
+			if (character >= DECODE.length || DECODE[character] < 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the geohash of the given precision for the given coordinates.
+	 *
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param precision the number of characters, between 1 and {@value #MAX_PRECISION}.
+	 * @return
+	 */
+	public static String encode(double latitude, double longitude, int precision) {
+
+		Assert.isTrue(precision > 0 && precision <= MAX_PRECISION, "Invalid geohash precision!");
+
+		double minLatitude = -90, maxLatitude = 90;
+		double minLongitude = -180, maxLongitude = 180;
+
+		char[] result = new char[precision];
+		boolean even = true;
+
+		for (int i = 0; i < precision; i++) {
+
+			int bits = 0;
+
+			for (int bit = 0; bit < 5; bit++) {
+
+				bits <<= 1;
+
+				if (even) {
+
+					double middle = (minLongitude + maxLongitude) / 2;
+
+					if (longitude >= middle) {
+						bits |= 1;
+						minLongitude = middle;
+					} else {
+						maxLongitude = middle;
+					}
+
+				} else {
+
+					double middle = (minLatitude + maxLatitude) / 2;
+
+					if (latitude >= middle) {
+						bits |= 1;
+						minLatitude = middle;
+					} else {
+						maxLatitude = middle;
+					}
+				}
+
+				even = !even;
+			}
+
+			result[i] = BASE32[bits];
+		}
+
+		return new String(result);
+	}
+
+	/**
+	 * Returns the bounding box of the cell described by the given geohash as {@code [minLatitude, minLongitude,
+	 * maxLatitude, maxLongitude]}.
+	 *
+	 * @param geohash must not be {@literal null} or empty.
+	 * @return
+	 */
+	public static double[] bounds(String geohash) {
+
+		Assert.hasText(geohash, "Geohash must not be null or empty!");
+
+		double minLatitude = -90, maxLatitude = 90;
+		double minLongitude = -180, maxLongitude = 180;
+		boolean even = true;
+
+		for (int i = 0; i < geohash.length(); i++) {
+
+			char character = geohash.charAt(i);
+			int bits = character < DECODE.length ? DECODE[character] : -1;
+
+			if (bits < 0) {
+				throw new IllegalArgumentException(String.format("Invalid geohash %s!", geohash));
+			}
+
+			for (int bit = 4; bit >= 0; bit--) {
+
+				boolean set = (bits >> bit & 1) == 1;
+
+				if (even) {
+
+					double middle = (minLongitude + maxLongitude) / 2;
+
+					if (set) {
+						minLongitude = middle;
+					} else {
+						maxLongitude = middle;
+					}
+
+				} else {
+
+					double middle = (minLatitude + maxLatitude) / 2;
+
+					if (set) {
+						minLatitude = middle;
+					} else {
+						maxLatitude = middle;
+					}
+				}
+
+				even = !even;
+			}
+		}
+
+		return new double[] { minLatitude, minLongitude, maxLatitude, maxLongitude };
+	}
+
+	/**
+	 * Returns the center of the cell described by the given geohash as {@code [latitude, longitude]}.
+	 *
+	 * @param geohash must not be {@literal null} or empty.
+	 * @return
+	 */
+	public static double[] center(String geohash) {
+
+		double[] bounds = bounds(geohash);
+
+		return new double[] { (bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2 };
+	}
+
+	/**
+	 * Returns the geohashes of the cells covering the given bounding box, using the highest precision for which no more
+	 * than the given number of cells are needed. Longitudes outside of {@code [-180, 180]} wrap around the antimeridian.
+	 *
+	 * @param minLatitude in degrees.
+	 * @param minLongitude in degrees.
+	 * @param maxLatitude in degrees.
+	 * @param maxLongitude in degrees.
+	 * @param maxCells the maximum number of cells to return, must be greater than zero.
+	 * @return
+	 */
+	public static SortedSet<String> cover(double minLatitude, double minLongitude, double maxLatitude,
+			double maxLongitude, int maxCells) {
+
+		Assert.isTrue(maxCells > 0, "Maximum number of cells must be greater than zero!");
+		Assert.isTrue(minLatitude <= maxLatitude && minLongitude <= maxLongitude, "Invalid bounding box!");
+
+		minLatitude = Math.max(-90, minLatitude);
+		maxLatitude = Math.min(90, maxLatitude);
+
+		for (int precision = MAX_PRECISION; precision > 1; precision--) {
+
+			long rows = cells(minLatitude, maxLatitude, -90, 180, latitudeBits(precision));
+			long columns = cells(minLongitude, maxLongitude, -180, 360, longitudeBits(precision));
+
+			if (rows * columns <= maxCells) {
+				return coverAt(precision, minLatitude, minLongitude, maxLatitude, maxLongitude);
+			}
+		}
+
+		return coverAt(1, minLatitude, minLongitude, maxLatitude, maxLongitude);
+	}
+
+	private static SortedSet<String> coverAt(int precision, double minLatitude, double minLongitude,
+			double maxLatitude, double maxLongitude) {
+
+		int latitudeBits = latitudeBits(precision), longitudeBits = longitudeBits(precision);
+		double height = 180d / (1L << latitudeBits), width = 360d / (1L << longitudeBits);
+		long rows = 1L << latitudeBits, columns = 1L << longitudeBits;
+
+		long fromRow = index(minLatitude, -90, height, rows), toRow = index(maxLatitude, -90, height, rows);
+		long fromColumn = (long) Math.floor((minLongitude + 180) / width);
+		long toColumn = Math.min(fromColumn + columns - 1, (long) Math.floor((maxLongitude + 180) / width));
+
+		SortedSet<String> result = new TreeSet<>();
+
+		for (long row = fromRow; row <= toRow; row++) {
+			for (long column = fromColumn; column <= toColumn; column++) {
+
+				long wrapped = (column % columns + columns) % columns;
+
+				result.add(encode(-90 + (row + 0.5) * height, -180 + (wrapped + 0.5) * width, precision));
+			}
+		}
+
+		return result;
+	}
+
+	private static long cells(double min, double max, double origin, double range, int bits) {
+
+		double size = range / (1L << bits);
+
+		long from = (long) Math.floor((min - origin) / size), to = (long) Math.floor((max - origin) / size);
+
+		return Math.min(1L << bits, to - from + 1);
+	}
+
+	private static long index(double value, double origin, double size, long count) {
+		return Math.max(0, Math.min(count - 1, (long) Math.floor((value - origin) / size)));
+	}
+
+	private static int latitudeBits(int precision) {
+		return 5 * precision / 2;
+	}
+
+	private static int longitudeBits(int precision) {
+		return (5 * precision + 1) / 2;
+	}
+}
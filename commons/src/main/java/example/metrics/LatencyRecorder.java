@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records latencies in microseconds into an HdrHistogram {@link Recorder}, which is wait-free and doesn't allocate
+ * when recording. The values recorded are rolled up into a cumulative histogram on {@link #roll()}, which keeps the
+ * values of the last interval around as well. Latencies are reported in milliseconds.
+ *
+ * @author Oliver Gierke
+ */
+public class LatencyRecorder {
+
+	private static final long MAX = TimeUnit.MINUTES.toMicros(10);
+
+	private final Recorder recorder = new Recorder(MAX, 3);
+	private final Histogram total = new Histogram(MAX, 3);
+
+	private Histogram interval;
+
+	/**
+	 * Records the given latency. Latencies beyond 10 minutes are recorded as 10 minutes.
+	 *
+	 * @param nanos the latency in nanoseconds.
+	 */
+	public void record(long nanos) {
+		recorder.recordValue(Math.max(0, Math.min(MAX, TimeUnit.NANOSECONDS.toMicros(nanos))));
+	}
+
+	/**
+	 * Rolls the values recorded since the last invocation into the cumulative histogram. The interval reported is the
+	 * one between the last two invocations, so callers reporting intervals should roll from a single thread.
+	 */
+	public synchronized void roll() {
+
+		this.interval = recorder.getIntervalHistogram(interval);
+		this.total.add(interval);
+	}
+
+	/**
+	 * Returns the statistics of all values rolled up so far.
+	 *
+	 * @return
+	 */
+	public synchronized Map<String, Number> getTotal() {
+		return describe(total);
+	}
+
+	/**
+	 * Returns the statistics of the last interval rolled, if any, and of all values rolled up so far, keyed by
+	 * {@code interval} and {@code total}.
+	 *
+	 * @return
+	 */
+	public synchronized Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+
+		if (interval != null) {
+			snapshot.put("interval", describe(interval));
+		}
+
+		snapshot.put("total", describe(total));
+
+		return snapshot;
+	}
+
+	private static Map<String, Number> describe(Histogram histogram) {
+
+		Map<String, Number> result = new LinkedHashMap<>();
+
+		result.put("count", histogram.getTotalCount());
+		result.put("mean", toMillis(histogram.getMean()));
+		result.put("p50", toMillis(histogram.getValueAtPercentile(50)));
+		result.put("p99", toMillis(histogram.getValueAtPercentile(99)));
+		result.put("p999", toMillis(histogram.getValueAtPercentile(99.9)));
+		result.put("max", toMillis(histogram.getMaxValue()));
+
+		return result;
+	}
+
+	private static double toMillis(double micros) {
+		return micros / 1000d;
+	}
+}
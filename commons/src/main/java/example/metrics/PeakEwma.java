@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.metrics;
+
+/**
+ * An exponentially weighted moving average of latencies decaying over time. Samples exceeding the current average
+ * replace it right away, so that an instance getting slow is noticed immediately while recovering only gradually.
+ *
+ * @author Oliver Gierke
+ */
+public class PeakEwma {
+
+	private final double decayNanos;
+
+	private double value;
+	private long timestamp;
+	private boolean empty = true;
+
+	/**
+	 * Creates a new {@link PeakEwma} decaying with the given time constant.
+	 *
+	 * @param decayNanos must be greater than zero.
+	 */
+	public PeakEwma(long decayNanos) {
+
+		if (decayNanos <= 0) {
+			throw new IllegalArgumentException("Decay must be greater than zero!");
+		}
+
+		this.decayNanos = decayNanos;
+	}
+
+	/**
+	 * Adds the given sample to the average.
+	 *
+	 * @param sample the latency observed.
+	 * @param now the current time in nanoseconds.
+	 * @return the updated average.
+	 */
+	public synchronized double add(double sample, long now) {
+
+		if (empty || sample > value) {
+			value = sample;
+		} else {
+
+			double weight = Math.exp(-(now - timestamp) / decayNanos);
+			value = value * weight + sample * (1 - weight);
+		}
+
+		timestamp = now;
+		empty = false;
+
+		return value;
+	}
+
+	/**
+	 * Returns the current average, {@literal 0} if no sample was added yet.
+	 *
+	 * @return
+	 */
+	public synchronized double get() {
+		return value;
+	}
+
+	/**
+	 * Returns whether no sample was added yet.
+	 *
+	 * @return
+	 */
+	public synchronized boolean isEmpty() {
+		return empty;
+	}
+}
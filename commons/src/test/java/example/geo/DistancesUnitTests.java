@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.geo;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Distances}.
+ *
+ * @author Oliver Gierke
+ */
+public class DistancesUnitTests {
+
+	static final double KILOMETERS_PER_DEGREE = 2 * Math.PI * Distances.EARTH_RADIUS / 360;
+
+	@Test
+	public void calculatesGreatCircleDistance() {
+
+		assertThat(Distances.between(0, 0, 0, 1), is(closeTo(KILOMETERS_PER_DEGREE, 1e-9)));
+		assertThat(Distances.between(0, 0, 1, 0), is(closeTo(KILOMETERS_PER_DEGREE, 1e-9)));
+		assertThat(Distances.between(40.7128, -74.0060, 40.7128, -74.0060), is(0d));
+	}
+
+	@Test
+	public void calculatesDistanceAcrossTheAntimeridian() {
+		assertThat(Distances.between(0, 179.5, 0, -179.5), is(closeTo(KILOMETERS_PER_DEGREE, 1e-9)));
+	}
+
+	@Test
+	public void calculatesDistanceBetweenAntipodes() {
+		assertThat(Distances.between(0, 0, 0, 180), is(closeTo(Math.PI * Distances.EARTH_RADIUS, 1e-6)));
+	}
+
+	@Test
+	public void calculatesBoundingBoxAtTheEquator() {
+
+		double[] box = Distances.boundingBox(0, 0, KILOMETERS_PER_DEGREE);
+
+		assertThat(box[0], is(closeTo(-1, 1e-9)));
+		assertThat(box[1], is(closeTo(-1, 1e-9)));
+		assertThat(box[2], is(closeTo(1, 1e-9)));
+		assertThat(box[3], is(closeTo(1, 1e-9)));
+	}
+
+	@Test
+	public void widensLongitudesTowardsThePoles() {
+
+		double[] box = Distances.boundingBox(60, 0, KILOMETERS_PER_DEGREE);
+
+		assertThat(box[3] - box[1], is(closeTo(4.0006096, 1e-7)));
+	}
+
+	@Test
+	public void containsEastAndWestEdgesOfTheCircle() {
+
+		double kilometers = 1000, radius = kilometers / Distances.EARTH_RADIUS;
+		double[] box = Distances.boundingBox(60, 0, kilometers);
+
+		// The circle is widest north of its center's latitude, as the meridians converge towards the pole
+		double latitude = Math.toDegrees(Math.asin(Math.sin(Math.toRadians(60)) / Math.cos(radius)));
+
+		assertThat(Distances.between(60, 0, latitude, box[1]), is(closeTo(kilometers, 1e-6)));
+		assertThat(Distances.between(60, 0, latitude, box[3]), is(closeTo(kilometers, 1e-6)));
+	}
+
+	@Test
+	public void exceedsLongitudeRangeAcrossTheAntimeridian() {
+
+		double[] box = Distances.boundingBox(0, 179.5, KILOMETERS_PER_DEGREE);
+
+		assertThat(box[3], is(closeTo(180.5, 1e-9)));
+	}
+
+	@Test
+	public void spansAllLongitudesForCirclesContainingAPole() {
+
+		double[] box = Distances.boundingBox(89.5, 10, KILOMETERS_PER_DEGREE);
+
+		assertThat(box[1], is(-170d));
+		assertThat(box[3], is(190d));
+		assertThat(box[2], is(greaterThan(90d)));
+	}
+}
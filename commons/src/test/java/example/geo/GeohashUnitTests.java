@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.geo;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.SortedSet;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Geohash}.
+ *
+ * @author Oliver Gierke
+ */
+public class GeohashUnitTests {
+
+	@Test
+	public void encodesCoordinates() {
+
+		assertThat(Geohash.encode(57.64911, 10.40744, 11), is("u4pruydqqvj"));
+		assertThat(Geohash.encode(57.64911, 10.40744, 3), is("u4p"));
+		assertThat(Geohash.encode(-90, -180, 1), is("0"));
+		assertThat(Geohash.encode(90, 180, 1), is("z"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPrecisionBeyondMaximum() {
+		Geohash.encode(0, 0, Geohash.MAX_PRECISION + 1);
+	}
+
+	@Test
+	public void detectsInvalidGeohashes() {
+
+		assertThat(Geohash.isValid("dr5ru"), is(true));
+		assertThat(Geohash.isValid(""), is(true));
+		assertThat(Geohash.isValid("dra"), is(false));
+		assertThat(Geohash.isValid("DR5"), is(false));
+		assertThat(Geohash.isValid("dr5é"), is(false));
+	}
+
+	@Test
+	public void decodesBoundsContainingTheEncodedCoordinates() {
+
+		double[] bounds = Geohash.bounds(Geohash.encode(40.7128, -74.0060, 7));
+
+		assertThat(bounds[0], is(lessThanOrEqualTo(40.7128)));
+		assertThat(bounds[2], is(greaterThan(40.7128)));
+		assertThat(bounds[1], is(lessThanOrEqualTo(-74.0060)));
+		assertThat(bounds[3], is(greaterThan(-74.0060)));
+	}
+
+	@Test
+	public void decodesSingleCharacterCell() {
+		assertThat(Geohash.bounds("s"), is(new double[] { 0, 0, 45, 45 }));
+	}
+
+	@Test
+	public void centerEncodesToSameCell() {
+
+		double[] center = Geohash.center("dr5ru");
+
+		assertThat(Geohash.encode(center[0], center[1], 5), is("dr5ru"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidGeohashOnDecoding() {
+		Geohash.bounds("dra");
+	}
+
+	@Test
+	public void coversBoundingBoxWithCellsIntersectingIt() {
+
+		SortedSet<String> cells = Geohash.cover(40.70, -74.02, 40.72, -73.99, 16);
+
+		assertThat(cells.size(), is(both(greaterThan(0)).and(lessThanOrEqualTo(16))));
+
+		for (String cell : cells) {
+
+			double[] bounds = Geohash.bounds(cell);
+
+			assertThat(bounds[0], is(lessThanOrEqualTo(40.72)));
+			assertThat(bounds[2], is(greaterThanOrEqualTo(40.70)));
+			assertThat(bounds[1], is(lessThanOrEqualTo(-73.99)));
+			assertThat(bounds[3], is(greaterThanOrEqualTo(-74.02)));
+		}
+
+		assertThat(cells, hasItem(startsWith(Geohash.encode(40.7128, -74.0060, 2))));
+	}
+
+	@Test
+	public void coarsensPrecisionToStayWithinMaximumNumberOfCells() {
+
+		SortedSet<String> cells = Geohash.cover(40.70, -74.02, 40.72, -73.99, 1);
+
+		assertThat(cells, hasSize(1));
+		assertThat(Geohash.encode(40.7128, -74.0060, 12), startsWith(cells.first()));
+	}
+
+	@Test
+	public void wrapsCellsAroundTheAntimeridian() {
+
+		SortedSet<String> cells = Geohash.cover(-1, 179, 1, 181, 4);
+
+		assertThat(cells, hasItem(Geohash.encode(0, 179.5, cells.first().length())));
+		assertThat(cells, hasItem(Geohash.encode(0, -179.5, cells.first().length())));
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LatencyRecorder}.
+ *
+ * @author Oliver Gierke
+ */
+public class LatencyRecorderUnitTests {
+
+	LatencyRecorder recorder = new LatencyRecorder();
+
+	@Test
+	public void onlyReportsValuesRolledUp() {
+
+		recorder.record(TimeUnit.MILLISECONDS.toNanos(10));
+
+		assertThat(recorder.getTotal(), hasEntry("count", (Number) 0L));
+
+		recorder.roll();
+
+		assertThat(recorder.getTotal(), hasEntry("count", (Number) 1L));
+	}
+
+	@Test
+	public void reportsLatenciesInMilliseconds() {
+
+		for (int i = 1; i <= 100; i++) {
+			recorder.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		recorder.roll();
+
+		Map<String, Number> total = recorder.getTotal();
+
+		assertThat(total.get("mean").doubleValue(), is(closeTo(50.5, 0.1)));
+		assertThat(total.get("p50").doubleValue(), is(closeTo(50, 0.1)));
+		assertThat(total.get("p99").doubleValue(), is(closeTo(99, 0.1)));
+		assertThat(total.get("max").doubleValue(), is(closeTo(100, 0.1)));
+	}
+
+	@Test
+	public void accumulatesTotalAcrossIntervals() {
+
+		recorder.record(TimeUnit.MILLISECONDS.toNanos(10));
+		recorder.roll();
+		recorder.record(TimeUnit.MILLISECONDS.toNanos(20));
+		recorder.record(TimeUnit.MILLISECONDS.toNanos(30));
+		recorder.roll();
+
+		Map<String, Object> snapshot = recorder.snapshot();
+
+		assertThat(((Map<?, ?>) snapshot.get("interval")).get("count"), is((Object) 2L));
+		assertThat(((Map<?, ?>) snapshot.get("total")).get("count"), is((Object) 3L));
+	}
+
+	@Test
+	public void omitsIntervalBeforeFirstRoll() {
+		assertThat(recorder.snapshot().keySet(), contains("total"));
+	}
+
+	@Test
+	public void capsOutOfRangeLatencies() {
+
+		recorder.record(-1);
+		recorder.record(TimeUnit.HOURS.toNanos(1));
+		recorder.roll();
+
+		Map<String, Number> total = recorder.getTotal();
+
+		assertThat(total.get("count"), is((Number) 2L));
+		assertThat(total.get("max").doubleValue(), is(closeTo(TimeUnit.MINUTES.toMillis(10), 600)));
+	}
+}
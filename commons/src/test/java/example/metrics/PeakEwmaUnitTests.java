@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PeakEwma}.
+ *
+ * @author Oliver Gierke
+ */
+public class PeakEwmaUnitTests {
+
+	static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNonPositiveDecay() {
+		new PeakEwma(0);
+	}
+
+	@Test
+	public void usesFirstSampleAsIs() {
+
+		PeakEwma average = new PeakEwma(DECAY);
+
+		assertThat(average.isEmpty(), is(true));
+		assertThat(average.get(), is(0.0));
+
+		average.add(100, 0);
+
+		assertThat(average.isEmpty(), is(false));
+		assertThat(average.get(), is(100.0));
+	}
+
+	@Test
+	public void replacesAverageWithHigherSampleRightAway() {
+
+		PeakEwma average = new PeakEwma(DECAY);
+
+		average.add(10, 0);
+
+		assertThat(average.add(500, 1), is(500.0));
+	}
+
+	@Test
+	public void decaysTowardsLowerSamplesOverTime() {
+
+		PeakEwma average = new PeakEwma(DECAY);
+
+		average.add(100, 0);
+
+		double weight = Math.exp(-1);
+
+		assertThat(average.add(10, DECAY), is(closeTo(100 * weight + 10 * (1 - weight), 1e-9)));
+	}
+
+	@Test
+	public void decaysSlowlyForSamplesInQuickSuccession() {
+
+		PeakEwma average = new PeakEwma(DECAY);
+
+		average.add(100, 0);
+
+		assertThat(average.add(10, TimeUnit.MILLISECONDS.toNanos(1)), is(closeTo(100, 0.01)));
+		assertThat(average.add(10, TimeUnit.SECONDS.toNanos(100)), is(closeTo(10, 0.01)));
+	}
+}
@@ -15,30 +15,96 @@
  */
 package example.customers;
 
+import example.geo.Geohash;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import lombok.Value;
+import lombok.experimental.NonFinal;
 
 import java.util.UUID;
 
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Embeddable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
+ * As the identifier is assigned on creation, {@link Customer}s keep track of whether they have been persisted yet
+ * themselves. Otherwise the repository would consider them existing entities and have them merged, which requires an
+ * additional SELECT per insert.
+ * <p>
+ * Customers, including their {@link Address}, are cached in the second-level cache if it's enabled
+ * ({@code customers.cache.enabled}).
+ * <p>
+ * The geohash of the customer's location is maintained in an indexed column, so that customers near a location can be
+ * looked up by geohash prefix (see {@link CustomerRepositoryCustom#findNear(org.springframework.data.geo.Point,
+ * org.springframework.data.geo.Distance)}).
+ *
  * @author Oliver Gierke
  */
 @Value
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = @Index(name = "customer_geohash", columnList = "geohash"))
 @NoArgsConstructor(force = true)
 @RequiredArgsConstructor
-public class Customer {
+@ToString(exclude = { "isNew", "geohash" })
+@EqualsAndHashCode(exclude = { "isNew", "geohash" })
+public class Customer implements Persistable<UUID> {
+
+	private static final long serialVersionUID = 3358547474516442391L;
 
 	@Id UUID id = UUID.randomUUID();
 	String firstname, lastname;
 	Address address;
 
+	@JsonIgnore @NonFinal @Column(length = Geohash.MAX_PRECISION) String geohash;
+	@Transient @NonFinal boolean isNew = true;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.data.domain.Persistable#isNew()
+	 */
+	@Override
+	@JsonIgnore
+	public boolean isNew() {
+		return isNew;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.isNew = false;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void updateGeohash() {
+
+		Address.Location location = address == null ? null : address.getLocation();
+
+		this.geohash = location == null ? null
+				: Geohash.encode(location.getLatitude(), location.getLongitude(), Geohash.MAX_PRECISION);
+	}
+
 	/**
 	 * @author Oliver Gierke
 	 */
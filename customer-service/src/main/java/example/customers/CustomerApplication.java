@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2015 the original author or authors.
+ * Copyright 2014-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,15 @@ package example.customers;
 
 import example.customers.Customer.Address;
 import example.customers.Customer.Address.Location;
+import example.customers.integration.InstanceLatencyTracker;
+import example.customers.integration.LatencyAwareServiceInstanceProvider;
 
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.circuitbreaker.EnableCircuitBreaker;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -59,6 +62,28 @@ public class CustomerApplication {
 		return new DiscoveredResource(provider, traverson -> traverson.follow("stores", "search", "by-location"));
 	}
 
+	/**
+	 * A remote {@link DiscoveredResource} that provides functionality to lookup the stores closest to a location.
+	 * 
+	 * @param provider
+	 * @return
+	 */
+	@Bean
+	public DiscoveredResource storesNearestResource(ServiceInstanceProvider provider) {
+		return new DiscoveredResource(provider, traverson -> traverson.follow("stores", "search", "nearest"));
+	}
+
+	/**
+	 * A remote {@link DiscoveredResource} that provides functionality to lookup stores for many locations at once.
+	 * 
+	 * @param provider
+	 * @return
+	 */
+	@Bean
+	public DiscoveredResource storesByLocationsResource(ServiceInstanceProvider provider) {
+		return new DiscoveredResource(provider, traverson -> traverson.follow("stores", "search", "by-locations"));
+	}
+
 	/**
 	 * A simple default {@link ServiceInstanceProvider} to use a hard-coded remote service to detect the store locations.
 	 * 
@@ -82,7 +107,22 @@ public class CustomerApplication {
 	@EnableDiscoveryClient
 	static class CloudConfiguration {
 
+		/**
+		 * Chooses among all store instances based on their latency and the number of requests in flight.
+		 * 
+		 * @param client
+		 * @param tracker
+		 * @return
+		 */
+		@Bean
+		@ConditionalOnProperty(name = "customers.stores.balancing.latency-aware", matchIfMissing = true)
+		public LatencyAwareServiceInstanceProvider latencyAwareServiceProvider(DiscoveryClient client,
+				InstanceLatencyTracker tracker) {
+			return new LatencyAwareServiceInstanceProvider(client, "stores", tracker);
+		}
+
 		@Bean
+		@ConditionalOnProperty(name = "customers.stores.balancing.latency-aware", havingValue = "false")
 		public DynamicServiceInstanceProvider dynamicServiceProvider(DiscoveryClient client) {
 			return new DynamicServiceInstanceProvider(client, "stores");
 		}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import example.customers.Customer.Address;
+import example.customers.Customer.Address.Location;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Exports all {@link Customer}s under {@code /customers/export}, as newline delimited JSON by default or as CSV if
+ * requested through the {@code Accept} header. The customers are read from a database cursor and written to the
+ * response as they're produced. Each customer is detached once written, so that memory consumption doesn't depend on
+ * the number of customers exported.
+ *
+ * @author Oliver Gierke
+ * @see CustomerRepository#streamAll()
+ */
+@RepositoryRestController
+class CustomerExportController {
+
+	static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+	private static final String CSV_HEADER = "id,firstname,lastname,street,zipCode,city,latitude,longitude";
+	private static final int FLUSH_INTERVAL = 100;
+
+	private final CustomerRepository repository;
+	private final ObjectMapper mapper;
+	private final TransactionTemplate transactions;
+
+	private @PersistenceContext EntityManager em;
+
+	/**
+	 * Creates a new {@link CustomerExportController} for the given {@link CustomerRepository}, {@link ObjectMapper} and
+	 * {@link PlatformTransactionManager}.
+	 *
+	 * @param repository must not be {@literal null}.
+	 * @param mapper must not be {@literal null}.
+	 * @param transactionManager must not be {@literal null}.
+	 */
+	@Autowired
+	public CustomerExportController(@NonNull CustomerRepository repository, @NonNull ObjectMapper mapper,
+			@NonNull PlatformTransactionManager transactionManager) {
+
+		this.repository = repository;
+		this.mapper = mapper;
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.transactions.setReadOnly(true);
+	}
+
+	/**
+	 * Streams all {@link Customer}s in the format requested.
+	 *
+	 * @param accept the media types accepted by the client.
+	 * @return
+	 */
+	@GetMapping("/customers/export")
+	ResponseEntity<StreamingResponseBody> export(
+			@RequestHeader(name = HttpHeaders.ACCEPT, defaultValue = "*/*") String accept) {
+
+		boolean csv = prefersCsv(MediaType.parseMediaTypes(accept));
+		ObjectWriter writer = mapper.writerFor(Customer.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+		StreamingResponseBody body = (OutputStream stream) -> {
+
+			Writer output = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+
+			// The body is written after the request has been handled, so we need our own transaction to keep the cursor open
+			transactions.execute(status -> {
+
+				try (Stream<Customer> customers = repository.streamAll()) {
+
+					if (csv) {
+						output.write(CSV_HEADER);
+						output.write('\n');
+					}
+
+					Iterator<Customer> iterator = customers.iterator();
+					int written = 0;
+
+					while (iterator.hasNext()) {
+
+						Customer customer = iterator.next();
+
+						if (csv) {
+							writeCsv(customer, output);
+						} else {
+							writer.writeValue(output, customer);
+						}
+
+						output.write('\n');
+						em.detach(customer);
+
+						if (++written % FLUSH_INTERVAL == 0) {
+							output.flush();
+						}
+					}
+
+					output.flush();
+
+				} catch (IOException o_O) {
+					throw new IllegalStateException("Writing customers failed!", o_O);
+				}
+
+				return null;
+			});
+		};
+
+		return ResponseEntity.ok() //
+				.contentType(csv ? CSV : CustomerIngestController.NDJSON) //
+				.body(body);
+	}
+
+	private static boolean prefersCsv(List<MediaType> accepted) {
+
+		MediaType.sortBySpecificityAndQuality(accepted);
+
+		return accepted.stream() //
+				.filter(it -> !it.isWildcardType()) //
+				.findFirst() //
+				.map(it -> it.isCompatibleWith(CSV)) //
+				.orElse(false);
+	}
+
+	private static void writeCsv(Customer customer, Writer output) throws IOException {
+
+		Address address = customer.getAddress();
+		Location location = address == null ? null : address.getLocation();
+
+		output.write(customer.getId().toString());
+		output.write(',');
+		writeCsv(customer.getFirstname(), output);
+		output.write(',');
+		writeCsv(customer.getLastname(), output);
+		output.write(',');
+		writeCsv(address == null ? null : address.getStreet(), output);
+		output.write(',');
+		writeCsv(address == null ? null : address.getZipCode(), output);
+		output.write(',');
+		writeCsv(address == null ? null : address.getCity(), output);
+		output.write(',');
+
+		if (location != null) {
+			output.write(Double.toString(location.getLatitude()));
+			output.write(',');
+			output.write(Double.toString(location.getLongitude()));
+		} else {
+			output.write(',');
+		}
+	}
+
+	/**
+	 * Writes the given value quoted if it contains a separator, quote or line break, doubling contained quotes.
+	 *
+	 * @param value can be {@literal null}.
+	 * @param output must not be {@literal null}.
+	 * @throws IOException
+	 */
+	private static void writeCsv(String value, Writer output) throws IOException {
+
+		if (value == null) {
+			return;
+		}
+
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			output.write(value);
+			return;
+		}
+
+		output.write('"');
+		output.write(value.replace("\"", "\"\""));
+		output.write('"');
+	}
+}
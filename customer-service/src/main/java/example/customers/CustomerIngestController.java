@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+
+/**
+ * Bulk ingest of {@link Customer}s under {@code /customers/bulk}. The request body is either newline delimited JSON
+ * (one customer per line) or a JSON array of customers. Customers are read from the request as they're inserted, so
+ * that the request body is never held in memory as a whole. The ingest is atomic, malformed input as well as customer
+ * identifiers contained more than once or already in use reject the entire request.
+ *
+ * @author Oliver Gierke
+ * @see CustomerRepositoryCustom#insertAll(java.util.Iterator)
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class CustomerIngestController {
+
+	static final String NDJSON = "application/x-ndjson";
+
+	private final @NonNull CustomerRepository repository;
+	private final @NonNull ObjectMapper mapper;
+
+	/**
+	 * Inserts all {@link Customer}s contained in the given request body.
+	 *
+	 * @param body
+	 * @return the number of {@link Customer}s inserted.
+	 * @throws IOException
+	 */
+	@PostMapping(path = "/customers/bulk", consumes = { NDJSON, "application/json" })
+	ResponseEntity<Map<String, Long>> ingest(InputStream body) throws IOException {
+
+		ObjectReader reader = mapper.readerFor(Customer.class);
+
+		// Iterates over the elements in case of a root-level array, over whitespace separated values otherwise
+		try (MappingIterator<Customer> customers = reader.readValues(body)) {
+
+			long count = repository.insertAll(customers);
+
+			return ResponseEntity.status(HttpStatus.CREATED).body(Collections.singletonMap("count", count));
+		}
+	}
+
+	@ExceptionHandler({ JsonProcessingException.class, RuntimeJsonMappingException.class,
+			DataIntegrityViolationException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	void handle(Exception o_O) {}
+}
@@ -15,11 +15,56 @@
  */
 package example.customers;
 
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 /**
  * @author Oliver Gierke
  */
-public interface CustomerRepository extends CrudRepository<Customer, UUID> {}
+public interface CustomerRepository extends CrudRepository<Customer, UUID>, CustomerRepositoryCustom {
+
+	String FETCH_SIZE = "1000";
+
+	/**
+	 * Returns all {@link Customer}s, caching the result in the query cache if enabled.
+	 *
+	 * @return
+	 */
+	@Override
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	Iterable<Customer> findAll();
+
+	/**
+	 * Returns all {@link Customer}s located in the geohash cell with the given prefix.
+	 *
+	 * @param prefix must not be {@literal null}.
+	 * @return
+	 */
+	@RestResource(path = "by-geohash", rel = "by-geohash")
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	List<Customer> findByGeohashStartingWith(@Param("prefix") String prefix);
+
+	/**
+	 * Streams all {@link Customer}s from a database cursor fetching {@value #FETCH_SIZE} rows per round trip. The
+	 * {@link Customer}s are loaded read-only. Needs to be called within a transaction, the {@link Stream} has to be
+	 * closed after use.
+	 *
+	 * @return
+	 */
+	@RestResource(exported = false)
+	@Query("select c from Customer c")
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), //
+			@QueryHint(name = HINT_READONLY, value = "true") })
+	Stream<Customer> streamAll();
+}
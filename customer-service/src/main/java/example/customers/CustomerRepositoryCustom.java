@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import java.util.Iterator;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+
+/**
+ * Custom repository methods for {@link Customer}s.
+ *
+ * @author Oliver Gierke
+ */
+public interface CustomerRepositoryCustom {
+
+	/**
+	 * Inserts all given new {@link Customer}s in a single transaction. The inserts are sent to the database in JDBC
+	 * batches, the persistence context is flushed and cleared after each batch so that it doesn't grow with the number
+	 * of customers. The {@link Customer}s are consumed as the {@link Iterator} produces them and are detached afterwards.
+	 * Identifiers contained more than once within a batch are rejected right away, ones colliding with customers of
+	 * earlier batches or already stored by the database's primary key, both as {@link DataIntegrityViolationException}.
+	 *
+	 * @param customers must not be {@literal null}.
+	 * @return the number of {@link Customer}s inserted.
+	 * @throws DataIntegrityViolationException in case a {@link Customer} with the same identifier already exists.
+	 */
+	long insertAll(Iterator<? extends Customer> customers);
+
+	/**
+	 * Returns all {@link Customer}s within the given distance of the given location, ordered by distance. Candidates are
+	 * selected in the database by the prefixes of the geohash cells covering the bounding box of the search area and the
+	 * bounding box itself. The exact distances are calculated in memory.
+	 *
+	 * @param location must not be {@literal null}, x being the longitude, y the latitude.
+	 * @param distance must not be {@literal null}.
+	 * @return
+	 */
+	GeoResults<Customer> findNear(Point location, Distance distance);
+}
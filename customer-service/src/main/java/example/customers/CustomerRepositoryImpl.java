@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import static org.hibernate.jpa.QueryHints.*;
+
+import example.customers.Customer.Address.Location;
+import example.geo.Distances;
+import example.geo.Geohash;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+/**
+ * Implementation of {@link CustomerRepositoryCustom}. The batch size ({@code customers.ingest.batch-size}) should match
+ * the JDBC batch size configured for Hibernate.
+ *
+ * @author Oliver Gierke
+ */
+class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+
+	private static final int MAX_CELLS = 16;
+
+	private @PersistenceContext EntityManager em;
+	private @Value("${customers.ingest.batch-size:500}") int batchSize;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see example.customers.CustomerRepositoryCustom#insertAll(java.util.Iterator)
+	 */
+	@Override
+	@Transactional
+	public long insertAll(Iterator<? extends Customer> customers) {
+
+		Assert.notNull(customers, "Customers must not be null!");
+
+		long count = 0;
+
+		// Only the identifiers of the current batch, duplicates across batches violate the primary key on flush
+		Set<UUID> ids = new HashSet<>(batchSize * 2);
+
+		while (customers.hasNext()) {
+
+			Customer customer = customers.next();
+
+			if (!ids.add(customer.getId())) {
+				throw new DataIntegrityViolationException(
+						String.format("Customer %s contained more than once!", customer.getId()));
+			}
+
+			em.persist(customer);
+
+			if (++count % batchSize == 0) {
+				em.flush();
+				em.clear();
+				ids.clear();
+			}
+		}
+
+		em.flush();
+		em.clear();
+
+		return count;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see example.customers.CustomerRepositoryCustom#findNear(org.springframework.data.geo.Point, org.springframework.data.geo.Distance)
+	 */
+	@Override
+	public GeoResults<Customer> findNear(Point location, Distance distance) {
+
+		Assert.notNull(location, "Location must not be null!");
+		Assert.notNull(distance, "Distance must not be null!");
+
+		double latitude = location.getY(), longitude = location.getX();
+		double kilometers = distance.in(Metrics.KILOMETERS).getValue();
+
+		double[] box = Distances.boundingBox(latitude, longitude, kilometers);
+		double minLatitude = box[0], minLongitude = box[1], maxLatitude = box[2], maxLongitude = box[3];
+
+		SortedSet<String> cells = Geohash.cover(minLatitude, minLongitude, maxLatitude, maxLongitude, MAX_CELLS);
+		boolean wraps = minLongitude < -180 || maxLongitude > 180;
+
+		StringBuilder builder = new StringBuilder("select c from Customer c where (");
+		int index = 0;
+
+		for (Iterator<String> iterator = cells.iterator(); iterator.hasNext(); index++) {
+
+			builder.append("c.geohash like :cell").append(index);
+
+			if (iterator.hasNext()) {
+				builder.append(" or ");
+			}
+		}
+
+		builder.append(") and c.address.location.latitude between :minLatitude and :maxLatitude");
+
+		if (!wraps) {
+			builder.append(" and c.address.location.longitude between :minLongitude and :maxLongitude");
+		}
+
+		TypedQuery<Customer> query = em.createQuery(builder.toString(), Customer.class) //
+				.setParameter("minLatitude", minLatitude) //
+				.setParameter("maxLatitude", maxLatitude) //
+				.setHint(HINT_CACHEABLE, true);
+
+		if (!wraps) {
+			query.setParameter("minLongitude", minLongitude).setParameter("maxLongitude", maxLongitude);
+		}
+
+		index = 0;
+
+		for (String cell : cells) {
+			query.setParameter("cell" + index++, cell + "%");
+		}
+
+		List<GeoResult<Customer>> results = new ArrayList<>();
+
+		for (Customer customer : query.getResultList()) {
+
+			Location candidate = customer.getAddress().getLocation();
+			double result = Distances.between(latitude, longitude, candidate.getLatitude(), candidate.getLongitude());
+
+			if (result <= kilometers) {
+				results.add(new GeoResult<>(customer, new Distance(result, Metrics.KILOMETERS)));
+			}
+		}
+
+		results.sort(Comparator.comparingDouble(it -> it.getDistance().getValue()));
+
+		return new GeoResults<>(results, Metrics.KILOMETERS);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.format.DistanceFormatter;
+import org.springframework.data.geo.format.PointFormatter;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Additional search resources for {@link Customer}s:
+ * <ul>
+ * <li>{@code /customers/search/near} returns the customers within the given distance of a location, e.g. a store,
+ * ordered by distance.</li>
+ * </ul>
+ *
+ * @author Oliver Gierke
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class CustomerSearchController {
+
+	static final String NEAR_REL = "near";
+
+	private static final int MAX_SIZE = 1000;
+
+	private final @NonNull CustomerRepository repository;
+
+	/**
+	 * Returns the {@link Customer}s within the given distance of the given location.
+	 *
+	 * @param location the location formatted as {@code latitude,longitude}.
+	 * @param distance the distance including its metric, e.g. {@code 5km}.
+	 * @param size the maximum number of customers to return.
+	 * @param assembler
+	 * @return
+	 */
+	@GetMapping("/customers/search/" + NEAR_REL)
+	ResponseEntity<Resources<PersistentEntityResource>> findNear(@RequestParam String location,
+			@RequestParam String distance, @RequestParam(defaultValue = "20") int size,
+			PersistentEntityResourceAssembler assembler) {
+
+		if (size < 1 || size > MAX_SIZE) {
+			throw new IllegalArgumentException(String.format("Size must be between 1 and %s!", MAX_SIZE));
+		}
+
+		Point point = PointFormatter.INSTANCE.convert(location);
+		Distance maxDistance = DistanceFormatter.INSTANCE.convert(distance);
+
+		List<PersistentEntityResource> content = repository.findNear(point, maxDistance).getContent().stream() //
+				.limit(size) //
+				.map(GeoResult::getContent) //
+				.map(assembler::toResource) //
+				.collect(Collectors.toList());
+
+		Resources<PersistentEntityResource> resources = new Resources<>(content);
+		resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+		return ResponseEntity.ok(resources);
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	void handle(IllegalArgumentException o_O) {}
+}
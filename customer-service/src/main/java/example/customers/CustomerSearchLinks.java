@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import org.springframework.data.rest.webmvc.RepositorySearchesResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Advertises the custom search resources for {@link Customer}s in the search resource exposed by Spring Data REST.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+class CustomerSearchLinks implements ResourceProcessor<RepositorySearchesResource> {
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.ResourceProcessor#process(org.springframework.hateoas.ResourceSupport)
+	 */
+	@Override
+	public RepositorySearchesResource process(RepositorySearchesResource resource) {
+
+		if (!Customer.class.equals(resource.getDomainType())) {
+			return resource;
+		}
+
+		String base = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUriString();
+
+		resource.add(new Link(base + "/" + CustomerSearchController.NEAR_REL + "{?location,distance,size}",
+				CustomerSearchController.NEAR_REL));
+
+		return resource;
+	}
+}
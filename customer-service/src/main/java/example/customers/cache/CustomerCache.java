@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import example.customers.Customer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Access to the second-level cache entries of {@link Customer}s. Exposes the hits, misses and puts of the customer
+ * cache region and the query cache as {@code customers.cache.*} metrics, as well as the number of invalidations sent
+ * to and received from other instances.
+ *
+ * @author Oliver Gierke
+ */
+public class CustomerCache implements PublicMetrics {
+
+	static final String REGION = Customer.class.getName();
+
+	private final SessionFactory sessionFactory;
+	private final LongAdder published = new LongAdder(), received = new LongAdder();
+
+	/**
+	 * Creates a new {@link CustomerCache} for the given {@link EntityManagerFactory}.
+	 *
+	 * @param factory must not be {@literal null}.
+	 */
+	public CustomerCache(EntityManagerFactory factory) {
+		this.sessionFactory = factory.unwrap(SessionFactory.class);
+	}
+
+	/**
+	 * Evicts the {@link Customer} with the given identifier as well as all cached query results, as those might contain
+	 * the customer, too.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	public void evict(UUID id) {
+
+		sessionFactory.getCache().evictEntity(Customer.class, id);
+		sessionFactory.getCache().evictDefaultQueryRegion();
+
+		received.increment();
+	}
+
+	/**
+	 * Records the publication of an invalidation.
+	 */
+	void published() {
+		published.increment();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.PublicMetrics#metrics()
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+
+		Statistics statistics = sessionFactory.getStatistics();
+		SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(REGION);
+
+		List<Metric<?>> metrics = new ArrayList<>();
+
+		if (region != null) {
+			metrics.add(new Metric<>("customers.cache.hits", region.getHitCount()));
+			metrics.add(new Metric<>("customers.cache.misses", region.getMissCount()));
+			metrics.add(new Metric<>("customers.cache.puts", region.getPutCount()));
+			metrics.add(new Metric<>("customers.cache.size", region.getElementCountInMemory()));
+		}
+
+		metrics.add(new Metric<>("customers.cache.query.hits", statistics.getQueryCacheHitCount()));
+		metrics.add(new Metric<>("customers.cache.query.misses", statistics.getQueryCacheMissCount()));
+		metrics.add(new Metric<>("customers.cache.invalidations.sent", published.sum()));
+		metrics.add(new Metric<>("customers.cache.invalidations.received", received.sum()));
+
+		return metrics;
+	}
+}
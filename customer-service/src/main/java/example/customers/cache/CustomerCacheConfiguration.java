@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Registers the components to access and invalidate the second-level cache for customers if
+ * {@code customers.cache.enabled} is set to {@literal true}. Invalidations are sent to the other instances registered
+ * with the service registry in the {@code cloud} profile and handed to subscribers within the same JVM otherwise. Other
+ * instances' invalidations are received by the {@link CustomerCacheMvcEndpoint} on the management server.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "customers.cache", name = "enabled", havingValue = "true")
+class CustomerCacheConfiguration {
+
+	@Bean
+	public CustomerCache customerCache(EntityManagerFactory factory) {
+		return new CustomerCache(factory);
+	}
+
+	@Bean
+	@Profile("!cloud")
+	public LocalInvalidationChannel localInvalidationChannel() {
+		return new LocalInvalidationChannel();
+	}
+
+	@Bean
+	@Profile("cloud")
+	public HttpInvalidationChannel httpInvalidationChannel(DiscoveryClient client, RestTemplateBuilder builder) {
+		return new HttpInvalidationChannel(client, builder.build());
+	}
+
+	@Bean
+	public CustomerCacheEndpoint customerCacheEndpoint(CustomerCache cache) {
+		return new CustomerCacheEndpoint(cache);
+	}
+
+	@Bean
+	public CustomerCacheMvcEndpoint customerCacheMvcEndpoint(CustomerCacheEndpoint endpoint) {
+		return new CustomerCacheMvcEndpoint(endpoint);
+	}
+
+	@Bean
+	public CustomerCacheInvalidationListener customerCacheInvalidationListener(EntityManagerFactory factory,
+			InvalidationChannel channel, CustomerCache cache) {
+
+		CustomerCacheInvalidationListener listener = new CustomerCacheInvalidationListener(channel, cache);
+
+		EventListenerRegistry registry = factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+		return listener;
+	}
+}
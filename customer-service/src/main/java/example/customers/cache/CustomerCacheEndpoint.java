@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Exposes the {@code customers.cache.*} metrics under {@code /customercache}. The endpoint is sensitive and served by
+ * the management server, so that invalidations (see {@link CustomerCacheMvcEndpoint}) can't be triggered through the
+ * public port.
+ *
+ * @author Oliver Gierke
+ * @see CustomerCacheMvcEndpoint
+ */
+public class CustomerCacheEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+	static final String ID = "customercache";
+
+	private final CustomerCache cache;
+
+	/**
+	 * Creates a new {@link CustomerCacheEndpoint} for the given {@link CustomerCache}.
+	 *
+	 * @param cache must not be {@literal null}.
+	 */
+	public CustomerCacheEndpoint(@NonNull CustomerCache cache) {
+
+		super(ID, true);
+
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the {@link CustomerCache} backing the endpoint.
+	 *
+	 * @return
+	 */
+	CustomerCache getCache() {
+		return cache;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.Endpoint#invoke()
+	 */
+	@Override
+	public Map<String, Object> invoke() {
+
+		Map<String, Object> result = new LinkedHashMap<>();
+
+		for (Metric<?> metric : cache.metrics()) {
+			result.put(metric.getName(), metric.getValue());
+		}
+
+		return result;
+	}
+}
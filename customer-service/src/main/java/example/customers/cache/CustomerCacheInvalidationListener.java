@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import example.customers.Customer;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Publishes an invalidation for every {@link Customer} updated or deleted once the transaction has been committed.
+ * Inserts are not published to keep bulk inserts from flooding the other instances. Query results cached by other
+ * instances might thus miss new customers until they expire (see {@code ehcache.xml}).
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+class CustomerCacheInvalidationListener
+		implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private static final long serialVersionUID = -2207766375539633466L;
+
+	private final @NonNull transient InvalidationChannel channel;
+	private final @NonNull transient CustomerCache cache;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.hibernate.event.spi.PostUpdateEventListener#onPostUpdate(org.hibernate.event.spi.PostUpdateEvent)
+	 */
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		publish(event.getEntity(), event.getId());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.hibernate.event.spi.PostDeleteEventListener#onPostDelete(org.hibernate.event.spi.PostDeleteEvent)
+	 */
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		publish(event.getEntity(), event.getId());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.hibernate.event.spi.PostCommitUpdateEventListener#onPostUpdateCommitFailed(org.hibernate.event.spi.PostUpdateEvent)
+	 */
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.hibernate.event.spi.PostCommitDeleteEventListener#onPostDeleteCommitFailed(org.hibernate.event.spi.PostDeleteEvent)
+	 */
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.hibernate.event.spi.PostActionEventListener#requiresPostCommitHanding(org.hibernate.persister.entity.EntityPersister)
+	 */
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return Customer.class.equals(persister.getMappedClass());
+	}
+
+	private void publish(Object entity, Serializable id) {
+
+		if (!(entity instanceof Customer)) {
+			return;
+		}
+
+		channel.publish((UUID) id);
+		cache.published();
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import example.customers.Customer;
+
+import java.util.UUID;
+
+import org.springframework.boot.actuate.endpoint.mvc.EndpointMvcAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Adds {@code DELETE /customercache/{id}} to the {@link CustomerCacheEndpoint}, receiving the invalidations other
+ * instances send for changed {@link Customer}s.
+ *
+ * @author Oliver Gierke
+ * @see HttpInvalidationChannel
+ */
+public class CustomerCacheMvcEndpoint extends EndpointMvcAdapter {
+
+	static final String INVALIDATION_PATH = "/" + CustomerCacheEndpoint.ID + "/{id}";
+
+	private final CustomerCache cache;
+
+	/**
+	 * Creates a new {@link CustomerCacheMvcEndpoint} for the given {@link CustomerCacheEndpoint}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public CustomerCacheMvcEndpoint(CustomerCacheEndpoint delegate) {
+
+		super(delegate);
+
+		this.cache = delegate.getCache();
+	}
+
+	@DeleteMapping("/{id}")
+	public ResponseEntity<Void> invalidate(@PathVariable UUID id) {
+
+		if (!getDelegate().isEnabled()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+
+		cache.evict(id);
+
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * An {@link InvalidationChannel} sending invalidations to all other instances of the service registered with the
+ * service registry ({@code DELETE /customercache/$id}, see {@link CustomerCacheMvcEndpoint}). The invalidations are
+ * sent to the management port and context path the instances publish in their metadata ({@code management.port},
+ * {@code management.context-path}), falling back to the instance's port. Invalidations are sent asynchronously, so that
+ * they don't delay the transaction that changed the customer. Failed deliveries are logged only, the cache entries'
+ * time to live bounds the time other instances might serve stale customers.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+public class HttpInvalidationChannel implements InvalidationChannel, DisposableBean {
+
+	static final String MANAGEMENT_PORT = "management.port";
+	static final String MANAGEMENT_CONTEXT_PATH = "management.context-path";
+
+	private final DiscoveryClient client;
+	private final RestTemplate operations;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a new {@link HttpInvalidationChannel} using the given {@link DiscoveryClient} and {@link RestTemplate}.
+	 *
+	 * @param client must not be {@literal null}.
+	 * @param operations must not be {@literal null}.
+	 */
+	public HttpInvalidationChannel(DiscoveryClient client, RestTemplate operations) {
+
+		this.client = client;
+		this.operations = operations;
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+
+			Thread thread = new Thread(runnable, "customer-cache-invalidation");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see example.customers.cache.InvalidationChannel#publish(java.util.UUID)
+	 */
+	@Override
+	public void publish(UUID id) {
+		executor.execute(() -> send(id));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+
+	private void send(UUID id) {
+
+		ServiceInstance local = client.getLocalServiceInstance();
+
+		for (ServiceInstance instance : client.getInstances(local.getServiceId())) {
+
+			if (instance.getHost().equals(local.getHost()) && instance.getPort() == local.getPort()) {
+				continue;
+			}
+
+			URI uri = getInvalidationUri(instance, id);
+
+			try {
+				operations.delete(uri);
+			} catch (RestClientException o_O) {
+				log.warn("Failed to invalidate customer {} at {}!", id, uri, o_O);
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link URI} of the invalidation resource for the customer with the given identifier on the given
+	 * {@link ServiceInstance}'s management server.
+	 *
+	 * @param instance must not be {@literal null}.
+	 * @param id must not be {@literal null}.
+	 * @return
+	 */
+	static URI getInvalidationUri(ServiceInstance instance, UUID id) {
+
+		Map<String, String> metadata = instance.getMetadata();
+		String port = metadata == null ? null : metadata.get(MANAGEMENT_PORT);
+		String contextPath = metadata == null ? null : metadata.get(MANAGEMENT_CONTEXT_PATH);
+
+		return UriComponentsBuilder.fromUri(instance.getUri()) //
+				.port(StringUtils.hasText(port) ? Integer.parseInt(port) : instance.getPort()) //
+				.path(StringUtils.hasText(contextPath) ? contextPath : "") //
+				.path(CustomerCacheMvcEndpoint.INVALIDATION_PATH) //
+				.buildAndExpand(id).toUri();
+	}
+}
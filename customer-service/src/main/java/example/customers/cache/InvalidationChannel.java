@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import example.customers.Customer;
+
+import java.util.UUID;
+
+/**
+ * Distributes the identifiers of changed {@link Customer}s to all other instances of the customer service, so that
+ * they can evict them from their caches.
+ *
+ * @author Oliver Gierke
+ */
+public interface InvalidationChannel {
+
+	/**
+	 * Publishes the invalidation of the {@link Customer} with the given identifier.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	void publish(UUID id);
+}
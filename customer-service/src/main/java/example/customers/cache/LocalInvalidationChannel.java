@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+/**
+ * An {@link InvalidationChannel} delivering invalidations to subscribers within the same JVM. Used if only a single
+ * instance is running and in tests simulating other instances.
+ *
+ * @author Oliver Gierke
+ */
+public class LocalInvalidationChannel implements InvalidationChannel {
+
+	private final List<Consumer<UUID>> subscribers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Registers the given subscriber to be handed all invalidations published.
+	 *
+	 * @param subscriber must not be {@literal null}.
+	 */
+	public void subscribe(Consumer<UUID> subscriber) {
+
+		Assert.notNull(subscriber, "Subscriber must not be null!");
+
+		subscribers.add(subscriber);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see example.customers.cache.InvalidationChannel#publish(java.util.UUID)
+	 */
+	@Override
+	public void publish(UUID id) {
+		subscribers.forEach(it -> it.accept(id));
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.HeartbeatMonitor;
+import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the links of all {@link DiscoveredResource}s once and only re-verifies them if a client reports a failure
+ * using a resource or the service registry reports a change of the registered instances. Failed resolutions are
+ * retried with exponential backoff. Replaces the fixed-delay polling of Spring Cloud's auto-configured refresher
+ * which needs to be disabled using {@code spring.cloud.hypermedia.refresh.enabled=false}.
+ * <p>
+ * Publishes the duration of the last traversal as {@code timer.hypermedia.$resource.traversal}, the time since the
+ * link was last resolved successfully as {@code hypermedia.$resource.staleness}, whether a link is available and the
+ * number of failed resolutions.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@Component
+class AdaptiveLinkRefresher implements PublicMetrics, DisposableBean {
+
+	private final Map<DiscoveredResource, Refresh> refreshes = new LinkedHashMap<>();
+	private final HeartbeatMonitor monitor = new HeartbeatMonitor();
+	private final ScheduledExecutorService executor;
+	private final GaugeService gauges;
+	private final long initialBackoff, maxBackoff;
+
+	/**
+	 * Creates a new {@link AdaptiveLinkRefresher} for the given {@link DiscoveredResource}s keyed by bean name.
+	 *
+	 * @param resources must not be {@literal null}.
+	 * @param gauges must not be {@literal null}.
+	 * @param initialBackoff the time in milliseconds to wait before retrying a failed resolution for the first time.
+	 * @param maxBackoff the maximum time in milliseconds to wait before retrying a failed resolution.
+	 */
+	@Autowired
+	public AdaptiveLinkRefresher(Map<String, DiscoveredResource> resources, GaugeService gauges,
+			@Value("${customers.hypermedia.refresh.initial-backoff:100}") long initialBackoff,
+			@Value("${customers.hypermedia.refresh.max-backoff:30000}") long maxBackoff) {
+
+		this.gauges = gauges;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = Math.max(initialBackoff, maxBackoff);
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+			Thread thread = new Thread(runnable, "hypermedia-refresh");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		resources.forEach((name, resource) -> refreshes.put(resource, new Refresh(name, resource)));
+	}
+
+	/**
+	 * Resolves the links of all resources once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		refreshAll();
+	}
+
+	/**
+	 * Re-verifies the links of all resources if the service registry reports a change.
+	 *
+	 * @param event must not be {@literal null}.
+	 */
+	@EventListener
+	public void onHeartbeat(HeartbeatEvent event) {
+
+		if (monitor.update(event.getValue())) {
+
+			log.debug("Service registry changed, re-verifying links.");
+			refreshAll();
+		}
+	}
+
+	/**
+	 * Reports a failed interaction with the given {@link DiscoveredResource} to trigger a re-verification of its link.
+	 * Reports for resources that are already scheduled to be re-verified are ignored.
+	 *
+	 * @param resource must not be {@literal null}.
+	 */
+	public void reportFailure(DiscoveredResource resource) {
+
+		Refresh refresh = refreshes.get(resource);
+
+		if (refresh != null) {
+			refresh.schedule(0);
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.PublicMetrics#metrics()
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+
+		long now = System.currentTimeMillis();
+		List<Metric<?>> metrics = new ArrayList<>();
+
+		for (Refresh refresh : refreshes.values()) {
+
+			String prefix = "hypermedia." + refresh.name;
+			long resolved = refresh.resolved;
+
+			metrics.add(new Metric<>(prefix + ".available", refresh.resource.getLink() == null ? 0 : 1));
+			metrics.add(new Metric<>(prefix + ".failures", refresh.failures.get()));
+
+			if (resolved > 0) {
+				metrics.add(new Metric<>(prefix + ".staleness", now - resolved));
+			}
+		}
+
+		return metrics;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	private void refreshAll() {
+		refreshes.values().forEach(it -> it.schedule(0));
+	}
+
+	/**
+	 * The refresh state of a single {@link DiscoveredResource}.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@RequiredArgsConstructor
+	private class Refresh {
+
+		private final String name;
+		private final DiscoveredResource resource;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final AtomicLong failures = new AtomicLong();
+
+		private volatile long resolved, backoff;
+
+		void schedule(long delay) {
+
+			if (scheduled.compareAndSet(false, true)) {
+				executor.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private void refresh() {
+
+			long start = System.nanoTime();
+
+			try {
+
+				resource.verifyOrDiscover();
+
+				// Verification failed and dropped the link, discover it again right away
+				if (resource.getLink() == null) {
+					resource.verifyOrDiscover();
+				}
+
+			} catch (RuntimeException o_O) {
+				log.debug("Refreshing {} failed!", name, o_O);
+			}
+
+			gauges.submit("timer.hypermedia." + name + ".traversal",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+			scheduled.set(false);
+
+			if (resource.getLink() != null) {
+
+				this.resolved = System.currentTimeMillis();
+				this.backoff = 0;
+
+				return;
+			}
+
+			failures.incrementAndGet();
+
+			this.backoff = backoff == 0 ? initialBackoff : Math.min(backoff * 2, maxBackoff);
+
+			log.debug("Could not resolve {}, retrying in {}ms.", name, backoff);
+
+			schedule(backoff);
+		}
+	}
+}
@@ -20,25 +20,50 @@ import example.customers.Customer.Address.Location;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResource.Builder;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.hateoas.core.EmbeddedWrapper;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 /**
+ * Adds links to the stores nearby to customer representations. If {@code customers.stores.embed} is enabled, the
+ * stores nearby are embedded, too. As the lookups are only resolved when the representation is rendered, the lookups
+ * for all customers of a collection resource are batched into a single call to the store service.
+ * <p>
+ * Links are expanded using {@link LocationLinkTemplate}s precompiled from the discovered links, so that rendering large
+ * customer collections doesn't create a parameter map and format a location string per customer.
+ *
  * @author Oliver Gierke
  */
 @Component
 @RequiredArgsConstructor(onConstructor = @__(@Autowired) )
 public class CustomerResourceProcessor implements ResourceProcessor<Resource<Customer>> {
 
+	static final int NEAREST_STORES = 5;
+	static final String STORES_NEARBY_REL = "stores-nearby";
+	static final String STORES_NEAREST_REL = "stores-nearest";
+
 	private final @NonNull DiscoveredResource storesByLocationResource;
+	private final @NonNull DiscoveredResource storesNearestResource;
+	private final @NonNull NearbyStoresProperties properties;
+	private final @NonNull NearbyStores nearbyStores;
+
+	private final AtomicReference<LocationLinkTemplate> nearbyTemplate = new AtomicReference<>();
+	private final AtomicReference<LocationLinkTemplate> nearestTemplate = new AtomicReference<>();
 
 	/* 
 	 * (non-Javadoc)
@@ -50,21 +75,75 @@ public class CustomerResourceProcessor implements ResourceProcessor<Resource<Cus
 		Customer customer = resource.getContent();
 		Location location = customer.getAddress().getLocation();
 
-		Optional<Link> link = Optional.ofNullable(storesByLocationResource.getLink());
+		if (location == null) {
+			return resource;
+		}
+
+		Link nearby = storesByLocationResource.getLink();
+
+		if (nearby != null) {
+			resource.add(templateFor(nearby, nearbyTemplate, STORES_NEARBY_REL, "distance", properties.getDistance())
+					.expand(location));
+		}
+
+		Link nearest = storesNearestResource.getLink();
+
+		if (nearest != null) {
+			resource.add(templateFor(nearest, nearestTemplate, STORES_NEAREST_REL, "k", NEAREST_STORES).expand(location));
+		}
+
+		Optional<Future<List<JsonNode>>> stores = nearbyStores.lookup(location);
+
+		return stores.isPresent() ? embed(resource, stores.get()) : resource;
+	}
+
+	/**
+	 * Returns the {@link LocationLinkTemplate} currently held in the given {@link AtomicReference} if it was created for
+	 * the given {@link Link}, or creates and registers a new one otherwise, e.g. because the link was re-discovered.
+	 */
+	private static LocationLinkTemplate templateFor(Link link, AtomicReference<LocationLinkTemplate> reference,
+			String rel, String parameter, Object value) {
+
+		LocationLinkTemplate template = reference.get();
+
+		if (template != null && template.isTemplateFor(link)) {
+			return template;
+		}
+
+		template = new LocationLinkTemplate(link, rel, Collections.singletonMap(parameter, value));
+		reference.set(template);
+
+		return template;
+	}
+
+	/**
+	 * Embeds the given pending stores into the given {@link Resource}. As embedded resources can only be registered on
+	 * creation of a {@link PersistentEntityResource}, we have to rebuild it.
+	 *
+	 * @param resource must not be {@literal null}.
+	 * @param stores must not be {@literal null}.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private static Resource<Customer> embed(Resource<Customer> resource, Future<List<JsonNode>> stores) {
+
+		if (!(resource instanceof PersistentEntityResource)) {
+			return resource;
+		}
 
-		link.ifPresent(it -> {
+		PersistentEntityResource source = (PersistentEntityResource) (Resource<?>) resource;
 
-			if (location == null) {
-				return;
-			}
+		List<EmbeddedWrapper> embeddeds = new ArrayList<>();
+		source.getEmbeddeds().forEach(embeddeds::add);
+		embeddeds.add(new PendingStores(STORES_NEARBY_REL, stores));
 
-			Map<String, Object> parameters = new HashMap<>();
-			parameters.put("location", String.format("%s,%s", location.getLatitude(), location.getLongitude()));
-			parameters.put("distance", "50km");
+		Builder builder = PersistentEntityResource.build(source.getContent(), source.getPersistentEntity())
+				.withEmbedded(embeddeds);
 
-			resource.add(it.expand(parameters).withRel("stores-nearby"));
-		});
+		for (Link link : source.getLinks()) {
+			builder = builder.withLink(link);
+		}
 
-		return resource;
+		return (Resource<Customer>) (Resource<?>) (source.isNested() ? builder.buildNested() : builder.build());
 	}
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.metrics.PeakEwma;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the latency and the number of requests in flight per {@link ServiceInstance} and chooses the better of two
+ * randomly sampled instances ("power of two choices"). The cost of an instance is its exponentially weighted moving
+ * average latency multiplied by the number of requests in flight to it. Instances not used yet are assumed to be as
+ * fast as the average of the others, so that new instances get their share of traffic to reveal how fast they are
+ * without attracting all of it.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+public class InstanceLatencyTracker {
+
+	private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+	private final long decayNanos, failurePenaltyNanos;
+
+	/**
+	 * Creates a new {@link InstanceLatencyTracker}.
+	 *
+	 * @param decay the time constant in milliseconds observed latencies decay with.
+	 * @param failurePenalty the minimum latency in milliseconds recorded for failed requests, so that failing fast
+	 *          doesn't attract traffic.
+	 */
+	@Autowired
+	public InstanceLatencyTracker(@Value("${customers.stores.balancing.decay:10000}") long decay,
+			@Value("${customers.stores.balancing.failure-penalty:1000}") long failurePenalty) {
+
+		if (decay <= 0) {
+			throw new IllegalArgumentException("Decay must be greater than zero!");
+		}
+
+		this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decay);
+		this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenalty);
+	}
+
+	/**
+	 * Chooses the better of two randomly sampled instances of the given ones.
+	 *
+	 * @param instances must not be {@literal null}.
+	 * @return the chosen instance or {@literal null} if no instances are given.
+	 */
+	public ServiceInstance choose(List<ServiceInstance> instances) {
+
+		if (instances.isEmpty()) {
+			return null;
+		}
+
+		if (instances.size() == 1) {
+			return instances.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		int first = random.nextInt(instances.size());
+		int second = random.nextInt(instances.size() - 1);
+
+		if (second >= first) {
+			second++;
+		}
+
+		ServiceInstance left = instances.get(first);
+		ServiceInstance right = instances.get(second);
+
+		return cost(left) <= cost(right) ? left : right;
+	}
+
+	/**
+	 * Registers the start of a request to the given {@link ServiceInstance}.
+	 *
+	 * @param instance can be {@literal null}.
+	 * @return the {@link Call} to complete once the request has finished.
+	 */
+	public Call start(ServiceInstance instance) {
+		return new Call(instance == null ? null : statistics(instance));
+	}
+
+	/**
+	 * Returns the latency currently estimated for the given {@link ServiceInstance} in milliseconds.
+	 *
+	 * @param instance must not be {@literal null}.
+	 * @return
+	 */
+	public double getLatency(ServiceInstance instance) {
+
+		Statistics statistics = this.statistics.get(keyOf(instance));
+
+		return statistics == null ? 0 : statistics.getLatency() / 1_000_000d;
+	}
+
+	private double cost(ServiceInstance instance) {
+
+		Statistics statistics = this.statistics.get(keyOf(instance));
+
+		if (statistics == null) {
+			return getNeutralLatency();
+		}
+
+		double latency = statistics.hasSamples() ? statistics.getLatency() : getNeutralLatency();
+
+		return latency * (statistics.inFlight.get() + 1);
+	}
+
+	/**
+	 * Returns the latency assumed for instances without completed requests yet: the average of the ones known or
+	 * {@literal 1} if none is, so that only the number of requests in flight matters then.
+	 */
+	private double getNeutralLatency() {
+
+		return statistics.values().stream() //
+				.filter(Statistics::hasSamples) //
+				.mapToDouble(Statistics::getLatency) //
+				.average().orElse(1);
+	}
+
+	private Statistics statistics(ServiceInstance instance) {
+		return statistics.computeIfAbsent(keyOf(instance), it -> new Statistics());
+	}
+
+	private static String keyOf(ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+
+	/**
+	 * A request in flight to an instance.
+	 *
+	 * @author Oliver Gierke
+	 */
+	public class Call {
+
+		private final Statistics statistics;
+		private final long start = System.nanoTime();
+
+		private Call(Statistics statistics) {
+
+			this.statistics = statistics;
+
+			if (statistics != null) {
+				statistics.inFlight.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Records the successful completion of the request.
+		 */
+		public void succeeded() {
+			complete(false);
+		}
+
+		/**
+		 * Records the failure of the request.
+		 */
+		public void failed() {
+			complete(true);
+		}
+
+		private void complete(boolean failed) {
+
+			if (statistics == null) {
+				return;
+			}
+
+			long now = System.nanoTime();
+			long latency = now - start;
+
+			statistics.inFlight.decrementAndGet();
+			statistics.add(failed ? Math.max(latency, failurePenaltyNanos) : latency, now);
+		}
+	}
+
+	/**
+	 * The latency and the requests in flight of a single instance.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private class Statistics {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final PeakEwma latency = new PeakEwma(decayNanos);
+
+		void add(double sample, long now) {
+			latency.add(sample, now);
+		}
+
+		double getLatency() {
+			return latency.get();
+		}
+
+		boolean hasSamples() {
+			return !latency.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.hypermedia.ServiceInstanceProvider;
+
+/**
+ * A {@link ServiceInstanceProvider} choosing among all instances registered for a service using an
+ * {@link InstanceLatencyTracker} instead of always using the first one.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+public class LatencyAwareServiceInstanceProvider implements ServiceInstanceProvider {
+
+	private final @NonNull DiscoveryClient client;
+	private final @NonNull String serviceId;
+	private final @NonNull InstanceLatencyTracker tracker;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.cloud.client.hypermedia.ServiceInstanceProvider#getServiceInstance()
+	 */
+	@Override
+	public ServiceInstance getServiceInstance() {
+		return tracker.choose(client.getInstances(serviceId));
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.customers.Customer.Address.Location;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.hateoas.Link;
+import org.springframework.util.Assert;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * A precompiled variant of a templated {@link Link} to be expanded with a {@link Location} and a set of fixed
+ * parameters. For templates only consisting of a base URI and a query expression (e.g. {@code /search{?location,k}})
+ * the query is written directly into a reusable per-thread buffer, falling back to regular template expansion for all
+ * other templates. The fixed parameters are encoded up front the same way regular template expansion does. Expanded
+ * links are cached per {@link Location}, evicting the least recently used ones beyond a fixed bound, so that rendering
+ * customers at the same location doesn't allocate anything at all.
+ *
+ * @author Oliver Gierke
+ */
+class LocationLinkTemplate {
+
+	private static final String LOCATION = "location";
+	private static final int MAX_CACHED_LINKS = 10_000;
+	private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+	private final Link link;
+	private final String rel;
+	private final Map<String, Object> parameters;
+	private final Map<Location, Link> links;
+
+	private final String base;
+	private final List<String> variables;
+	private final Map<String, String> queries;
+
+	/**
+	 * Creates a new {@link LocationLinkTemplate} for the given {@link Link}, relation and fixed parameters.
+	 *
+	 * @param link must not be {@literal null}.
+	 * @param rel must not be {@literal null} or empty.
+	 * @param parameters must not be {@literal null}.
+	 */
+	LocationLinkTemplate(Link link, String rel, Map<String, Object> parameters) {
+
+		Assert.notNull(link, "Link must not be null!");
+		Assert.hasText(rel, "Relation must not be null or empty!");
+		Assert.notNull(parameters, "Parameters must not be null!");
+
+		this.link = link;
+		this.rel = rel;
+		this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+		this.links = new LinkedHashMap<Location, Link>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Location, Link> eldest) {
+				return size() > MAX_CACHED_LINKS;
+			}
+		};
+
+		String href = link.getHref();
+		int start = href.indexOf("{?");
+
+		if (start != -1 && href.indexOf('{') == start && href.indexOf('}') == href.length() - 1) {
+
+			List<String> variables = new ArrayList<>();
+			Map<String, String> queries = new HashMap<>();
+
+			for (String variable : href.substring(start + 2, href.length() - 1).split(",")) {
+
+				if (LOCATION.equals(variable)) {
+					variables.add(variable);
+				} else if (parameters.get(variable) != null) {
+					variables.add(variable);
+					queries.put(variable, encode(variable, parameters.get(variable)));
+				}
+			}
+
+			this.base = href.substring(0, start);
+			this.variables = variables;
+			this.queries = queries;
+
+		} else {
+
+			this.base = null;
+			this.variables = Collections.emptyList();
+			this.queries = Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * Returns whether the template was created for the given {@link Link}.
+	 *
+	 * @param link can be {@literal null}.
+	 * @return
+	 */
+	boolean isTemplateFor(Link link) {
+		return this.link.equals(link);
+	}
+
+	/**
+	 * Returns the {@link Link} expanded with the given {@link Location} and the fixed parameters.
+	 *
+	 * @param location must not be {@literal null}.
+	 * @return
+	 */
+	Link expand(Location location) {
+
+		Link result;
+
+		synchronized (links) {
+			result = links.get(location);
+		}
+
+		if (result != null) {
+			return result;
+		}
+
+		result = base == null ? expandTemplate(location) : new Link(write(location), rel);
+
+		synchronized (links) {
+			links.put(location, result);
+		}
+
+		return result;
+	}
+
+	private String write(Location location) {
+
+		StringBuilder builder = BUFFER.get();
+		builder.setLength(0);
+		builder.append(base);
+
+		char separator = '?';
+
+		for (String variable : variables) {
+
+			builder.append(separator);
+
+			if (LOCATION.equals(variable)) {
+				builder.append(LOCATION).append('=') //
+						.append(location.getLatitude()).append(',').append(location.getLongitude());
+			} else {
+				builder.append(queries.get(variable));
+			}
+
+			separator = '&';
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the query parameter with the given name and value encoded like regular template expansion does.
+	 */
+	private static String encode(String name, Object value) {
+
+		return UriComponentsBuilder.newInstance() //
+				.queryParam(name, value) //
+				.build().toUri().getRawQuery();
+	}
+
+	private Link expandTemplate(Location location) {
+
+		Map<String, Object> parameters = new HashMap<>(this.parameters);
+		parameters.put(LOCATION, String.format("%s,%s", location.getLatitude(), location.getLongitude()));
+
+		return link.expand(parameters).withRel(rel);
+	}
+}
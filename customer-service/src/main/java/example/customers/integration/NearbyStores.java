@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.customers.Customer.Address.Location;
+import example.customers.integration.NearbyStoresCache.Key;
+import example.geo.Geohash;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Looks up the stores nearby a {@link Location}. Locations are quantized to geohash cells, so that customers living
+ * close to each other share cache entries.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class NearbyStores {
+
+	private final @NonNull NearbyStoresProperties properties;
+	private final @NonNull NearbyStoresCache cache;
+	private final @NonNull NearbyStoresClient client;
+
+	/**
+	 * Returns the stores nearby the given {@link Location} if embedding stores is enabled. Lookups not answered by the
+	 * cache are queued to be sent to the store service in batches, so callers should issue all lookups they need before
+	 * resolving any of the returned {@link Future}s.
+	 *
+	 * @param location can be {@literal null}.
+	 * @return
+	 */
+	public Optional<Future<List<JsonNode>>> lookup(Location location) {
+
+		if (!properties.isEmbed() || location == null) {
+			return Optional.empty();
+		}
+
+		Key key = new Key(Geohash.encode(location.getLatitude(), location.getLongitude(),
+				properties.getCache().getPrecision()), properties.getDistance());
+
+		Optional<List<JsonNode>> cached = cache.getFresh(key);
+
+		return Optional.of(cached.isPresent() ? CompletableFuture.completedFuture(cached.get()) : client.findStores(key));
+	}
+}
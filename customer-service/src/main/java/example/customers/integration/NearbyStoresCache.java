@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.customers.integration.NearbyStoresProperties.Cache;
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A bounded cache of the stores nearby a geohash cell. Entries are evicted in least-recently-used order once the
+ * maximum size is exceeded. Entries older than the configured time-to-live are not considered fresh anymore but are
+ * still kept to be served as fallback until they exceed the maximum staleness.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+class NearbyStoresCache {
+
+	private final long timeToLive, maxStale;
+	private final Map<Key, CachedStores> entries;
+
+	/**
+	 * Creates a new {@link NearbyStoresCache} for the given {@link NearbyStoresProperties}.
+	 *
+	 * @param properties must not be {@literal null}.
+	 */
+	@Autowired
+	public NearbyStoresCache(NearbyStoresProperties properties) {
+
+		Cache cache = properties.getCache();
+		int maxSize = cache.getMaxSize();
+
+		this.timeToLive = cache.getTimeToLive();
+		this.maxStale = Math.max(cache.getTimeToLive(), cache.getMaxStale());
+		this.entries = new LinkedHashMap<Key, CachedStores>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Key, CachedStores> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the stores cached for the given {@link Key} if they're still fresh.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @return
+	 */
+	public Optional<List<JsonNode>> getFresh(Key key) {
+		return get(key, timeToLive);
+	}
+
+	/**
+	 * Returns the stores cached for the given {@link Key} even if they're not fresh anymore, as long as they don't exceed
+	 * the maximum staleness.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @return
+	 */
+	public Optional<List<JsonNode>> getStale(Key key) {
+		return get(key, maxStale);
+	}
+
+	/**
+	 * Caches the given stores for the given {@link Key}.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @param stores must not be {@literal null}.
+	 */
+	public synchronized void put(Key key, List<JsonNode> stores) {
+		entries.put(key, new CachedStores(stores, System.currentTimeMillis()));
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private synchronized Optional<List<JsonNode>> get(Key key, long maxAge) {
+
+		CachedStores cached = entries.get(key);
+
+		if (cached == null) {
+			return Optional.empty();
+		}
+
+		long age = System.currentTimeMillis() - cached.getTimestamp();
+
+		if (age > maxStale) {
+			entries.remove(key);
+			return Optional.empty();
+		}
+
+		return age <= maxAge ? Optional.of(cached.getStores()) : Optional.empty();
+	}
+
+	/**
+	 * The key of a cache entry, a quantized location and the distance to look up stores within.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	static class Key {
+		String cell, distance;
+	}
+
+	@Value
+	private static class CachedStores {
+		List<JsonNode> stores;
+		long timestamp;
+	}
+}
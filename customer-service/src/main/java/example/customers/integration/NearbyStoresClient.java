@@ -0,0 +1,357 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.customers.integration.InstanceLatencyTracker.Call;
+import example.customers.integration.NearbyStoresCache.Key;
+import example.customers.integration.StoreShards.Shard;
+import example.geo.Distances;
+import example.geo.Geohash;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.cloud.client.hypermedia.ServiceInstanceProvider;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.format.DistanceFormatter;
+import org.springframework.hateoas.Link;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.netflix.hystrix.HystrixCollapser.Scope;
+import com.netflix.hystrix.contrib.javanica.annotation.HystrixCollapser;
+import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+import com.netflix.hystrix.contrib.javanica.annotation.HystrixProperty;
+
+/**
+ * Client to look up the stores nearby geohash cells from the store service. Individual lookups are collapsed across
+ * all requests into a single call to the store service's {@code by-locations} resource per time window (see
+ * {@code hystrix.collapser.findStores.*} to tweak it). Each batch is sent to the instance selected by the
+ * {@link ServiceInstanceProvider} and its latency is recorded with the {@link InstanceLatencyTracker}. Successful
+ * lookups are put into the {@link NearbyStoresCache}, failed ones fall back to stale cache entries.
+ * <p>
+ * If the store service is sharded (see {@link StoreShards}), the lookup for each cell is only sent to the shards whose
+ * geohash prefixes intersect the search area. The shards are queried in parallel on a bounded pool, for at most
+ * {@code customers.stores.shard-timeout} milliseconds, and their results merged by distance.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@Component
+class NearbyStoresClient implements DisposableBean {
+
+	private final DiscoveredResource storesByLocationsResource;
+	private final NearbyStoresCache cache;
+	private final AdaptiveLinkRefresher refresher;
+	private final ServiceInstanceProvider instances;
+	private final InstanceLatencyTracker tracker;
+	private final StoreShards shards;
+	private final int maxResults;
+	private final long shardTimeout;
+	private final RestOperations operations;
+	private final ExecutorService executor;
+
+	@Autowired
+	public NearbyStoresClient(DiscoveredResource storesByLocationsResource, NearbyStoresCache cache,
+			AdaptiveLinkRefresher refresher, ServiceInstanceProvider instances, InstanceLatencyTracker tracker,
+			StoreShards shards, NearbyStoresProperties properties, RestTemplateBuilder builder) {
+
+		this.storesByLocationsResource = storesByLocationsResource;
+		this.cache = cache;
+		this.refresher = refresher;
+		this.instances = instances;
+		this.tracker = tracker;
+		this.shards = shards;
+		this.maxResults = properties.getMaxResults();
+		this.shardTimeout = properties.getShardTimeout();
+		this.operations = builder.build();
+
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("store-shards-");
+		threads.setDaemon(true);
+
+		int size = properties.getShardThreads();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(size), threads, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+
+		this.executor = executor;
+	}
+
+	/**
+	 * Looks up the stores within the distance of the given {@link Key} around the center of its cell. The lookup is
+	 * queued and executed as part of a batch.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @return the stores found, empty if the store service is unavailable and no stale entry is cached.
+	 */
+	@HystrixCollapser(batchMethod = "findStoresBatch", scope = Scope.GLOBAL, collapserProperties = {
+			@HystrixProperty(name = "timerDelayInMilliseconds", value = "10"),
+			@HystrixProperty(name = "maxRequestsInBatch", value = "100") })
+	public Future<List<JsonNode>> findStores(Key key) {
+		return null;
+	}
+
+	/**
+	 * Looks up the stores for all given {@link Key}s with a single request per distinct distance.
+	 *
+	 * @param keys must not be {@literal null}.
+	 * @return the stores in the order of the given keys.
+	 */
+	@HystrixCommand(fallbackMethod = "findCachedStores")
+	public List<List<JsonNode>> findStoresBatch(List<Key> keys) {
+
+		Link link = storesByLocationsResource.getLink();
+
+		if (link == null) {
+			throw new IllegalStateException("Stores by locations resource not available!");
+		}
+
+		List<Shard> shards = this.shards.getShards();
+		Map<Key, List<JsonNode>> stores = new HashMap<>(keys.size());
+
+		keys.stream().collect(Collectors.groupingBy(Key::getDistance)).forEach((distance, group) -> {
+
+			List<String> cells = group.stream().map(Key::getCell).distinct().collect(Collectors.toList());
+			Map<String, List<JsonNode>> found = shards.isEmpty() //
+					? lookup(link, instances.getServiceInstance(), distance, cells) //
+					: scatter(link, shards, distance, cells);
+
+			found.forEach((cell, it) -> {
+
+				Key key = new Key(cell, distance);
+
+				cache.put(key, it);
+				stores.put(key, it);
+			});
+		});
+
+		log.debug("Looked up stores for {} keys in a single batch.", keys.size());
+
+		return keys.stream().map(stores::get).collect(Collectors.toList());
+	}
+
+	/**
+	 * Fallback for {@link #findStoresBatch(List)} serving stale cache entries. Triggers a re-verification of the link
+	 * used as the failure might have been caused by a stale link.
+	 *
+	 * @param keys
+	 * @return
+	 */
+	List<List<JsonNode>> findCachedStores(List<Key> keys) {
+
+		log.debug("Store lookup for {} keys failed, falling back to cached stores.", keys.size());
+
+		refresher.reportFailure(storesByLocationsResource);
+
+		return keys.stream() //
+				.map(it -> cache.getStale(it).orElse(Collections.emptyList())) //
+				.collect(Collectors.toList());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Looks up the stores for the given cells from the given {@link ServiceInstance}.
+	 *
+	 * @param link the link to the {@code by-locations} resource.
+	 * @param instance can be {@literal null} to use the link as is.
+	 * @param distance the distance to look up stores within.
+	 * @param cells the geohash cells to look up stores for.
+	 * @return the stores keyed by cell.
+	 */
+	private Map<String, List<JsonNode>> lookup(Link link, ServiceInstance instance, String distance,
+			List<String> cells) {
+
+		URI uri = instance == null ? URI.create(link.getHref()) : rewrite(link.getHref(), instance);
+
+		Map<String, Object> query = new HashMap<>();
+		query.put("distance", distance);
+		query.put("locations", cells.stream().map(NearbyStoresClient::toLocation).collect(Collectors.toList()));
+
+		Call call = tracker.start(instance);
+		JsonNode results;
+
+		try {
+			results = operations.postForObject(uri, query, JsonNode.class).path("_embedded").path("results");
+			call.succeeded();
+		} catch (RuntimeException o_O) {
+			call.failed();
+			throw o_O;
+		}
+
+		Map<String, List<JsonNode>> stores = new LinkedHashMap<>(cells.size());
+
+		for (int i = 0; i < cells.size(); i++) {
+
+			List<JsonNode> found = new ArrayList<>();
+			results.path(i).path("stores").forEach(found::add);
+
+			stores.put(cells.get(i), found);
+		}
+
+		return stores;
+	}
+
+	/**
+	 * Looks up the stores for the given cells from all shards holding stores within the given distance of them in
+	 * parallel. The stores found by multiple shards for a cell are ordered by their distance to the cell's center.
+	 *
+	 * @param link the link to the {@code by-locations} resource.
+	 * @param shards the shards of the store service.
+	 * @param distance the distance to look up stores within.
+	 * @param cells the geohash cells to look up stores for.
+	 * @return the stores keyed by cell.
+	 */
+	private Map<String, List<JsonNode>> scatter(Link link, List<Shard> shards, String distance, List<String> cells) {
+
+		double kilometers = DistanceFormatter.INSTANCE.convert(distance).in(Metrics.KILOMETERS).getValue();
+		Map<Shard, List<String>> routes = new LinkedHashMap<>();
+
+		for (String cell : cells) {
+
+			double[] center = Geohash.center(cell);
+
+			StoreShards.route(shards, center[0], center[1], kilometers) //
+					.forEach(it -> routes.computeIfAbsent(it, shard -> new ArrayList<>()).add(cell));
+		}
+
+		List<CompletableFuture<Map<String, List<JsonNode>>>> lookups = routes.entrySet().stream() //
+				.map(it -> CompletableFuture.supplyAsync(() -> {
+
+					ServiceInstance instance = tracker.choose(it.getKey().getInstances());
+
+					return lookup(link, instance, distance, it.getValue());
+
+				}, executor)) //
+				.collect(Collectors.toList());
+
+		Map<String, List<JsonNode>> stores = new LinkedHashMap<>(cells.size());
+		cells.forEach(it -> stores.put(it, new ArrayList<>()));
+
+		await(lookups).forEach(result -> result.forEach((cell, found) -> stores.get(cell).addAll(found)));
+
+		if (routes.size() > 1) {
+
+			stores.replaceAll((cell, found) -> {
+
+				double[] center = Geohash.center(cell);
+
+				return found.stream() //
+						.sorted(Comparator.comparingDouble(it -> distance(center, it))) //
+						.limit(maxResults) //
+						.collect(Collectors.toList());
+			});
+		}
+
+		return stores;
+	}
+
+	/**
+	 * Waits for the given lookups to complete within the configured shard timeout. Cancels all of them if any fails or
+	 * doesn't complete in time.
+	 *
+	 * @param lookups must not be {@literal null}.
+	 * @return the results of the lookups.
+	 */
+	private <T> List<T> await(List<CompletableFuture<T>> lookups) {
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shardTimeout);
+		List<T> results = new ArrayList<>(lookups.size());
+
+		try {
+
+			for (CompletableFuture<T> lookup : lookups) {
+				results.add(lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+			}
+
+			return results;
+
+		} catch (InterruptedException o_O) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the store shards!", o_O);
+
+		} catch (ExecutionException o_O) {
+			throw new IllegalStateException("Looking up stores from a shard failed!", o_O.getCause());
+		} catch (TimeoutException o_O) {
+			throw new IllegalStateException(String.format("Shards didn't respond within %sms!", shardTimeout), o_O);
+		} finally {
+			lookups.forEach(it -> it.cancel(true));
+		}
+	}
+
+	/**
+	 * Returns the distance of the given store representation to the given location in kilometers.
+	 */
+	private static double distance(double[] location, JsonNode store) {
+
+		JsonNode point = store.path("address").path("location");
+
+		return Distances.between(location[0], location[1], point.path("y").asDouble(), point.path("x").asDouble());
+	}
+
+	/**
+	 * Points the given URI to the given {@link ServiceInstance}, as the link was discovered using a single instance but
+	 * all instances expose the same resources.
+	 */
+	private static URI rewrite(String uri, ServiceInstance instance) {
+
+		return UriComponentsBuilder.fromUriString(uri) //
+				.scheme(instance.isSecure() ? "https" : "http") //
+				.host(instance.getHost()) //
+				.port(instance.getPort()) //
+				.build(true).toUri();
+	}
+
+	private static String toLocation(String cell) {
+
+		double[] center = Geohash.center(cell);
+
+		return String.format("%s,%s", center[0], center[1]);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the integration with the store service.
+ *
+ * @author Oliver Gierke
+ */
+@Data
+@Component
+@ConfigurationProperties("customers.stores")
+public class NearbyStoresProperties {
+
+	/**
+	 * Whether to embed the stores nearby into customer representations instead of only linking to them.
+	 */
+	private boolean embed = false;
+
+	/**
+	 * The distance to look up stores within.
+	 */
+	private String distance = "50km";
+
+	/**
+	 * The identifier the store service is registered with in the service registry.
+	 */
+	private String serviceId = "stores";
+
+	/**
+	 * The maximum number of stores to return per location when merging the results of multiple store shards.
+	 */
+	private int maxResults = 20;
+
+	/**
+	 * The number of threads to query store shards with in parallel. Lookups exceeding the pool and its queue of the same
+	 * size are executed on the calling thread.
+	 */
+	private int shardThreads = 8;
+
+	/**
+	 * The time in milliseconds to wait for the results of all store shards queried for a batch of lookups.
+	 */
+	private long shardTimeout = 900;
+
+	private final Cache cache = new Cache();
+
+	@Data
+	public static class Cache {
+
+		/**
+		 * The geohash precision customer locations are quantized to, i.e. the size of the cells sharing cache entries.
+		 */
+		private int precision = 6;
+
+		/**
+		 * The maximum number of cells to cache stores for.
+		 */
+		private int maxSize = 10_000;
+
+		/**
+		 * The time in milliseconds cached stores are considered fresh.
+		 */
+		private long timeToLive = 60_000;
+
+		/**
+		 * The time in milliseconds cached stores are still served if the store service is unavailable.
+		 */
+		private long maxStale = 3_600_000;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.springframework.hateoas.core.EmbeddedWrapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * An {@link EmbeddedWrapper} for stores that are still being looked up. The lookup is only resolved when the wrapper
+ * is rendered, i.e. after all resources of a response have been processed and their lookups have been queued.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@RequiredArgsConstructor
+class PendingStores implements EmbeddedWrapper {
+
+	private final @NonNull String rel;
+	private final @NonNull Future<List<JsonNode>> stores;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.core.EmbeddedWrapper#getRel()
+	 */
+	@Override
+	public String getRel() {
+		return rel;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.core.EmbeddedWrapper#hasRel(java.lang.String)
+	 */
+	@Override
+	public boolean hasRel(String rel) {
+		return this.rel.equals(rel);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.core.EmbeddedWrapper#isCollectionValue()
+	 */
+	@Override
+	public boolean isCollectionValue() {
+		return true;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.core.EmbeddedWrapper#getValue()
+	 */
+	@Override
+	public Object getValue() {
+
+		try {
+
+			List<JsonNode> result = stores.get();
+			return result == null ? Collections.emptyList() : result;
+
+		} catch (ExecutionException o_O) {
+
+			log.debug("Looking up stores failed!", o_O);
+			return Collections.emptyList();
+
+		} catch (InterruptedException o_O) {
+
+			Thread.currentThread().interrupt();
+			return Collections.emptyList();
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.core.EmbeddedWrapper#getRelTargetType()
+	 */
+	@Override
+	public Class<?> getRelTargetType() {
+		return JsonNode.class;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import example.geo.Distances;
+import example.geo.Geohash;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * The shards of the store service. Store instances holding a part of all stores advertise the geohash prefixes of
+ * their stores in their registry metadata ({@value #METADATA_KEY}). Instances advertising the same prefixes form a
+ * shard, instances without prefixes hold all stores.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+public class StoreShards {
+
+	static final String METADATA_KEY = "shard-prefixes";
+
+	private static final int MAX_CELLS = 16;
+
+	private final DiscoveryClient client;
+	private final String serviceId;
+
+	/**
+	 * Creates a new {@link StoreShards} for the store service registered with the given {@link DiscoveryClient}.
+	 *
+	 * @param client must not be {@literal null}.
+	 * @param properties must not be {@literal null}.
+	 */
+	public StoreShards(DiscoveryClient client, NearbyStoresProperties properties) {
+
+		this.client = client;
+		this.serviceId = properties.getServiceId();
+	}
+
+	/**
+	 * Returns the shards of the store service currently registered, an empty list if no instance holds a part of the
+	 * stores only, i.e. the store service is not sharded.
+	 *
+	 * @return
+	 */
+	public List<Shard> getShards() {
+
+		Map<Set<String>, List<ServiceInstance>> instances = client.getInstances(serviceId).stream() //
+				.collect(Collectors.groupingBy(StoreShards::getPrefixes, LinkedHashMap::new, Collectors.toList()));
+
+		if (instances.keySet().stream().allMatch(Set::isEmpty)) {
+			return Collections.emptyList();
+		}
+
+		return instances.entrySet().stream() //
+				.map(it -> new Shard(it.getKey(), it.getValue())) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the shards holding stores within the given distance of the given location. If any of the given shards
+	 * holds all stores, only that one is returned.
+	 *
+	 * @param shards must not be {@literal null}.
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param kilometers the distance in kilometers.
+	 * @return
+	 */
+	public static List<Shard> route(List<Shard> shards, double latitude, double longitude, double kilometers) {
+
+		Optional<Shard> complete = shards.stream().filter(Shard::isComplete).findFirst();
+
+		if (complete.isPresent()) {
+			return Collections.singletonList(complete.get());
+		}
+
+		double[] box = Distances.boundingBox(latitude, longitude, kilometers);
+		SortedSet<String> cells = Geohash.cover(box[0], box[1], box[2], box[3], MAX_CELLS);
+
+		return shards.stream() //
+				.filter(it -> it.intersects(cells)) //
+				.collect(Collectors.toList());
+	}
+
+	private static Set<String> getPrefixes(ServiceInstance instance) {
+
+		Map<String, String> metadata = instance.getMetadata();
+		String prefixes = metadata == null ? null : metadata.get(METADATA_KEY);
+
+		return new TreeSet<>(StringUtils.commaDelimitedListToSet(prefixes == null ? "" : prefixes.toLowerCase()) //
+				.stream() //
+				.map(String::trim) //
+				.filter(StringUtils::hasText) //
+				.collect(Collectors.toSet()));
+	}
+
+	/**
+	 * A shard of the store service, i.e. the instances holding the stores within a set of geohash prefixes.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	public static class Shard {
+
+		Set<String> prefixes;
+		List<ServiceInstance> instances;
+
+		/**
+		 * Returns whether the shard holds all stores.
+		 *
+		 * @return
+		 */
+		public boolean isComplete() {
+			return prefixes.isEmpty();
+		}
+
+		/**
+		 * Returns whether any of the given geohash cells overlaps with the prefixes of the shard.
+		 *
+		 * @param cells must not be {@literal null}.
+		 * @return
+		 */
+		public boolean intersects(Collection<String> cells) {
+
+			return isComplete() || prefixes.stream() //
+					.anyMatch(prefix -> cells.stream().anyMatch(cell -> cell.startsWith(prefix) || prefix.startsWith(cell)));
+		}
+	}
+}
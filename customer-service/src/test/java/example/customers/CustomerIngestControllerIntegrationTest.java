@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for {@link CustomerIngestController}. Uses batches of two customers, so that duplicates within a
+ * batch as well as across batches are covered.
+ *
+ * @author Oliver Gierke
+ */
+@SpringBootTest(properties = "customers.ingest.batch-size=2")
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+public class CustomerIngestControllerIntegrationTest {
+
+	@Autowired MockMvc mvc;
+	@Autowired CustomerRepository repository;
+
+	@Test
+	public void insertsCustomersFromNewlineDelimitedJson() throws Exception {
+
+		UUID dave = UUID.randomUUID(), carter = UUID.randomUUID();
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content(customer(dave, "Matthews") + "\n" + customer(carter, "Beauford"))) //
+				.andExpect(status().isCreated()) //
+				.andExpect(jsonPath("$.count").value(2));
+
+		assertThat(repository.exists(dave), is(true));
+		assertThat(repository.exists(carter), is(true));
+	}
+
+	@Test
+	public void rejectsDuplicateIdentifiersWithinBatch() throws Exception {
+
+		UUID dave = UUID.randomUUID();
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content(customer(dave, "Matthews") + "\n" + customer(dave, "Matthews"))) //
+				.andExpect(status().isBadRequest());
+
+		assertThat(repository.exists(dave), is(false));
+	}
+
+	@Test
+	public void rejectsDuplicateIdentifiersAcrossBatches() throws Exception {
+
+		UUID dave = UUID.randomUUID(), carter = UUID.randomUUID();
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content(customer(dave, "Matthews") + "\n" + customer(carter, "Beauford") + "\n"
+						+ customer(dave, "Matthews"))) //
+				.andExpect(status().isBadRequest());
+
+		assertThat(repository.exists(dave), is(false));
+		assertThat(repository.exists(carter), is(false));
+	}
+
+	@Test
+	public void rejectsIdentifiersAlreadyInUse() throws Exception {
+
+		UUID dave = UUID.randomUUID(), carter = UUID.randomUUID();
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content(customer(dave, "Matthews"))) //
+				.andExpect(status().isCreated());
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content(customer(carter, "Beauford") + "\n" + customer(dave, "Matthews"))) //
+				.andExpect(status().isBadRequest());
+
+		assertThat(repository.exists(carter), is(false));
+	}
+
+	@Test
+	public void rejectsMalformedInput() throws Exception {
+
+		mvc.perform(post("/customers/bulk") //
+				.contentType(CustomerIngestController.NDJSON) //
+				.content("{ \"firstname\" : ")) //
+				.andExpect(status().isBadRequest());
+	}
+
+	private static String customer(UUID id, String lastname) {
+
+		return String.format("{ \"id\" : \"%s\", \"firstname\" : \"Dave\", \"lastname\" : \"%s\", \"address\" : "
+				+ "{ \"street\" : \"street\", \"zipCode\" : \"zipCode\", \"city\" : \"city\", "
+				+ "\"location\" : { \"latitude\" : 1, \"longitude\" : 1 } } }", id, lastname);
+	}
+}
@@ -21,11 +21,21 @@ import static org.junit.Assert.*;
 import example.customers.Customer.Address;
 import example.customers.Customer.Address.Location;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Integration tests for {@link CustomerRepository}.
@@ -46,4 +56,50 @@ public class CustomerRepositoryIntegrationTest {
 
 		assertThat(repository.findOne(customer.getId()), is(customer));
 	}
+
+	@Test
+	public void insertsNewCustomersInBulk() {
+
+		Customer dave = new Customer("Dave", "Matthews", new Address("street", "zipCode", "city", new Location(1, 1)));
+		Customer carter = new Customer("Carter", "Beauford", new Address("street", "zipCode", "city", new Location(2, 2)));
+
+		assertThat(dave.isNew(), is(true));
+		assertThat(repository.insertAll(Arrays.asList(dave, carter).iterator()), is(2L));
+
+		Customer result = repository.findOne(carter.getId());
+
+		assertThat(result, is(carter));
+		assertThat(result.isNew(), is(false));
+	}
+
+	@Test
+	@Transactional
+	public void streamsAllCustomers() {
+
+		Customer customer = repository.save(new Customer("Dave", "Matthews",
+				new Address("street", "zipCode", "city", new Location(55.349451, -131.673817))));
+
+		try (Stream<Customer> customers = repository.streamAll()) {
+			assertThat(customers.collect(Collectors.toList()), hasItem(customer));
+		}
+	}
+
+	@Test
+	public void findsCustomersNearLocationOrderedByDistance() {
+
+		Customer mitte = repository.save(customer("Mitte", 52.5200, 13.4050));
+		Customer prenzlauerBerg = repository.save(customer("Prenzlauer Berg", 52.5390, 13.4240));
+		repository.save(customer("Potsdam", 52.3906, 13.0645));
+
+		List<Customer> result = repository.findNear(new Point(13.4094, 52.5219), new Distance(5, Metrics.KILOMETERS))
+				.getContent().stream() //
+				.map(GeoResult::getContent) //
+				.collect(Collectors.toList());
+
+		assertThat(result, is(Arrays.asList(mitte, prenzlauerBerg)));
+	}
+
+	private static Customer customer(String lastname, double latitude, double longitude) {
+		return new Customer("Dave", lastname, new Address("street", "zipCode", "city", new Location(latitude, longitude)));
+	}
 }
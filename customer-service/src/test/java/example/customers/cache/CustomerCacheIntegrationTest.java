@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import example.customers.Customer;
+import example.customers.Customer.Address;
+import example.customers.Customer.Address.Location;
+import example.customers.CustomerRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Integration tests for the second-level cache for {@link Customer}s.
+ *
+ * @author Oliver Gierke
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "customers.cache.enabled=true")
+public class CustomerCacheIntegrationTest {
+
+	@Autowired CustomerRepository repository;
+	@Autowired LocalInvalidationChannel channel;
+	@Autowired EntityManagerFactory factory;
+
+	@Test
+	public void servesRepeatedLookupsFromCache() {
+
+		Customer customer = repository.save(newCustomer());
+		SecondLevelCacheStatistics statistics = factory.unwrap(SessionFactory.class).getStatistics()
+				.getSecondLevelCacheStatistics(CustomerCache.REGION);
+
+		long hits = statistics.getHitCount();
+
+		assertThat(repository.findOne(customer.getId()), is(customer));
+		assertThat(repository.findOne(customer.getId()), is(customer));
+		assertThat(statistics.getHitCount() > hits, is(true));
+	}
+
+	@Test
+	public void publishesInvalidationForDeletedCustomer() {
+
+		List<UUID> invalidations = new CopyOnWriteArrayList<>();
+		channel.subscribe(invalidations::add);
+
+		Customer customer = repository.save(newCustomer());
+		repository.delete(customer.getId());
+
+		assertThat(invalidations, hasItem(customer.getId()));
+	}
+
+	private static Customer newCustomer() {
+		return new Customer("Dave", "Matthews", new Address("street", "zipCode", "city", new Location(1, 1)));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.cache;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+
+/**
+ * Unit tests for {@link HttpInvalidationChannel}.
+ *
+ * @author Oliver Gierke
+ */
+public class HttpInvalidationChannelUnitTests {
+
+	static final UUID ID = UUID.fromString("4f9b5a53-8b8c-4b4e-9a39-4c5d5ad3cf4e");
+
+	@Test
+	public void sendsInvalidationsToManagementPort() {
+
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put(HttpInvalidationChannel.MANAGEMENT_PORT, "8090");
+
+		URI uri = HttpInvalidationChannel.getInvalidationUri(instance(metadata), ID);
+
+		assertThat(uri, is(URI.create("http://customers:8090/customercache/" + ID)));
+	}
+
+	@Test
+	public void considersManagementContextPath() {
+
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put(HttpInvalidationChannel.MANAGEMENT_PORT, "8090");
+		metadata.put(HttpInvalidationChannel.MANAGEMENT_CONTEXT_PATH, "/admin");
+
+		URI uri = HttpInvalidationChannel.getInvalidationUri(instance(metadata), ID);
+
+		assertThat(uri, is(URI.create("http://customers:8090/admin/customercache/" + ID)));
+	}
+
+	@Test
+	public void fallsBackToInstancePortWithoutManagementPort() {
+
+		URI uri = HttpInvalidationChannel.getInvalidationUri(instance(Collections.emptyMap()), ID);
+
+		assertThat(uri, is(URI.create("http://customers:8080/customercache/" + ID)));
+	}
+
+	private static DefaultServiceInstance instance(Map<String, String> metadata) {
+		return new DefaultServiceInstance("customers", "customers", 8080, false, metadata);
+	}
+}
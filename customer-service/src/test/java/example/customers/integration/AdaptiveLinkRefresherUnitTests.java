@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.hateoas.Link;
+
+/**
+ * Unit tests for {@link AdaptiveLinkRefresher}.
+ *
+ * @author Oliver Gierke
+ */
+public class AdaptiveLinkRefresherUnitTests {
+
+	static final long INITIAL_BACKOFF = 20, MAX_BACKOFF = 80;
+
+	DiscoveredResource resource = mock(DiscoveredResource.class);
+	AtomicReference<Link> link = new AtomicReference<>();
+	List<Long> attempts = new CopyOnWriteArrayList<>();
+
+	AdaptiveLinkRefresher refresher;
+
+	@Before
+	public void setUp() {
+
+		// Records every attempt, a refresh not resolving the link attempts twice in a row
+		doAnswer(invocation -> {
+
+			attempts.add(System.nanoTime());
+			return null;
+
+		}).when(resource).verifyOrDiscover();
+
+		doAnswer(invocation -> link.get()).when(resource).getLink();
+
+		this.refresher = new AdaptiveLinkRefresher(Collections.singletonMap("stores", resource),
+				mock(GaugeService.class), INITIAL_BACKOFF, MAX_BACKOFF);
+	}
+
+	@After
+	public void tearDown() {
+		refresher.destroy();
+	}
+
+	@Test
+	public void retriesFailedResolutionsWithExponentialBackoff() throws Exception {
+
+		refresher.initialize();
+
+		List<Long> delays = awaitRefreshDelays(6);
+
+		// Each delay at least doubles until capped by the maximum backoff
+		assertThat(delays.get(0), is(greaterThanOrEqualTo(INITIAL_BACKOFF)));
+		assertThat(delays.get(1), is(greaterThanOrEqualTo(2 * INITIAL_BACKOFF)));
+		assertThat(delays.get(2), is(greaterThanOrEqualTo(MAX_BACKOFF)));
+		assertThat(delays.get(4), is(greaterThanOrEqualTo(MAX_BACKOFF)));
+		assertThat(delays.get(4), is(lessThan(4 * MAX_BACKOFF)));
+
+		assertThat(getMetric("hypermedia.stores.failures"), is(greaterThanOrEqualTo(5L)));
+		assertThat(getMetric("hypermedia.stores.available"), is(0L));
+	}
+
+	@Test
+	public void stopsRetryingOnceResolved() throws Exception {
+
+		refresher.initialize();
+		awaitRefreshDelays(2);
+
+		link.set(new Link("http://localhost:8081/stores"));
+
+		Thread.sleep(4 * MAX_BACKOFF);
+
+		int refreshes = attempts.size();
+
+		Thread.sleep(4 * MAX_BACKOFF);
+
+		assertThat(attempts.size(), is(refreshes));
+		assertThat(getMetric("hypermedia.stores.available"), is(1L));
+	}
+
+	@Test
+	public void resetsBackoffOnceResolved() throws Exception {
+
+		refresher.initialize();
+		awaitRefreshDelays(4);
+
+		link.set(new Link("http://localhost:8081/stores"));
+		Thread.sleep(4 * MAX_BACKOFF);
+
+		link.set(null);
+		attempts.clear();
+
+		refresher.reportFailure(resource);
+
+		List<Long> delays = awaitRefreshDelays(2);
+
+		assertThat(delays.get(0), is(lessThan(MAX_BACKOFF)));
+	}
+
+	@Test
+	public void refreshesRightAwayOnReportedFailure() throws Exception {
+
+		link.set(new Link("http://localhost:8081/stores"));
+
+		long start = System.nanoTime();
+		refresher.reportFailure(resource);
+
+		for (int i = 0; i < 100 && attempts.isEmpty(); i++) {
+			Thread.sleep(5);
+		}
+
+		assertThat(attempts, hasSize(1));
+		assertThat(TimeUnit.NANOSECONDS.toMillis(attempts.get(0) - start), is(lessThan(INITIAL_BACKOFF)));
+	}
+
+	/**
+	 * Waits for the given number of refreshes after the first one and returns the delays in milliseconds in between.
+	 */
+	private List<Long> awaitRefreshDelays(int count) throws InterruptedException {
+
+		for (int i = 0; i < 200 && attempts.size() < 2 * (count + 1); i++) {
+			Thread.sleep(10);
+		}
+
+		List<Long> delays = new ArrayList<>();
+
+		for (int i = 2; i + 1 < attempts.size() && delays.size() < count; i += 2) {
+			delays.add(TimeUnit.NANOSECONDS.toMillis(attempts.get(i) - attempts.get(i - 1)));
+		}
+
+		assertThat(delays, hasSize(count));
+
+		return delays;
+	}
+
+	private long getMetric(String name) {
+
+		return refresher.metrics().stream() //
+				.filter(it -> it.getName().equals(name)) //
+				.findFirst() //
+				.map(it -> it.getValue().longValue()) //
+				.orElseThrow(() -> new IllegalArgumentException(name));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.customers.integration.InstanceLatencyTracker.Call;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Unit tests for {@link InstanceLatencyTracker}.
+ *
+ * @author Oliver Gierke
+ */
+public class InstanceLatencyTrackerUnitTests {
+
+	ServiceInstance first = new DefaultServiceInstance("stores", "first", 8080, false);
+	ServiceInstance second = new DefaultServiceInstance("stores", "second", 8080, false);
+	List<ServiceInstance> instances = Arrays.asList(first, second);
+
+	InstanceLatencyTracker tracker = new InstanceLatencyTracker(10_000, 1_000);
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNonPositiveDecay() {
+		new InstanceLatencyTracker(0, 1_000);
+	}
+
+	@Test
+	public void returnsSingleInstanceOrNull() {
+
+		assertThat(tracker.choose(Collections.singletonList(first)), is(first));
+		assertThat(tracker.choose(Collections.emptyList()), is(nullValue()));
+	}
+
+	@Test
+	public void recordsFailurePenaltyForFailedRequests() {
+
+		tracker.start(first).failed();
+
+		assertThat(tracker.getLatency(first), is(greaterThanOrEqualTo(1_000d)));
+		assertThat(tracker.getLatency(second), is(0d));
+	}
+
+	@Test
+	public void picksFasterOfTwoInstances() {
+
+		tracker.start(first).failed();
+		tracker.start(second).succeeded();
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(tracker.choose(instances), is(second));
+		}
+	}
+
+	@Test
+	public void weighsLatencyByRequestsInFlight() {
+
+		tracker.start(first).failed();
+		tracker.start(second).failed();
+
+		Call call = tracker.start(second);
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(tracker.choose(instances), is(first));
+		}
+
+		call.succeeded();
+	}
+
+	@Test
+	public void doesNotPreferInstancesWithoutCompletedRequestsOverLoadedOnes() {
+
+		tracker.start(first).failed();
+
+		for (int i = 0; i < 3; i++) {
+			tracker.start(second);
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(tracker.choose(instances), is(first));
+		}
+	}
+
+	@Test
+	public void assumesAverageLatencyForUnknownInstances() {
+
+		ServiceInstance third = new DefaultServiceInstance("stores", "third", 8080, false);
+
+		tracker.start(first).failed();
+		tracker.start(second).succeeded();
+
+		// Unknown instance is assumed to be half as slow as the failing one
+		for (int i = 0; i < 20; i++) {
+			assertThat(tracker.choose(Arrays.asList(first, third)), is(third));
+		}
+	}
+}
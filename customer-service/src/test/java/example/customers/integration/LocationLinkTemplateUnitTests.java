@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.customers.Customer.Address.Location;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+
+/**
+ * Unit tests for {@link LocationLinkTemplate}.
+ *
+ * @author Oliver Gierke
+ */
+public class LocationLinkTemplateUnitTests {
+
+	static final String BASE = "http://localhost:8081/stores/search/by-location";
+	static final Location LOCATION = new Location(40.740337, -73.995146);
+
+	@Test
+	public void writesQueryLikeTemplateExpansion() {
+
+		Link link = new Link(BASE + "{?location,distance}");
+		Map<String, Object> parameters = Collections.singletonMap("distance", "50km");
+
+		Link result = new LocationLinkTemplate(link, "stores-nearby", parameters).expand(LOCATION);
+
+		assertThat(result, is(expand(link, "stores-nearby", parameters)));
+		assertThat(result.getHref(), is(BASE + "?location=40.740337,-73.995146&distance=50km"));
+	}
+
+	@Test
+	public void encodesParametersLikeTemplateExpansion() {
+
+		Link link = new Link(BASE + "{?location,distance}");
+		Map<String, Object> parameters = Collections.singletonMap("distance", "50 km");
+
+		Link result = new LocationLinkTemplate(link, "stores-nearby", parameters).expand(LOCATION);
+
+		assertThat(result, is(expand(link, "stores-nearby", parameters)));
+		assertThat(result.getHref(), endsWith("&distance=50%20km"));
+	}
+
+	@Test
+	public void skipsVariablesWithoutValues() {
+
+		Link link = new Link(BASE + "{?location,distance,page}");
+		Map<String, Object> parameters = Collections.singletonMap("distance", "50km");
+
+		Link result = new LocationLinkTemplate(link, "stores-nearby", parameters).expand(LOCATION);
+
+		assertThat(result, is(expand(link, "stores-nearby", parameters)));
+		assertThat(result.getHref(), not(containsString("page")));
+	}
+
+	@Test
+	public void fallsBackToTemplateExpansionForOtherTemplates() {
+
+		Link link = new Link(BASE + "{?location}{&distance}");
+		Map<String, Object> parameters = Collections.singletonMap("distance", "50km");
+
+		Link result = new LocationLinkTemplate(link, "stores-nearby", parameters).expand(LOCATION);
+		Link fastPath = new LocationLinkTemplate(new Link(BASE + "{?location,distance}"), "stores-nearby", parameters)
+				.expand(LOCATION);
+
+		assertThat(result, is(expand(link, "stores-nearby", parameters)));
+		assertThat(result, is(fastPath));
+	}
+
+	@Test
+	public void cachesExpandedLinksPerLocation() {
+
+		LocationLinkTemplate template = new LocationLinkTemplate(new Link(BASE + "{?location,k}"), "stores-nearest",
+				Collections.singletonMap("k", 5));
+
+		Link first = template.expand(LOCATION);
+
+		assertThat(template.expand(new Location(LOCATION.getLatitude(), LOCATION.getLongitude())),
+				is(sameInstance(first)));
+		assertThat(template.expand(new Location(0, 0)), is(not(first)));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedLinks() {
+
+		LocationLinkTemplate template = new LocationLinkTemplate(new Link(BASE + "{?location,k}"), "stores-nearest",
+				Collections.singletonMap("k", 5));
+
+		Link first = template.expand(new Location(0, 0));
+		Link second = template.expand(new Location(0, 1));
+
+		for (int i = 2; i < 10_000; i++) {
+			template.expand(new Location(0, i));
+		}
+
+		template.expand(new Location(0, 0));
+		template.expand(new Location(0, 10_000));
+
+		assertThat(template.expand(new Location(0, 0)), is(sameInstance(first)));
+		assertThat(template.expand(new Location(0, 1)), is(not(sameInstance(second))));
+		assertThat(template.expand(new Location(0, 1)), is(second));
+	}
+
+	@Test
+	public void detectsLinkTheTemplateWasCreatedFor() {
+
+		Link link = new Link(BASE + "{?location,k}");
+		LocationLinkTemplate template = new LocationLinkTemplate(link, "stores-nearest", Collections.emptyMap());
+
+		assertThat(template.isTemplateFor(new Link(BASE + "{?location,k}")), is(true));
+		assertThat(template.isTemplateFor(new Link(BASE + "{?location}")), is(false));
+		assertThat(template.isTemplateFor(null), is(false));
+	}
+
+	private static Link expand(Link link, String rel, Map<String, Object> parameters) {
+
+		Map<String, Object> values = new HashMap<>(parameters);
+		values.put("location", String.format("%s,%s", LOCATION.getLatitude(), LOCATION.getLongitude()));
+
+		return link.expand(values).withRel(rel);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.customers.integration.NearbyStoresCache.Key;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Unit tests for {@link NearbyStoresCache}.
+ *
+ * @author Oliver Gierke
+ */
+public class NearbyStoresCacheUnitTests {
+
+	static final List<JsonNode> STORES = Collections.singletonList(new TextNode("store"));
+
+	NearbyStoresProperties properties = new NearbyStoresProperties();
+	Key key = new Key("dr5ru7", "50km");
+
+	@Before
+	public void setUp() {
+
+		properties.getCache().setTimeToLive(50);
+		properties.getCache().setMaxStale(500);
+	}
+
+	@Test
+	public void servesFreshEntries() {
+
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+		cache.put(key, STORES);
+
+		assertThat(cache.getFresh(key).orElse(null), is(STORES));
+		assertThat(cache.getStale(key).orElse(null), is(STORES));
+		assertThat(cache.getFresh(new Key("dr5ru7", "10km")).isPresent(), is(false));
+	}
+
+	@Test
+	public void servesExpiredEntriesAsStaleOnly() throws Exception {
+
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+		cache.put(key, STORES);
+
+		Thread.sleep(100);
+
+		assertThat(cache.getFresh(key).isPresent(), is(false));
+		assertThat(cache.getStale(key).orElse(null), is(STORES));
+		assertThat(cache.size(), is(1));
+	}
+
+	@Test
+	public void dropsEntriesExceedingMaxStaleness() throws Exception {
+
+		properties.getCache().setMaxStale(60);
+
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+		cache.put(key, STORES);
+
+		Thread.sleep(100);
+
+		assertThat(cache.getStale(key).isPresent(), is(false));
+		assertThat(cache.size(), is(0));
+	}
+
+	@Test
+	public void neverConsidersEntriesStaleBeforeTheyExpire() throws Exception {
+
+		properties.getCache().setMaxStale(0);
+
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+		cache.put(key, STORES);
+
+		assertThat(cache.getFresh(key).orElse(null), is(STORES));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedEntriesBeyondMaxSize() {
+
+		properties.getCache().setMaxSize(2);
+
+		NearbyStoresCache cache = new NearbyStoresCache(properties);
+		Key other = new Key("dr5ru8", "50km"), third = new Key("dr5ru9", "50km");
+
+		cache.put(key, STORES);
+		cache.put(other, STORES);
+		cache.getFresh(key);
+		cache.put(third, STORES);
+
+		assertThat(cache.size(), is(2));
+		assertThat(cache.getFresh(key).isPresent(), is(true));
+		assertThat(cache.getFresh(other).isPresent(), is(false));
+		assertThat(cache.getFresh(third).isPresent(), is(true));
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import example.customers.integration.NearbyStoresCache.Key;
+import example.geo.Geohash;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.hypermedia.DiscoveredResource;
+import org.springframework.cloud.client.hypermedia.ServiceInstanceProvider;
+import org.springframework.hateoas.Link;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Unit tests for the batch lookups of {@link NearbyStoresClient}, i.e. how the lookups collapsed into a batch are
+ * mapped to requests to the store service and the results back to the individual lookups.
+ *
+ * @author Oliver Gierke
+ */
+public class NearbyStoresClientUnitTests {
+
+	static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+	DiscoveredResource resource = mock(DiscoveredResource.class);
+	AdaptiveLinkRefresher refresher = mock(AdaptiveLinkRefresher.class);
+	StoreShards shards = mock(StoreShards.class);
+	RestTemplate template = mock(RestTemplate.class);
+	RestTemplateBuilder builder = mock(RestTemplateBuilder.class);
+
+	NearbyStoresProperties properties = new NearbyStoresProperties();
+	NearbyStoresCache cache = new NearbyStoresCache(properties);
+	List<Map<String, Object>> requests = new ArrayList<>();
+
+	NearbyStoresClient client;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+
+		doReturn(new Link("http://localhost:8081/stores/search/by-locations")).when(resource).getLink();
+		doReturn(Collections.emptyList()).when(shards).getShards();
+		doReturn(template).when(builder).build();
+
+		doAnswer(invocation -> {
+
+			Map<String, Object> query = (Map<String, Object>) invocation.getArguments()[1];
+			requests.add(query);
+
+			return respond(query);
+
+		}).when(template).postForObject(any(URI.class), any(), eq(JsonNode.class));
+
+		this.client = new NearbyStoresClient(resource, cache, refresher, mock(ServiceInstanceProvider.class),
+				new InstanceLatencyTracker(10_000, 1_000), shards, properties, builder);
+	}
+
+	@After
+	public void tearDown() {
+		client.destroy();
+	}
+
+	@Test
+	public void sendsSingleRequestPerDistanceForDistinctCells() {
+
+		client.findStoresBatch(Arrays.asList(new Key("dr5ru3", "50km"), new Key("dr5ru4", "50km"),
+				new Key("dr5ru3", "50km"), new Key("u33db2", "10km")));
+
+		assertThat(requests, hasSize(2));
+
+		Map<Object, Object> byDistance = new HashMap<>();
+		requests.forEach(it -> byDistance.put(it.get("distance"), it.get("locations")));
+
+		assertThat(byDistance.get("50km"), is((Object) locations("dr5ru3", "dr5ru4")));
+		assertThat(byDistance.get("10km"), is((Object) locations("u33db2")));
+	}
+
+	@Test
+	public void mapsResultsBackToLookupsInOrder() {
+
+		List<Key> keys = Arrays.asList(new Key("dr5ru3", "50km"), new Key("u33db2", "10km"), new Key("dr5ru4", "50km"),
+				new Key("dr5ru3", "50km"));
+
+		List<List<JsonNode>> result = client.findStoresBatch(keys);
+
+		assertThat(result, hasSize(keys.size()));
+
+		for (int i = 0; i < keys.size(); i++) {
+			assertThat(result.get(i), contains(store(keys.get(i))));
+		}
+	}
+
+	@Test
+	public void cachesResultsPerLookup() {
+
+		Key key = new Key("dr5ru3", "50km");
+
+		client.findStoresBatch(Collections.singletonList(key));
+
+		assertThat(cache.getFresh(key).orElse(null), contains(store(key)));
+	}
+
+	@Test
+	public void fallsBackToStaleEntriesAndReportsFailure() {
+
+		Key cached = new Key("dr5ru3", "50km"), uncached = new Key("dr5ru4", "50km");
+		List<JsonNode> stores = Collections.singletonList(new TextNode("store"));
+
+		cache.put(cached, stores);
+
+		List<List<JsonNode>> result = client.findCachedStores(Arrays.asList(cached, uncached));
+
+		assertThat(result.get(0), is(stores));
+		assertThat(result.get(1), is(empty()));
+		verify(refresher).reportFailure(resource);
+	}
+
+	/**
+	 * Mimics the store service's {@code by-locations} resource returning a single store per location, named after the
+	 * location and distance it was found for.
+	 */
+	@SuppressWarnings("unchecked")
+	private static JsonNode respond(Map<String, Object> query) {
+
+		ArrayNode results = FACTORY.arrayNode();
+
+		for (String location : (List<String>) query.get("locations")) {
+
+			ObjectNode result = results.addObject();
+			result.put("location", location);
+			result.putArray("stores").addObject().put("name", location + " " + query.get("distance"));
+		}
+
+		ObjectNode response = FACTORY.objectNode();
+		response.putObject("_embedded").set("results", results);
+
+		return response;
+	}
+
+	private static JsonNode store(Key key) {
+
+		ObjectNode store = FACTORY.objectNode();
+		store.put("name", location(key.getCell()) + " " + key.getDistance());
+
+		return store;
+	}
+
+	private static List<String> locations(String... cells) {
+
+		List<String> locations = new ArrayList<>();
+
+		for (String cell : cells) {
+			locations.add(location(cell));
+		}
+
+		return locations;
+	}
+
+	private static String location(String cell) {
+
+		double[] center = Geohash.center(cell);
+
+		return String.format("%s,%s", center[0], center[1]);
+	}
+}
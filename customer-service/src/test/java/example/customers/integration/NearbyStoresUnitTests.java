@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import example.customers.Customer.Address.Location;
+import example.customers.integration.NearbyStoresCache.Key;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Unit tests for {@link NearbyStores}.
+ *
+ * @author Oliver Gierke
+ */
+public class NearbyStoresUnitTests {
+
+	static final List<JsonNode> STORES = Collections.singletonList(new TextNode("store"));
+
+	NearbyStoresProperties properties = new NearbyStoresProperties();
+	NearbyStoresCache cache = new NearbyStoresCache(properties);
+	NearbyStoresClient client = mock(NearbyStoresClient.class);
+
+	NearbyStores stores;
+
+	@Before
+	public void setUp() {
+
+		properties.setEmbed(true);
+
+		this.stores = new NearbyStores(properties, cache, client);
+	}
+
+	@Test
+	public void doesNotLookUpStoresIfEmbeddingIsDisabled() {
+
+		properties.setEmbed(false);
+
+		assertThat(stores.lookup(new Location(40.7433, -73.9894)).isPresent(), is(false));
+		verifyZeroInteractions(client);
+	}
+
+	@Test
+	public void doesNotLookUpStoresWithoutLocation() {
+		assertThat(stores.lookup(null).isPresent(), is(false));
+	}
+
+	@Test
+	public void quantizesLocationsToGeohashCells() {
+
+		Key key = new Key("dr5ru3", "50km");
+		doReturn(CompletableFuture.completedFuture(STORES)).when(client).findStores(key);
+
+		stores.lookup(new Location(40.7433, -73.9894));
+		stores.lookup(new Location(40.7434, -73.9893));
+
+		verify(client, times(2)).findStores(key);
+	}
+
+	@Test
+	public void servesFreshEntriesFromCache() throws Exception {
+
+		cache.put(new Key("dr5ru3", "50km"), STORES);
+
+		Optional<Future<List<JsonNode>>> result = stores.lookup(new Location(40.7433, -73.9894));
+
+		assertThat(result.get().get(), is(STORES));
+		verifyZeroInteractions(client);
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.customers.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import example.customers.integration.StoreShards.Shard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Unit tests for {@link StoreShards}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreShardsUnitTests {
+
+	// At 60°N, a circle of 1000 km spans 18.218° of longitude to either side of its center. The latitude delta scaled
+	// by the cosine of the latitude only gives 17.986°, missing the geohash cells beyond 45°E and 0° respectively.
+	static final double LATITUDE = 60, KILOMETERS = 1000;
+
+	Shard east = shard("v4bh"), west = shard("gfzu"), americas = shard("9");
+
+	@Test
+	public void routesToShardAtEasternEdgeOfCircle() {
+
+		List<Shard> result = StoreShards.route(Arrays.asList(east, americas), LATITUDE, 26.88, KILOMETERS);
+
+		assertThat(result, contains(east));
+	}
+
+	@Test
+	public void routesToShardAtWesternEdgeOfCircle() {
+
+		List<Shard> result = StoreShards.route(Arrays.asList(west, americas), LATITUDE, 18.12, KILOMETERS);
+
+		assertThat(result, contains(west));
+	}
+
+	@Test
+	public void routesToCompleteShardOnly() {
+
+		Shard complete = shard();
+
+		assertThat(StoreShards.route(Arrays.asList(east, complete), LATITUDE, 26.88, KILOMETERS), contains(complete));
+	}
+
+	private static Shard shard(String... prefixes) {
+		return new Shard(new TreeSet<>(Arrays.asList(prefixes)),
+				Collections.singletonList(mock(ServiceInstance.class)));
+	}
+}
@@ -18,7 +18,16 @@ package example.hystrix;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.netflix.hystrix.dashboard.EnableHystrixDashboard;
+import org.springframework.cloud.netflix.turbine.EnableTurbine;
 
+/**
+ * Hystrix dashboard that also serves the streams of all instances of the services configured in
+ * {@code turbine.appConfig} merged into a single one ({@code /turbine.stream}). The instances are discovered through
+ * Eureka.
+ *
+ * @author Oliver Gierke
+ */
+@EnableTurbine
 @SpringBootApplication
 @EnableHystrixDashboard
 public class HystrixDashboardApplication {
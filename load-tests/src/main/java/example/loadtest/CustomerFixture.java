@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Creates the customers to look up during the load test through the customer service's bulk ingest and obtains their
+ * identifiers through its CSV export.
+ *
+ * @author Oliver Gierke
+ */
+class CustomerFixture {
+
+	private static final ObjectWriter WRITER = new ObjectMapper().writer()
+			.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	/**
+	 * Creates the given number of customers, each one located at a randomly picked store location.
+	 *
+	 * @param service the URI of the customer service, must not be {@literal null}.
+	 * @param locations must not be {@literal null} or empty.
+	 * @param count the number of customers to create.
+	 * @param random must not be {@literal null}.
+	 * @return the identifiers of all customers known to the service.
+	 * @throws IOException
+	 */
+	static List<String> create(URI service, List<StoreLocation> locations, int count, Random random)
+			throws IOException {
+
+		Assert.notNull(service, "Service URI must not be null!");
+		Assert.notEmpty(locations, "Locations must not be null or empty!");
+
+		HttpURLConnection ingest = (HttpURLConnection) service.resolve("/customers/bulk").toURL().openConnection();
+		ingest.setRequestMethod("POST");
+		ingest.setRequestProperty("Content-Type", "application/x-ndjson");
+		ingest.setChunkedStreamingMode(64 * 1024);
+		ingest.setDoOutput(true);
+
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(ingest.getOutputStream(), StandardCharsets.UTF_8))) {
+
+			for (int i = 0; i < count; i++) {
+
+				WRITER.writeValue(writer, customer(i, locations.get(random.nextInt(locations.size()))));
+				writer.write('\n');
+			}
+		}
+
+		if (ingest.getResponseCode() != HttpURLConnection.HTTP_CREATED) {
+			throw new IllegalStateException("Creating customers failed with status " + ingest.getResponseCode() + "!");
+		}
+
+		HttpURLConnection export = (HttpURLConnection) service.resolve("/customers/export").toURL().openConnection();
+		export.setRequestProperty("Accept", "text/csv");
+
+		List<String> identifiers = new ArrayList<>(count);
+
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(export.getInputStream(), StandardCharsets.UTF_8))) {
+
+			// Skip the header, the identifier is the first column
+			reader.readLine();
+
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (!line.isEmpty()) {
+					identifiers.add(line.substring(0, line.indexOf(',')));
+				}
+			}
+		}
+
+		return identifiers;
+	}
+
+	private static Map<String, Object> customer(int index, StoreLocation store) {
+
+		Map<String, Object> location = new LinkedHashMap<>();
+		location.put("latitude", store.getLatitude());
+		location.put("longitude", store.getLongitude());
+
+		Map<String, Object> address = new LinkedHashMap<>();
+		address.put("street", store.getStreet());
+		address.put("zipCode", store.getZipCode());
+		address.put("city", store.getCity());
+		address.put("location", location);
+
+		Map<String, Object> customer = new LinkedHashMap<>();
+		customer.put("firstname", "Customer");
+		customer.put("lastname", String.valueOf(index));
+		customer.put("address", address);
+
+		return customer;
+	}
+}
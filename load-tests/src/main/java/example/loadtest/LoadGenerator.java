@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+
+/**
+ * Drives open-model traffic: requests are issued at random (Poisson) arrivals with the configured rate, independently
+ * of how fast previous ones are answered. A slow system therefore accumulates requests in flight instead of slowing
+ * down the load generator, which would hide the latency the requests not sent in the meantime would have seen
+ * (coordinated omission). Latencies are measured from the time a request was scheduled at. Requests exceeding the
+ * maximum number of requests in flight are dropped and recorded as timed out.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+class LoadGenerator implements Closeable {
+
+	private final CloseableHttpAsyncClient client;
+	private final int maxOutstanding;
+	private final long timeout;
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	/**
+	 * Creates a new {@link LoadGenerator}.
+	 *
+	 * @param connections the maximum number of connections to open.
+	 * @param maxOutstanding the maximum number of requests in flight.
+	 * @param timeout the time in milliseconds after which requests are considered failed.
+	 */
+	LoadGenerator(int connections, int maxOutstanding, int timeout) {
+
+		RequestConfig config = RequestConfig.custom() //
+				.setConnectTimeout(timeout) //
+				.setConnectionRequestTimeout(timeout) //
+				.setSocketTimeout(timeout) //
+				.build();
+
+		this.client = HttpAsyncClients.custom() //
+				.setMaxConnTotal(connections) //
+				.setMaxConnPerRoute(connections) //
+				.setDefaultRequestConfig(config) //
+				.build();
+		this.client.start();
+
+		this.maxOutstanding = maxOutstanding;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Issues requests produced by the given {@link Function} at the given rate for the given time and waits for the
+	 * requests in flight to complete afterwards.
+	 *
+	 * @param requests produces the next request to send using the given {@link Random}, must not be {@literal null}.
+	 * @param rate the number of requests per second.
+	 * @param duration the time in milliseconds to issue requests for.
+	 * @param random must not be {@literal null}.
+	 * @return the time in nanoseconds requests were issued for.
+	 * @throws InterruptedException
+	 */
+	long run(Function<Random, Request> requests, double rate, long duration, Random random)
+			throws InterruptedException {
+
+		long start = System.nanoTime();
+		long end = start + TimeUnit.MILLISECONDS.toNanos(duration);
+		double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		double next = start;
+
+		while (true) {
+
+			next += -Math.log(1 - random.nextDouble()) * interval;
+
+			long scheduled = (long) next;
+
+			if (scheduled - end >= 0) {
+				break;
+			}
+
+			for (long delay = scheduled - System.nanoTime(); delay > 0; delay = scheduled - System.nanoTime()) {
+				LockSupport.parkNanos(delay);
+			}
+
+			send(requests.apply(random), scheduled);
+		}
+
+		long elapsed = System.nanoTime() - start;
+		long deadline = System.currentTimeMillis() + 2 * timeout;
+
+		while (outstanding.get() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		return elapsed;
+	}
+
+	private void send(Request request, long scheduled) {
+
+		RequestStatistics statistics = request.getStatistics();
+
+		if (outstanding.incrementAndGet() > maxOutstanding) {
+
+			outstanding.decrementAndGet();
+			statistics.dropped(TimeUnit.MILLISECONDS.toNanos(timeout));
+
+			return;
+		}
+
+		long sent = System.nanoTime();
+
+		client.execute(new HttpGet(request.getUri()), new FutureCallback<HttpResponse>() {
+
+			@Override
+			public void completed(HttpResponse response) {
+				complete(response.getStatusLine().getStatusCode() < 400);
+			}
+
+			@Override
+			public void failed(Exception o_O) {
+
+				log.debug("Request to {} failed!", request.getUri(), o_O);
+				complete(false);
+			}
+
+			@Override
+			public void cancelled() {
+				complete(false);
+			}
+
+			private void complete(boolean success) {
+
+				statistics.completed(scheduled, sent, System.nanoTime(), success);
+				outstanding.decrementAndGet();
+			}
+		});
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		client.close();
+	}
+
+	/**
+	 * A request to send and the {@link RequestStatistics} to record its outcome in.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	static class Request {
+		URI uri;
+		RequestStatistics statistics;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Renders the {@link RequestStatistics} of a load test run as a table: the number of requests sent, the throughput,
+ * the number of failed and dropped requests and the latency percentiles corrected for coordinated omission (including
+ * the dropped requests as timed out), followed by the uncorrected 99th percentile for comparison. Latencies are given
+ * in milliseconds.
+ *
+ * @author Oliver Gierke
+ */
+class LoadReport {
+
+	private static final String HEADER = "%-10s %-9s %9s %9s %7s %7s %9s %9s %9s %9s %9s %11s%n";
+	private static final String ROW = "%-10s %-9s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f%n";
+
+	private final List<Row> rows = new ArrayList<>();
+
+	/**
+	 * Adds the given {@link RequestStatistics} recorded over the given time to the report.
+	 *
+	 * @param statistics must not be {@literal null}.
+	 * @param elapsed the time in nanoseconds the requests were issued over.
+	 */
+	void add(RequestStatistics statistics, long elapsed) {
+		rows.add(new Row(statistics, elapsed));
+	}
+
+	/**
+	 * Renders the report.
+	 *
+	 * @return
+	 */
+	String render() {
+
+		StringBuilder builder = new StringBuilder();
+
+		builder.append(String.format(Locale.US, HEADER, "hop", "request", "count", "req/s", "errors", "dropped", "p50",
+				"p90", "p99", "p99.9", "max", "p99 (uncorr)"));
+
+		for (Row row : rows) {
+
+			RequestStatistics statistics = row.getStatistics();
+			Histogram corrected = statistics.getCorrected();
+			long successful = statistics.getCount() - statistics.getErrors();
+			double seconds = row.getElapsed() / (double) TimeUnit.SECONDS.toNanos(1);
+
+			builder.append(String.format(Locale.US, ROW, statistics.getHop(), statistics.getRequest(),
+					statistics.getCount(), successful / seconds, statistics.getErrors(), statistics.getDropped(),
+					percentile(corrected, 50), percentile(corrected, 90), percentile(corrected, 99),
+					percentile(corrected, 99.9), toMillis(corrected.getMaxValue()),
+					percentile(statistics.getUncorrected(), 99)));
+		}
+
+		return builder.toString();
+	}
+
+	private static double percentile(Histogram histogram, double percentile) {
+		return toMillis(histogram.getValueAtPercentile(percentile));
+	}
+
+	private static double toMillis(long micros) {
+		return micros / 1000d;
+	}
+
+	@Value
+	private static class Row {
+		RequestStatistics statistics;
+		long elapsed;
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import example.loadtest.LoadGenerator.Request;
+import example.loadtest.LoadTestProperties.Edge;
+import example.loadtest.LoadTestProperties.Hop;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * End-to-end load test of the system as deployed: launches the Eureka server, the store service (with an embedded
+ * MongoDB), the customer service and the edge proxy from their executable JARs, creates customers and drives
+ * open-model traffic against each hop one after another. The hops are driven separately, so that the latencies
+ * reported for a downstream service aren't inflated by the traffic sent to it through the upstream ones. Run from the
+ * project root after building it, e.g. {@code java -jar load-tests/target/load-tests.jar --loadtest.rate=500}.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@SpringBootApplication
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTest implements CommandLineRunner {
+
+	static final String SEARCH = "search", CUSTOMER = "customer";
+
+	@Autowired LoadTestProperties properties;
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(LoadTest.class).web(false).run(args);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.CommandLineRunner#run(java.lang.String[])
+	 */
+	@Override
+	public void run(String... args) throws Exception {
+
+		List<ServiceProcess> processes = new CopyOnWriteArrayList<>();
+		Thread shutdown = new Thread(() -> stop(processes));
+
+		Runtime.getRuntime().addShutdownHook(shutdown);
+
+		try {
+
+			long deadline = System.currentTimeMillis() + properties.getStartupTimeout();
+
+			if (properties.isLaunch()) {
+
+				ServiceProcess eureka = start("eureka", properties.getEureka());
+
+				processes.add(eureka);
+				eureka.awaitHealthy(deadline);
+			}
+
+			ServiceProcess stores = start("stores", properties.getStores());
+			ServiceProcess customers = start("customers", properties.getCustomers());
+			ServiceProcess edge = start("edge", properties.getEdge());
+
+			processes.addAll(Arrays.asList(stores, customers, edge));
+
+			for (ServiceProcess process : processes) {
+				process.awaitHealthy(deadline);
+			}
+
+			Random random = new Random(properties.getSeed());
+			List<StoreLocation> locations = StoreLocation.readAll();
+
+			log.info("Creating {} customers.", properties.getCustomerCount());
+
+			List<String> identifiers = CustomerFixture.create(customers.getUri(), locations,
+					properties.getCustomerCount(), random);
+			Workload workload = new Workload(locations, identifiers, properties.getSkew(),
+					properties.getSearchDistance(), random);
+
+			LoadReport report = new LoadReport();
+
+			try (LoadGenerator generator = new LoadGenerator(properties.getConnections(),
+					properties.getMaxOutstanding(), properties.getTimeout())) {
+
+				for (Hop hop : properties.getHops()) {
+
+					String name = hop.name().toLowerCase(Locale.US);
+					Edge routes = properties.getEdge();
+
+					// Wait for the edge to have discovered the routes
+					if (hop == Hop.EDGE) {
+						edge.awaitAvailable(routes.getStoresPrefix() + workload.nextSearch(random),
+								System.currentTimeMillis() + properties.getStartupTimeout());
+						edge.awaitAvailable(routes.getCustomersPrefix() + workload.nextCustomer(random),
+								System.currentTimeMillis() + properties.getStartupTimeout());
+					}
+
+					log.info("Warming up {} for {}ms.", name, properties.getWarmup());
+
+					Function<Random, Request> warmup = traffic(hop, workload, stores, customers, edge,
+							new RequestStatistics(name, SEARCH), new RequestStatistics(name, CUSTOMER));
+
+					generator.run(warmup, properties.getRate(), properties.getWarmup(), random);
+
+					log.info("Driving {} requests per second against {} for {}ms.", properties.getRate(), name,
+							properties.getDuration());
+
+					RequestStatistics searches = new RequestStatistics(name, SEARCH);
+					RequestStatistics lookups = new RequestStatistics(name, CUSTOMER);
+
+					long elapsed = generator.run(traffic(hop, workload, stores, customers, edge, searches, lookups),
+							properties.getRate(), properties.getDuration(), random);
+
+					for (RequestStatistics statistics : Arrays.asList(searches, lookups)) {
+						if (statistics.getCount() + statistics.getDropped() > 0) {
+							report.add(statistics, elapsed);
+						}
+					}
+				}
+			}
+
+			report(report.render());
+
+		} finally {
+
+			stop(processes);
+			Runtime.getRuntime().removeShutdownHook(shutdown);
+		}
+	}
+
+	private ServiceProcess start(String name, LoadTestProperties.Service service) throws IOException {
+
+		return properties.isLaunch() //
+				? ServiceProcess.launch(name, service, Paths.get(properties.getLogDirectory())) //
+				: ServiceProcess.attach(name, service);
+	}
+
+	/**
+	 * Returns the traffic to drive against the given {@link Hop}: store searches for the store service, customer
+	 * lookups for the customer service and a mix of both for the edge.
+	 */
+	private Function<Random, Request> traffic(Hop hop, Workload workload, ServiceProcess stores,
+			ServiceProcess customers, ServiceProcess edge, RequestStatistics searches, RequestStatistics lookups) {
+
+		URI base = edge.getUri();
+		String customerRoute = properties.getEdge().getCustomersPrefix();
+		String storeRoute = properties.getEdge().getStoresPrefix();
+		double ratio = properties.getCustomerRatio();
+
+		switch (hop) {
+
+			case STORES:
+				return random -> new Request(stores.getUri().resolve(workload.nextSearch(random)), searches);
+
+			case CUSTOMERS:
+				return random -> new Request(customers.getUri().resolve(workload.nextCustomer(random)), lookups);
+
+			case EDGE:
+			default:
+				return random -> random.nextDouble() < ratio //
+						? new Request(base.resolve(customerRoute + workload.nextCustomer(random)), lookups)
+						: new Request(base.resolve(storeRoute + workload.nextSearch(random)), searches);
+		}
+	}
+
+	private void report(String report) throws IOException {
+
+		log.info("Load test results (latencies in ms, corrected for coordinated omission unless stated otherwise):\n{}",
+				report);
+
+		if (!StringUtils.hasText(properties.getReport())) {
+			return;
+		}
+
+		Path file = Paths.get(properties.getReport()).toAbsolutePath();
+
+		Files.createDirectories(file.getParent());
+		Files.write(file, report.getBytes(StandardCharsets.UTF_8));
+
+		log.info("Report written to {}.", file);
+	}
+
+	private static void stop(List<ServiceProcess> processes) {
+
+		List<ServiceProcess> reversed = new ArrayList<>(processes);
+		Collections.reverse(reversed);
+
+		reversed.forEach(ServiceProcess::stop);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the load test, i.e. the services to launch and the traffic to drive against them.
+ *
+ * @author Oliver Gierke
+ */
+@Data
+@ConfigurationProperties("loadtest")
+public class LoadTestProperties {
+
+	/**
+	 * Whether to launch the services as local processes. If disabled, the load is driven against already running ones.
+	 */
+	private boolean launch = true;
+
+	/**
+	 * The directory to write the output of the launched services to.
+	 */
+	private String logDirectory = "load-tests/target/logs";
+
+	/**
+	 * The time in milliseconds to wait for the services to become available.
+	 */
+	private long startupTimeout = 300_000;
+
+	private Service eureka = new Service();
+	private Service stores = new Service();
+	private Service customers = new Service();
+	private Edge edge = new Edge();
+
+	/**
+	 * The hops to drive traffic against, one after another: {@code stores} and {@code customers} send requests to the
+	 * services directly, {@code edge} through the proxy.
+	 */
+	private List<Hop> hops = new ArrayList<>(Arrays.asList(Hop.values()));
+
+	/**
+	 * The number of requests per second to issue, regardless of how fast they're answered.
+	 */
+	private double rate = 200;
+
+	/**
+	 * The time in milliseconds to drive traffic against a hop before recording.
+	 */
+	private long warmup = 10_000;
+
+	/**
+	 * The time in milliseconds to record traffic for per hop.
+	 */
+	private long duration = 60_000;
+
+	/**
+	 * The share of customer lookups in the traffic sent through the edge, the rest being store searches.
+	 */
+	private double customerRatio = 0.5;
+
+	/**
+	 * The number of customers to create before driving traffic.
+	 */
+	private int customerCount = 10_000;
+
+	/**
+	 * The exponent of the Zipf distribution requests pick store locations and customers by, {@literal 0} for uniform
+	 * traffic. The higher the value the more requests hit a small set of hot spots.
+	 */
+	private double skew = 1.0;
+
+	/**
+	 * The distance to search stores within.
+	 */
+	private String searchDistance = "5km";
+
+	/**
+	 * The seed of the random numbers, so that runs can be repeated with the same traffic.
+	 */
+	private long seed = 42;
+
+	/**
+	 * The maximum number of connections per hop.
+	 */
+	private int connections = 200;
+
+	/**
+	 * The maximum number of requests in flight. Requests exceeding it are dropped instead of delaying the ones still to
+	 * be issued and recorded with the timeout as latency.
+	 */
+	private int maxOutstanding = 2_000;
+
+	/**
+	 * The time in milliseconds after which a request is considered failed.
+	 */
+	private int timeout = 10_000;
+
+	/**
+	 * The file to write the report to, empty to only log it.
+	 */
+	private String report = "";
+
+	/**
+	 * A service to launch.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Data
+	public static class Service {
+
+		/**
+		 * The executable JAR of the service.
+		 */
+		private String jar;
+
+		/**
+		 * The base URI the service is available at. The service is launched on the port of the URI.
+		 */
+		private String url;
+
+		/**
+		 * The base URI of the service's management server if it runs on a port of its own, e.g. in the {@code cloud}
+		 * profile of the customer service. The service is launched with the port of the URI as management port, its
+		 * health is checked there. Defaults to {@link #url}.
+		 */
+		private String managementUrl;
+
+		/**
+		 * Additional arguments to launch the service with.
+		 */
+		private List<String> arguments = new ArrayList<>();
+	}
+
+	/**
+	 * The edge proxy and the paths it routes the services under.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Data
+	@EqualsAndHashCode(callSuper = true)
+	public static class Edge extends Service {
+
+		private String storesPrefix = "/stores";
+		private String customersPrefix = "/customer";
+	}
+
+	/**
+	 * The hops of a request traversing the system.
+	 *
+	 * @author Oliver Gierke
+	 */
+	public enum Hop {
+		STORES, CUSTOMERS, EDGE;
+	}
+}
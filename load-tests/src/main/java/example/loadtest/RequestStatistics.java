@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of the requests of one kind sent to a hop. Latencies are recorded twice: corrected for coordinated
+ * omission, i.e. measured from the time the request was scheduled to be sent, and as the service time measured from
+ * the time it was actually sent. The difference between the two reveals the time requests were delayed by the load
+ * generator or by waiting for a connection. Requests dropped by the load generator are recorded as corrected samples
+ * of the request timeout, so that the periods the system was overloaded don't vanish from the percentiles.
+ *
+ * @author Oliver Gierke
+ */
+class RequestStatistics {
+
+	private static final long MAX = TimeUnit.MINUTES.toMicros(10);
+
+	private final @Getter String hop, request;
+	private final @Getter Histogram corrected = new ConcurrentHistogram(MAX, 3);
+	private final @Getter Histogram uncorrected = new ConcurrentHistogram(MAX, 3);
+	private final LongAdder errors = new LongAdder(), dropped = new LongAdder();
+
+	/**
+	 * Creates a new {@link RequestStatistics} for the given hop and kind of request.
+	 *
+	 * @param hop must not be {@literal null}.
+	 * @param request must not be {@literal null}.
+	 */
+	RequestStatistics(String hop, String request) {
+
+		this.hop = hop;
+		this.request = request;
+	}
+
+	/**
+	 * Records a completed request.
+	 *
+	 * @param scheduled the time in nanoseconds the request was scheduled to be sent at.
+	 * @param sent the time in nanoseconds the request was actually sent at.
+	 * @param completed the time in nanoseconds the request was completed at.
+	 * @param success whether the request was successful.
+	 */
+	void completed(long scheduled, long sent, long completed, boolean success) {
+
+		corrected.recordValue(toMicros(completed - scheduled));
+		uncorrected.recordValue(toMicros(completed - sent));
+
+		if (!success) {
+			errors.increment();
+		}
+	}
+
+	/**
+	 * Records a request that could not be sent as too many requests were in flight already. It is considered to have
+	 * timed out, as it would have had to wait for the requests in flight at least.
+	 *
+	 * @param timeout the request timeout in nanoseconds.
+	 */
+	void dropped(long timeout) {
+
+		corrected.recordValue(toMicros(timeout));
+		dropped.increment();
+	}
+
+	/**
+	 * Returns the number of requests actually sent.
+	 *
+	 * @return
+	 */
+	long getCount() {
+		return uncorrected.getTotalCount();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	private static long toMicros(long nanos) {
+		return Math.max(0, Math.min(MAX, TimeUnit.NANOSECONDS.toMicros(nanos)));
+	}
+}
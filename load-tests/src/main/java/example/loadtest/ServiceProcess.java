@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A service the load is driven against, either launched as local process from its executable JAR or attached to if
+ * it's already running.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+class ServiceProcess {
+
+	private static final long POLL_INTERVAL = 1_000;
+
+	private final @Getter String name;
+	private final @Getter URI uri;
+	private final URI managementUri;
+	private final Process process;
+	private final Path output;
+
+	private ServiceProcess(String name, URI uri, URI managementUri, Process process, Path output) {
+
+		this.name = name;
+		this.uri = uri;
+		this.managementUri = managementUri;
+		this.process = process;
+		this.output = output;
+	}
+
+	/**
+	 * Launches the given executable JAR with the current Java runtime on the port of the given URI and, if configured,
+	 * the management server on the port of the given management URI.
+	 *
+	 * @param name the name of the service, must not be {@literal null} or empty.
+	 * @param service the {@link LoadTestProperties.Service} to launch, must not be {@literal null}.
+	 * @param logDirectory the directory to write the output of the process to, must not be {@literal null}.
+	 * @return
+	 * @throws IOException
+	 */
+	static ServiceProcess launch(String name, LoadTestProperties.Service service, Path logDirectory)
+			throws IOException {
+
+		Assert.hasText(name, "Name must not be null or empty!");
+		Assert.notNull(service, "Service must not be null!");
+
+		File jar = new File(service.getJar());
+
+		if (!jar.isFile()) {
+			throw new IllegalStateException(String.format("Executable JAR %s of %s not found! Build the project first.",
+					jar.getAbsolutePath(), name));
+		}
+
+		URI uri = URI.create(service.getUrl());
+		URI managementUri = getManagementUri(service);
+		Path output = Files.createDirectories(logDirectory).resolve(name + ".log");
+
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-jar");
+		command.add(jar.getAbsolutePath());
+		command.add("--server.port=" + uri.getPort());
+
+		if (!managementUri.equals(uri)) {
+			command.add("--management.port=" + managementUri.getPort());
+		}
+
+		command.addAll(service.getArguments());
+
+		log.info("Launching {} on port {}, logging to {}.", name, uri.getPort(), output);
+
+		Process process = new ProcessBuilder(command) //
+				.redirectErrorStream(true) //
+				.redirectOutput(output.toFile()) //
+				.start();
+
+		return new ServiceProcess(name, uri, managementUri, process, output);
+	}
+
+	/**
+	 * Attaches to the already running service at the URIs of the given {@link LoadTestProperties.Service}.
+	 *
+	 * @param name must not be {@literal null} or empty.
+	 * @param service must not be {@literal null}.
+	 * @return
+	 */
+	static ServiceProcess attach(String name, LoadTestProperties.Service service) {
+
+		Assert.hasText(name, "Name must not be null or empty!");
+		Assert.notNull(service, "Service must not be null!");
+		Assert.hasText(service.getUrl(), "URI must not be null or empty!");
+
+		return new ServiceProcess(name, URI.create(service.getUrl()), getManagementUri(service), null, null);
+	}
+
+	/**
+	 * Waits for the health endpoint of the service's management server to answer with a successful status code.
+	 *
+	 * @param deadline the {@link System#currentTimeMillis()} to give up at.
+	 * @throws InterruptedException
+	 */
+	void awaitHealthy(long deadline) throws InterruptedException {
+		awaitAvailable(managementUri.resolve("/health"), deadline);
+	}
+
+	/**
+	 * Waits for the given path of the service to answer with a successful status code.
+	 *
+	 * @param path the path relative to the service's URI, must not be {@literal null}.
+	 * @param deadline the {@link System#currentTimeMillis()} to give up at.
+	 * @throws InterruptedException
+	 */
+	void awaitAvailable(String path, long deadline) throws InterruptedException {
+		awaitAvailable(uri.resolve(path), deadline);
+	}
+
+	private void awaitAvailable(URI target, long deadline) throws InterruptedException {
+
+		while (true) {
+
+			if (process != null && !process.isAlive()) {
+				throw new IllegalStateException(String.format("%s terminated with exit code %s, see %s for details!",
+						name, process.exitValue(), output));
+			}
+
+			if (isAvailable(target)) {
+				return;
+			}
+
+			if (System.currentTimeMillis() > deadline) {
+				throw new IllegalStateException(String.format("%s not available at %s in time!", name, target));
+			}
+
+			Thread.sleep(POLL_INTERVAL);
+		}
+	}
+
+	/**
+	 * Stops the service if it was launched as local process.
+	 */
+	void stop() {
+
+		if (process == null || !process.isAlive()) {
+			return;
+		}
+
+		process.destroy();
+
+		try {
+
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+
+		} catch (InterruptedException o_O) {
+
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static URI getManagementUri(LoadTestProperties.Service service) {
+
+		String managementUrl = service.getManagementUrl();
+
+		return URI.create(StringUtils.hasText(managementUrl) ? managementUrl : service.getUrl());
+	}
+
+	private static boolean isAvailable(URI uri) {
+
+		try {
+
+			HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+			connection.setConnectTimeout((int) POLL_INTERVAL);
+			connection.setReadTimeout((int) POLL_INTERVAL * 10);
+
+			try (InputStream body = connection.getInputStream()) {
+
+				StreamUtils.drain(body);
+
+				return connection.getResponseCode() < 300;
+			}
+
+		} catch (IOException o_O) {
+			return false;
+		}
+	}
+}
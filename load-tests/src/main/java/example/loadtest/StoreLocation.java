@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * The location of a store as listed in {@code starbucks.csv}. Searches are issued for these locations and the customers
+ * created for the load test are placed at them, so that the traffic resembles the actual distribution of stores.
+ *
+ * @author Oliver Gierke
+ */
+@Value
+class StoreLocation {
+
+	static final String STORES = "starbucks.csv";
+
+	String street, zipCode, city;
+	double latitude, longitude;
+
+	/**
+	 * Reads the locations of all stores from {@value #STORES}.
+	 *
+	 * @return
+	 * @throws Exception
+	 */
+	static List<StoreLocation> readAll() throws Exception {
+
+		ClassPathResource resource = new ClassPathResource(STORES);
+		String header;
+
+		try (BufferedReader lines = new BufferedReader(
+				new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+			header = lines.readLine();
+		}
+
+		// DelimitedLineTokenizer defaults to comma as its delimiter
+		DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+		tokenizer.setNames(header.split(","));
+		tokenizer.setStrict(false);
+
+		DefaultLineMapper<StoreLocation> lineMapper = new DefaultLineMapper<>();
+		lineMapper.setLineTokenizer(tokenizer);
+		lineMapper.setFieldSetMapper(fields -> new StoreLocation(fields.readString("Street Address"),
+				fields.readString("Zip"), fields.readString("City"), fields.readDouble("Latitude"),
+				fields.readDouble("Longitude")));
+
+		FlatFileItemReader<StoreLocation> reader = new FlatFileItemReader<>();
+		reader.setResource(resource);
+		reader.setLineMapper(lineMapper);
+		reader.setRecordSeparatorPolicy(new DefaultRecordSeparatorPolicy());
+		reader.setLinesToSkip(1);
+		reader.open(new ExecutionContext());
+
+		List<StoreLocation> locations = new ArrayList<>();
+
+		try {
+
+			for (StoreLocation location = reader.read(); location != null; location = reader.read()) {
+				locations.add(location);
+			}
+
+		} finally {
+			reader.close();
+		}
+
+		return locations;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.springframework.util.Assert;
+
+/**
+ * The requests the load test is made of: searches for stores near real store locations and lookups of customers. Both
+ * pick their target by a {@link ZipfDistribution} over a shuffled list of locations and customers respectively, so that
+ * the traffic concentrates on randomly placed hot spots.
+ *
+ * @author Oliver Gierke
+ */
+class Workload {
+
+	private final List<StoreLocation> locations;
+	private final List<String> customers;
+	private final ZipfDistribution locationRanks, customerRanks;
+	private final String distance;
+
+	/**
+	 * Creates a new {@link Workload}.
+	 *
+	 * @param locations must not be {@literal null} or empty.
+	 * @param customers must not be {@literal null} or empty.
+	 * @param skew the exponent of the {@link ZipfDistribution}s.
+	 * @param distance the distance to search stores within, must not be {@literal null} or empty.
+	 * @param random must not be {@literal null}.
+	 */
+	Workload(List<StoreLocation> locations, List<String> customers, double skew, String distance, Random random) {
+
+		Assert.notEmpty(locations, "Locations must not be null or empty!");
+		Assert.notEmpty(customers, "Customers must not be null or empty!");
+		Assert.hasText(distance, "Distance must not be null or empty!");
+
+		this.locations = new ArrayList<>(locations);
+		this.customers = new ArrayList<>(customers);
+		this.locationRanks = new ZipfDistribution(locations.size(), skew);
+		this.customerRanks = new ZipfDistribution(customers.size(), skew);
+		this.distance = distance;
+
+		Collections.shuffle(this.locations, random);
+		Collections.shuffle(this.customers, random);
+	}
+
+	/**
+	 * Returns the path of the next store search.
+	 *
+	 * @param random must not be {@literal null}.
+	 * @return
+	 */
+	String nextSearch(Random random) {
+
+		StoreLocation location = locations.get(locationRanks.sample(random));
+
+		return String.format(Locale.US, "/stores/search/findByAddressLocationNear?location=%f,%f&distance=%s",
+				location.getLatitude(), location.getLongitude(), distance);
+	}
+
+	/**
+	 * Returns the path of the next customer lookup.
+	 *
+	 * @param random must not be {@literal null}.
+	 * @return
+	 */
+	String nextCustomer(Random random) {
+		return "/customers/" + customers.get(customerRanks.sample(random));
+	}
+}
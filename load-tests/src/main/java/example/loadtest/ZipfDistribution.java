@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.springframework.util.Assert;
+
+/**
+ * A Zipf distribution over the ranks {@code 0} to {@code n - 1}, i.e. the probability of rank {@code k} is proportional
+ * to {@code 1 / (k + 1)^exponent}. Samples are drawn by a binary search over the precomputed cumulative distribution.
+ * An exponent of {@literal 0} results in a uniform distribution.
+ *
+ * @author Oliver Gierke
+ */
+class ZipfDistribution {
+
+	private final double[] cumulative;
+
+	/**
+	 * Creates a new {@link ZipfDistribution} over the given number of ranks.
+	 *
+	 * @param size must be greater than zero.
+	 * @param exponent must not be negative.
+	 */
+	ZipfDistribution(int size, double exponent) {
+
+		Assert.isTrue(size > 0, "Size must be greater than zero!");
+		Assert.isTrue(exponent >= 0, "Exponent must not be negative!");
+
+		this.cumulative = new double[size];
+
+		double sum = 0;
+
+		for (int i = 0; i < size; i++) {
+			sum += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = sum;
+		}
+
+		for (int i = 0; i < size; i++) {
+			cumulative[i] /= sum;
+		}
+	}
+
+	/**
+	 * Draws a rank using the given {@link Random}.
+	 *
+	 * @param random must not be {@literal null}.
+	 * @return
+	 */
+	int sample(Random random) {
+
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		int rank = index < 0 ? -index - 1 : index + 1;
+
+		return Math.min(rank, cumulative.length - 1);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RequestStatistics}.
+ *
+ * @author Oliver Gierke
+ */
+public class RequestStatisticsUnitTests {
+
+	static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+	static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+	@Test
+	public void recordsCorrectedAndUncorrectedLatency() {
+
+		RequestStatistics statistics = new RequestStatistics("hop", "request");
+		statistics.completed(0, 40 * MILLIS, 50 * MILLIS, true);
+
+		assertThat(statistics.getCount(), is(1L));
+		assertThat(statistics.getCorrected().getMaxValue(), is(greaterThanOrEqualTo(50_000L)));
+		assertThat(statistics.getCorrected().getMaxValue(), is(lessThan(50_100L)));
+		assertThat(statistics.getUncorrected().getMaxValue(), is(greaterThanOrEqualTo(10_000L)));
+		assertThat(statistics.getUncorrected().getMaxValue(), is(lessThan(10_100L)));
+	}
+
+	@Test
+	public void recordsDroppedRequestsAsTimedOut() {
+
+		RequestStatistics statistics = new RequestStatistics("hop", "request");
+
+		for (int i = 0; i < 98; i++) {
+			statistics.completed(0, 0, 10 * MILLIS, true);
+		}
+
+		statistics.dropped(TIMEOUT);
+		statistics.dropped(TIMEOUT);
+
+		assertThat(statistics.getCount(), is(98L));
+		assertThat(statistics.getDropped(), is(2L));
+		assertThat(statistics.getUncorrected().getValueAtPercentile(99), is(lessThan(11_000L)));
+		assertThat(statistics.getCorrected().getValueAtPercentile(99), is(greaterThanOrEqualTo(9_000_000L)));
+	}
+}
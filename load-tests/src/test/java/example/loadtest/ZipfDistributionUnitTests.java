@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.loadtest;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ZipfDistribution}.
+ *
+ * @author Oliver Gierke
+ */
+public class ZipfDistributionUnitTests {
+
+	static final int SAMPLES = 100_000;
+
+	@Test
+	public void favorsLowRanks() {
+
+		int[] counts = sample(new ZipfDistribution(100, 1.0));
+
+		// The first rank is expected to be drawn with a probability of 1 / H(100) ~ 19%
+		assertThat(counts[0], is(both(greaterThan(18_000)).and(lessThan(20_500))));
+		assertThat(counts[0], is(greaterThan(counts[1])));
+		assertThat(counts[1], is(greaterThan(counts[9])));
+	}
+
+	@Test
+	public void samplesUniformlyWithoutSkew() {
+
+		for (int count : sample(new ZipfDistribution(10, 0))) {
+			assertThat(count, is(both(greaterThan(9_000)).and(lessThan(11_000))));
+		}
+	}
+
+	@Test
+	public void onlySamplesValidRanks() {
+		assertThat(sample(new ZipfDistribution(1, 2.0))[0], is(SAMPLES));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyDistribution() {
+		new ZipfDistribution(0, 1.0);
+	}
+
+	private static int[] sample(ZipfDistribution distribution) {
+
+		Random random = new Random(42);
+		int[] counts = new int[100];
+
+		for (int i = 0; i < SAMPLES; i++) {
+			counts[distribution.sample(random)]++;
+		}
+
+		return counts;
+	}
+}
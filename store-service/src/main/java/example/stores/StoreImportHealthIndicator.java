@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health.Builder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the instance as out of service until the {@link StoreImportPipeline} has completed, so that neither service
+ * registries nor load balancers route traffic to an instance that is still importing stores. Eureka only picks up the
+ * status if {@code eureka.client.healthcheck.enabled} is set (see {@code application-cloud.properties}).
+ * 
+ * @author Oliver Gierke
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class StoreImportHealthIndicator extends AbstractHealthIndicator {
+
+	private final @NonNull StoreImportPipeline pipeline;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.health.AbstractHealthIndicator#doHealthCheck(org.springframework.boot.actuate.health.Health.Builder)
+	 */
+	@Override
+	protected void doHealthCheck(Builder builder) throws Exception {
+
+		builder.withDetail("status", pipeline.getStatus()).withDetail("imported", pipeline.getImported());
+
+		switch (pipeline.getStatus()) {
+			case COMPLETED:
+				builder.up();
+				break;
+			case FAILED:
+				builder.down(pipeline.getFailure());
+				break;
+			default:
+				builder.outOfService();
+		}
+	}
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Imports {@link Store}s from a CSV file in the background. The import is split into three stages connected by bounded
+ * queues so that a slow stage throttles the ones in front of it:
+ * <ol>
+ * <li>a reader assembling raw records (including quoted multi-line fields) into chunks of lines,</li>
+ * <li>a pool of parsers tokenizing and mapping those chunks in parallel,</li>
+ * <li>a writer inserting the parsed chunks into MongoDB using unordered bulk writes.</li>
+ * </ol>
+ * If a {@link StoreSnapshot} of the CSV file is available, either on the classpath (created at build time) or at the
+ * configured snapshot location (created by a previous run), the stores are read from the snapshot instead, bypassing
+ * text parsing entirely. Otherwise, a snapshot is written to the configured location once the CSV import completed.
+ * Snapshots always contain all stores, only the stores belonging to the instance's {@link StoreShard} are written to
+ * MongoDB.
+ * 
+ * @author Oliver Gierke
+ */
+@Slf4j
+@Component
+public class StoreImportPipeline {
+
+	private static final List<Store> END_OF_INPUT = Collections.emptyList();
+	private static final String SNAPSHOT = "starbucks.snapshot";
+	private static final long OFFER_TIMEOUT = 100;
+
+	private final MongoOperations operations;
+	private final ApplicationEventPublisher publisher;
+	private final StoreShard shard;
+	private final int chunkSize, parserThreads, queueCapacity;
+	private final String snapshotLocation;
+
+	private final AtomicReference<Status> status = new AtomicReference<>(Status.PENDING);
+	private final AtomicReference<Exception> failure = new AtomicReference<>();
+	private final AtomicLong imported = new AtomicLong();
+	private final CountDownLatch completion = new CountDownLatch(1);
+
+	/**
+	 * Creates a new {@link StoreImportPipeline}.
+	 * 
+	 * @param operations must not be {@literal null}.
+	 * @param publisher must not be {@literal null}.
+	 * @param shard must not be {@literal null}.
+	 * @param chunkSize the number of records to parse and write in one go.
+	 * @param parserThreads the number of threads to parse chunks, defaults to the number of available processors if
+	 *          zero or less.
+	 * @param queueCapacity the number of chunks that can be buffered between the stages.
+	 * @param snapshotLocation the file system location to read a {@link StoreSnapshot} from or write it to, can be
+	 *          empty to disable creating snapshots.
+	 */
+	@Autowired
+	public StoreImportPipeline(MongoOperations operations, ApplicationEventPublisher publisher, StoreShard shard,
+			@Value("${stores.import.chunk-size:1000}") int chunkSize,
+			@Value("${stores.import.parser-threads:0}") int parserThreads,
+			@Value("${stores.import.queue-capacity:4}") int queueCapacity,
+			@Value("${stores.snapshot.location:}") String snapshotLocation) {
+
+		Assert.notNull(operations, "MongoOperations must not be null!");
+		Assert.notNull(publisher, "ApplicationEventPublisher must not be null!");
+		Assert.notNull(shard, "StoreShard must not be null!");
+		Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero!");
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than zero!");
+
+		this.operations = operations;
+		this.publisher = publisher;
+		this.shard = shard;
+		this.chunkSize = chunkSize;
+		this.parserThreads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+		this.queueCapacity = queueCapacity;
+		this.snapshotLocation = snapshotLocation;
+	}
+
+	/**
+	 * Starts importing the {@link Store}s contained in the given CSV {@link Resource} in a background thread.
+	 * 
+	 * @param resource must not be {@literal null}.
+	 */
+	public void start(Resource resource) {
+
+		Assert.notNull(resource, "Resource must not be null!");
+
+		if (!status.compareAndSet(Status.PENDING, Status.RUNNING)) {
+			throw new IllegalStateException("Store import already started!");
+		}
+
+		Thread thread = new Thread(() -> {
+
+			long start = System.currentTimeMillis();
+
+			try {
+
+				run(resource);
+
+				status.set(Status.COMPLETED);
+				log.info("Successfully imported {} stores in {}ms.", imported.get(), System.currentTimeMillis() - start);
+
+			} catch (Exception o_O) {
+
+				failure.compareAndSet(null, o_O);
+				status.set(Status.FAILED);
+				log.error("Importing stores failed after {} stores!", imported.get(), failure.get());
+
+			} finally {
+				completion.countDown();
+			}
+
+		}, "store-import");
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Marks the import as completed without importing anything, e.g. because the database already contains data.
+	 */
+	public void skip() {
+
+		if (status.compareAndSet(Status.PENDING, Status.COMPLETED)) {
+			completion.countDown();
+		}
+	}
+
+	/**
+	 * Waits for the import to complete.
+	 * 
+	 * @param timeout
+	 * @param unit must not be {@literal null}.
+	 * @return whether the import completed within the given timeout.
+	 * @throws InterruptedException
+	 */
+	public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+		return completion.await(timeout, unit);
+	}
+
+	public Status getStatus() {
+		return status.get();
+	}
+
+	public long getImported() {
+		return imported.get();
+	}
+
+	public Exception getFailure() {
+		return failure.get();
+	}
+
+	private void run(Resource resource) throws Exception {
+
+		long fingerprint = StoreSnapshot.fingerprint(resource);
+		Optional<StoreSnapshot> snapshot = lookupSnapshot(fingerprint);
+
+		if (snapshot.isPresent()) {
+			runFromSnapshot(snapshot.get());
+			return;
+		}
+
+		StoreSnapshot.Builder builder = StringUtils.hasText(snapshotLocation) ? new StoreSnapshot.Builder(fingerprint)
+				: null;
+
+		runFromCsv(resource, builder);
+
+		if (builder != null) {
+
+			try {
+				builder.writeTo(Paths.get(snapshotLocation));
+				log.info("Wrote store snapshot to {}.", snapshotLocation);
+			} catch (IOException o_O) {
+				log.warn("Could not write store snapshot to {}!", snapshotLocation, o_O);
+			}
+		}
+	}
+
+	/**
+	 * Looks up a {@link StoreSnapshot} with the given fingerprint on the classpath and at the configured snapshot
+	 * location.
+	 * 
+	 * @param fingerprint the fingerprint of the source to import.
+	 * @return
+	 */
+	private Optional<StoreSnapshot> lookupSnapshot(long fingerprint) {
+
+		List<Resource> candidates = new ArrayList<>();
+		candidates.add(new ClassPathResource(SNAPSHOT));
+
+		if (StringUtils.hasText(snapshotLocation)) {
+			candidates.add(new FileSystemResource(snapshotLocation));
+		}
+
+		for (Resource candidate : candidates) {
+
+			try {
+
+				Optional<StoreSnapshot> snapshot = StoreSnapshot.read(candidate) //
+						.filter(it -> it.getFingerprint() == fingerprint);
+
+				if (snapshot.isPresent()) {
+					log.info("Using store snapshot {}.", candidate);
+					return snapshot;
+				}
+
+			} catch (IOException | RuntimeException o_O) {
+				log.warn("Ignoring unreadable store snapshot {}!", candidate, o_O);
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	private void runFromSnapshot(StoreSnapshot snapshot) throws Exception {
+
+		BlockingQueue<List<Store>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+		Thread writer = startWriter(chunks, null);
+
+		try {
+
+			for (int i = 0; i < snapshot.size() && failure.get() == null; i += chunkSize) {
+				offer(chunks, snapshot.getStores(i, Math.min(i + chunkSize, snapshot.size())), writer);
+			}
+
+		} finally {
+			offer(chunks, END_OF_INPUT, writer);
+			writer.join();
+		}
+
+		rethrowFailure();
+	}
+
+	private void runFromCsv(Resource resource, StoreSnapshot.Builder builder) throws Exception {
+
+		ExecutorService parsers = new ThreadPoolExecutor(parserThreads, parserThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("store-import-parser-"),
+				new CallerRunsPolicy());
+
+		BlockingQueue<List<Store>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+		Thread writer = startWriter(chunks, builder);
+
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+
+			String header = reader.readLine();
+
+			if (header == null) {
+				return;
+			}
+
+			List<String> records = new ArrayList<>(chunkSize);
+			String record;
+
+			while ((record = readRecord(reader)) != null && failure.get() == null) {
+
+				records.add(record);
+
+				if (records.size() == chunkSize) {
+					submit(parsers, chunks, writer, header, records);
+					records = new ArrayList<>(chunkSize);
+				}
+			}
+
+			if (!records.isEmpty()) {
+				submit(parsers, chunks, writer, header, records);
+			}
+
+		} finally {
+
+			parsers.shutdown();
+			parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+			offer(chunks, END_OF_INPUT, writer);
+			writer.join();
+		}
+
+		rethrowFailure();
+	}
+
+	private Thread startWriter(BlockingQueue<List<Store>> chunks, StoreSnapshot.Builder builder) {
+
+		Thread writer = new Thread(() -> {
+
+			try {
+				write(chunks, builder);
+			} catch (Error o_O) {
+				failure.compareAndSet(null, new IllegalStateException("Writing stores failed!", o_O));
+				throw o_O;
+			}
+
+		}, "store-import-writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		return writer;
+	}
+
+	/**
+	 * Hands the given chunk to the writer. Only waits for space in the queue as long as the writer is still alive, so
+	 * that a writer terminated by an {@link Error} doesn't block the upstream stages forever but fails the import.
+	 */
+	private void offer(BlockingQueue<List<Store>> chunks, List<Store> chunk, Thread writer)
+			throws InterruptedException {
+
+		while (!chunks.offer(chunk, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+
+			if (!writer.isAlive()) {
+				failure.compareAndSet(null, new IllegalStateException("Store import writer terminated unexpectedly!"));
+				return;
+			}
+		}
+	}
+
+	private void rethrowFailure() throws Exception {
+
+		Exception cause = failure.get();
+
+		if (cause != null) {
+			throw cause;
+		}
+	}
+
+	/**
+	 * Hands the given records to the parser pool. If all parsers are busy and their queue is full, the records are parsed
+	 * in the calling reader thread, which throttles reading to the speed the downstream stages can keep up with.
+	 */
+	private void submit(ExecutorService parsers, BlockingQueue<List<Store>> chunks, Thread writer, String header,
+			List<String> records) {
+
+		parsers.execute(() -> {
+
+			if (failure.get() != null) {
+				return;
+			}
+
+			try {
+
+				LineMapper<Store> mapper = StoreInitializer.createLineMapper(header);
+				List<Store> stores = new ArrayList<>(records.size());
+
+				for (int i = 0; i < records.size(); i++) {
+					stores.add(mapper.mapLine(records.get(i), i));
+				}
+
+				offer(chunks, stores, writer);
+
+			} catch (InterruptedException o_O) {
+				Thread.currentThread().interrupt();
+				failure.compareAndSet(null, o_O);
+			} catch (Exception o_O) {
+				failure.compareAndSet(null, o_O);
+			}
+		});
+	}
+
+	/**
+	 * Writes chunks until the end of the input has been signaled, optionally collecting them into the given
+	 * {@link StoreSnapshot.Builder}. Keeps draining the queue after a failure so that upstream stages never block on a
+	 * full queue.
+	 */
+	private void write(BlockingQueue<List<Store>> chunks, StoreSnapshot.Builder builder) {
+
+		String collection = operations.getCollectionName(Store.class);
+
+		try {
+
+			List<Store> chunk;
+
+			while ((chunk = chunks.take()) != END_OF_INPUT) {
+
+				if (failure.get() != null) {
+					continue;
+				}
+
+				try {
+
+					List<Store> owned = shard.filter(chunk);
+
+					if (!owned.isEmpty()) {
+						operations.bulkOps(BulkMode.UNORDERED, Store.class).insert(owned).execute();
+						imported.addAndGet(owned.size());
+					}
+
+					if (builder != null) {
+						builder.add(chunk);
+					}
+
+					// Bulk writes bypass the template's lifecycle events, publish them to keep listeners in sync
+					for (Store store : owned) {
+						publisher.publishEvent(new AfterSaveEvent<>(store, null, collection));
+					}
+
+				} catch (RuntimeException o_O) {
+					failure.compareAndSet(null, o_O);
+				}
+			}
+
+		} catch (InterruptedException o_O) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, o_O);
+		}
+	}
+
+	/**
+	 * Reads the next logical record from the given {@link BufferedReader}, joining physical lines as long as a quoted
+	 * field is still open.
+	 * 
+	 * @param reader must not be {@literal null}.
+	 * @return the next record or {@literal null} if the end of the input was reached.
+	 * @throws IOException
+	 */
+	static String readRecord(BufferedReader reader) throws IOException {
+
+		String line = reader.readLine();
+
+		if (line == null) {
+			return null;
+		}
+
+		StringBuilder record = new StringBuilder(line);
+		int quotes = countQuotes(line);
+
+		while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+			record.append('\n').append(line);
+			quotes += countQuotes(line);
+		}
+
+		return record.toString();
+	}
+
+	private static int countQuotes(String line) {
+
+		int quotes = 0;
+
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) == '"') {
+				quotes++;
+			}
+		}
+
+		return quotes;
+	}
+
+	/**
+	 * The states an import can be in.
+	 * 
+	 * @author Oliver Gierke
+	 */
+	public static enum Status {
+		PENDING, RUNNING, COMPLETED, FAILED;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2014 the original author or authors.
+ * Copyright 2014-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 package example.stores;
 
 import example.stores.Store.Address;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
@@ -24,38 +26,51 @@ import java.util.Scanner;
 
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.LineMapper;
 import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.mapping.FieldSetMapper;
 import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.file.transform.FieldSet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.geo.Point;
-import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindException;
 
 /**
- * Component initializing a hand full of Starbucks stores and persisting them through a {@link StoreRepository}.
+ * Component initializing a hand full of Starbucks stores and persisting them through a {@link StoreImportPipeline}.
+ * The import is triggered once the application has started and runs in the background, so that it doesn't block
+ * context startup.
  * 
  * @author Oliver Gierke
  */
 @Slf4j
 @Component
-public class StoreInitializer {
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+public class StoreInitializer implements ApplicationListener<ApplicationReadyEvent> {
 
-	@Autowired
-	public StoreInitializer(StoreRepository repository, MongoOperations operations) throws Exception {
+	static final String STORES = "starbucks.csv";
+
+	private final @NonNull StoreRepository repository;
+	private final @NonNull StoreImportPipeline pipeline;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
 
 		if (repository.count() != 0) {
+			pipeline.skip();
 			return;
 		}
 
-		List<Store> stores = readStores();
-		log.info("Importing {} stores into MongoDB…", stores.size());
-		repository.save(stores);
-		log.info("Successfully imported {} stores.", repository.count());
+		log.info("Importing stores into MongoDB…");
+		pipeline.start(new ClassPathResource(STORES));
 	}
 
 	/**
@@ -67,23 +82,14 @@ public class StoreInitializer {
 	 */
 	public static List<Store> readStores() throws Exception {
 
-		ClassPathResource resource = new ClassPathResource("starbucks.csv");
+		ClassPathResource resource = new ClassPathResource(STORES);
 		Scanner scanner = new Scanner(resource.getInputStream());
 		String line = scanner.nextLine();
 		scanner.close();
 
 		FlatFileItemReader<Store> itemReader = new FlatFileItemReader<Store>();
 		itemReader.setResource(resource);
-
-		// DelimitedLineTokenizer defaults to comma as its delimiter
-		DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
-		tokenizer.setNames(line.split(","));
-		tokenizer.setStrict(false);
-
-		DefaultLineMapper<Store> lineMapper = new DefaultLineMapper<Store>();
-		lineMapper.setLineTokenizer(tokenizer);
-		lineMapper.setFieldSetMapper(StoreFieldSetMapper.INSTANCE);
-		itemReader.setLineMapper(lineMapper);
+		itemReader.setLineMapper(createLineMapper(line));
 		itemReader.setRecordSeparatorPolicy(new DefaultRecordSeparatorPolicy());
 		itemReader.setLinesToSkip(1);
 		itemReader.open(new ExecutionContext());
@@ -104,6 +110,26 @@ public class StoreInitializer {
 		return stores;
 	}
 
+	/**
+	 * Creates a {@link LineMapper} to turn records of the store CSV file into {@link Store} instances.
+	 * 
+	 * @param header the header line of the CSV file, must not be {@literal null}.
+	 * @return
+	 */
+	static LineMapper<Store> createLineMapper(String header) {
+
+		// DelimitedLineTokenizer defaults to comma as its delimiter
+		DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+		tokenizer.setNames(header.split(","));
+		tokenizer.setStrict(false);
+
+		DefaultLineMapper<Store> lineMapper = new DefaultLineMapper<Store>();
+		lineMapper.setLineTokenizer(tokenizer);
+		lineMapper.setFieldSetMapper(StoreFieldSetMapper.INSTANCE);
+
+		return lineMapper;
+	}
+
 	private static enum StoreFieldSetMapper implements FieldSetMapper<Store> {
 
 		INSTANCE;
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import example.geo.Geohash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * The slice of all {@link Store}s an instance is responsible for, described by a set of geohash prefixes
+ * ({@code stores.shard.prefixes}). An instance without any prefixes configured holds all stores. The prefixes are
+ * advertised in the instance's registry metadata, so that clients can route searches to the shards whose cells
+ * intersect the search area.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+public class StoreShard {
+
+	private final List<String> prefixes;
+	private final int precision;
+
+	/**
+	 * Creates a new {@link StoreShard} for the given geohash prefixes.
+	 *
+	 * @param prefixes must not be {@literal null}, empty to hold all stores.
+	 */
+	@Autowired
+	public StoreShard(@Value("${stores.shard.prefixes:}") String[] prefixes) {
+
+		List<String> normalized = new ArrayList<>();
+
+		for (String prefix : prefixes) {
+
+			String candidate = prefix.trim().toLowerCase();
+
+			if (!StringUtils.hasText(candidate)) {
+				continue;
+			}
+
+			if (!Geohash.isValid(candidate)) {
+				throw new IllegalArgumentException(String.format("Invalid geohash prefix %s!", prefix));
+			}
+
+			normalized.add(candidate);
+		}
+
+		this.prefixes = Collections.unmodifiableList(normalized);
+		this.precision = normalized.stream().mapToInt(String::length).max().orElse(0);
+	}
+
+	/**
+	 * Returns whether the instance only holds a part of all stores.
+	 *
+	 * @return
+	 */
+	public boolean isPartial() {
+		return !prefixes.isEmpty();
+	}
+
+	public List<String> getPrefixes() {
+		return prefixes;
+	}
+
+	/**
+	 * Returns whether the given {@link Store} belongs to the shard.
+	 *
+	 * @param store must not be {@literal null}.
+	 * @return
+	 */
+	public boolean owns(Store store) {
+
+		if (!isPartial()) {
+			return true;
+		}
+
+		Point location = store.getAddress().getLocation();
+		String geohash = Geohash.encode(location.getY(), location.getX(), precision);
+
+		return prefixes.stream().anyMatch(geohash::startsWith);
+	}
+
+	/**
+	 * Returns the {@link Store}s of the given ones that belong to the shard.
+	 *
+	 * @param stores must not be {@literal null}.
+	 * @return
+	 */
+	public List<Store> filter(List<Store> stores) {
+
+		if (!isPartial()) {
+			return stores;
+		}
+
+		List<Store> result = new ArrayList<>(stores.size());
+
+		for (Store store : stores) {
+			if (owns(store)) {
+				result.add(store);
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import example.stores.Store.Address;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.geo.Point;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * A compact, versioned binary representation of a set of {@link Store}s that can be loaded without any text parsing.
+ * Coordinates are stored in columnar primitive arrays, all strings are deduplicated into a string table referenced by
+ * index. The layout (big endian) is:
+ *
+ * <pre>
+ * int     magic ("STOR")
+ * int     version
+ * long    fingerprint of the source the snapshot was created from
+ * int     number of stores (n)
+ * int     number of strings (m)
+ * double  latitudes[n]
+ * double  longitudes[n]
+ * int     names[n], streets[n], cities[n], zips[n] (string table indexes, -1 for null)
+ * (int length, byte[length] UTF-8)[m]
+ * </pre>
+ *
+ * Snapshots on the file system are memory-mapped.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreSnapshot {
+
+	static final int MAGIC = 0x53544F52;
+	static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 24;
+	private static final int COLUMNS = 4;
+
+	private final ByteBuffer buffer;
+	private final long fingerprint;
+	private final int size;
+	private final String[] strings;
+
+	private StoreSnapshot(ByteBuffer buffer) {
+
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a store snapshot!");
+		}
+
+		int version = buffer.getInt(4);
+
+		if (version != VERSION) {
+			throw new IllegalArgumentException(
+					String.format("Unsupported snapshot version %s, expected %s!", version, VERSION));
+		}
+
+		this.buffer = buffer;
+		this.fingerprint = buffer.getLong(8);
+		this.size = buffer.getInt(16);
+		this.strings = new String[buffer.getInt(20)];
+
+		ByteBuffer table = buffer.duplicate();
+		table.position(stringTableOffset(size));
+
+		for (int i = 0; i < strings.length; i++) {
+
+			byte[] bytes = new byte[table.getInt()];
+			table.get(bytes);
+
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads the snapshot contained in the given {@link Resource}. Resources residing in the file system are
+	 * memory-mapped, all others are read into memory.
+	 *
+	 * @param resource must not be {@literal null}.
+	 * @return the snapshot or {@link Optional#empty()} if the resource does not exist.
+	 * @throws IOException
+	 * @throws IllegalArgumentException in case the resource doesn't contain a supported snapshot.
+	 */
+	public static Optional<StoreSnapshot> read(Resource resource) throws IOException {
+
+		Assert.notNull(resource, "Resource must not be null!");
+
+		if (!resource.exists()) {
+			return Optional.empty();
+		}
+
+		File file = null;
+
+		try {
+			file = resource.getFile();
+		} catch (IOException o_O) {
+			// Not in the file system, e.g. nested in a JAR
+		}
+
+		if (file == null) {
+
+			try (InputStream stream = resource.getInputStream()) {
+				return Optional.of(new StoreSnapshot(ByteBuffer.wrap(StreamUtils.copyToByteArray(stream))));
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return Optional.of(new StoreSnapshot(channel.map(MapMode.READ_ONLY, 0, channel.size())));
+		}
+	}
+
+	/**
+	 * Calculates the fingerprint of the given source {@link Resource} to detect whether a snapshot is still up to date.
+	 *
+	 * @param resource must not be {@literal null}.
+	 * @return
+	 * @throws IOException
+	 */
+	public static long fingerprint(Resource resource) throws IOException {
+
+		Assert.notNull(resource, "Resource must not be null!");
+
+		CRC32 checksum = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+
+		try (InputStream stream = resource.getInputStream()) {
+
+			int read;
+
+			while ((read = stream.read(buffer)) != -1) {
+				checksum.update(buffer, 0, read);
+			}
+		}
+
+		return checksum.getValue();
+	}
+
+	/**
+	 * Returns the fingerprint of the source the snapshot was created from.
+	 *
+	 * @return
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the number of {@link Store}s contained in the snapshot.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Materializes the {@link Store}s in the given range.
+	 *
+	 * @param from the index of the first {@link Store}, inclusive.
+	 * @param to the index of the last {@link Store}, exclusive.
+	 * @return
+	 */
+	public List<Store> getStores(int from, int to) {
+
+		Assert.isTrue(0 <= from && from <= to && to <= size, "Invalid range!");
+
+		List<Store> stores = new ArrayList<>(to - from);
+
+		for (int i = from; i < to; i++) {
+
+			Point location = new Point(buffer.getDouble(HEADER_SIZE + 8 * (size + i)),
+					buffer.getDouble(HEADER_SIZE + 8 * i));
+			Address address = new Address(string(1, i), string(2, i), string(3, i), location);
+
+			stores.add(new Store(string(0, i), address));
+		}
+
+		return stores;
+	}
+
+	private String string(int column, int index) {
+
+		int reference = buffer.getInt(HEADER_SIZE + 16 * size + 4 * (column * size + index));
+
+		return reference < 0 ? null : strings[reference];
+	}
+
+	private static int stringTableOffset(int size) {
+		return HEADER_SIZE + (16 + 4 * COLUMNS) * size;
+	}
+
+	/**
+	 * Creates a snapshot of the stores contained in {@code starbucks.csv} at the file system location given as first
+	 * argument. Allows creating the snapshot at build time.
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Assert.isTrue(args.length == 1, "Usage: StoreSnapshot <target file>");
+
+		Builder builder = new Builder(fingerprint(new ClassPathResource(StoreInitializer.STORES)));
+		builder.add(StoreInitializer.readStores());
+		builder.writeTo(Paths.get(args[0]));
+	}
+
+	/**
+	 * Incrementally collects {@link Store}s into the columnar layout of a snapshot without holding on to the
+	 * {@link Store} instances themselves.
+	 *
+	 * @author Oliver Gierke
+	 */
+	public static class Builder {
+
+		private final long fingerprint;
+		private final Map<String, Integer> stringIndexes = new HashMap<>();
+		private final List<byte[]> strings = new ArrayList<>();
+
+		private double[] latitudes = new double[1024], longitudes = new double[1024];
+		private int[][] columns = new int[COLUMNS][1024];
+		private int size;
+
+		/**
+		 * Creates a new {@link Builder} for a snapshot of the source with the given fingerprint.
+		 *
+		 * @param fingerprint
+		 */
+		public Builder(long fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+
+		/**
+		 * Adds the given {@link Store}s to the snapshot.
+		 *
+		 * @param stores must not be {@literal null}.
+		 * @return
+		 */
+		public synchronized Builder add(Iterable<Store> stores) {
+
+			Assert.notNull(stores, "Stores must not be null!");
+
+			for (Store store : stores) {
+
+				ensureCapacity(size + 1);
+
+				Address address = store.getAddress();
+				Point location = address.getLocation();
+
+				latitudes[size] = location.getY();
+				longitudes[size] = location.getX();
+				columns[0][size] = index(store.getName());
+				columns[1][size] = index(address.getStreet());
+				columns[2][size] = index(address.getCity());
+				columns[3][size] = index(address.getZip());
+
+				size++;
+			}
+
+			return this;
+		}
+
+		/**
+		 * Writes the snapshot to the given file. The file is replaced atomically if the file system supports it.
+		 *
+		 * @param path must not be {@literal null}.
+		 * @throws IOException
+		 */
+		public synchronized void writeTo(Path path) throws IOException {
+
+			Assert.notNull(path, "Path must not be null!");
+
+			Path directory = path.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+
+			Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(fingerprint);
+				out.writeInt(size);
+				out.writeInt(strings.size());
+
+				for (int i = 0; i < size; i++) {
+					out.writeDouble(latitudes[i]);
+				}
+
+				for (int i = 0; i < size; i++) {
+					out.writeDouble(longitudes[i]);
+				}
+
+				for (int[] column : columns) {
+					for (int i = 0; i < size; i++) {
+						out.writeInt(column[i]);
+					}
+				}
+
+				for (byte[] string : strings) {
+					out.writeInt(string.length);
+					out.write(string);
+				}
+			}
+
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException o_O) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		private int index(String string) {
+
+			if (string == null) {
+				return -1;
+			}
+
+			Integer index = stringIndexes.get(string);
+
+			if (index == null) {
+
+				index = strings.size();
+
+				stringIndexes.put(string, index);
+				strings.add(string.getBytes(StandardCharsets.UTF_8));
+			}
+
+			return index;
+		}
+
+		private void ensureCapacity(int capacity) {
+
+			if (capacity <= latitudes.length) {
+				return;
+			}
+
+			int newCapacity = Math.max(capacity, latitudes.length * 2);
+
+			latitudes = Arrays.copyOf(latitudes, newCapacity);
+			longitudes = Arrays.copyOf(longitudes, newCapacity);
+
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = Arrays.copyOf(columns[i], newCapacity);
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import java.util.UUID;
+
+/**
+ * An in-memory view of the {@link Store}s persisted in MongoDB, e.g. an index. All views are kept in sync by the
+ * {@link StoreViewSynchronizer}.
+ *
+ * @author Oliver Gierke
+ */
+public interface StoreView {
+
+	/**
+	 * Adds the given {@link Store} to the view, replacing a previous version of it.
+	 *
+	 * @param store must not be {@literal null}.
+	 */
+	void add(Store store);
+
+	/**
+	 * Removes the {@link Store} with the given identifier from the view.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	void remove(UUID id);
+
+	/**
+	 * Replaces the entire content of the view with the given {@link Store}s.
+	 *
+	 * @param stores must not be {@literal null}.
+	 */
+	void replaceAll(Iterable<Store> stores);
+
+	/**
+	 * Removes all {@link Store}s from the view.
+	 */
+	void clear();
+}
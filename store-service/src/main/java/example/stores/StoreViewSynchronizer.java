@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import com.mongodb.DBObject;
+
+/**
+ * Keeps all {@link StoreView}s in sync with the {@link Store}s persisted in MongoDB. The stores are loaded from the
+ * database once the application context has been refreshed (ignoring the refreshes of child contexts) and handed to
+ * all views, which are then updated on every save and delete, including the ones issued by the store import.
+ * <p>
+ * Deletes by identifier, by a set of identifiers and of all stores are applied to the views directly. Only arbitrary
+ * delete queries, which can't be evaluated in memory, cause the stores to be reloaded.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@Component
+public class StoreViewSynchronizer extends AbstractMongoEventListener<Store> {
+
+	private final List<StoreView> views;
+	private final MongoOperations operations;
+	private final ApplicationContext context;
+	private final String idProperty;
+
+	/**
+	 * Creates a new {@link StoreViewSynchronizer} for the given {@link StoreView}s.
+	 *
+	 * @param views must not be {@literal null}.
+	 * @param operations must not be {@literal null}.
+	 * @param context must not be {@literal null}.
+	 */
+	@Autowired
+	public StoreViewSynchronizer(List<StoreView> views, MongoOperations operations, ApplicationContext context) {
+
+		Assert.notNull(views, "Store views must not be null!");
+		Assert.notNull(operations, "MongoOperations must not be null!");
+		Assert.notNull(context, "ApplicationContext must not be null!");
+
+		MongoPersistentEntity<?> entity = operations.getConverter().getMappingContext() //
+				.getPersistentEntity(Store.class);
+
+		this.views = views;
+		this.operations = operations;
+		this.context = context;
+		this.idProperty = entity.getIdProperty().getName();
+	}
+
+	@EventListener
+	public void on(ContextRefreshedEvent event) {
+
+		if (event.getApplicationContext() == context) {
+			reload();
+		}
+	}
+
+	/**
+	 * Replaces the content of all views with the {@link Store}s currently persisted.
+	 */
+	void reload() {
+
+		List<Store> stores = operations.findAll(Store.class);
+
+		views.forEach(it -> it.replaceAll(stores));
+
+		log.info("Loaded {} stores into {} in-memory views.", stores.size(), views.size());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener#onAfterSave(org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent)
+	 */
+	@Override
+	public void onAfterSave(AfterSaveEvent<Store> event) {
+
+		Store store = event.getSource();
+
+		views.forEach(it -> it.add(store));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener#onAfterDelete(org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent)
+	 */
+	@Override
+	public void onAfterDelete(AfterDeleteEvent<Store> event) {
+
+		DBObject query = event.getDBObject();
+
+		if (query == null || query.keySet().isEmpty()) {
+			views.forEach(StoreView::clear);
+			return;
+		}
+
+		Object id = getIdentifierCriteria(query);
+
+		if (id instanceof UUID) {
+			views.forEach(it -> it.remove((UUID) id));
+			return;
+		}
+
+		Object candidates = id instanceof DBObject && ((DBObject) id).keySet().size() == 1 //
+				? ((DBObject) id).get("$in") : null;
+
+		if (areIdentifiers(candidates)) {
+
+			((Collection<?>) candidates).forEach(it -> views.forEach(view -> view.remove((UUID) it)));
+			return;
+		}
+
+		// Arbitrary delete query we can't evaluate in memory
+		reload();
+	}
+
+	/**
+	 * Returns the criteria on the identifier if it's the only one in the given query. Delete queries refer to it by
+	 * either the document field or the property name, depending on whether they have been mapped already.
+	 */
+	private Object getIdentifierCriteria(DBObject query) {
+
+		if (query.keySet().size() != 1) {
+			return null;
+		}
+
+		Object id = query.get("_id");
+
+		return id != null ? id : query.get(idProperty);
+	}
+
+	private static boolean areIdentifiers(Object candidates) {
+		return candidates instanceof Collection && ((Collection<?>) candidates).stream().allMatch(UUID.class::isInstance);
+	}
+}
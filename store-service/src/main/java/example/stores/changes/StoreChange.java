@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.changes;
+
+import example.stores.Store;
+import lombok.Value;
+
+import java.util.SortedSet;
+import java.util.UUID;
+
+/**
+ * A change of a {@link Store} published to the {@link StoreChangeFeed}. Carries the geohash cells of the store's
+ * location before and after the change, so that consumers can invalidate whatever they cached for these cells.
+ *
+ * @author Oliver Gierke
+ */
+@Value
+public class StoreChange {
+
+	long sequence;
+	Type type;
+	UUID store;
+	SortedSet<String> cells;
+	long timestamp;
+
+	public enum Type {
+		CREATED, UPDATED, DELETED;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.changes;
+
+import example.stores.Store;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Exposes the {@link StoreChangeFeed} as stream of server-sent events under {@code /stores/changes}.
+ *
+ * @author Oliver Gierke
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class StoreChangeController {
+
+	static final String CHANGES_REL = "changes";
+
+	private final @NonNull StoreChangeFeed feed;
+
+	/**
+	 * Streams the changes of {@link Store}s. Clients resume the stream by handing the identifier of the last event they
+	 * have seen in the {@code Last-Event-ID} header or, if they can't set headers, the {@code since} parameter.
+	 *
+	 * @param lastEventId the identifier of the last event seen by the client, optional.
+	 * @param since an alternative to the {@code Last-Event-ID} header, optional.
+	 * @return
+	 */
+	@GetMapping(path = "/stores/" + CHANGES_REL, produces = "text/event-stream")
+	SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(required = false) String since) {
+		return feed.subscribe(lastEventId != null ? lastEventId : since);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.changes;
+
+import example.stores.Store;
+import example.stores.StoreRepository;
+import example.stores.changes.StoreChange.Type;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.geo.Point;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.HandleBeforeSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the {@link Store}s created, updated and deleted through the REST resources to the {@link StoreChangeFeed}.
+ * Updates carry the cells of the store's previous location, too, which is looked up before the store is saved.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+@RepositoryEventHandler
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class StoreChangeEventHandler {
+
+	private final ThreadLocal<Point> previousLocation = new ThreadLocal<>();
+	private final @NonNull StoreRepository repository;
+	private final @NonNull StoreChangeFeed feed;
+
+	@HandleAfterCreate
+	public void handleAfterCreate(Store store) {
+		feed.publish(Type.CREATED, store.getId(), Collections.singletonList(getLocation(store)));
+	}
+
+	@HandleBeforeSave
+	public void handleBeforeSave(Store store) {
+		previousLocation.set(getLocation(repository.findOne(store.getId())));
+	}
+
+	@HandleAfterSave
+	public void handleAfterSave(Store store) {
+
+		Point previous = previousLocation.get();
+		previousLocation.remove();
+
+		feed.publish(Type.UPDATED, store.getId(), Arrays.asList(previous, getLocation(store)));
+	}
+
+	@HandleAfterDelete
+	public void handleAfterDelete(Store store) {
+		feed.publish(Type.DELETED, store.getId(), Collections.singletonList(getLocation(store)));
+	}
+
+	private static Point getLocation(Store store) {
+		return store == null || store.getAddress() == null ? null : store.getAddress().getLocation();
+	}
+}
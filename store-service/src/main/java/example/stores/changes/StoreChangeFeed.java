@@ -0,0 +1,467 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.changes;
+
+import example.geo.Geohash;
+import example.stores.changes.StoreChange.Type;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * A bounded, in-memory log of the most recent {@link StoreChange}s of this instance that clients can subscribe to as
+ * server-sent events. Changes are numbered sequentially, event identifiers combine that sequence number with the epoch
+ * of the feed (the time the instance started), so that a client reconnecting with the identifier of the last event it
+ * has seen ({@code Last-Event-ID}) receives all changes it has missed. If these aren't available anymore, because the
+ * instance was restarted or the changes have been evicted from the log, the client receives a {@value #RESET} event
+ * and has to drop everything derived from the stores instead, just like a client subscribing for the first time.
+ * Stores imported on startup are covered by that, too.
+ * <p>
+ * Subscribers read the log in sequence order, each one on its own, from a pool of {@code stores.changes.threads}
+ * delivery threads. A subscriber falling behind by more than the capacity of the log receives a {@value #RESET} event
+ * instead of the changes it has missed. Writes to a subscriber block while its connection doesn't accept any more
+ * data, e.g. because the client stopped reading, and occupy one of the delivery threads meanwhile. Subscribers with a
+ * write pending for longer than {@code stores.changes.write-timeout} milliseconds are therefore dropped and the
+ * thread blocked on them is interrupted to abort the write. Containers that don't abort blocking writes on interrupts
+ * release the thread once their own write timeout expires (e.g. {@code server.connection-timeout}). Subscribers
+ * receive a comment every {@code stores.changes.heartbeat} milliseconds so that disconnected ones are detected.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+@Component
+public class StoreChangeFeed implements DisposableBean {
+
+	static final String CHANGE = "change";
+	static final String RESET = "reset";
+
+	private static final int BATCH_SIZE = 100;
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final StoreChange[] changes;
+	private final int precision;
+	private final ScheduledExecutorService scheduler;
+	private final ExecutorService delivery;
+	private final long writeTimeout;
+
+	private long sequence;
+
+	/**
+	 * Creates a new {@link StoreChangeFeed}.
+	 *
+	 * @param capacity the number of changes to retain for clients to catch up, must be greater than zero.
+	 * @param precision the precision of the geohash cells published for changed locations.
+	 * @param heartbeat the interval in milliseconds to send heartbeats to subscribers in, must be greater than zero.
+	 * @param threads the number of threads to deliver changes to subscribers with, must be greater than zero.
+	 * @param writeTimeout the time in milliseconds after which subscribers with a write pending are dropped, must be
+	 *          greater than zero.
+	 */
+	@Autowired
+	public StoreChangeFeed(@Value("${stores.changes.capacity:10000}") int capacity,
+			@Value("${stores.changes.precision:6}") int precision,
+			@Value("${stores.changes.heartbeat:15000}") long heartbeat,
+			@Value("${stores.changes.threads:4}") int threads,
+			@Value("${stores.changes.write-timeout:10000}") long writeTimeout) {
+
+		Assert.isTrue(capacity > 0, "Capacity must be greater than zero!");
+		Assert.isTrue(precision > 0, "Precision must be greater than zero!");
+		Assert.isTrue(heartbeat > 0, "Heartbeat interval must be greater than zero!");
+		Assert.isTrue(threads > 0, "Number of threads must be greater than zero!");
+		Assert.isTrue(writeTimeout > 0, "Write timeout must be greater than zero!");
+
+		this.changes = new StoreChange[capacity];
+		this.precision = precision;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("store-changes-heartbeat"));
+		this.delivery = Executors.newFixedThreadPool(threads, daemon("store-changes"));
+		this.writeTimeout = writeTimeout;
+
+		long expiry = Math.max(1, writeTimeout / 2);
+
+		this.scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+		this.scheduler.scheduleWithFixedDelay(this::expire, expiry, expiry, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Publishes a change of the store with the given identifier, located at the given locations before and after the
+	 * change.
+	 *
+	 * @param type must not be {@literal null}.
+	 * @param store must not be {@literal null}.
+	 * @param locations must not be {@literal null}, {@literal null} elements are ignored.
+	 * @return the change published.
+	 */
+	public StoreChange publish(Type type, UUID store, Collection<Point> locations) {
+
+		Assert.notNull(type, "Type must not be null!");
+		Assert.notNull(store, "Store must not be null!");
+		Assert.notNull(locations, "Locations must not be null!");
+
+		SortedSet<String> cells = new TreeSet<>();
+
+		locations.stream() //
+				.filter(Objects::nonNull) //
+				.forEach(it -> cells.add(Geohash.encode(it.getY(), it.getX(), precision)));
+
+		StoreChange change;
+
+		synchronized (this) {
+
+			change = new StoreChange(++sequence, type, store, Collections.unmodifiableSortedSet(cells),
+					System.currentTimeMillis());
+			changes[(int) (change.getSequence() % changes.length)] = change;
+		}
+
+		// Subscribers read the log in sequence order, so the order in which they're notified doesn't matter
+		subscribers.forEach(Subscriber::schedule);
+
+		return change;
+	}
+
+	/**
+	 * Subscribes to the feed. Changes published after the given event are sent right away. New subscribers and ones
+	 * that can't catch up receive a {@value #RESET} event first.
+	 *
+	 * @param lastEventId the identifier of the last event the client has seen, can be {@literal null}.
+	 * @return
+	 */
+	public SseEmitter subscribe(String lastEventId) {
+		return subscribe(lastEventId, new SseEmitter(0L));
+	}
+
+	SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+
+		Subscriber subscriber = new Subscriber(emitter, StringUtils.hasText(lastEventId) ? parse(lastEventId) : -1);
+
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+
+		subscribers.add(subscriber);
+		subscriber.schedule();
+
+		return emitter;
+	}
+
+	/**
+	 * Returns the changes published after the event with the given identifier.
+	 *
+	 * @param lastEventId must not be {@literal null}.
+	 * @return the changes or {@link Optional#empty()} if the changes following the given event are not available
+	 *         anymore.
+	 */
+	Optional<List<StoreChange>> since(String lastEventId) {
+		return since(parse(lastEventId), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns at most the given number of changes following the one with the given sequence number.
+	 *
+	 * @param last the sequence number of the last change seen.
+	 * @param limit the maximum number of changes to return.
+	 * @return the changes or {@link Optional#empty()} if the changes following the given one are not available anymore.
+	 */
+	private synchronized Optional<List<StoreChange>> since(long last, int limit) {
+
+		long oldest = Math.max(1, sequence - changes.length + 1);
+
+		if (last < oldest - 1 || last > sequence) {
+			return Optional.empty();
+		}
+
+		long until = Math.min(sequence, last + limit);
+		List<StoreChange> result = new ArrayList<>((int) (until - last));
+
+		for (long current = last + 1; current <= until; current++) {
+			result.add(changes[(int) (current % changes.length)]);
+		}
+
+		return Optional.of(result);
+	}
+
+	/**
+	 * Returns the sequence number contained in the given event identifier or {@literal -1} if it's not an identifier of
+	 * an event of the current epoch.
+	 */
+	private long parse(String lastEventId) {
+
+		int separator = lastEventId.lastIndexOf('-');
+
+		if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(lastEventId.substring(separator + 1));
+		} catch (NumberFormatException o_O) {
+			return -1;
+		}
+	}
+
+	private synchronized long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the identifier of the event for the given {@link StoreChange}.
+	 *
+	 * @param change must not be {@literal null}.
+	 * @return
+	 */
+	String getEventId(StoreChange change) {
+		return getEventId(change.getSequence());
+	}
+
+	String getEventId(long sequence) {
+		return epoch + "-" + sequence;
+	}
+
+	private void heartbeat() {
+		subscribers.forEach(Subscriber::heartbeat);
+	}
+
+	private void expire() {
+
+		long now = System.currentTimeMillis();
+
+		subscribers.forEach(it -> it.expire(now));
+	}
+
+	private static ThreadFactory daemon(String name) {
+
+		return runnable -> {
+
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+
+			return thread;
+		};
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+
+		scheduler.shutdownNow();
+		delivery.shutdownNow();
+		subscribers.forEach(it -> it.emitter.complete());
+	}
+
+	/**
+	 * A client subscribed to the feed. Changes are read from the log starting after the last one sent. At most one
+	 * delivery is in progress per subscriber at a time, so that the state is only ever accessed by one thread. The
+	 * thread currently writing to the subscriber is tracked, so that it can be interrupted once the write timed out.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private class Subscriber implements Runnable {
+
+		private final SseEmitter emitter;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean heartbeatDue, closed;
+		private long last;
+
+		// Guarded by the subscriber's monitor, never by the emitter's one, which is held while writing
+		private Thread writer;
+		private long writeStarted;
+		private boolean expired;
+
+		/**
+		 * Creates a new {@link Subscriber} that has seen all changes up to the given one.
+		 *
+		 * @param emitter must not be {@literal null}.
+		 * @param last the sequence number of the last change seen, {@literal -1} if a reset is required.
+		 */
+		Subscriber(SseEmitter emitter, long last) {
+
+			this.emitter = emitter;
+			this.last = last;
+		}
+
+		void schedule() {
+
+			if (closed || !scheduled.compareAndSet(false, true)) {
+				return;
+			}
+
+			try {
+				delivery.execute(this);
+			} catch (RejectedExecutionException o_O) {
+				scheduled.set(false);
+			}
+		}
+
+		void heartbeat() {
+
+			heartbeatDue = true;
+			schedule();
+		}
+
+		void close() {
+
+			closed = true;
+			subscribers.remove(this);
+		}
+
+		/**
+		 * Drops the subscriber if the write in progress was started more than the write timeout before the given time.
+		 * Only interrupts the writing thread, the emitter is completed by that thread once the write returns, as the
+		 * emitter can't be accessed while a write is in progress.
+		 *
+		 * @param now the current time in milliseconds.
+		 */
+		synchronized void expire(long now) {
+
+			if (writer == null || now - writeStarted < writeTimeout) {
+				return;
+			}
+
+			log.debug("Dropping store change subscriber, write pending for {}ms.", now - writeStarted);
+
+			expired = true;
+			close();
+			writer.interrupt();
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+
+			try {
+				deliver();
+			} finally {
+				scheduled.set(false);
+			}
+
+			// Changes published after the last read but before the flag was cleared
+			if (!closed && (heartbeatDue || last < getSequence())) {
+				schedule();
+			}
+		}
+
+		private void deliver() {
+
+			while (!closed) {
+
+				Optional<List<StoreChange>> pending = last < 0 ? Optional.empty() : since(last, BATCH_SIZE);
+
+				if (!pending.isPresent()) {
+					reset();
+					continue;
+				}
+
+				if (pending.get().isEmpty()) {
+					break;
+				}
+
+				for (StoreChange change : pending.get()) {
+
+					send(SseEmitter.event().id(getEventId(change)).name(CHANGE) //
+							.data(change, MediaType.APPLICATION_JSON));
+					last = change.getSequence();
+				}
+			}
+
+			if (heartbeatDue && !closed) {
+
+				heartbeatDue = false;
+				send(SseEmitter.event().comment("heartbeat"));
+			}
+		}
+
+		private void reset() {
+
+			last = getSequence();
+
+			String id = getEventId(last);
+
+			send(SseEmitter.event().id(id).name(RESET).data(id));
+		}
+
+		private void send(SseEmitter.SseEventBuilder event) {
+
+			if (closed) {
+				return;
+			}
+
+			synchronized (this) {
+				writer = Thread.currentThread();
+				writeStarted = System.currentTimeMillis();
+			}
+
+			Exception failure = null;
+
+			try {
+				emitter.send(event);
+			} catch (IOException | IllegalStateException o_O) {
+				failure = o_O;
+			}
+
+			synchronized (this) {
+
+				writer = null;
+
+				if (failure == null && expired) {
+					failure = new TimeoutException("Write to store change subscriber timed out!");
+				}
+			}
+
+			// Clear the interrupt of an expired write that completed nonetheless, the thread delivers to others next
+			Thread.interrupted();
+
+			if (failure != null) {
+
+				log.debug("Dropping store change subscriber.", failure);
+
+				close();
+				emitter.completeWithError(failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.index;
+
+/**
+ * A fixed-capacity max-heap of {@code (distance, slot)} pairs backed by primitive arrays. Offering a candidate to a full
+ * heap replaces the current maximum if the candidate is closer, so that the heap always holds the {@code capacity}
+ * closest candidates seen so far.
+ *
+ * @author Oliver Gierke
+ */
+class DistanceHeap {
+
+	private final double[] distances;
+	private final int[] slots;
+	private int size;
+
+	/**
+	 * Creates a new {@link DistanceHeap} with the given capacity.
+	 *
+	 * @param capacity must not be negative.
+	 */
+	DistanceHeap(int capacity) {
+
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative!");
+		}
+
+		this.distances = new double[capacity];
+		this.slots = new int[capacity];
+	}
+
+	/**
+	 * Offers the given slot with the given distance to the heap.
+	 *
+	 * @param distance the distance of the candidate.
+	 * @param slot the slot of the candidate.
+	 */
+	void offer(double distance, int slot) {
+
+		if (size < distances.length) {
+
+			distances[size] = distance;
+			slots[size] = slot;
+			siftUp(size++);
+
+			return;
+		}
+
+		if (size == 0 || distance >= distances[0]) {
+			return;
+		}
+
+		distances[0] = distance;
+		slots[0] = slot;
+		siftDown(0);
+	}
+
+	/**
+	 * Returns whether the heap has reached its capacity.
+	 *
+	 * @return
+	 */
+	boolean isFull() {
+		return size == distances.length;
+	}
+
+	/**
+	 * Returns the largest distance currently held or {@link Double#POSITIVE_INFINITY} if the heap is not full yet, i.e.
+	 * any candidate would still be accepted.
+	 *
+	 * @return
+	 */
+	double threshold() {
+		return isFull() && size > 0 ? distances[0] : Double.POSITIVE_INFINITY;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Drains the heap and returns the slots ordered by ascending distance. The heap is empty afterwards.
+	 *
+	 * @return
+	 */
+	int[] drainAscending() {
+
+		int[] result = new int[size];
+
+		for (int i = size - 1; i >= 0; i--) {
+
+			result[i] = slots[0];
+
+			size--;
+			distances[0] = distances[size];
+			slots[0] = slots[size];
+			siftDown(0);
+		}
+
+		return result;
+	}
+
+	private void siftUp(int index) {
+
+		while (index > 0) {
+
+			int parent = (index - 1) >>> 1;
+
+			if (distances[parent] >= distances[index]) {
+				return;
+			}
+
+			swap(parent, index);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index) {
+
+		while (true) {
+
+			int left = 2 * index + 1;
+			int right = left + 1;
+			int largest = index;
+
+			if (left < size && distances[left] > distances[largest]) {
+				largest = left;
+			}
+
+			if (right < size && distances[right] > distances[largest]) {
+				largest = right;
+			}
+
+			if (largest == index) {
+				return;
+			}
+
+			swap(index, largest);
+			index = largest;
+		}
+	}
+
+	private void swap(int left, int right) {
+
+		double distance = distances[left];
+		distances[left] = distances[right];
+		distances[right] = distance;
+
+		int slot = slots[left];
+		slots[left] = slots[right];
+		slots[right] = slot;
+	}
+}
@@ -0,0 +1,603 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.index;
+
+import example.stores.Store;
+import example.stores.StoreView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.util.Assert;
+
+/**
+ * An in-memory spatial index over {@link Store}s. Store locations are held in primitive coordinate arrays and bucketed
+ * into a regular latitude/longitude grid, so that a radius query only has to inspect the cells intersecting the
+ * bounding box of the search circle. Distances are calculated on a sphere in radians, i.e. the same way MongoDB
+ * evaluates a {@code $nearSphere} query for a {@link Distance} with a {@link Metrics} applied.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreIndex implements StoreView {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final double cellSize;
+	private final int latitudeCells, longitudeCells;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Slot based storage, slots are kept dense by moving the last slot into a removed one
+	private double[] latitudes = new double[INITIAL_CAPACITY];
+	private double[] longitudes = new double[INITIAL_CAPACITY];
+	private long[] cellKeys = new long[INITIAL_CAPACITY];
+	private Store[] stores = new Store[INITIAL_CAPACITY];
+	private int size;
+
+	private final Map<UUID, Integer> slotsById = new HashMap<>();
+	private final Map<Long, Cell> cells = new HashMap<>();
+
+	private volatile boolean initialized = false;
+
+	/**
+	 * Creates a new {@link StoreIndex} using grid cells of the given size.
+	 *
+	 * @param cellSize the edge length of a grid cell in degrees, must be greater than zero.
+	 */
+	public StoreIndex(double cellSize) {
+
+		Assert.isTrue(cellSize > 0 && cellSize <= 180, "Cell size must be in (0, 180] degrees!");
+
+		this.cellSize = cellSize;
+		this.latitudeCells = (int) Math.floor(180 / cellSize) + 1;
+		this.longitudeCells = (int) Math.ceil(360 / cellSize);
+	}
+
+	/**
+	 * Adds the given {@link Store} to the index, replacing a previously indexed version of it.
+	 *
+	 * @param store must not be {@literal null}.
+	 */
+	public void add(Store store) {
+
+		Assert.notNull(store, "Store must not be null!");
+
+		Point location = store.getAddress() == null ? null : store.getAddress().getLocation();
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			removeInternal(store.getId());
+
+			if (location != null) {
+				addInternal(store, location);
+			}
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the {@link Store} with the given identifier from the index.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	public void remove(UUID id) {
+
+		Assert.notNull(id, "Identifier must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+			removeInternal(id);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the entire content of the index with the given {@link Store}s.
+	 *
+	 * @param stores must not be {@literal null}.
+	 */
+	public void replaceAll(Iterable<Store> stores) {
+
+		Assert.notNull(stores, "Stores must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			clearInternal();
+
+			for (Store store : stores) {
+
+				removeInternal(store.getId());
+
+				if (store.getAddress() != null && store.getAddress().getLocation() != null) {
+					addInternal(store, store.getAddress().getLocation());
+				}
+			}
+
+			initialized = true;
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns whether the index has been populated via {@link #replaceAll(Iterable)} at least once, i.e. whether it
+	 * reflects the full set of {@link Store}s.
+	 *
+	 * @return
+	 */
+	public boolean isInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * Removes all {@link Store}s from the index.
+	 */
+	public void clear() {
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+			clearInternal();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of {@link Store}s currently indexed.
+	 *
+	 * @return
+	 */
+	public int size() {
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+			return size;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the {@link Page} of {@link Store}s within the given {@link Distance} around the given location, ordered by
+	 * ascending distance.
+	 *
+	 * @param location must not be {@literal null}.
+	 * @param distance must not be {@literal null} and must use a {@link Metrics} other than {@link Metrics#NEUTRAL}.
+	 * @param pageable can be {@literal null} to return all matching {@link Store}s.
+	 * @return
+	 */
+	public Page<Store> findNear(Point location, Distance distance, Pageable pageable) {
+
+		Assert.notNull(location, "Location must not be null!");
+		Assert.notNull(distance, "Distance must not be null!");
+		Assert.isTrue(!Metrics.NEUTRAL.equals(distance.getMetric()), "Distance must use a non-neutral metric!");
+
+		double radius = distance.getNormalizedValue();
+		double latitude = location.getY();
+		double longitude = location.getX();
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+
+			long offset = pageable == null ? 0 : pageable.getOffset();
+			long limit = pageable == null ? size : offset + pageable.getPageSize();
+			DistanceHeap heap = new DistanceHeap((int) Math.min(limit, size));
+
+			long total = collect(latitude, longitude, radius, heap);
+			int[] slots = heap.drainAscending();
+
+			if (offset >= slots.length) {
+				return new PageImpl<>(Collections.<Store> emptyList(), pageable, total);
+			}
+
+			List<Store> content = new ArrayList<>(slots.length - (int) offset);
+
+			for (int i = (int) offset; i < slots.length; i++) {
+				content.add(stores[slots[i]]);
+			}
+
+			return pageable == null ? new PageImpl<>(content) : new PageImpl<>(content, pageable, total);
+
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the {@code k} {@link Store}s closest to the given location, ordered by ascending distance. Inspects the
+	 * grid in rings of cells expanding around the cell containing the location and stops as soon as no cell outside the
+	 * rings inspected so far can contain a {@link Store} closer than the k-th closest one found. Never holds more than
+	 * {@code k} candidates.
+	 *
+	 * @param location must not be {@literal null}.
+	 * @param k the number of {@link Store}s to return, must not be negative.
+	 * @return
+	 */
+	public List<Store> findNearest(Point location, int k) {
+
+		Assert.notNull(location, "Location must not be null!");
+		Assert.isTrue(k >= 0, "Number of stores must not be negative!");
+
+		double latitude = location.getY();
+		double longitude = location.getX();
+		double latitudeRadians = Math.toRadians(latitude);
+		double longitudeRadians = Math.toRadians(longitude);
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+
+			DistanceHeap heap = new DistanceHeap(Math.min(k, size));
+
+			if (size == 0 || k == 0) {
+				return Collections.emptyList();
+			}
+
+			int centerLatitudeCell = latitudeCell(latitude);
+			int centerLongitudeCell = longitudeCell(longitude);
+			long inspected = 0;
+
+			for (int ring = 0;; ring++) {
+
+				// Rings would start to overlap themselves or the populated cells are sparse, simply scan all of them
+				if (2 * ring + 1 >= longitudeCells || inspected > cells.size()) {
+
+					heap = new DistanceHeap(Math.min(k, size));
+
+					for (Cell cell : cells.values()) {
+						cell.collect(latitudeRadians, longitudeRadians, Double.POSITIVE_INFINITY, heap);
+					}
+
+					break;
+				}
+
+				inspected += collectRing(centerLatitudeCell, centerLongitudeCell, ring, latitudeRadians, longitudeRadians,
+						heap);
+
+				if (heap.isFull() && lowerBound(latitude, longitude, centerLatitudeCell, centerLongitudeCell,
+						ring) > heap.threshold()) {
+					break;
+				}
+			}
+
+			int[] slots = heap.drainAscending();
+			List<Store> result = new ArrayList<>(slots.length);
+
+			for (int slot : slots) {
+				result.add(stores[slot]);
+			}
+
+			return result;
+
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Offers all slots of the cells forming the ring at the given Chebyshev distance (in cells) around the given center
+	 * cell to the given {@link DistanceHeap}.
+	 *
+	 * @return the number of cells inspected.
+	 */
+	private int collectRing(int centerLatitudeCell, int centerLongitudeCell, int ring, double latitude,
+			double longitude, DistanceHeap heap) {
+
+		int inspected = 0;
+
+		for (int latitudeOffset = -ring; latitudeOffset <= ring; latitudeOffset++) {
+
+			int latitudeCell = centerLatitudeCell + latitudeOffset;
+
+			if (latitudeCell < 0 || latitudeCell >= latitudeCells) {
+				continue;
+			}
+
+			boolean edgeRow = Math.abs(latitudeOffset) == ring;
+			int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+
+			for (int longitudeOffset = -ring; longitudeOffset <= ring; longitudeOffset += step) {
+
+				Cell cell = cells.get(cellKey(latitudeCell, centerLongitudeCell + longitudeOffset));
+				inspected++;
+
+				if (cell != null) {
+					cell.collect(latitude, longitude, Double.POSITIVE_INFINITY, heap);
+				}
+			}
+		}
+
+		return inspected;
+	}
+
+	/**
+	 * Returns a lower bound for the angular distance (in radians) between the given location and any location outside
+	 * the square of cells formed by the rings up to the given one.
+	 */
+	private double lowerBound(double latitude, double longitude, int centerLatitudeCell, int centerLongitudeCell,
+			int ring) {
+
+		double southernEdge = (centerLatitudeCell - ring) * cellSize - 90;
+		double northernEdge = (centerLatitudeCell + ring + 1) * cellSize - 90;
+
+		double south = southernEdge <= -90 ? Double.POSITIVE_INFINITY : Math.toRadians(latitude - southernEdge);
+		double north = northernEdge >= 90 ? Double.POSITIVE_INFINITY : Math.toRadians(northernEdge - latitude);
+
+		double westernEdge = (centerLongitudeCell - ring) * cellSize - 180;
+		double easternEdge = (centerLongitudeCell + ring + 1) * cellSize - 180;
+		double longitudeGap = Math.min(longitude - westernEdge, easternEdge - longitude);
+
+		// Distance to the closest meridian bounding the square
+		double eastWest = Math.asin(Math.cos(Math.toRadians(latitude)) * Math.sin(Math.toRadians(Math.min(90, longitudeGap))));
+
+		return Math.min(Math.min(south, north), eastWest);
+	}
+
+	/**
+	 * Offers all indexed slots within the given angular radius around the given coordinates to the given
+	 * {@link DistanceHeap}.
+	 *
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param radius in radians.
+	 * @param heap must not be {@literal null}.
+	 * @return the number of slots within the radius.
+	 */
+	private long collect(double latitude, double longitude, double radius, DistanceHeap heap) {
+
+		double latitudeRadians = Math.toRadians(latitude);
+		double longitudeRadians = Math.toRadians(longitude);
+
+		double latitudeDelta = Math.toDegrees(radius);
+		double minLatitude = Math.max(-90, latitude - latitudeDelta);
+		double maxLatitude = Math.min(90, latitude + latitudeDelta);
+
+		// Longitudinal extent of the search circle, spans the whole globe if it covers a pole
+		double longitudeDelta = minLatitude <= -90 || maxLatitude >= 90 || radius >= Math.PI / 2 //
+				? 180 //
+				: Math.toDegrees(Math.asin(Math.min(1, Math.sin(radius) / Math.cos(latitudeRadians))));
+
+		int minLatitudeCell = latitudeCell(minLatitude);
+		int maxLatitudeCell = latitudeCell(maxLatitude);
+		int firstLongitudeCell = longitudeCell(longitude - longitudeDelta);
+		int longitudeSpan = longitudeDelta >= 180 //
+				? longitudeCells //
+				: Math.min(longitudeCells, longitudeCell(longitude + longitudeDelta) - firstLongitudeCell + 1);
+
+		long cellsToInspect = (long) (maxLatitudeCell - minLatitudeCell + 1) * longitudeSpan;
+		long total = 0;
+
+		// Scan the populated cells directly if the search circle covers more cells than there are populated ones
+		if (cellsToInspect > cells.size()) {
+
+			for (Cell cell : cells.values()) {
+				total += cell.collect(latitudeRadians, longitudeRadians, radius, heap);
+			}
+
+			return total;
+		}
+
+		for (int latitudeCell = minLatitudeCell; latitudeCell <= maxLatitudeCell; latitudeCell++) {
+			for (int i = 0; i < longitudeSpan; i++) {
+
+				int longitudeCell = Math.floorMod(firstLongitudeCell + i, longitudeCells);
+				Cell cell = cells.get(cellKey(latitudeCell, longitudeCell));
+
+				if (cell != null) {
+					total += cell.collect(latitudeRadians, longitudeRadians, radius, heap);
+				}
+			}
+		}
+
+		return total;
+	}
+
+	private void addInternal(Store store, Point location) {
+
+		ensureCapacity(size + 1);
+
+		int slot = size++;
+		long cellKey = cellKey(latitudeCell(location.getY()), longitudeCell(location.getX()));
+
+		latitudes[slot] = Math.toRadians(location.getY());
+		longitudes[slot] = Math.toRadians(location.getX());
+		cellKeys[slot] = cellKey;
+		stores[slot] = store;
+
+		slotsById.put(store.getId(), slot);
+		cells.computeIfAbsent(cellKey, key -> new Cell()).add(slot);
+	}
+
+	private void removeInternal(UUID id) {
+
+		Integer slot = slotsById.remove(id);
+
+		if (slot == null) {
+			return;
+		}
+
+		removeFromCell(cellKeys[slot], slot);
+
+		int last = --size;
+
+		if (slot != last) {
+
+			// Move the last slot into the gap to keep the arrays dense
+			removeFromCell(cellKeys[last], last);
+
+			latitudes[slot] = latitudes[last];
+			longitudes[slot] = longitudes[last];
+			cellKeys[slot] = cellKeys[last];
+			stores[slot] = stores[last];
+
+			slotsById.put(stores[slot].getId(), slot);
+			cells.computeIfAbsent(cellKeys[slot], key -> new Cell()).add(slot);
+		}
+
+		stores[last] = null;
+	}
+
+	private void removeFromCell(long cellKey, int slot) {
+
+		Cell cell = cells.get(cellKey);
+
+		if (cell != null && cell.remove(slot) && cell.isEmpty()) {
+			cells.remove(cellKey);
+		}
+	}
+
+	private void clearInternal() {
+
+		Arrays.fill(stores, 0, size, null);
+
+		size = 0;
+		slotsById.clear();
+		cells.clear();
+	}
+
+	private void ensureCapacity(int capacity) {
+
+		if (capacity <= stores.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, stores.length * 2);
+
+		latitudes = Arrays.copyOf(latitudes, newCapacity);
+		longitudes = Arrays.copyOf(longitudes, newCapacity);
+		cellKeys = Arrays.copyOf(cellKeys, newCapacity);
+		stores = Arrays.copyOf(stores, newCapacity);
+	}
+
+	private int latitudeCell(double latitude) {
+		return (int) Math.floor((Math.min(90, Math.max(-90, latitude)) + 90) / cellSize);
+	}
+
+	private int longitudeCell(double longitude) {
+		return (int) Math.floor((longitude + 180) / cellSize);
+	}
+
+	private long cellKey(int latitudeCell, int longitudeCell) {
+		return (long) latitudeCell * longitudeCells + Math.floorMod(longitudeCell, longitudeCells);
+	}
+
+	/**
+	 * Returns the central angle between the two given coordinates in radians using the haversine formula.
+	 *
+	 * @param latitude in radians.
+	 * @param longitude in radians.
+	 * @param otherLatitude in radians.
+	 * @param otherLongitude in radians.
+	 * @return
+	 */
+	static double angle(double latitude, double longitude, double otherLatitude, double otherLongitude) {
+
+		double latitudeHalf = Math.sin((otherLatitude - latitude) / 2);
+		double longitudeHalf = Math.sin((otherLongitude - longitude) / 2);
+
+		double a = latitudeHalf * latitudeHalf
+				+ Math.cos(latitude) * Math.cos(otherLatitude) * longitudeHalf * longitudeHalf;
+
+		return 2 * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * A grid cell holding the slots of the {@link Store}s located in it.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private class Cell {
+
+		private int[] slots = new int[4];
+		private int size;
+
+		void add(int slot) {
+
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+
+			slots[size++] = slot;
+		}
+
+		boolean remove(int slot) {
+
+			for (int i = 0; i < size; i++) {
+
+				if (slots[i] == slot) {
+					slots[i] = slots[--size];
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		long collect(double latitude, double longitude, double radius, DistanceHeap heap) {
+
+			long matches = 0;
+
+			for (int i = 0; i < size; i++) {
+
+				int slot = slots[i];
+				double angle = angle(latitude, longitude, latitudes[slot], longitudes[slot]);
+
+				if (angle <= radius) {
+					matches++;
+					heap.offer(angle, slot);
+				}
+			}
+
+			return matches;
+		}
+	}
+}
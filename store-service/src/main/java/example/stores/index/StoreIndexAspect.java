@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.index;
+
+import example.stores.StoreRepository;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+
+/**
+ * Aspect to answer invocations of {@link StoreRepository#findByAddressLocationNear(Point, Distance, Pageable)} from the
+ * {@link StoreIndex} instead of MongoDB. Falls back to the actual query if the index has not been populated yet or the
+ * request can't be answered from the index (neutral distances or an explicit sort).
+ *
+ * @author Oliver Gierke
+ */
+@Aspect
+@RequiredArgsConstructor
+class StoreIndexAspect {
+
+	private final @NonNull StoreIndex index;
+
+	@Around("execution(* example.stores.StoreRepository.findByAddressLocationNear(..)) && args(location, distance, pageable)")
+	public Object findByAddressLocationNear(ProceedingJoinPoint joinPoint, Point location, Distance distance,
+			Pageable pageable) throws Throwable {
+
+		if (!index.isInitialized() || location == null || distance == null
+				|| Metrics.NEUTRAL.equals(distance.getMetric()) || pageable != null && pageable.getSort() != null) {
+			return joinPoint.proceed();
+		}
+
+		return index.findNear(location, distance, pageable);
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration to answer geo-spatial store lookups from an in-memory {@link StoreIndex}. Activated by setting
+ * {@code stores.index.enabled} to {@literal true}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(name = "stores.index.enabled", havingValue = "true")
+class StoreIndexConfiguration {
+
+	@Bean
+	public StoreIndex storeIndex(@Value("${stores.index.cell-size:0.25}") double cellSize) {
+		return new StoreIndex(cellSize);
+	}
+
+	@Bean
+	public StoreIndexAspect storeIndexAspect(StoreIndex index) {
+		return new StoreIndexAspect(index);
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import example.metrics.LatencyRecorder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Latency histograms of the commands sent to MongoDB ({@code mongo.commands.$command.*}, failed ones separately as
+ * {@code mongo.commands.$command.failures.*}) and of the invocations of the store repository
+ * ({@code mongo.repository.$method.*}), as well as the state of the driver's connection pools ({@code mongo.pool.*}).
+ * <p>
+ * The driver doesn't report connection checkouts, so the pool's size, the connections checked out and the number of
+ * threads waiting for a connection are read from the MBeans the driver registers. The time it takes to obtain a
+ * connection is approximated by the time between a repository invocation and the first command it sends
+ * ({@code mongo.pool.checkout.*}), which includes mapping the query but is dominated by waiting for a connection once
+ * the pool is exhausted.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+public class MongoMetrics implements PublicMetrics {
+
+	private static final String POOLS = "org.mongodb.driver:type=ConnectionPool,*";
+	private static final ThreadLocal<Long> INVOCATION = new ThreadLocal<>();
+
+	private final Map<String, LatencyRecorder> commands = new ConcurrentHashMap<>();
+	private final Map<String, LatencyRecorder> failures = new ConcurrentHashMap<>();
+	private final Map<String, LatencyRecorder> invocations = new ConcurrentHashMap<>();
+	private final LatencyRecorder checkout = new LatencyRecorder();
+	private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+	/**
+	 * Records the successful execution of the command with the given name.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @param nanos the time it took in nanoseconds.
+	 */
+	void commandSucceeded(String name, long nanos) {
+		commands.computeIfAbsent(name, it -> new LatencyRecorder()).record(nanos);
+	}
+
+	/**
+	 * Records the failed execution of the command with the given name.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @param nanos the time it took in nanoseconds.
+	 */
+	void commandFailed(String name, long nanos) {
+		failures.computeIfAbsent(name, it -> new LatencyRecorder()).record(nanos);
+	}
+
+	/**
+	 * Records the invocation of the repository method with the given name.
+	 *
+	 * @param method must not be {@literal null}.
+	 * @param nanos the time it took in nanoseconds.
+	 */
+	void repositoryInvoked(String method, long nanos) {
+		invocations.computeIfAbsent(method, it -> new LatencyRecorder()).record(nanos);
+	}
+
+	/**
+	 * Marks the start of a repository invocation on the current thread.
+	 *
+	 * @return the start of the invocation previously in progress on the current thread, {@literal null} if none.
+	 */
+	Long invocationStarted() {
+
+		Long previous = INVOCATION.get();
+		INVOCATION.set(System.nanoTime());
+
+		return previous;
+	}
+
+	/**
+	 * Restores the given invocation start after a repository invocation has completed.
+	 *
+	 * @param previous can be {@literal null}.
+	 */
+	void invocationCompleted(Long previous) {
+
+		if (previous == null) {
+			INVOCATION.remove();
+		} else {
+			INVOCATION.set(previous);
+		}
+	}
+
+	/**
+	 * Records the time since the start of the repository invocation in progress on the current thread, if it's the
+	 * first command sent for it.
+	 */
+	void commandStarted() {
+
+		Long start = INVOCATION.get();
+
+		if (start != null && start != 0) {
+
+			checkout.record(System.nanoTime() - start);
+			INVOCATION.set(0L);
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.PublicMetrics#metrics()
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+
+		Collection<Metric<?>> metrics = new ArrayList<>();
+
+		commands.forEach((name, recorder) -> add(metrics, "mongo.commands." + name, recorder));
+		failures.forEach((name, recorder) -> add(metrics, "mongo.commands." + name + ".failures", recorder));
+		invocations.forEach((method, recorder) -> add(metrics, "mongo.repository." + method, recorder));
+		add(metrics, "mongo.pool.checkout", checkout);
+
+		long size = 0, checkedOut = 0, waiting = 0, maxSize = 0;
+
+		try {
+
+			for (ObjectName pool : server.queryNames(new ObjectName(POOLS), null)) {
+
+				size += ((Number) server.getAttribute(pool, "Size")).longValue();
+				checkedOut += ((Number) server.getAttribute(pool, "CheckedOutCount")).longValue();
+				waiting += ((Number) server.getAttribute(pool, "WaitQueueSize")).longValue();
+				maxSize += ((Number) server.getAttribute(pool, "MaxSize")).longValue();
+			}
+
+		} catch (JMException o_O) {
+			log.debug("Could not read connection pool statistics!", o_O);
+		}
+
+		metrics.add(new Metric<>("mongo.pool.size", size));
+		metrics.add(new Metric<>("mongo.pool.max-size", maxSize));
+		metrics.add(new Metric<>("mongo.pool.checked-out", checkedOut));
+		metrics.add(new Metric<>("mongo.pool.wait-queue-size", waiting));
+
+		return metrics;
+	}
+
+	private static void add(Collection<Metric<?>> metrics, String prefix, LatencyRecorder recorder) {
+
+		recorder.roll();
+		recorder.getTotal().forEach((key, value) -> metrics.add(new Metric<>(prefix + "." + key, value)));
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * {@link CommandListener} to record the latency of every command sent to MongoDB in {@link MongoMetrics} and hand slow
+ * queries to the {@link SlowQuerySampler}. Commands are only copied and retained until completion if the sampler
+ * admits them as candidates, which bounds the number of commands copied per sampling interval.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+class MongoMetricsCommandListener implements CommandListener {
+
+	private static final int MAX_PENDING = 1024;
+
+	private final @NonNull MongoMetrics metrics;
+	private final @NonNull SlowQuerySampler sampler;
+	private final Map<Integer, PendingCommand> pending = new ConcurrentHashMap<>();
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.mongodb.event.CommandListener#commandStarted(com.mongodb.event.CommandStartedEvent)
+	 */
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+
+		metrics.commandStarted();
+
+		if (sampler.isCandidate(event.getCommandName()) && pending.size() < MAX_PENDING) {
+
+			// The command might be backed by a buffer that is released once it's sent
+			BsonDocument command = BsonDocument.parse(event.getCommand().toJson());
+			pending.put(event.getRequestId(), new PendingCommand(event.getDatabaseName(), command));
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.mongodb.event.CommandListener#commandSucceeded(com.mongodb.event.CommandSucceededEvent)
+	 */
+	@Override
+	public void commandSucceeded(CommandSucceededEvent event) {
+
+		long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+		metrics.commandSucceeded(event.getCommandName(), nanos);
+
+		PendingCommand command = pending.remove(event.getRequestId());
+
+		if (command != null) {
+			sampler.completed(command.getDatabase(), event.getCommandName(), command.getCommand(), nanos);
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.mongodb.event.CommandListener#commandFailed(com.mongodb.event.CommandFailedEvent)
+	 */
+	@Override
+	public void commandFailed(CommandFailedEvent event) {
+
+		metrics.commandFailed(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+		pending.remove(event.getRequestId());
+	}
+
+	@Value
+	private static class PendingCommand {
+		String database;
+		BsonDocument command;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+
+/**
+ * Configuration to instrument the access to MongoDB. Registers a {@link MongoMetricsCommandListener} with the
+ * {@link MongoClientOptions} picked up by Spring Boot when creating the {@link MongoClient}, times all repository
+ * invocations and exposes sampled slow queries via the {@code slowqueries} endpoint. Deactivated by setting
+ * {@code stores.mongo.monitoring.enabled} to {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(name = "stores.mongo.monitoring.enabled", havingValue = "true", matchIfMissing = true)
+class MongoMonitoringConfiguration {
+
+	@Bean
+	public MongoMetrics mongoMetrics() {
+		return new MongoMetrics();
+	}
+
+	@Bean
+	public SlowQuerySampler slowQuerySampler(ObjectProvider<MongoClient> client,
+			@Value("${stores.mongo.slow-query-threshold:100}") long threshold,
+			@Value("${stores.mongo.explain-interval:1000}") long interval,
+			@Value("${stores.mongo.slow-query-capacity:50}") int capacity,
+			@Value("${stores.mongo.explain-candidates:10}") int candidates) {
+		return new SlowQuerySampler(client, threshold, interval, capacity, candidates);
+	}
+
+	@Bean
+	public MongoClientOptions mongoClientOptions(MongoMetrics metrics, SlowQuerySampler sampler) {
+
+		return MongoClientOptions.builder() //
+				.addCommandListener(new MongoMetricsCommandListener(metrics, sampler)) //
+				.build();
+	}
+
+	@Bean
+	public RepositoryTimingAspect repositoryTimingAspect(MongoMetrics metrics) {
+		return new RepositoryTimingAspect(metrics);
+	}
+
+	@Bean
+	public SlowQueryEndpoint slowQueryEndpoint(SlowQuerySampler sampler) {
+		return new SlowQueryEndpoint(sampler);
+	}
+}
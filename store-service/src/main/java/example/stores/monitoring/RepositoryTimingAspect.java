@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect to time all invocations of {@link example.stores.StoreRepository} methods. Runs before any other aspect so
+ * that the time includes invocations answered without touching the database.
+ *
+ * @author Oliver Gierke
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+class RepositoryTimingAspect {
+
+	private final @NonNull MongoMetrics metrics;
+
+	@Around("execution(* example.stores.StoreRepository.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+
+		Long previous = metrics.invocationStarted();
+		long start = System.nanoTime();
+
+		try {
+			return joinPoint.proceed();
+		} finally {
+
+			metrics.repositoryInvoked(joinPoint.getSignature().getName(), System.nanoTime() - start);
+			metrics.invocationCompleted(previous);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A command that took longer than the configured threshold together with the plan MongoDB reported for it.
+ *
+ * @author Oliver Gierke
+ */
+@Value
+public class SlowQuery {
+
+	long timestamp;
+	String database, command;
+	double millis;
+	String query;
+	Map<String, Object> plan;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.util.Assert;
+
+/**
+ * Actuator endpoint exposing the most recent {@link SlowQuery}s sampled by the {@link SlowQuerySampler}.
+ *
+ * @author Oliver Gierke
+ */
+class SlowQueryEndpoint extends AbstractEndpoint<List<SlowQuery>> {
+
+	private final SlowQuerySampler sampler;
+
+	/**
+	 * Creates a new {@link SlowQueryEndpoint} for the given {@link SlowQuerySampler}.
+	 *
+	 * @param sampler must not be {@literal null}.
+	 */
+	SlowQueryEndpoint(SlowQuerySampler sampler) {
+
+		super("slowqueries");
+
+		Assert.notNull(sampler, "SlowQuerySampler must not be null!");
+
+		this.sampler = sampler;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.Endpoint#invoke()
+	 */
+	@Override
+	public List<SlowQuery> invoke() {
+		return sampler.getSamples();
+	}
+}
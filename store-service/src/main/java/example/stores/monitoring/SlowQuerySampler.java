@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.DiscardPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.Assert;
+
+import com.mongodb.MongoClient;
+
+/**
+ * Samples commands taking longer than a threshold and runs them through {@code explain}, keeping the plans of the most
+ * recent ones in a bounded buffer. At most one command is explained per interval, in a background thread, so that a
+ * burst of slow queries doesn't put additional load on the database. Only queries that can be explained are
+ * considered ({@value #EXPLAINABLE_COMMANDS}).
+ * <p>
+ * As a command has to be copied when it's started to be able to explain it once it turned out to be slow, at most a
+ * configurable number of commands per interval are admitted as candidates. Slow commands started after the candidates
+ * of an interval are used up aren't sampled.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+public class SlowQuerySampler implements DisposableBean {
+
+	static final String EXPLAINABLE_COMMANDS = "find, aggregate, count, distinct";
+
+	private static final Set<String> EXPLAINABLE = new HashSet<>(
+			Arrays.asList(EXPLAINABLE_COMMANDS.split(",\\s*")));
+
+	private final ObjectProvider<MongoClient> client;
+	private final long threshold, interval;
+	private final int capacity, candidates;
+	private final Deque<SlowQuery> samples = new ArrayDeque<>();
+	private final AtomicLong lastSample = new AtomicLong(System.nanoTime());
+	private final AtomicLong window = new AtomicLong(System.nanoTime());
+	private final AtomicInteger admitted = new AtomicInteger();
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a new {@link SlowQuerySampler}.
+	 *
+	 * @param client must not be {@literal null}.
+	 * @param threshold the time in milliseconds a command has to take to be sampled.
+	 * @param interval the minimum time in milliseconds between two samples.
+	 * @param capacity the number of samples to keep, must be greater than zero.
+	 * @param candidates the number of commands per interval admitted as candidates, must not be negative.
+	 */
+	public SlowQuerySampler(ObjectProvider<MongoClient> client, long threshold, long interval, int capacity,
+			int candidates) {
+
+		Assert.notNull(client, "MongoClient must not be null!");
+		Assert.isTrue(capacity > 0, "Capacity must be greater than zero!");
+		Assert.isTrue(candidates >= 0, "Candidates must not be negative!");
+
+		this.client = client;
+		this.threshold = TimeUnit.MILLISECONDS.toNanos(threshold);
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.capacity = capacity;
+		this.candidates = candidates;
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+
+			Thread thread = new Thread(runnable, "slow-query-explain");
+			thread.setDaemon(true);
+
+			return thread;
+
+		}, new DiscardPolicy());
+	}
+
+	/**
+	 * Returns whether a command with the given name started now could be sampled, i.e. it can be explained, the
+	 * sampling interval has passed and the candidates of the current interval aren't used up yet. Allows callers to
+	 * only retain the commands of candidates. Every invocation returning {@literal true} uses up a candidate.
+	 *
+	 * @param command must not be {@literal null}.
+	 * @return
+	 */
+	boolean isCandidate(String command) {
+
+		if (!EXPLAINABLE.contains(command)) {
+			return false;
+		}
+
+		long now = System.nanoTime();
+
+		if (now - lastSample.get() < interval) {
+			return false;
+		}
+
+		long start = window.get();
+
+		if (now - start >= interval && window.compareAndSet(start, now)) {
+			admitted.set(0);
+		}
+
+		return admitted.get() < candidates && admitted.incrementAndGet() <= candidates;
+	}
+
+	/**
+	 * Explains the given command in the background if it took longer than the threshold and no other command has been
+	 * sampled within the current interval.
+	 *
+	 * @param database must not be {@literal null}.
+	 * @param name must not be {@literal null}.
+	 * @param command must not be {@literal null}.
+	 * @param nanos the time the command took in nanoseconds.
+	 */
+	void completed(String database, String name, BsonDocument command, long nanos) {
+
+		if (nanos < threshold) {
+			return;
+		}
+
+		long now = System.nanoTime(), last = lastSample.get();
+
+		if (now - last < interval || !lastSample.compareAndSet(last, now)) {
+			return;
+		}
+
+		long timestamp = System.currentTimeMillis();
+
+		executor.execute(() -> {
+
+			try {
+
+				BsonDocument explain = new BsonDocument("explain", command) //
+						.append("verbosity", new BsonString("executionStats"));
+				Document result = client.getObject().getDatabase(database).runCommand(explain);
+
+				add(new SlowQuery(timestamp, database, name, nanos / 1_000_000d, command.toJson(), summarize(result)));
+
+			} catch (RuntimeException o_O) {
+				log.debug("Could not explain slow {} command!", name, o_O);
+			}
+		});
+	}
+
+	/**
+	 * Returns the sampled queries, most recent first.
+	 *
+	 * @return
+	 */
+	public synchronized List<SlowQuery> getSamples() {
+		return new ArrayList<>(samples);
+	}
+
+	private synchronized void add(SlowQuery query) {
+
+		if (samples.size() == capacity) {
+			samples.removeLast();
+		}
+
+		samples.addFirst(query);
+	}
+
+	/**
+	 * Reduces the given {@code explain} result to the winning plan and the execution statistics relevant to judge it.
+	 */
+	private static Map<String, Object> summarize(Document result) {
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		Document planner = (Document) result.get("queryPlanner");
+		Document statistics = (Document) result.get("executionStats");
+
+		if (planner != null) {
+			summary.put("namespace", planner.get("namespace"));
+			summary.put("winningPlan", planner.get("winningPlan"));
+		}
+
+		if (statistics != null) {
+			Arrays.asList("nReturned", "executionTimeMillis", "totalKeysExamined", "totalDocsExamined")
+					.forEach(key -> summary.put(key, statistics.get(key)));
+		}
+
+		return summary;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+}
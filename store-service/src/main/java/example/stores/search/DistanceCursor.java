@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.search;
+
+import example.stores.Store;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metric;
+
+/**
+ * An opaque cursor pointing to the last element of a page of geo results ordered by distance and identifier. The
+ * distance is encoded by its exact bit pattern so that it survives the round trip through a URI unchanged. As the
+ * conversion of the distance into the query's minimum distance is not exact, the latter is lowered by a small tolerance
+ * so that results tied with the cursor's distance are always re-fetched and can be filtered by identifier.
+ *
+ * @author Oliver Gierke
+ */
+@Value
+class DistanceCursor {
+
+	static final double TOLERANCE = 1e-9;
+
+	/**
+	 * Orders {@link GeoResult}s by distance and identifier, i.e. the order the cursor navigates.
+	 */
+	static final Comparator<GeoResult<Store>> ORDER = Comparator
+			.<GeoResult<Store>> comparingDouble(it -> it.getDistance().getValue())
+			.thenComparing(it -> it.getContent().getId());
+
+	double distance;
+	UUID id;
+
+	/**
+	 * Creates a {@link DistanceCursor} pointing to the given {@link GeoResult}.
+	 *
+	 * @param result must not be {@literal null}.
+	 * @return
+	 */
+	static DistanceCursor of(GeoResult<Store> result) {
+		return new DistanceCursor(result.getDistance().getValue(), result.getContent().getId());
+	}
+
+	/**
+	 * Parses the given token into a {@link DistanceCursor}.
+	 *
+	 * @param token must not be {@literal null}.
+	 * @return
+	 * @throws IllegalArgumentException in case the token is invalid.
+	 */
+	static DistanceCursor parse(String token) {
+
+		String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+		String[] parts = decoded.split(":");
+
+		if (parts.length != 2) {
+			throw new IllegalArgumentException(String.format("Invalid cursor %s!", token));
+		}
+
+		return new DistanceCursor(Double.longBitsToDouble(Long.parseUnsignedLong(parts[0], 16)),
+				UUID.fromString(parts[1]));
+	}
+
+	/**
+	 * Returns whether the given {@link GeoResult} is located after the position the cursor points to.
+	 *
+	 * @param result must not be {@literal null}.
+	 * @return
+	 */
+	boolean precedes(GeoResult<Store> result) {
+
+		int comparison = Double.compare(distance, result.getDistance().getValue());
+
+		return comparison < 0 || comparison == 0 && id.compareTo(result.getContent().getId()) < 0;
+	}
+
+	/**
+	 * Returns the minimum distance to query for to resume after the cursor. Includes all results within a tolerance
+	 * relative to the cursor's distance, so that the ones tied with it are not lost to rounding.
+	 *
+	 * @param metric must not be {@literal null}.
+	 * @return
+	 */
+	Distance getMinDistance(Metric metric) {
+		return new Distance(Math.max(0, distance - Math.max(distance, 1) * TOLERANCE), metric);
+	}
+
+	/**
+	 * Returns the opaque token representation of the cursor.
+	 *
+	 * @return
+	 */
+	String toToken() {
+
+		String value = Long.toHexString(Double.doubleToLongBits(distance)) + ":" + id;
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+	}
+}
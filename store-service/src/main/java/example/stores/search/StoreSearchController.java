@@ -0,0 +1,391 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.search;
+
+import example.stores.Store;
+import example.stores.StoreRepository;
+import example.stores.index.StoreIndex;
+import example.stores.text.StoreTextIndex;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.format.DistanceFormatter;
+import org.springframework.data.geo.format.PointFormatter;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.core.Relation;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Additional geo-spatial search resources for {@link Store}s:
+ * <ul>
+ * <li>{@code /stores/search/by-location-keyset} returns slices of stores ordered by distance and identifier, with a
+ * {@code next} link carrying an opaque cursor pointing to the last store returned.</li>
+ * <li>{@code /stores/search/by-location-stream} streams all stores within the given distance as newline delimited
+ * JSON, writing them to the response as the database cursor produces them.</li>
+ * <li>{@code /stores/search/nearest} returns the {@code k} stores closest to the given location.</li>
+ * <li>{@code /stores/search/by-locations} answers a {@code by-location} search for many locations at once, so that
+ * clients can look up the stores nearby a page of locations in a single round trip.</li>
+ * <li>{@code /stores/search/by-text} finds stores by terms of their name, city and zip code, optionally preferring
+ * the ones close to a given location.</li>
+ * </ul>
+ *
+ * @author Oliver Gierke
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+class StoreSearchController {
+
+	static final String KEYSET_REL = "by-location-keyset";
+	static final String STREAM_REL = "by-location-stream";
+	static final String NEAREST_REL = "nearest";
+	static final String BATCH_REL = "by-locations";
+	static final String TEXT_REL = "by-text";
+	static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private static final int MAX_SIZE = 1000;
+	private static final int MAX_NEAREST = 100;
+	private static final int MAX_LOCATIONS = 100;
+	private static final int MAX_TEXT_RESULTS = 100;
+	private static final int FLUSH_INTERVAL = 100;
+
+	private final @NonNull StoreRepository repository;
+	private final @NonNull MongoOperations operations;
+	private final @NonNull ObjectMapper mapper;
+	private final @NonNull Optional<StoreIndex> index;
+	private final @NonNull StoreTextIndex textIndex;
+
+	/**
+	 * Returns the slice of {@link Store}s within the given distance of the given location following the position the
+	 * given cursor points to.
+	 *
+	 * @param location the location formatted as {@code latitude,longitude}.
+	 * @param distance the distance including its metric, e.g. {@code 50km}.
+	 * @param size the number of stores to return.
+	 * @param cursor the cursor obtained from a previous {@code next} link, optional.
+	 * @param assembler
+	 * @return
+	 */
+	@GetMapping("/stores/search/" + KEYSET_REL)
+	ResponseEntity<Resources<PersistentEntityResource>> findByLocation(@RequestParam String location,
+			@RequestParam String distance, @RequestParam(defaultValue = "20") int size,
+			@RequestParam Optional<String> cursor, PersistentEntityResourceAssembler assembler) {
+
+		if (size < 1 || size > MAX_SIZE) {
+			throw new IllegalArgumentException(String.format("Size must be between 1 and %s!", MAX_SIZE));
+		}
+
+		Point point = PointFormatter.INSTANCE.convert(location);
+		Distance maxDistance = DistanceFormatter.INSTANCE.convert(distance);
+		Optional<DistanceCursor> position = cursor.map(DistanceCursor::parse);
+
+		// Fetch one more than requested to find out whether there's a next slice
+		List<GeoResult<Store>> results = findAfter(point, maxDistance, position, size + 1);
+
+		List<PersistentEntityResource> content = results.stream() //
+				.limit(size) //
+				.map(it -> assembler.toResource(it.getContent())) //
+				.collect(Collectors.toList());
+
+		Resources<PersistentEntityResource> resources = new Resources<>(content);
+		resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+		if (results.size() > size) {
+
+			String next = ServletUriComponentsBuilder.fromCurrentRequest() //
+					.replaceQueryParam("cursor", DistanceCursor.of(results.get(size - 1)).toToken()) //
+					.build().toUriString();
+
+			resources.add(new Link(next, Link.REL_NEXT));
+		}
+
+		return ResponseEntity.ok(resources);
+	}
+
+	/**
+	 * Streams all {@link Store}s within the given distance of the given location ordered by distance as newline
+	 * delimited JSON.
+	 *
+	 * @param location the location formatted as {@code latitude,longitude}.
+	 * @param distance the distance including its metric, e.g. {@code 50km}.
+	 * @return
+	 */
+	@GetMapping("/stores/search/" + STREAM_REL)
+	ResponseEntity<StreamingResponseBody> streamByLocation(@RequestParam String location,
+			@RequestParam String distance) {
+
+		Point point = PointFormatter.INSTANCE.convert(location);
+		Distance maxDistance = DistanceFormatter.INSTANCE.convert(distance);
+
+		Query query = new Query(Criteria.where("address.location") //
+				.nearSphere(point) //
+				.maxDistance(maxDistance.getNormalizedValue()));
+
+		ObjectWriter writer = mapper.writerFor(Store.class);
+
+		StreamingResponseBody body = (OutputStream stream) -> {
+
+			try (CloseableIterator<Store> stores = operations.stream(query, Store.class)) {
+
+				int written = 0;
+
+				while (stores.hasNext()) {
+
+					stream.write(writer.writeValueAsBytes(stores.next()));
+					stream.write('\n');
+
+					if (++written % FLUSH_INTERVAL == 0) {
+						stream.flush();
+					}
+				}
+			}
+
+			stream.flush();
+		};
+
+		return ResponseEntity.ok().contentType(NDJSON).body(body);
+	}
+
+	/**
+	 * Returns the {@code k} {@link Store}s closest to the given location, regardless of their distance. Answered from
+	 * the {@link StoreIndex} if enabled, otherwise by a MongoDB {@code geoNear} limited to {@code k} results.
+	 *
+	 * @param location the location formatted as {@code latitude,longitude}.
+	 * @param k the number of stores to return.
+	 * @param assembler
+	 * @return
+	 */
+	@GetMapping("/stores/search/" + NEAREST_REL)
+	ResponseEntity<Resources<PersistentEntityResource>> findNearest(@RequestParam String location,
+			@RequestParam(defaultValue = "5") int k, PersistentEntityResourceAssembler assembler) {
+
+		if (k < 1 || k > MAX_NEAREST) {
+			throw new IllegalArgumentException(String.format("k must be between 1 and %s!", MAX_NEAREST));
+		}
+
+		Point point = PointFormatter.INSTANCE.convert(location);
+
+		List<Store> stores = index.filter(StoreIndex::isInitialized) //
+				.map(it -> it.findNearest(point, k)) //
+				.orElseGet(() -> operations.geoNear(NearQuery.near(point).spherical(true).num(k), Store.class) //
+						.getContent().stream() //
+						.map(GeoResult::getContent) //
+						.collect(Collectors.toList()));
+
+		Resources<PersistentEntityResource> resources = new Resources<>(stores.stream() //
+				.map(assembler::toResource) //
+				.collect(Collectors.toList()));
+		resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+		return ResponseEntity.ok(resources);
+	}
+
+	/**
+	 * Returns the {@link Store}s within the given distance of each of the given locations. Results are returned in the
+	 * order of the locations given, stores for duplicate locations are only looked up once.
+	 *
+	 * @param query the locations, distance and number of stores to return per location.
+	 * @param assembler
+	 * @return
+	 */
+	@PostMapping("/stores/search/" + BATCH_REL)
+	ResponseEntity<Resources<StoresNearby>> findByLocations(@RequestBody LocationsQuery query,
+			PersistentEntityResourceAssembler assembler) {
+
+		List<String> locations = query.getLocations();
+
+		if (locations == null || locations.isEmpty() || locations.size() > MAX_LOCATIONS) {
+			throw new IllegalArgumentException(String.format("Between 1 and %s locations required!", MAX_LOCATIONS));
+		}
+
+		if (query.getDistance() == null) {
+			throw new IllegalArgumentException("Distance must not be null!");
+		}
+
+		if (query.getSize() < 1 || query.getSize() > MAX_SIZE) {
+			throw new IllegalArgumentException(String.format("Size must be between 1 and %s!", MAX_SIZE));
+		}
+
+		Distance distance = DistanceFormatter.INSTANCE.convert(query.getDistance());
+		Pageable pageable = new PageRequest(0, query.getSize());
+		Map<String, List<PersistentEntityResource>> stores = new HashMap<>();
+
+		List<StoresNearby> results = new ArrayList<>(locations.size());
+
+		for (String location : locations) {
+
+			results.add(new StoresNearby(location, stores.computeIfAbsent(location, it -> repository //
+					.findByAddressLocationNear(PointFormatter.INSTANCE.convert(it), distance, pageable) //
+					.getContent().stream() //
+					.map(assembler::toResource) //
+					.collect(Collectors.toList()))));
+		}
+
+		Resources<StoresNearby> resources = new Resources<>(results);
+		resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+		return ResponseEntity.ok(resources);
+	}
+
+	/**
+	 * Returns the {@link Store}s whose name, city or zip code contain all terms of the given query, treating the last
+	 * one as prefix. Answered from the {@link StoreTextIndex}.
+	 *
+	 * @param q the query.
+	 * @param location the location formatted as {@code latitude,longitude} to order the stores by distance to, optional.
+	 * @param size the number of stores to return.
+	 * @param assembler
+	 * @return
+	 */
+	@GetMapping("/stores/search/" + TEXT_REL)
+	ResponseEntity<Resources<PersistentEntityResource>> findByText(@RequestParam String q,
+			@RequestParam Optional<String> location, @RequestParam(defaultValue = "10") int size,
+			PersistentEntityResourceAssembler assembler) {
+
+		if (size < 1 || size > MAX_TEXT_RESULTS) {
+			throw new IllegalArgumentException(String.format("Size must be between 1 and %s!", MAX_TEXT_RESULTS));
+		}
+
+		List<Store> stores = textIndex.find(q, location.map(PointFormatter.INSTANCE::convert), size);
+
+		Resources<PersistentEntityResource> resources = new Resources<>(stores.stream() //
+				.map(assembler::toResource) //
+				.collect(Collectors.toList()));
+		resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+		return ResponseEntity.ok(resources);
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	void handle(IllegalArgumentException o_O) {}
+
+	/**
+	 * Returns up to {@code limit} {@link GeoResult}s within the given distance around the given location that follow
+	 * the given cursor. As MongoDB only allows to resume by distance, results tied with the cursor's distance are
+	 * re-fetched and filtered by identifier. MongoDB cuts off the results by distance only, so the fetch is widened
+	 * until enough results were found whose distance is below the one of the last result fetched, as the ones at that
+	 * distance might lack tied results with a smaller identifier. Package protected for testing purposes.
+	 */
+	List<GeoResult<Store>> findAfter(Point location, Distance distance, Optional<DistanceCursor> cursor, int limit) {
+
+		int fetch = limit;
+
+		while (true) {
+
+			NearQuery query = NearQuery.near(location, distance.getMetric()) //
+					.spherical(true) //
+					.maxDistance(distance) //
+					.num(fetch);
+
+			cursor.ifPresent(it -> query.minDistance(it.getMinDistance(distance.getMetric())));
+
+			List<GeoResult<Store>> results = operations.geoNear(query, Store.class).getContent();
+
+			List<GeoResult<Store>> candidates = results.stream() //
+					.filter(it -> cursor.map(position -> position.precedes(it)).orElse(true)) //
+					.sorted(DistanceCursor.ORDER) //
+					.collect(Collectors.toList());
+
+			if (results.size() < fetch) {
+				return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+			}
+
+			if (candidates.size() >= limit && isBefore(candidates.get(limit - 1), results.get(results.size() - 1))) {
+				return candidates.subList(0, limit);
+			}
+
+			fetch *= 2;
+		}
+	}
+
+	private static boolean isBefore(GeoResult<Store> candidate, GeoResult<Store> last) {
+		return Double.compare(candidate.getDistance().getValue(), last.getDistance().getValue()) < 0;
+	}
+
+	/**
+	 * The request body of a {@code by-locations} search.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Data
+	static class LocationsQuery {
+
+		/**
+		 * The locations formatted as {@code latitude,longitude}.
+		 */
+		List<String> locations;
+
+		/**
+		 * The distance including its metric, e.g. {@code 50km}.
+		 */
+		String distance;
+
+		/**
+		 * The maximum number of stores to return per location.
+		 */
+		int size = 20;
+	}
+
+	/**
+	 * The stores nearby a single location of a {@code by-locations} search.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	@Relation(collectionRelation = "results")
+	static class StoresNearby {
+		String location;
+		List<PersistentEntityResource> stores;
+	}
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.text;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+import example.stores.StoreView;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.data.geo.Point;
+import org.springframework.util.Assert;
+
+/**
+ * An in-memory inverted index over the name, city and zip code of {@link Store}s. Text is folded to lower case
+ * without diacritics and split into terms. The term dictionary is kept sorted, so that all terms starting with a
+ * prefix are found by a range lookup. Each term refers to the slots of the stores containing it in an ascending
+ * primitive {@code int} array.
+ * <p>
+ * Slots are assigned in increasing order and never reused, so that postings stay sorted when appending to them.
+ * Removed stores are only marked as such and the index is rebuilt once more than half of its slots are unused.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreTextIndex implements StoreView {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+	private static final Comparator<Store> BY_NAME = Comparator.comparing(Store::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+	private final NavigableMap<String, Postings> terms = new TreeMap<>();
+	private final Map<UUID, Integer> slots = new HashMap<>();
+	private final BitSet removed = new BitSet();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private Store[] stores = new Store[INITIAL_CAPACITY];
+	private int size, removedCount;
+
+	/**
+	 * Adds the given {@link Store} to the index, replacing a previously indexed version of it.
+	 *
+	 * @param store must not be {@literal null}.
+	 */
+	public void add(Store store) {
+
+		Assert.notNull(store, "Store must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			removeInternal(store.getId());
+			addInternal(store);
+			compactIfNecessary();
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the {@link Store} with the given identifier from the index.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	public void remove(UUID id) {
+
+		Assert.notNull(id, "Identifier must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			removeInternal(id);
+			compactIfNecessary();
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the entire content of the index with the given {@link Store}s.
+	 *
+	 * @param stores must not be {@literal null}.
+	 */
+	public void replaceAll(Iterable<Store> stores) {
+
+		Assert.notNull(stores, "Stores must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			clearInternal();
+
+			for (Store store : stores) {
+				removeInternal(store.getId());
+				addInternal(store);
+			}
+
+			compactIfNecessary();
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all {@link Store}s from the index.
+	 */
+	public void clear() {
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+			clearInternal();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of {@link Store}s contained in the index.
+	 *
+	 * @return
+	 */
+	public int size() {
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+			return slots.size();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the {@link Store}s whose name, city or zip code contain all terms of the given query. The last term is
+	 * treated as prefix, so that the query can be issued while the user is still typing. Results are ordered by their
+	 * distance to the given location if one is given, by name otherwise.
+	 *
+	 * @param query must not be {@literal null}.
+	 * @param location the location to prefer stores close to, must not be {@literal null}.
+	 * @param limit the maximum number of stores to return.
+	 * @return
+	 */
+	public List<Store> find(String query, Optional<Point> location, int limit) {
+
+		Assert.notNull(query, "Query must not be null!");
+		Assert.notNull(location, "Location must not be null!");
+		Assert.isTrue(limit > 0, "Limit must be greater than zero!");
+
+		List<String> tokens = tokenize(query);
+
+		if (tokens.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+
+			BitSet candidates = null;
+
+			for (int i = 0; i < tokens.size() && (candidates == null || !candidates.isEmpty()); i++) {
+
+				String token = tokens.get(i);
+				BitSet matches = new BitSet(size);
+
+				if (i == tokens.size() - 1) {
+					terms.subMap(token, true, token + Character.MAX_VALUE, false).values().forEach(it -> it.addTo(matches));
+				} else {
+					Optional.ofNullable(terms.get(token)).ifPresent(it -> it.addTo(matches));
+				}
+
+				if (candidates == null) {
+					candidates = matches;
+				} else {
+					candidates.and(matches);
+				}
+			}
+
+			candidates.andNot(removed);
+
+			return select(candidates, location.map(StoreTextIndex::byDistanceTo).orElse(BY_NAME), limit);
+
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the {@code limit} smallest of the {@link Store}s in the given slots according to the given
+	 * {@link Comparator}, ordered.
+	 */
+	private List<Store> select(BitSet candidates, Comparator<Store> comparator, int limit) {
+
+		PriorityQueue<Store> heap = new PriorityQueue<>(Math.min(limit, candidates.cardinality()) + 1,
+				comparator.reversed());
+
+		for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+
+			heap.offer(stores[slot]);
+
+			if (heap.size() > limit) {
+				heap.poll();
+			}
+		}
+
+		List<Store> result = new ArrayList<>(heap);
+		result.sort(comparator);
+
+		return result;
+	}
+
+	private void addInternal(Store store) {
+
+		if (size == stores.length) {
+			stores = Arrays.copyOf(stores, size * 2);
+		}
+
+		int slot = size++;
+
+		stores[slot] = store;
+		slots.put(store.getId(), slot);
+
+		for (String term : getTerms(store)) {
+			terms.computeIfAbsent(term, it -> new Postings()).add(slot);
+		}
+	}
+
+	private void removeInternal(UUID id) {
+
+		Integer slot = slots.remove(id);
+
+		if (slot != null) {
+			stores[slot] = null;
+			removed.set(slot);
+			removedCount++;
+		}
+	}
+
+	private void clearInternal() {
+
+		terms.clear();
+		slots.clear();
+		removed.clear();
+
+		this.stores = new Store[INITIAL_CAPACITY];
+		this.size = 0;
+		this.removedCount = 0;
+	}
+
+	/**
+	 * Rebuilds the index from the remaining stores once more than half of the slots belong to removed ones.
+	 */
+	private void compactIfNecessary() {
+
+		if (size < INITIAL_CAPACITY || removedCount * 2 <= size) {
+			return;
+		}
+
+		List<Store> remaining = new ArrayList<>(slots.size());
+
+		for (int slot = 0; slot < size; slot++) {
+			if (stores[slot] != null) {
+				remaining.add(stores[slot]);
+			}
+		}
+
+		clearInternal();
+		remaining.forEach(this::addInternal);
+	}
+
+	private static Set<String> getTerms(Store store) {
+
+		Set<String> result = new LinkedHashSet<>(tokenize(store.getName()));
+		Address address = store.getAddress();
+
+		if (address != null) {
+			result.addAll(tokenize(address.getCity()));
+			result.addAll(tokenize(address.getZip()));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Splits the given text into lower case terms without diacritics.
+	 *
+	 * @param text can be {@literal null}.
+	 * @return
+	 */
+	static List<String> tokenize(String text) {
+
+		if (text == null) {
+			return Collections.emptyList();
+		}
+
+		String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+
+		List<String> result = new ArrayList<>();
+
+		for (String token : SEPARATORS.split(folded)) {
+			if (!token.isEmpty()) {
+				result.add(token);
+			}
+		}
+
+		return result;
+	}
+
+	private static Comparator<Store> byDistanceTo(Point location) {
+
+		double latitude = Math.toRadians(location.getY()), longitude = Math.toRadians(location.getX());
+		double cos = Math.cos(latitude);
+
+		// Haversine term, monotonic in the distance, so there's no need to take the square root and arc sine
+		return Comparator.comparingDouble(store -> {
+
+			Point other = store.getAddress() == null ? null : store.getAddress().getLocation();
+
+			if (other == null) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			double otherLatitude = Math.toRadians(other.getY());
+
+			return Math.pow(Math.sin((otherLatitude - latitude) / 2), 2)
+					+ cos * Math.cos(otherLatitude) * Math.pow(Math.sin((Math.toRadians(other.getX()) - longitude) / 2), 2);
+		});
+	}
+
+	/**
+	 * The ascending slots of the stores containing a term.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private static class Postings {
+
+		private int[] slots = new int[2];
+		private int size;
+
+		void add(int slot) {
+
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+
+			slots[size++] = slot;
+		}
+
+		void addTo(BitSet bits) {
+
+			for (int i = 0; i < size; i++) {
+				bits.set(slots[i]);
+			}
+		}
+	}
+}
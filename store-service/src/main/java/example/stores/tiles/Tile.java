@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A map tile of the {@link TilePyramid}: the number of stores per cell of a {@code resolution x resolution} grid laid
+ * over the tile, each non-empty cell with a representative store.
+ *
+ * @author Oliver Gierke
+ */
+@Value
+public class Tile {
+
+	int zoom, x, y, resolution;
+	int count;
+	List<Cell> cells;
+	@JsonIgnore String etag;
+
+	/**
+	 * A non-empty cell of a {@link Tile}, positioned relative to the tile's top left corner.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	public static class Cell {
+
+		int x, y, count;
+		UUID store;
+	}
+}
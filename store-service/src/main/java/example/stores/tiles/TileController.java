@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import example.stores.Store;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Serves the {@link Tile}s of the {@link TilePyramid} under {@code /stores/tiles/{zoom}/{x}/{y}}, using the usual
+ * slippy map tile coordinates. Responses carry an {@code ETag} derived from the tile's content, so that conditional
+ * requests for tiles that haven't changed are answered with {@code 304 Not Modified}.
+ *
+ * @author Oliver Gierke
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired) )
+@ConditionalOnProperty(name = "stores.tiles.enabled", havingValue = "true", matchIfMissing = true)
+class TileController {
+
+	static final String TILES_REL = "tiles";
+
+	private final @NonNull TilePyramid pyramid;
+
+	/**
+	 * Returns the {@link Tile} with the given coordinates containing the number of {@link Store}s per cell.
+	 *
+	 * @param zoom the zoom level.
+	 * @param x the column of the tile.
+	 * @param y the row of the tile.
+	 * @return
+	 */
+	@GetMapping("/stores/" + TILES_REL + "/{zoom}/{x}/{y}")
+	ResponseEntity<Tile> tile(@PathVariable int zoom, @PathVariable int x, @PathVariable int y) {
+
+		Tile tile = pyramid.getTile(zoom, x, y);
+
+		return ResponseEntity.ok() //
+				.eTag(tile.getEtag()) //
+				.cacheControl(CacheControl.maxAge(0, TimeUnit.SECONDS).mustRevalidate()) //
+				.body(tile);
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	void handle(IllegalArgumentException o_O) {}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Advertises the store density {@link Tile}s in the root resource exposed by Spring Data REST.
+ *
+ * @author Oliver Gierke
+ */
+@Component
+@ConditionalOnProperty(name = "stores.tiles.enabled", havingValue = "true", matchIfMissing = true)
+class TileLinks implements ResourceProcessor<RepositoryLinksResource> {
+
+	static final String STORE_TILES_REL = "store-tiles";
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.hateoas.ResourceProcessor#process(org.springframework.hateoas.ResourceSupport)
+	 */
+	@Override
+	public RepositoryLinksResource process(RepositoryLinksResource resource) {
+
+		String base = ServletUriComponentsBuilder.fromCurrentRequestUri() //
+				.path("/stores/" + TileController.TILES_REL) //
+				.build().toUriString();
+
+		resource.add(new Link(base + "/{zoom}/{x}/{y}", STORE_TILES_REL));
+
+		return resource;
+	}
+}
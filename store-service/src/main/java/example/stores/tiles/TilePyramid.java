@@ -0,0 +1,387 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import example.stores.Store;
+import example.stores.StoreView;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.data.geo.Point;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A pyramid of Web Mercator map {@link Tile}s holding the number of {@link Store}s per cell. Every tile is divided
+ * into a {@code resolution x resolution} grid, so that the cells of a tile at zoom level {@code z} are the cells of
+ * level {@code z + log2(resolution)} of a quadtree over the whole map. The pyramid keeps the count and the
+ * representative store (the one with the smallest identifier) per non-empty cell of every level and maintains them
+ * incrementally: adding or removing a store only touches the cells containing it, one per level. The stores of each
+ * cell are only kept on the finest level, representatives of coarser cells are derived from their four children.
+ * <p>
+ * Tiles are assembled on first access and cached until a store within them changes.
+ *
+ * @author Oliver Gierke
+ */
+public class TilePyramid implements StoreView {
+
+	static final int MAX_ZOOM = 20;
+	static final double MAX_LATITUDE = 85.05112878;
+
+	private final int maxZoom, shift, resolution;
+	private final List<Map<Long, Cell>> levels;
+	private final Map<Long, TreeSet<UUID>> stores = new HashMap<>();
+	private final Map<UUID, Long> positions = new HashMap<>();
+	private final Map<Long, Tile> tiles = new ConcurrentHashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Creates a new {@link TilePyramid}.
+	 *
+	 * @param maxZoom the highest zoom level to maintain tiles for, between 0 and {@value #MAX_ZOOM}.
+	 * @param resolution the number of cells per tile along each axis, must be a power of two no larger than 256.
+	 */
+	public TilePyramid(int maxZoom, int resolution) {
+
+		Assert.isTrue(maxZoom >= 0 && maxZoom <= MAX_ZOOM,
+				String.format("Maximum zoom level must be between 0 and %s!", MAX_ZOOM));
+		Assert.isTrue(resolution > 0 && resolution <= 256 && Integer.bitCount(resolution) == 1,
+				"Resolution must be a power of two no larger than 256!");
+
+		this.maxZoom = maxZoom;
+		this.resolution = resolution;
+		this.shift = Integer.numberOfTrailingZeros(resolution);
+		this.levels = new ArrayList<>(maxZoom + 1);
+
+		for (int zoom = 0; zoom <= maxZoom; zoom++) {
+			levels.add(new HashMap<>());
+		}
+	}
+
+	public int getMaxZoom() {
+		return maxZoom;
+	}
+
+	/**
+	 * Adds the given {@link Store} to the pyramid, replacing a previously added version of it.
+	 *
+	 * @param store must not be {@literal null}.
+	 */
+	public void add(Store store) {
+
+		Assert.notNull(store, "Store must not be null!");
+
+		Point location = store.getAddress() == null ? null : store.getAddress().getLocation();
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			removeInternal(store.getId());
+
+			if (location != null) {
+				addInternal(store.getId(), location);
+			}
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the {@link Store} with the given identifier from the pyramid.
+	 *
+	 * @param id must not be {@literal null}.
+	 */
+	public void remove(UUID id) {
+
+		Assert.notNull(id, "Identifier must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+			removeInternal(id);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the entire content of the pyramid with the given {@link Store}s.
+	 *
+	 * @param stores must not be {@literal null}.
+	 */
+	public void replaceAll(Iterable<Store> stores) {
+
+		Assert.notNull(stores, "Stores must not be null!");
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+
+			clearInternal();
+
+			for (Store store : stores) {
+
+				Point location = store.getAddress() == null ? null : store.getAddress().getLocation();
+
+				if (location != null) {
+					removeInternal(store.getId());
+					addInternal(store.getId(), location);
+				}
+			}
+
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all {@link Store}s from the pyramid.
+	 */
+	public void clear() {
+
+		Lock writeLock = lock.writeLock();
+		writeLock.lock();
+
+		try {
+			clearInternal();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of {@link Store}s contained in the pyramid.
+	 *
+	 * @return
+	 */
+	public int size() {
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+			return positions.size();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the {@link Tile} with the given coordinates.
+	 *
+	 * @param zoom between 0 and the maximum zoom level of the pyramid.
+	 * @param x between 0 and {@code 2^zoom - 1}.
+	 * @param y between 0 and {@code 2^zoom - 1}.
+	 * @return
+	 * @throws IllegalArgumentException in case the coordinates are out of bounds.
+	 */
+	public Tile getTile(int zoom, int x, int y) {
+
+		Assert.isTrue(zoom >= 0 && zoom <= maxZoom, String.format("Zoom level must be between 0 and %s!", maxZoom));
+		Assert.isTrue(x >= 0 && x < 1 << zoom && y >= 0 && y < 1 << zoom,
+				String.format("Tile coordinates must be between 0 and %s!", (1 << zoom) - 1));
+
+		long key = tileKey(zoom, x, y);
+		Tile tile = tiles.get(key);
+
+		if (tile != null) {
+			return tile;
+		}
+
+		Lock readLock = lock.readLock();
+		readLock.lock();
+
+		try {
+
+			// Cached while holding the lock so that a concurrent change can't invalidate the tile before
+			return tiles.computeIfAbsent(key, it -> assemble(zoom, x, y));
+
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	private Tile assemble(int zoom, int x, int y) {
+
+		Map<Long, Cell> level = levels.get(zoom);
+		List<Tile.Cell> cells = new ArrayList<>();
+		ByteBuffer digest = ByteBuffer.allocate(12 + resolution * resolution * 28);
+		int count = 0;
+
+		digest.putInt(zoom).putInt(x).putInt(y);
+
+		for (int row = 0; row < resolution; row++) {
+			for (int column = 0; column < resolution; column++) {
+
+				Cell cell = level.get(cellKey(((long) x << shift) + column, ((long) y << shift) + row));
+
+				if (cell == null) {
+					continue;
+				}
+
+				cells.add(new Tile.Cell(column, row, cell.count, cell.representative));
+				count += cell.count;
+
+				digest.putInt(column).putInt(row).putInt(cell.count) //
+						.putLong(cell.representative.getMostSignificantBits()) //
+						.putLong(cell.representative.getLeastSignificantBits());
+			}
+		}
+
+		String etag = DigestUtils.md5DigestAsHex(Arrays.copyOf(digest.array(), digest.position()));
+
+		return new Tile(zoom, x, y, resolution, count, cells, etag);
+	}
+
+	private void addInternal(UUID id, Point location) {
+
+		int finest = maxZoom + shift;
+		long cells = 1L << finest;
+
+		double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, location.getY()));
+		double sin = Math.sin(Math.toRadians(latitude));
+
+		long x = clamp((long) Math.floor((location.getX() + 180) / 360 * cells), cells);
+		long y = clamp((long) Math.floor((0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * cells), cells);
+		long key = cellKey(x, y);
+
+		positions.put(id, key);
+		stores.computeIfAbsent(key, it -> new TreeSet<>()).add(id);
+
+		for (int zoom = maxZoom; zoom >= 0; zoom--) {
+
+			int delta = maxZoom - zoom;
+			long cellX = x >> delta, cellY = y >> delta;
+
+			Cell cell = levels.get(zoom).computeIfAbsent(cellKey(cellX, cellY), it -> new Cell());
+
+			cell.count++;
+
+			if (cell.representative == null || id.compareTo(cell.representative) < 0) {
+				cell.representative = id;
+			}
+
+			invalidate(zoom, cellX, cellY);
+		}
+	}
+
+	private void removeInternal(UUID id) {
+
+		Long key = positions.remove(id);
+
+		if (key == null) {
+			return;
+		}
+
+		TreeSet<UUID> members = stores.get(key);
+		members.remove(id);
+
+		if (members.isEmpty()) {
+			stores.remove(key);
+		}
+
+		long x = key >>> 32, y = key & 0xFFFFFFFFL;
+
+		for (int zoom = maxZoom; zoom >= 0; zoom--) {
+
+			int delta = maxZoom - zoom;
+			long cellX = x >> delta, cellY = y >> delta;
+			long cellKey = cellKey(cellX, cellY);
+
+			Map<Long, Cell> level = levels.get(zoom);
+			Cell cell = level.get(cellKey);
+
+			if (--cell.count == 0) {
+				level.remove(cellKey);
+			} else if (id.equals(cell.representative)) {
+				cell.representative = zoom == maxZoom ? members.first() : lowestChildRepresentative(zoom, cellX, cellY);
+			}
+
+			invalidate(zoom, cellX, cellY);
+		}
+	}
+
+	private UUID lowestChildRepresentative(int zoom, long x, long y) {
+
+		Map<Long, Cell> children = levels.get(zoom + 1);
+		UUID result = null;
+
+		for (int i = 0; i < 4; i++) {
+
+			Cell child = children.get(cellKey(2 * x + (i & 1), 2 * y + (i >> 1)));
+
+			if (child != null && (result == null || child.representative.compareTo(result) < 0)) {
+				result = child.representative;
+			}
+		}
+
+		return result;
+	}
+
+	private void clearInternal() {
+
+		levels.forEach(Map::clear);
+		stores.clear();
+		positions.clear();
+		tiles.clear();
+	}
+
+	/**
+	 * Drops the cached tile containing the given cell of the given zoom level.
+	 */
+	private void invalidate(int zoom, long cellX, long cellY) {
+		tiles.remove(tileKey(zoom, (int) (cellX >> shift), (int) (cellY >> shift)));
+	}
+
+	private static long clamp(long value, long cells) {
+		return Math.max(0, Math.min(cells - 1, value));
+	}
+
+	private static long cellKey(long x, long y) {
+		return x << 32 | y;
+	}
+
+	private static long tileKey(int zoom, int x, int y) {
+		return (long) zoom << 48 | (long) x << 24 | y;
+	}
+
+	/**
+	 * The number of stores within a cell and the one representing them.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private static class Cell {
+
+		int count;
+		UUID representative;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration to serve store density tiles from an in-memory {@link TilePyramid}. Disabled by setting
+ * {@code stores.tiles.enabled} to {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(name = "stores.tiles.enabled", havingValue = "true", matchIfMissing = true)
+class TilePyramidConfiguration {
+
+	@Bean
+	public TilePyramid tilePyramid(@Value("${stores.tiles.max-zoom:12}") int maxZoom,
+			@Value("${stores.tiles.resolution:16}") int resolution) {
+		return new TilePyramid(maxZoom, resolution);
+	}
+}
@@ -20,6 +20,8 @@ import static org.junit.Assert.*;
 
 import example.stores.Store.Address;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,10 +45,15 @@ import org.springframework.test.context.junit4.SpringRunner;
 public class StoreRepositoryIntegrationTests {
 
 	@Autowired StoreRepository repository;
+	@Autowired StoreImportPipeline pipeline;
 
 	@Before
 	@After
-	public void setUp() {
+	public void setUp() throws Exception {
+
+		// Make sure the background import doesn't interfere with the tests
+		assertThat(pipeline.awaitCompletion(1, TimeUnit.MINUTES), is(true));
+
 		repository.deleteAll();
 	}
 
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store.Address;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link StoreShard}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreShardUnitTests {
+
+	static final Store NEW_YORK = store("New York", -73.995146, 40.740337); // dr5ru…
+	static final Store BOSTON = store("Boston", -71.057083, 42.361145); // drt2z…
+	static final Store BERLIN = store("Berlin", 13.405, 52.52); // u33dc…
+
+	@Test
+	public void holdsAllStoresWithoutPrefixes() {
+
+		StoreShard shard = new StoreShard(new String[0]);
+
+		assertThat(shard.isPartial(), is(false));
+		assertThat(shard.filter(Arrays.asList(NEW_YORK, BERLIN)), contains(NEW_YORK, BERLIN));
+	}
+
+	@Test
+	public void holdsStoresMatchingPrefixes() {
+
+		StoreShard shard = new StoreShard(new String[] { "dr5", " U " });
+
+		assertThat(shard.isPartial(), is(true));
+		assertThat(shard.getPrefixes(), contains("dr5", "u"));
+		assertThat(shard.filter(Arrays.asList(NEW_YORK, BOSTON, BERLIN)), contains(NEW_YORK, BERLIN));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidPrefix() {
+		new StoreShard(new String[] { "dra" });
+	}
+
+	private static Store store(String name, double longitude, double latitude) {
+		return new Store(name, new Address("street", "city", "zip", new Point(longitude, latitude)));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store.Address;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link StoreSnapshot}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreSnapshotUnitTests {
+
+	public @Rule TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripsStoresThroughSnapshot() throws Exception {
+
+		Store first = new Store("Chelsea", new Address("625 Avenue of the Americas", "New York", "10011",
+				new Point(-73.995146, 40.740337)));
+		Store second = new Store("Café", new Address(null, "New York", "10010", new Point(-73.989308, 40.741895)));
+
+		File file = new File(folder.getRoot(), "stores.snapshot");
+		new StoreSnapshot.Builder(42).add(Arrays.asList(first, second)).writeTo(file.toPath());
+
+		StoreSnapshot snapshot = StoreSnapshot.read(new FileSystemResource(file)).get();
+
+		assertThat(snapshot.getFingerprint(), is(42L));
+		assertThat(snapshot.size(), is(2));
+
+		List<Store> stores = snapshot.getStores(0, 2);
+
+		assertThat(stores, hasSize(2));
+		assertThat(stores.get(0).getName(), is(first.getName()));
+		assertThat(stores.get(0).getAddress().getLocation(), is(first.getAddress().getLocation()));
+		assertThat(stores.get(1).getName(), is(second.getName()));
+		assertThat(stores.get(1).getAddress().getStreet(), is(nullValue()));
+		assertThat(stores.get(1).getAddress().getZip(), is(second.getAddress().getZip()));
+	}
+
+	@Test
+	public void returnsEmptyOptionalForMissingSnapshot() throws Exception {
+		assertThat(StoreSnapshot.read(new FileSystemResource(new File(folder.getRoot(), "missing"))).isPresent(),
+				is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidSnapshot() throws Exception {
+
+		File file = folder.newFile();
+
+		StoreSnapshot.read(new FileSystemResource(file));
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores;
+
+import static org.mockito.Mockito.*;
+
+import example.stores.Store.Address;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for {@link StoreViewSynchronizer}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreViewSynchronizerUnitTests {
+
+	StoreView first = mock(StoreView.class), second = mock(StoreView.class);
+	MongoOperations operations = mock(MongoOperations.class);
+	ApplicationContext context = mock(ApplicationContext.class);
+	Store store = new Store("Foo", new Address("street", "city", "zip", new Point(-73.99, 40.73)));
+
+	StoreViewSynchronizer synchronizer;
+
+	@Before
+	public void setUp() {
+
+		DefaultDbRefResolver resolver = new DefaultDbRefResolver(mock(MongoDbFactory.class));
+		MappingMongoConverter converter = new MappingMongoConverter(resolver, new MongoMappingContext());
+
+		doReturn(converter).when(operations).getConverter();
+		doReturn(Collections.singletonList(store)).when(operations).findAll(Store.class);
+
+		synchronizer = new StoreViewSynchronizer(Arrays.asList(first, second), operations, context);
+	}
+
+	@Test
+	public void loadsStoresOnceForAllViewsOnRefresh() {
+
+		synchronizer.on(new ContextRefreshedEvent(context));
+
+		verify(operations, times(1)).findAll(Store.class);
+		verify(first).replaceAll(Collections.singletonList(store));
+		verify(second).replaceAll(Collections.singletonList(store));
+	}
+
+	@Test
+	public void ignoresRefreshOfChildContexts() {
+
+		synchronizer.on(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+
+		verify(operations, never()).findAll(Store.class);
+	}
+
+	@Test
+	public void addsSavedStoresToAllViews() {
+
+		synchronizer.onAfterSave(new AfterSaveEvent<>(store, new BasicDBObject(), "store"));
+
+		verify(first).add(store);
+		verify(second).add(store);
+	}
+
+	@Test
+	public void removesStoresDeletedByMappedIdentifier() {
+
+		delete(new BasicDBObject("_id", store.getId()));
+
+		verify(first).remove(store.getId());
+		verify(second).remove(store.getId());
+		verify(operations, never()).findAll(Store.class);
+	}
+
+	@Test
+	public void removesStoresDeletedByIdentifierProperty() {
+
+		delete(new BasicDBObject("id", store.getId()));
+
+		verify(first).remove(store.getId());
+		verify(operations, never()).findAll(Store.class);
+	}
+
+	@Test
+	public void removesStoresDeletedBySetOfIdentifiers() {
+
+		List<UUID> ids = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+
+		delete(new BasicDBObject("_id", new BasicDBObject("$in", ids)));
+
+		ids.forEach(it -> verify(first).remove(it));
+		ids.forEach(it -> verify(second).remove(it));
+		verify(operations, never()).findAll(Store.class);
+	}
+
+	@Test
+	public void clearsViewsWhenAllStoresAreDeleted() {
+
+		delete(new BasicDBObject());
+
+		verify(first).clear();
+		verify(second).clear();
+		verify(operations, never()).findAll(Store.class);
+	}
+
+	@Test
+	public void reloadsOnceForArbitraryDeleteQueries() {
+
+		delete(new BasicDBObject("address.city", "New York"));
+
+		verify(operations, times(1)).findAll(Store.class);
+		verify(first).replaceAll(Collections.singletonList(store));
+		verify(second).replaceAll(Collections.singletonList(store));
+	}
+
+	private void delete(DBObject query) {
+		synchronizer.onAfterDelete(new AfterDeleteEvent<>(query, Store.class, "store"));
+	}
+}
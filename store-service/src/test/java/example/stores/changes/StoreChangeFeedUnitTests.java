@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.changes;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.changes.StoreChange.Type;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.geo.Point;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Unit tests for {@link StoreChangeFeed}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreChangeFeedUnitTests {
+
+	static final Point NEW_YORK = new Point(-73.995146, 40.740337); // dr5ru…
+	static final Point BOSTON = new Point(-71.057083, 42.361145); // drt2z…
+
+	StoreChangeFeed feed;
+
+	@Before
+	public void setUp() {
+		this.feed = new StoreChangeFeed(2, 3, 60_000, 2, 60_000);
+	}
+
+	@After
+	public void tearDown() {
+		feed.destroy();
+	}
+
+	@Test
+	public void publishesCellsOfAllLocations() {
+
+		StoreChange change = feed.publish(Type.UPDATED, UUID.randomUUID(), Arrays.asList(NEW_YORK, null, BOSTON));
+
+		assertThat(change.getSequence(), is(1L));
+		assertThat(change.getCells(), contains("dr5", "drt"));
+	}
+
+	@Test
+	public void returnsChangesSinceGivenEvent() {
+
+		StoreChange first = publish();
+		StoreChange second = publish();
+
+		assertThat(feed.since(feed.getEventId(first)), is(Optional.of(Collections.singletonList(second))));
+		assertThat(feed.since(feed.getEventId(second)).map(List::isEmpty), is(Optional.of(true)));
+	}
+
+	@Test
+	public void cannotResumeAfterChangesHaveBeenEvicted() {
+
+		StoreChange first = publish();
+		StoreChange second = publish();
+		publish();
+		publish();
+
+		assertThat(feed.since(feed.getEventId(second)).map(List::size), is(Optional.of(2)));
+		assertThat(feed.since(feed.getEventId(first)), is(Optional.empty()));
+	}
+
+	@Test
+	public void cannotResumeEventsOfOtherEpochs() {
+
+		publish();
+
+		assertThat(feed.since("other-0"), is(Optional.empty()));
+		assertThat(feed.since("invalid"), is(Optional.empty()));
+	}
+
+	@Test
+	public void deliversConcurrentlyPublishedChangesInOrder() throws Exception {
+
+		StoreChangeFeed feed = new StoreChangeFeed(10_000, 3, 60_000, 2, 60_000);
+		RecordingEmitter emitter = new RecordingEmitter();
+
+		try {
+
+			feed.subscribe(null, emitter);
+			emitter.await(1);
+
+			ExecutorService publishers = Executors.newFixedThreadPool(4);
+
+			for (int i = 0; i < 4; i++) {
+				publishers.execute(() -> {
+					for (int j = 0; j < 250; j++) {
+						feed.publish(Type.CREATED, UUID.randomUUID(), Collections.singletonList(NEW_YORK));
+					}
+				});
+			}
+
+			publishers.shutdown();
+			publishers.awaitTermination(10, TimeUnit.SECONDS);
+
+			List<String> events = emitter.await(1001);
+
+			assertThat(events.get(0), is(StoreChangeFeed.RESET + " " + feed.getEventId(0)));
+			assertThat(events, hasSize(1001));
+
+			for (int i = 1; i < events.size(); i++) {
+				assertThat(events.get(i), is(StoreChangeFeed.CHANGE + " " + feed.getEventId(i)));
+			}
+
+		} finally {
+			feed.destroy();
+		}
+	}
+
+	@Test
+	public void slowSubscriberDoesNotDelayOthers() throws Exception {
+
+		CountDownLatch latch = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(latch);
+		RecordingEmitter fast = new RecordingEmitter();
+
+		try {
+
+			feed.subscribe(null, slow);
+			feed.subscribe(null, fast);
+			fast.await(1);
+
+			publish();
+			publish();
+
+			assertThat(fast.await(3), hasSize(3));
+			assertThat(slow.events, is(empty()));
+
+		} finally {
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void dropsSubscriberWithWritePendingBeyondTimeout() throws Exception {
+
+		StoreChangeFeed feed = new StoreChangeFeed(10, 3, 60_000, 1, 100);
+		CountDownLatch latch = new CountDownLatch(1);
+		RecordingEmitter stuck = new RecordingEmitter(latch);
+		RecordingEmitter other = new RecordingEmitter();
+
+		try {
+
+			// Occupies the only delivery thread until its write is interrupted
+			feed.subscribe(null, stuck);
+			feed.subscribe(null, other);
+
+			assertThat(other.await(1), hasSize(1));
+
+			latch.countDown();
+			feed.publish(Type.CREATED, UUID.randomUUID(), Collections.singletonList(NEW_YORK));
+
+			assertThat(other.await(2), hasSize(2));
+			assertThat(stuck.events, is(empty()));
+
+		} finally {
+
+			latch.countDown();
+			feed.destroy();
+		}
+	}
+
+	@Test
+	public void resetsSubscriberFallingBehindCapacity() throws Exception {
+
+		CountDownLatch latch = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(latch);
+
+		feed.subscribe(null, slow);
+
+		// Blocked sending the initial reset
+		Thread.sleep(100);
+
+		publish();
+		publish();
+		StoreChange last = publish();
+
+		latch.countDown();
+
+		List<String> events = slow.await(2);
+
+		assertThat(events.get(0), is(StoreChangeFeed.RESET + " " + feed.getEventId(0)));
+		assertThat(events.get(1), is(StoreChangeFeed.RESET + " " + feed.getEventId(last)));
+	}
+
+	@Test
+	public void resumesSubscriberFromLastEventId() throws Exception {
+
+		StoreChange first = publish();
+		StoreChange second = publish();
+
+		RecordingEmitter emitter = new RecordingEmitter();
+		feed.subscribe(feed.getEventId(first), emitter);
+
+		assertThat(emitter.await(1), contains(StoreChangeFeed.CHANGE + " " + feed.getEventId(second)));
+	}
+
+	private StoreChange publish() {
+		return feed.publish(Type.CREATED, UUID.randomUUID(), Collections.singletonList(NEW_YORK));
+	}
+
+	/**
+	 * {@link SseEmitter} recording the names and identifiers of the events sent, optionally blocking until the given
+	 * latch is released to simulate a slow client.
+	 */
+	static class RecordingEmitter extends SseEmitter {
+
+		static final Pattern EVENT = Pattern.compile("id:([^\\n]+)\\nevent:([^\\n]+)");
+
+		final List<String> events = new CopyOnWriteArrayList<>();
+		final CountDownLatch latch;
+
+		RecordingEmitter() {
+			this(new CountDownLatch(0));
+		}
+
+		RecordingEmitter(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+
+			try {
+				latch.await();
+			} catch (InterruptedException o_O) {
+				throw new IOException(o_O);
+			}
+
+			StringBuilder text = new StringBuilder();
+
+			builder.build().stream() //
+					.map(DataWithMediaType::getData) //
+					.filter(String.class::isInstance) //
+					.forEach(text::append);
+
+			Matcher matcher = EVENT.matcher(text);
+
+			if (matcher.find()) {
+				events.add(matcher.group(2) + " " + matcher.group(1));
+			}
+		}
+
+		List<String> await(int count) throws InterruptedException {
+
+			for (int i = 0; i < 500 && events.size() < count; i++) {
+				Thread.sleep(10);
+			}
+
+			return events;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.index;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link StoreIndex}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreIndexUnitTests {
+
+	static final Point UNION_SQUARE = new Point(-73.990173, 40.735863);
+
+	StoreIndex index;
+	Store chelsea, flatiron, brooklyn, boston;
+
+	@Before
+	public void setUp() {
+
+		this.index = new StoreIndex(0.25);
+
+		this.chelsea = store("Chelsea", -73.995146, 40.740337);
+		this.flatiron = store("Flatiron", -73.989308, 40.745);
+		this.brooklyn = store("Brooklyn", -73.990164, 40.692908);
+		this.boston = store("Boston", -71.057083, 42.361145);
+
+		index.replaceAll(Arrays.asList(boston, brooklyn, flatiron, chelsea));
+	}
+
+	@Test
+	public void findsStoresWithinDistanceOrderedByDistance() {
+
+		Page<Store> result = index.findNear(UNION_SQUARE, new Distance(10, Metrics.KILOMETERS), new PageRequest(0, 10));
+
+		assertThat(result.getContent(), contains(chelsea, flatiron, brooklyn));
+		assertThat(result.getTotalElements(), is(3L));
+	}
+
+	@Test
+	public void pagesThroughResults() {
+
+		Page<Store> result = index.findNear(UNION_SQUARE, new Distance(10, Metrics.KILOMETERS), new PageRequest(1, 2));
+
+		assertThat(result.getContent(), contains(brooklyn));
+		assertThat(result.getTotalElements(), is(3L));
+	}
+
+	@Test
+	public void findsStoresAcrossCellBoundaries() {
+
+		Page<Store> result = index.findNear(UNION_SQUARE, new Distance(400, Metrics.KILOMETERS), null);
+
+		assertThat(result.getContent(), contains(chelsea, flatiron, brooklyn, boston));
+	}
+
+	@Test
+	public void findsNearestStoresRegardlessOfDistance() {
+
+		assertThat(index.findNearest(UNION_SQUARE, 2), contains(chelsea, flatiron));
+		assertThat(index.findNearest(new Point(-71.0, 42.0), 2), contains(boston, flatiron));
+		assertThat(index.findNearest(UNION_SQUARE, 10), contains(chelsea, flatiron, brooklyn, boston));
+	}
+
+	@Test
+	public void removesStore() {
+
+		index.remove(chelsea.getId());
+
+		Page<Store> result = index.findNear(UNION_SQUARE, new Distance(10, Metrics.KILOMETERS), new PageRequest(0, 10));
+
+		assertThat(result.getContent(), contains(flatiron, brooklyn));
+		assertThat(index.size(), is(3));
+	}
+
+	@Test
+	public void clearsIndex() {
+
+		index.clear();
+
+		assertThat(index.size(), is(0));
+		assertThat(index.findNear(UNION_SQUARE, new Distance(10, Metrics.KILOMETERS), null).getContent(), is(empty()));
+	}
+
+	private static Store store(String name, double longitude, double latitude) {
+		return new Store(name, new Address("street", "city", "zip", new Point(longitude, latitude)));
+	}
+}
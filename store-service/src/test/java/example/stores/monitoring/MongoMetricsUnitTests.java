@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Unit tests for {@link MongoMetrics}.
+ *
+ * @author Oliver Gierke
+ */
+public class MongoMetricsUnitTests {
+
+	MongoMetrics metrics = new MongoMetrics();
+
+	@Test
+	public void exposesLatenciesPerCommand() {
+
+		metrics.commandSucceeded("find", TimeUnit.MILLISECONDS.toNanos(10));
+		metrics.commandSucceeded("find", TimeUnit.MILLISECONDS.toNanos(20));
+
+		Map<String, Object> values = values();
+
+		assertThat(values, hasEntry("mongo.commands.find.count", (Object) 2L));
+		assertThat(((Number) values.get("mongo.commands.find.max")).doubleValue(), is(closeTo(20, 0.1)));
+		assertThat(values, not(hasKey("mongo.commands.find.failures.count")));
+	}
+
+	@Test
+	public void recordsFailedCommandsSeparately() {
+
+		metrics.commandSucceeded("insert", TimeUnit.MILLISECONDS.toNanos(5));
+		metrics.commandFailed("insert", TimeUnit.MILLISECONDS.toNanos(500));
+
+		Map<String, Object> values = values();
+
+		assertThat(values, hasEntry("mongo.commands.insert.count", (Object) 1L));
+		assertThat(((Number) values.get("mongo.commands.insert.max")).doubleValue(), is(closeTo(5, 0.1)));
+		assertThat(values, hasEntry("mongo.commands.insert.failures.count", (Object) 1L));
+		assertThat(((Number) values.get("mongo.commands.insert.failures.max")).doubleValue(), is(closeTo(500, 1)));
+	}
+
+	@Test
+	public void recordsCheckoutOncePerRepositoryInvocation() {
+
+		Long previous = metrics.invocationStarted();
+
+		metrics.commandStarted();
+		metrics.commandStarted();
+		metrics.invocationCompleted(previous);
+
+		metrics.commandStarted();
+
+		assertThat(values(), hasEntry("mongo.pool.checkout.count", (Object) 1L));
+	}
+
+	@Test
+	public void restoresOuterInvocationAfterNestedOne() {
+
+		Long outer = metrics.invocationStarted();
+		Long inner = metrics.invocationStarted();
+
+		metrics.commandStarted();
+		metrics.invocationCompleted(inner);
+		metrics.commandStarted();
+		metrics.invocationCompleted(outer);
+
+		assertThat(values(), hasEntry("mongo.pool.checkout.count", (Object) 2L));
+	}
+
+	@Test
+	public void exposesRepositoryInvocationsAndPoolState() {
+
+		metrics.repositoryInvoked("findByAddressLocationNear", TimeUnit.MILLISECONDS.toNanos(3));
+
+		Map<String, Object> values = values();
+
+		assertThat(values, hasEntry("mongo.repository.findByAddressLocationNear.count", (Object) 1L));
+		assertThat(values.keySet(), hasItems("mongo.pool.size", "mongo.pool.max-size", "mongo.pool.checked-out",
+				"mongo.pool.wait-queue-size"));
+	}
+
+	private Map<String, Object> values() {
+		return metrics.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+	}
+}
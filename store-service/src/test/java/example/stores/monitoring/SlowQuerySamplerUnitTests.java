@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.monitoring;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Unit tests for {@link SlowQuerySampler}.
+ *
+ * @author Oliver Gierke
+ */
+public class SlowQuerySamplerUnitTests {
+
+	@SuppressWarnings("unchecked")
+	SlowQuerySampler sampler = new SlowQuerySampler(mock(ObjectProvider.class), 100, 50, 10, 2);
+
+	@After
+	public void tearDown() {
+		sampler.destroy();
+	}
+
+	@Test
+	public void admitsNoCandidatesWithinFirstInterval() {
+		assertThat(sampler.isCandidate("find"), is(false));
+	}
+
+	@Test
+	public void admitsLimitedNumberOfCandidatesPerInterval() throws Exception {
+
+		Thread.sleep(60);
+
+		assertThat(sampler.isCandidate("find"), is(true));
+		assertThat(sampler.isCandidate("count"), is(true));
+		assertThat(sampler.isCandidate("find"), is(false));
+
+		Thread.sleep(60);
+
+		assertThat(sampler.isCandidate("find"), is(true));
+	}
+
+	@Test
+	public void onlyAdmitsExplainableCommands() throws Exception {
+
+		Thread.sleep(60);
+
+		assertThat(sampler.isCandidate("insert"), is(false));
+		assertThat(sampler.isCandidate("getMore"), is(false));
+		assertThat(sampler.isCandidate("aggregate"), is(true));
+	}
+}
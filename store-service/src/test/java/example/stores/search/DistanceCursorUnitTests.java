@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.search;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link DistanceCursor}.
+ *
+ * @author Oliver Gierke
+ */
+public class DistanceCursorUnitTests {
+
+	@Test
+	public void roundTripsDistanceExactly() {
+
+		DistanceCursor cursor = new DistanceCursor(0.1 + 0.2, UUID.randomUUID());
+
+		assertThat(DistanceCursor.parse(cursor.toToken()), is(cursor));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidToken() {
+		DistanceCursor.parse("Zm9v");
+	}
+
+	@Test
+	public void precedesResultsFurtherAway() {
+
+		Store store = store();
+		DistanceCursor cursor = new DistanceCursor(1.0, store.getId());
+
+		assertThat(cursor.precedes(result(store, 1.5)), is(true));
+		assertThat(cursor.precedes(result(store, 0.5)), is(false));
+	}
+
+	@Test
+	public void ordersResultsTiedWithTheCursorByIdentifier() {
+
+		Store store = store();
+		DistanceCursor cursor = DistanceCursor.of(result(store, 1.0));
+
+		assertThat(cursor.precedes(result(store, 1.0)), is(false));
+
+		Store other = store();
+		boolean follows = store.getId().compareTo(other.getId()) < 0;
+
+		assertThat(cursor.precedes(result(other, 1.0)), is(follows));
+	}
+
+	@Test
+	public void includesTiedResultsInMinimumDistance() {
+
+		DistanceCursor cursor = new DistanceCursor(1.0, UUID.randomUUID());
+		Distance distance = cursor.getMinDistance(Metrics.KILOMETERS);
+
+		assertThat(distance.getMetric(), is(Metrics.KILOMETERS));
+		assertThat(distance.getValue(), is(lessThan(1.0)));
+		assertThat(distance.getValue(), is(closeTo(1.0, 1e-6)));
+		assertThat(distance.getNormalizedValue() * Metrics.KILOMETERS.getMultiplier(), is(lessThan(1.0)));
+	}
+
+	@Test
+	public void doesNotUseNegativeMinimumDistance() {
+
+		DistanceCursor cursor = new DistanceCursor(0, UUID.randomUUID());
+
+		assertThat(cursor.getMinDistance(Metrics.KILOMETERS).getValue(), is(0.0));
+	}
+
+	private static Store store() {
+		return new Store("Store", new Address("street", "city", "zip", new Point(-73.99, 40.73)));
+	}
+
+	private static GeoResult<Store> result(Store store, double distance) {
+		return new GeoResult<>(store, new Distance(distance, Metrics.KILOMETERS));
+	}
+}
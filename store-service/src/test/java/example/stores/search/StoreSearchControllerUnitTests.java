@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.search;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+import example.stores.StoreRepository;
+import example.stores.text.StoreTextIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.NearQuery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for the keyset paging of {@link StoreSearchController}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreSearchControllerUnitTests {
+
+	static final Point UNION_SQUARE = new Point(-73.990173, 40.735863);
+	static final Distance DISTANCE = new Distance(10, Metrics.KILOMETERS);
+
+	MongoOperations operations = mock(MongoOperations.class);
+	List<GeoResult<Store>> stores = new ArrayList<>();
+
+	StoreSearchController controller;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+
+		// Stores tied at a distance, with the ones with the larger identifier returned first
+		for (int i = 0; i < 5; i++) {
+			stores.add(result(1.0));
+		}
+
+		for (int i = 0; i < 3; i++) {
+			stores.add(result(2.5));
+		}
+
+		stores.sort(Comparator.<GeoResult<Store>> comparingDouble(it -> it.getDistance().getValue()) //
+				.thenComparing(it -> it.getContent().getId(), Comparator.reverseOrder()));
+
+		doAnswer(invocation -> geoNear((NearQuery) invocation.getArguments()[0])) //
+				.when(operations).geoNear(any(NearQuery.class), eq(Store.class));
+
+		this.controller = new StoreSearchController(mock(StoreRepository.class), operations, new ObjectMapper(),
+				Optional.empty(), new StoreTextIndex());
+	}
+
+	@Test
+	public void pagesThroughStoresTiedAtTheSameDistance() {
+
+		for (int size = 1; size <= stores.size(); size++) {
+
+			List<GeoResult<Store>> pages = new ArrayList<>();
+			Optional<DistanceCursor> cursor = Optional.empty();
+
+			while (true) {
+
+				List<GeoResult<Store>> results = controller.findAfter(UNION_SQUARE, DISTANCE, cursor, size + 1);
+
+				pages.addAll(results.subList(0, Math.min(size, results.size())));
+
+				if (results.size() <= size) {
+					break;
+				}
+
+				cursor = Optional.of(DistanceCursor.of(results.get(size - 1)));
+			}
+
+			assertThat(pages, is(stores.stream().sorted(DistanceCursor.ORDER).collect(Collectors.toList())));
+		}
+	}
+
+	@Test
+	public void widensFetchIfLastResultIsTiedWithTheBoundary() {
+
+		List<GeoResult<Store>> results = controller.findAfter(UNION_SQUARE, DISTANCE, Optional.empty(), 3);
+
+		assertThat(results, is(stores.stream().sorted(DistanceCursor.ORDER).limit(3).collect(Collectors.toList())));
+		verify(operations, atLeast(2)).geoNear(any(NearQuery.class), eq(Store.class));
+	}
+
+	/**
+	 * Mimics MongoDB's {@code geoNear}, returning the first {@code num} stores ordered by distance only that are at
+	 * least {@code minDistance} away.
+	 */
+	private GeoResults<Store> geoNear(NearQuery query) {
+
+		DBObject source = query.toDBObject();
+		Number minDistance = (Number) source.get("minDistance");
+		Number num = (Number) source.get("num");
+		double lowerBound = minDistance == null ? 0 : minDistance.doubleValue();
+
+		List<GeoResult<Store>> result = stores.stream() //
+				.filter(it -> it.getDistance().getNormalizedValue() >= lowerBound) //
+				.limit(num.longValue()) //
+				.collect(Collectors.toList());
+
+		return new GeoResults<>(result, Metrics.KILOMETERS);
+	}
+
+	private static GeoResult<Store> result(double distance) {
+
+		Store store = new Store("Store", new Address("street", "city", "zip", UNION_SQUARE));
+
+		return new GeoResult<>(store, new Distance(distance, Metrics.KILOMETERS));
+	}
+}
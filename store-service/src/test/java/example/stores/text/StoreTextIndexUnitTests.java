@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.text;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link StoreTextIndex}.
+ *
+ * @author Oliver Gierke
+ */
+public class StoreTextIndexUnitTests {
+
+	static final Point UNION_SQUARE = new Point(-73.990173, 40.735863);
+
+	StoreTextIndex index;
+	Store chelsea, brooklyn, boston, zurich;
+
+	@Before
+	public void setUp() {
+
+		this.index = new StoreTextIndex();
+
+		this.chelsea = store("Chelsea Market", "New York", "10011", -73.995146, 40.740337);
+		this.brooklyn = store("Brooklyn Heights", "New York", "11201", -73.990164, 40.692908);
+		this.boston = store("Newbury Street", "Boston", "02116", -71.057083, 42.361145);
+		this.zurich = store("Bahnhofstrasse", "Z\u00fcrich", "8001", 8.539, 47.372);
+
+		index.replaceAll(Arrays.asList(chelsea, brooklyn, boston, zurich));
+	}
+
+	@Test
+	public void treatsLastTermAsPrefix() {
+
+		assertThat(index.find("new", Optional.empty(), 10), contains(brooklyn, chelsea, boston));
+		assertThat(index.find("new york", Optional.empty(), 10), contains(brooklyn, chelsea));
+		assertThat(index.find("new yo", Optional.empty(), 10), contains(brooklyn, chelsea));
+	}
+
+	@Test
+	public void requiresAllTermsToMatch() {
+
+		assertThat(index.find("chelsea 10011", Optional.empty(), 10), contains(chelsea));
+		assertThat(index.find("chelsea boston", Optional.empty(), 10), is(empty()));
+	}
+
+	@Test
+	public void ignoresCaseAndDiacritics() {
+		assertThat(index.find("ZURICH", Optional.empty(), 10), contains(zurich));
+	}
+
+	@Test
+	public void ordersByDistanceToLocation() {
+
+		assertThat(index.find("new", Optional.of(UNION_SQUARE), 10), contains(chelsea, brooklyn, boston));
+		assertThat(index.find("new", Optional.of(UNION_SQUARE), 1), contains(chelsea));
+	}
+
+	@Test
+	public void replacesReaddedStoresAndDropsRemovedOnes() {
+
+		index.add(brooklyn);
+		index.remove(boston.getId());
+
+		assertThat(index.find("new", Optional.empty(), 10), contains(brooklyn, chelsea));
+		assertThat(index.find("boston", Optional.empty(), 10), is(empty()));
+		assertThat(index.size(), is(3));
+	}
+
+	@Test
+	public void keepsFindingStoresAcrossCompactions() {
+
+		for (int i = 0; i < 3000; i++) {
+			index.add(chelsea);
+		}
+
+		index.remove(brooklyn.getId());
+
+		assertThat(index.find("new", Optional.empty(), 10), contains(chelsea, boston));
+		assertThat(index.size(), is(3));
+	}
+
+	private static Store store(String name, String city, String zip, double longitude, double latitude) {
+		return new Store(name, new Address("street", city, zip, new Point(longitude, latitude)));
+	}
+}
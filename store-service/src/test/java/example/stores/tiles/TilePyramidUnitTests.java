@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.stores.tiles;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.stores.Store;
+import example.stores.Store.Address;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.geo.Point;
+
+/**
+ * Unit tests for {@link TilePyramid}.
+ *
+ * @author Oliver Gierke
+ */
+public class TilePyramidUnitTests {
+
+	TilePyramid pyramid;
+	Store chelsea, flatiron, boston, berlin;
+
+	@Before
+	public void setUp() {
+
+		this.pyramid = new TilePyramid(12, 16);
+
+		this.chelsea = store("Chelsea", -73.995146, 40.740337);
+		this.flatiron = store("Flatiron", -73.989308, 40.745);
+		this.boston = store("Boston", -71.057083, 42.361145);
+		this.berlin = store("Berlin", 13.405, 52.52);
+
+		pyramid.replaceAll(Arrays.asList(chelsea, flatiron, boston, berlin));
+	}
+
+	@Test
+	public void countsStoresPerCell() {
+
+		Tile world = pyramid.getTile(0, 0, 0);
+
+		assertThat(world.getCount(), is(4));
+		assertThat(world.getCells(), hasSize(3));
+		assertThat(world.getCells(), hasItem(new Tile.Cell(8, 5, 1, berlin.getId())));
+
+		// Manhattan at zoom 12
+		assertThat(pyramid.getTile(12, 1206, 1539).getCells(), containsInAnyOrder( //
+				new Tile.Cell(1, 9, 1, chelsea.getId()), new Tile.Cell(2, 8, 1, flatiron.getId())));
+	}
+
+	@Test
+	public void usesStoreWithSmallestIdentifierAsRepresentative() {
+
+		boolean chelseaFirst = chelsea.getId().compareTo(flatiron.getId()) < 0;
+		Store first = chelseaFirst ? chelsea : flatiron, second = chelseaFirst ? flatiron : chelsea;
+
+		assertThat(pyramid.getTile(0, 0, 0).getCells(), hasItem(new Tile.Cell(4, 6, 2, first.getId())));
+
+		pyramid.remove(first.getId());
+
+		assertThat(pyramid.getTile(0, 0, 0).getCells(), hasItem(new Tile.Cell(4, 6, 1, second.getId())));
+		assertThat(pyramid.size(), is(3));
+	}
+
+	@Test
+	public void returnsCachedTileUntilStoreWithinChanges() {
+
+		Tile tile = pyramid.getTile(4, 4, 6);
+
+		assertThat(pyramid.getTile(4, 4, 6), is(sameInstance(tile)));
+
+		pyramid.add(berlin);
+
+		assertThat(pyramid.getTile(4, 4, 6), is(sameInstance(tile)));
+
+		pyramid.remove(chelsea.getId());
+
+		assertThat(pyramid.getTile(4, 4, 6).getEtag(), is(not(tile.getEtag())));
+	}
+
+	@Test
+	public void returnsEmptyTile() {
+		assertThat(pyramid.getTile(12, 0, 0).getCells(), is(empty()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTileOutOfBounds() {
+		pyramid.getTile(2, 4, 0);
+	}
+
+	private static Store store(String name, double longitude, double latitude) {
+		return new Store(name, new Address("street", "city", "zip", new Point(longitude, latitude)));
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.netflix.util.Pair;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * An upstream response buffered in memory, so that it can be written to more than one client or kept for later. Only
+ * the headers Zuul passes on to the client are retained.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class BufferedResponse {
+
+	private final int status;
+	private final List<Pair<String, String>> headers;
+	private final byte[] body;
+	private final boolean gzipped;
+
+	/**
+	 * Reads the response currently held in the given {@link RequestContext} into memory. As the response stream is
+	 * consumed doing so, the {@link RequestContext} is set up to write the buffered body afterwards.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return
+	 * @throws IOException
+	 */
+	public static BufferedResponse capture(RequestContext context) throws IOException {
+
+		byte[] body;
+		InputStream stream = context.getResponseDataStream();
+
+		if (stream != null) {
+
+			try (InputStream source = stream) {
+				body = StreamUtils.copyToByteArray(source);
+			}
+
+			context.setResponseDataStream(new ByteArrayInputStream(body));
+
+		} else if (context.getResponseBody() != null) {
+			body = context.getResponseBody().getBytes(StandardCharsets.UTF_8);
+		} else {
+			body = new byte[0];
+		}
+
+		List<Pair<String, String>> headers = context.getZuulResponseHeaders() == null //
+				? Collections.emptyList() //
+				: Collections.unmodifiableList(new ArrayList<>(context.getZuulResponseHeaders()));
+
+		return new BufferedResponse(context.getResponseStatusCode(), headers, body, context.getResponseGZipped());
+	}
+
+	/**
+	 * Returns a copy of the response with the given header added.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @param value must not be {@literal null}.
+	 * @return
+	 */
+	public BufferedResponse withHeader(String name, String value) {
+
+		List<Pair<String, String>> headers = new ArrayList<>(this.headers);
+		headers.add(new Pair<>(name, value));
+
+		return new BufferedResponse(status, Collections.unmodifiableList(headers), body, gzipped);
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the first value of the header with the given name, ignoring case.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @return
+	 */
+	public Optional<String> getHeader(String name) {
+
+		return headers.stream() //
+				.filter(it -> name.equalsIgnoreCase(it.first())) //
+				.map(Pair::second) //
+				.findFirst();
+	}
+
+	/**
+	 * Returns the size of the buffered body in bytes.
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return body.length;
+	}
+
+	/**
+	 * Returns the hex-encoded MD5 digest of the buffered body.
+	 *
+	 * @return
+	 */
+	public String getDigest() {
+		return DigestUtils.md5DigestAsHex(body);
+	}
+
+	/**
+	 * Writes the response into the given {@link RequestContext}. A fresh stream is used for every invocation, so that
+	 * the same {@link BufferedResponse} can be applied to multiple requests.
+	 *
+	 * @param context must not be {@literal null}.
+	 */
+	public void applyTo(RequestContext context) {
+
+		context.setResponseStatusCode(status);
+		headers.forEach(it -> context.addZuulResponseHeader(it.first(), it.second()));
+		context.setResponseBody(null);
+		context.setResponseDataStream(new ByteArrayInputStream(body));
+		context.setResponseGZipped(gzipped);
+		context.setOriginContentLength((long) body.length);
+	}
+}
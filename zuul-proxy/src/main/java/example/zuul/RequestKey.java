@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.util.HTTPRequestUtils;
+
+/**
+ * Creates keys identifying requests that result in the same upstream response: the target service, the scheme and
+ * host used by the client (as upstream responses contain absolute links derived from them), the request URI after
+ * route resolution, the query parameters in normalized order and the requested media types.
+ *
+ * @author Oliver Gierke
+ */
+public class RequestKey {
+
+	private RequestKey() {}
+
+	/**
+	 * Returns the key of the request held in the given {@link RequestContext}. Uses the query parameters registered in
+	 * the context, so that filters rewriting parameters before result in the same key for equivalent requests.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return
+	 */
+	public static String of(RequestContext context) {
+
+		HttpServletRequest request = context.getRequest();
+		StringBuilder builder = new StringBuilder(128);
+
+		Object serviceId = context.get("serviceId");
+		String host = request.getHeader(HttpHeaders.HOST);
+
+		builder.append(request.getMethod()).append(' ') //
+				.append(serviceId == null ? context.getRouteHost() : serviceId).append(' ') //
+				.append(request.getScheme()).append("://") //
+				.append(host == null ? request.getServerName() + ":" + request.getServerPort() : host) //
+				.append(context.get("requestURI"));
+
+		Map<String, List<String>> parameters = HTTPRequestUtils.getInstance().getQueryParams();
+
+		if (parameters != null) {
+
+			char separator = '?';
+
+			for (Entry<String, List<String>> entry : new TreeMap<>(parameters).entrySet()) {
+				for (String value : entry.getValue()) {
+
+					builder.append(separator).append(entry.getKey()).append('=').append(value);
+					separator = '&';
+				}
+			}
+		}
+
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+
+		return builder.append(' ').append(accept == null ? "*/*" : accept).toString();
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.balancing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.ribbon.RibbonClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.netflix.loadbalancer.IRule;
+
+/**
+ * Makes all Ribbon clients use the {@link LatencyAwareRule} unless {@code edge.balancing.latency-aware} is set to
+ * {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "edge.balancing", name = "latency-aware", matchIfMissing = true)
+@RibbonClients(defaultConfiguration = LatencyAwareBalancingConfiguration.RibbonConfiguration.class)
+class LatencyAwareBalancingConfiguration {
+
+	/**
+	 * Configuration applied to the application context of each Ribbon client. Intentionally not annotated with
+	 * {@link Configuration} to keep it from being picked up by component scanning.
+	 *
+	 * @author Oliver Gierke
+	 */
+	static class RibbonConfiguration {
+
+		@Bean
+		public IRule ribbonRule() {
+			return new LatencyAwareRule();
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.balancing;
+
+import example.metrics.PeakEwma;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * A Ribbon {@link com.netflix.loadbalancer.IRule} picking the better of two randomly sampled servers ("power of two
+ * choices"). The cost of a server is its exponentially weighted moving average latency multiplied by the number of
+ * requests currently in flight to it. Latencies are derived from the statistics Ribbon collects per server: the
+ * difference of the total response time between two observations divided by the number of responses in between.
+ * <p>
+ * Servers without any responses yet are assumed to be as fast as the average of the others, so that new instances
+ * get their share of traffic to reveal how fast they are without attracting all of it. Slow instances, e.g. ones
+ * still importing data, get gradually less traffic.
+ *
+ * @author Oliver Gierke
+ */
+public class LatencyAwareRule extends AbstractLoadBalancerRule {
+
+	private static final long DEFAULT_DECAY = TimeUnit.SECONDS.toNanos(10);
+
+	private final ConcurrentMap<String, Observation> observations = new ConcurrentHashMap<>();
+	private final long decayNanos;
+
+	/**
+	 * Creates a new {@link LatencyAwareRule} with latencies decaying with a time constant of 10 seconds.
+	 */
+	public LatencyAwareRule() {
+		this(DEFAULT_DECAY);
+	}
+
+	/**
+	 * Creates a new {@link LatencyAwareRule} with latencies decaying with the given time constant.
+	 *
+	 * @param decayNanos must be greater than zero.
+	 */
+	public LatencyAwareRule(long decayNanos) {
+		this.decayNanos = decayNanos;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.client.IClientConfigAware#initWithNiwsConfig(com.netflix.client.config.IClientConfig)
+	 */
+	@Override
+	public void initWithNiwsConfig(IClientConfig config) {}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.loadbalancer.IRule#choose(java.lang.Object)
+	 */
+	@Override
+	public Server choose(Object key) {
+
+		ILoadBalancer balancer = getLoadBalancer();
+
+		return balancer == null ? null : choose(balancer.getReachableServers());
+	}
+
+	/**
+	 * Picks the better of two randomly sampled servers of the given ones, e.g. the reachable servers of a subset of the
+	 * service's instances. The servers are expected to be known to the load balancer the rule is attached to.
+	 *
+	 * @param servers must not be {@literal null}.
+	 * @return the server picked or {@literal null} if no servers are given.
+	 */
+	public Server choose(List<Server> servers) {
+
+		if (servers.isEmpty()) {
+			return null;
+		}
+
+		if (servers.size() == 1) {
+			return servers.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		int first = random.nextInt(servers.size());
+		int second = random.nextInt(servers.size() - 1);
+
+		if (second >= first) {
+			second++;
+		}
+
+		Server left = servers.get(first);
+		Server right = servers.get(second);
+		ILoadBalancer balancer = getLoadBalancer();
+
+		if (!(balancer instanceof AbstractLoadBalancer)) {
+			return left;
+		}
+
+		LoadBalancerStats statistics = ((AbstractLoadBalancer) balancer).getLoadBalancerStats();
+
+		if (statistics == null) {
+			return left;
+		}
+
+		observe(left, statistics);
+		observe(right, statistics);
+
+		return cost(left, statistics) <= cost(right, statistics) ? left : right;
+	}
+
+	/**
+	 * Returns the current latency estimate for the given {@link Server} in milliseconds, {@literal 0} if unknown.
+	 *
+	 * @param server must not be {@literal null}.
+	 * @return
+	 */
+	public double getLatency(Server server) {
+
+		Observation observation = observations.get(server.getId());
+
+		return observation == null ? 0 : observation.getLatency();
+	}
+
+	/**
+	 * Updates the latency estimate of the given {@link Server} with the responses since the last observation.
+	 */
+	private void observe(Server server, LoadBalancerStats statistics) {
+
+		ServerStats stats = statistics.getSingleServerStat(server);
+		Observation observation = observations.computeIfAbsent(server.getId(), it -> new Observation(decayNanos));
+
+		if (stats != null) {
+			observation.update(stats.getResponseTimeAvg(), stats.getMeasuredRequestsCount());
+		}
+	}
+
+	private double cost(Server server, LoadBalancerStats statistics) {
+
+		ServerStats stats = statistics.getSingleServerStat(server);
+		Observation observation = observations.get(server.getId());
+
+		double latency = observation.hasSamples() ? observation.getLatency() : getNeutralLatency();
+
+		return latency * ((stats == null ? 0 : stats.getActiveRequestsCount()) + 1);
+	}
+
+	/**
+	 * Returns the latency assumed for servers without responses yet: the average of the ones known or {@literal 1} if
+	 * none is, so that only the number of active requests matters then.
+	 */
+	private double getNeutralLatency() {
+
+		return observations.values().stream() //
+				.filter(Observation::hasSamples) //
+				.mapToDouble(Observation::getLatency) //
+				.average().orElse(1);
+	}
+
+	/**
+	 * The latency observed for a single server, derived from the cumulative response time statistics.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private static class Observation {
+
+		private final PeakEwma latency;
+
+		private double total;
+		private long count;
+
+		Observation(long decayNanos) {
+			this.latency = new PeakEwma(decayNanos);
+		}
+
+		/**
+		 * Adds the average latency of the responses since the last update to the estimate.
+		 *
+		 * @param average the average response time over all responses so far.
+		 * @param count the number of responses so far.
+		 */
+		synchronized void update(double average, long count) {
+
+			double total = average * count;
+			long responses = count - this.count;
+
+			if (responses > 0) {
+				latency.add((total - this.total) / responses, System.nanoTime());
+			}
+
+			this.total = total;
+			this.count = count;
+		}
+
+		double getLatency() {
+			return latency.get();
+		}
+
+		boolean hasSamples() {
+			return !latency.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import example.zuul.BufferedResponse;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded in-memory cache of {@link BufferedResponse}s. Entries expire after the configured time-to-live, or the
+ * shorter one the response's {@code Cache-Control} header asks for, and are evicted in least-recently-used order once
+ * either the number of entries or the total size of the cached bodies exceeds its limit. As the cache is shared by all
+ * clients, responses marked {@code private}, {@code no-store} or {@code no-cache} are not cached. Responses varying by
+ * request headers are only served to requests carrying the same values for them.
+ *
+ * @author Oliver Gierke
+ */
+public class EdgeCache implements PublicMetrics {
+
+	private static final List<String> NOT_CACHEABLE = Arrays.asList("no-store", "no-cache", "private");
+
+	private final EdgeCacheProperties properties;
+	private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), notModified = new AtomicLong();
+
+	private long bytes;
+
+	/**
+	 * Creates a new {@link EdgeCache} for the given {@link EdgeCacheProperties}.
+	 *
+	 * @param properties must not be {@literal null}.
+	 */
+	public EdgeCache(EdgeCacheProperties properties) {
+
+		Assert.notNull(properties, "Properties must not be null!");
+
+		this.properties = properties;
+	}
+
+	/**
+	 * Returns the unexpired response cached for the given key if it's a variant matching the given request.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @param request must not be {@literal null}.
+	 * @return
+	 */
+	public Optional<CachedResponse> get(String key, HttpServletRequest request) {
+
+		CachedResponse response;
+
+		synchronized (this) {
+
+			response = entries.get(key);
+
+			if (response != null && response.isExpired()) {
+				remove(key);
+				response = null;
+			}
+		}
+
+		if (response != null && !response.isVariantOf(request)) {
+			response = null;
+		}
+
+		(response == null ? misses : hits).incrementAndGet();
+
+		return Optional.ofNullable(response);
+	}
+
+	/**
+	 * Returns whether the given response may be cached according to its {@code Cache-Control} and {@code Vary} headers.
+	 *
+	 * @param response must not be {@literal null}.
+	 * @return
+	 */
+	public boolean isCacheable(BufferedResponse response) {
+
+		return getTimeToLive(response) > 0 && !response.getHeader(HttpHeaders.VARY) //
+				.filter(it -> it.trim().equals("*")) //
+				.isPresent();
+	}
+
+	/**
+	 * Caches the given response, obtained for the given request, under the given key. Responses exceeding the maximum
+	 * entry size or not being cacheable are not cached.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @param response must not be {@literal null}.
+	 * @param etag must not be {@literal null}.
+	 * @param request must not be {@literal null}.
+	 * @return whether the response was cached.
+	 * @see #isCacheable(BufferedResponse)
+	 */
+	public synchronized boolean put(String key, BufferedResponse response, String etag, HttpServletRequest request) {
+
+		if (response.getSize() > properties.getMaxEntryBytes() || !isCacheable(response)) {
+			return false;
+		}
+
+		remove(key);
+
+		long expires = System.currentTimeMillis() + getTimeToLive(response);
+
+		entries.put(key, new CachedResponse(response, etag, expires, getVariant(response, request)));
+		bytes += response.getSize();
+
+		Iterator<Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+
+		while (iterator.hasNext() && isOverLimit()) {
+
+			bytes -= iterator.next().getValue().getResponse().getSize();
+			iterator.remove();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Records a conditional request answered with {@code 304 Not Modified}.
+	 */
+	void notModified() {
+		notModified.incrementAndGet();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.PublicMetrics#metrics()
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+
+		long entries, bytes;
+
+		synchronized (this) {
+			entries = this.entries.size();
+			bytes = this.bytes;
+		}
+
+		return Arrays.<Metric<?>> asList(new Metric<>("edge.cache.hits", hits.get()), //
+				new Metric<>("edge.cache.misses", misses.get()), //
+				new Metric<>("edge.cache.not-modified", notModified.get()), //
+				new Metric<>("edge.cache.entries", entries), //
+				new Metric<>("edge.cache.bytes", bytes));
+	}
+
+	private boolean isOverLimit() {
+		return entries.size() > properties.getMaxEntries() || bytes > properties.getMaxBytes();
+	}
+
+	/**
+	 * Returns the time in milliseconds the given response may be cached for, the configured time-to-live capped by the
+	 * {@code s-maxage} or {@code max-age} directive.
+	 */
+	private long getTimeToLive(BufferedResponse response) {
+
+		Map<String, String> directives = getDirectives(response);
+
+		if (NOT_CACHEABLE.stream().anyMatch(directives::containsKey)) {
+			return 0;
+		}
+
+		String maxAge = directives.containsKey("s-maxage") ? directives.get("s-maxage") : directives.get("max-age");
+
+		if (maxAge == null) {
+			return properties.getTimeToLive();
+		}
+
+		try {
+			return Math.min(properties.getTimeToLive(), TimeUnit.SECONDS.toMillis(Long.parseLong(maxAge)));
+		} catch (NumberFormatException o_O) {
+			return 0;
+		}
+	}
+
+	private static Map<String, String> getDirectives(BufferedResponse response) {
+
+		Map<String, String> directives = new HashMap<>();
+
+		response.getHeader(HttpHeaders.CACHE_CONTROL).ifPresent(header -> {
+
+			for (String directive : header.split(",")) {
+
+				String[] parts = directive.split("=", 2);
+
+				directives.put(parts[0].trim().toLowerCase(Locale.US),
+						parts.length == 1 ? null : parts[1].trim().replace("\"", ""));
+			}
+		});
+
+		return directives;
+	}
+
+	/**
+	 * Returns the values of the request headers the given response varies by.
+	 */
+	private static Map<String, String> getVariant(BufferedResponse response, HttpServletRequest request) {
+
+		Map<String, String> variant = new HashMap<>();
+
+		response.getHeader(HttpHeaders.VARY).ifPresent(header -> {
+
+			for (String name : header.split(",")) {
+
+				String trimmed = name.trim().toLowerCase(Locale.US);
+
+				if (!trimmed.isEmpty()) {
+					variant.put(trimmed, request.getHeader(trimmed));
+				}
+			}
+		});
+
+		return variant;
+	}
+
+	private void remove(String key) {
+
+		CachedResponse removed = entries.remove(key);
+
+		if (removed != null) {
+			bytes -= removed.getResponse().getSize();
+		}
+	}
+
+	/**
+	 * A cached response along with its entity tag.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@Value
+	public static class CachedResponse {
+
+		BufferedResponse response;
+		String etag;
+		long expires;
+		Map<String, String> variant;
+
+		boolean isExpired() {
+			return System.currentTimeMillis() > expires;
+		}
+
+		/**
+		 * Returns whether the given request carries the same values for the headers the response varies by as the one
+		 * the response was obtained for.
+		 *
+		 * @param request must not be {@literal null}.
+		 * @return
+		 */
+		boolean isVariantOf(HttpServletRequest request) {
+
+			return variant.entrySet().stream() //
+					.allMatch(it -> Objects.equals(it.getValue(), request.getHeader(it.getKey())));
+		}
+
+		/**
+		 * Returns whether the given {@code If-None-Match} header value matches the entity tag of the response.
+		 *
+		 * @param ifNoneMatch can be {@literal null}.
+		 * @return
+		 */
+		public boolean matches(String ifNoneMatch) {
+			return EdgeCache.matches(ifNoneMatch, etag);
+		}
+	}
+
+	/**
+	 * Returns whether the given {@code If-None-Match} header value matches the given entity tag using weak comparison.
+	 *
+	 * @param ifNoneMatch can be {@literal null}.
+	 * @param etag must not be {@literal null}.
+	 * @return
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		String candidate = weaken(etag);
+
+		for (String tag : ifNoneMatch.split(",")) {
+
+			String trimmed = tag.trim();
+
+			if ("*".equals(trimmed) || candidate.equals(weaken(trimmed))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static String weaken(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the filters to cache responses at the edge if {@code edge.cache.enabled} is not set to {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@EnableConfigurationProperties(EdgeCacheProperties.class)
+@ConditionalOnProperty(prefix = "edge.cache", name = "enabled", matchIfMissing = true)
+class EdgeCacheConfiguration {
+
+	@Bean
+	public EdgeCache edgeCache(EdgeCacheProperties properties) {
+		return new EdgeCache(properties);
+	}
+
+	@Bean
+	public EdgeCachePreFilter edgeCachePreFilter(EdgeCache cache, EdgeCacheProperties properties) {
+		return new EdgeCachePreFilter(cache, properties);
+	}
+
+	@Bean
+	public EdgeCachePostFilter edgeCachePostFilter(EdgeCache cache) {
+		return new EdgeCachePostFilter(cache);
+	}
+}
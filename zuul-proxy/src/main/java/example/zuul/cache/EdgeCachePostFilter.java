@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import static example.zuul.cache.EdgeCachePreFilter.*;
+
+import example.zuul.BufferedResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.ReflectionUtils;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Puts cacheable, successful upstream responses to requests selected by the {@link EdgeCachePreFilter} into the
+ * {@link EdgeCache}. Responses without an entity tag get one derived from their body. Runs right before Zuul's
+ * {@code SendResponseFilter} writes the response.
+ *
+ * @author Oliver Gierke
+ * @see EdgeCachePreFilter
+ */
+@RequiredArgsConstructor
+public class EdgeCachePostFilter extends ZuulFilter {
+
+	private final @NonNull EdgeCache cache;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "post";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return 999;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		return context.get(CACHE_KEY) != null && context.get(CACHE_HIT) == null && context.sendZuulResponse()
+				&& context.getThrowable() == null && context.getResponseStatusCode() == HttpStatus.OK.value();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		BufferedResponse response;
+
+		try {
+			response = BufferedResponse.capture(context);
+		} catch (IOException o_O) {
+			ReflectionUtils.rethrowRuntimeException(o_O);
+			return null;
+		}
+
+		if (!cache.isCacheable(response)) {
+			return null;
+		}
+
+		String etag = response.getHeader(HttpHeaders.ETAG).orElse(null);
+
+		if (etag == null) {
+
+			etag = "\"" + response.getDigest() + "\"";
+			response = response.withHeader(HttpHeaders.ETAG, etag);
+
+			context.addZuulResponseHeader(HttpHeaders.ETAG, etag);
+		}
+
+		cache.put(context.get(CACHE_KEY).toString(), response, etag, context.getRequest());
+		context.addZuulResponseHeader(CACHE_HEADER, "MISS");
+
+		if (EdgeCache.matches(context.getRequest().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+
+			cache.notModified();
+
+			context.setResponseStatusCode(HttpStatus.NOT_MODIFIED.value());
+			context.setResponseDataStream(null);
+			context.remove("originContentLength");
+		}
+
+		return null;
+	}
+}
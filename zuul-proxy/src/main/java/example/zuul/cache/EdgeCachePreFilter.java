@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import example.zuul.RequestKey;
+import example.zuul.cache.EdgeCache.CachedResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.util.HTTPRequestUtils;
+
+/**
+ * Serves GET requests for the configured paths from the {@link EdgeCache}. Coordinates in the query parameters are
+ * rounded to the configured precision before the request is forwarded, so that requests for locations close to each
+ * other share a cache entry. Conditional requests matching the cached entity tag are answered with {@code 304 Not
+ * Modified}. Runs right after Zuul's {@code PreDecorationFilter} has resolved the route.
+ *
+ * @author Oliver Gierke
+ * @see EdgeCachePostFilter
+ */
+@RequiredArgsConstructor
+public class EdgeCachePreFilter extends ZuulFilter {
+
+	static final String CACHE_KEY = "edgeCacheKey";
+	static final String CACHE_HIT = "edgeCacheHit";
+	static final String CACHE_HEADER = "X-Edge-Cache";
+
+	private final PathMatcher matcher = new AntPathMatcher();
+	private final @NonNull EdgeCache cache;
+	private final @NonNull EdgeCacheProperties properties;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "pre";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return 6;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		Object uri = context.get("requestURI");
+
+		return "GET".equals(context.getRequest().getMethod()) && uri != null
+				&& properties.getPaths().stream().anyMatch(it -> matcher.match(it, uri.toString()));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		quantizeCoordinates(context);
+
+		String key = RequestKey.of(context);
+		context.set(CACHE_KEY, key);
+
+		cache.get(key, context.getRequest()).ifPresent(it -> serve(it, context));
+
+		return null;
+	}
+
+	private void serve(CachedResponse response, RequestContext context) {
+
+		HttpServletRequest request = context.getRequest();
+
+		context.setSendZuulResponse(false);
+		context.set(CACHE_HIT, true);
+
+		if (response.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+
+			cache.notModified();
+
+			context.setResponseStatusCode(HttpStatus.NOT_MODIFIED.value());
+			context.addZuulResponseHeader(HttpHeaders.ETAG, response.getEtag());
+
+		} else {
+			response.getResponse().applyTo(context);
+		}
+
+		context.addZuulResponseHeader(CACHE_HEADER, "HIT");
+	}
+
+	private void quantizeCoordinates(RequestContext context) {
+
+		Map<String, List<String>> parameters = HTTPRequestUtils.getInstance().getQueryParams();
+
+		if (parameters == null) {
+			return;
+		}
+
+		Map<String, List<String>> quantized = new LinkedHashMap<>(parameters.size());
+
+		parameters.forEach((name, values) -> quantized.put(name, !properties.getCoordinateParameters().contains(name) //
+				? values //
+				: values.stream().map(this::quantize).collect(Collectors.toList())));
+
+		context.setRequestQueryParams(quantized);
+	}
+
+	private String quantize(String coordinates) {
+
+		String[] parts = coordinates.split(",");
+
+		if (parts.length != 2) {
+			return coordinates;
+		}
+
+		try {
+			return round(parts[0]) + "," + round(parts[1]);
+		} catch (NumberFormatException o_O) {
+			return coordinates;
+		}
+	}
+
+	private String round(String coordinate) {
+		return new BigDecimal(coordinate.trim()) //
+				.setScale(properties.getPrecision(), RoundingMode.HALF_UP) //
+				.toPlainString();
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the edge response cache.
+ *
+ * @author Oliver Gierke
+ */
+@Data
+@ConfigurationProperties("edge.cache")
+public class EdgeCacheProperties {
+
+	/**
+	 * Whether to cache responses at the edge.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Ant-style patterns of the (upstream) request URIs to cache GET responses for.
+	 */
+	private List<String> paths = new ArrayList<>(Arrays.asList("/stores/search/**"));
+
+	/**
+	 * Names of the query parameters containing coordinates formatted as {@code latitude,longitude}.
+	 */
+	private List<String> coordinateParameters = new ArrayList<>(Arrays.asList("location"));
+
+	/**
+	 * The number of decimal places coordinates are rounded to. 3 decimal places equal roughly 100 meters.
+	 */
+	private int precision = 3;
+
+	/**
+	 * The time in milliseconds responses are cached.
+	 */
+	private long timeToLive = 60_000;
+
+	/**
+	 * The maximum number of responses to cache.
+	 */
+	private int maxEntries = 10_000;
+
+	/**
+	 * The maximum number of bytes of all cached responses.
+	 */
+	private long maxBytes = 64 * 1024 * 1024;
+
+	/**
+	 * The maximum size in bytes of an individual response to be cached.
+	 */
+	private int maxEntryBytes = 1024 * 1024;
+}
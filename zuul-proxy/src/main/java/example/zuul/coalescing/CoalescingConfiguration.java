@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the filters to coalesce identical upstream requests if {@code edge.coalescing.enabled} is not set to
+ * {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@EnableConfigurationProperties(CoalescingProperties.class)
+@ConditionalOnProperty(prefix = "edge.coalescing", name = "enabled", matchIfMissing = true)
+class CoalescingConfiguration {
+
+	@Bean
+	public SingleFlight singleFlight(CoalescingProperties properties) {
+		return new SingleFlight(properties);
+	}
+
+	@Bean
+	public CoalescingRouteFilter coalescingRouteFilter(SingleFlight flights, CoalescingProperties properties) {
+		return new CoalescingRouteFilter(flights, properties);
+	}
+
+	@Bean
+	public CoalescingPostFilter coalescingPostFilter(SingleFlight flights) {
+		return new CoalescingPostFilter(flights);
+	}
+}
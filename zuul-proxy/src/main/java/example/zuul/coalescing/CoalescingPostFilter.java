@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import example.zuul.BufferedResponse;
+import example.zuul.coalescing.SingleFlight.Flight;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Hands the upstream response of a request leading a {@link Flight} to all requests waiting for it. Failed upstream
+ * requests, including ones answered with a server error, abort the flight, so that the waiting requests are forwarded
+ * on their own. Runs before all other post filters as post filters are executed for failed requests, too.
+ *
+ * @author Oliver Gierke
+ * @see CoalescingRouteFilter
+ */
+@RequiredArgsConstructor
+public class CoalescingPostFilter extends ZuulFilter {
+
+	static final String ERROR_STATUS_CODE = "error.status_code";
+	static final String ERROR_EXCEPTION = "error.exception";
+
+	private final @NonNull SingleFlight flights;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "post";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return -1;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+		return RequestContext.getCurrentContext().get(CoalescingRouteFilter.FLIGHT) != null;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		Flight flight = (Flight) context.get(CoalescingRouteFilter.FLIGHT);
+		Throwable failure = getFailure(context);
+
+		if (failure != null) {
+			flights.abort(flight, failure);
+			return null;
+		}
+
+		try {
+			flights.land(flight, BufferedResponse.capture(context));
+		} catch (IOException | RuntimeException o_O) {
+			flights.abort(flight, o_O);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the reason the upstream request failed for or {@literal null} if it succeeded. Besides a {@link Throwable}
+	 * registered with the {@link RequestContext}, routing filters report failures through the {@code error.*}
+	 * attributes without one. Server errors returned by the upstream service are considered failures, too.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return
+	 */
+	static Throwable getFailure(RequestContext context) {
+
+		if (context.getThrowable() != null) {
+			return context.getThrowable();
+		}
+
+		Object exception = context.get(ERROR_EXCEPTION);
+
+		if (exception instanceof Throwable) {
+			return (Throwable) exception;
+		}
+
+		Object status = context.get(ERROR_STATUS_CODE);
+
+		if (status != null) {
+			return new IllegalStateException("Upstream request failed with status " + status + "!");
+		}
+
+		int code = context.getResponseStatusCode();
+
+		return code >= 500 ? new IllegalStateException("Upstream request failed with status " + code + "!") : null;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for coalescing identical upstream requests.
+ *
+ * @author Oliver Gierke
+ */
+@Data
+@ConfigurationProperties("edge.coalescing")
+public class CoalescingProperties {
+
+	/**
+	 * Whether to coalesce identical concurrent GET requests into a single upstream request.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Ant-style patterns of the (upstream) request URIs to coalesce requests for.
+	 */
+	private List<String> paths = new ArrayList<>(Arrays.asList("/stores/search/**"));
+
+	/**
+	 * The maximum number of requests per route waiting for an upstream request issued by another one at a time. Further
+	 * requests are forwarded on their own.
+	 */
+	private int maxWaiters = 100;
+
+	/**
+	 * Per-route overrides of the maximum number of waiting requests, keyed by route identifier.
+	 */
+	private Map<String, Integer> routeMaxWaiters = new HashMap<>();
+
+	/**
+	 * The maximum time in milliseconds to wait for the shared upstream response before forwarding the request on its own.
+	 */
+	private long timeout = 5_000;
+
+	/**
+	 * Returns the maximum number of waiting requests for the route with the given identifier.
+	 *
+	 * @param route must not be {@literal null}.
+	 * @return
+	 */
+	public int getMaxWaiters(String route) {
+		return routeMaxWaiters.getOrDefault(route, maxWaiters);
+	}
+}
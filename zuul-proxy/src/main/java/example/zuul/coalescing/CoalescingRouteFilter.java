@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import example.zuul.RequestKey;
+import example.zuul.coalescing.SingleFlight.Flight;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Coalesces identical GET requests to service routes: the first request is forwarded by Ribbon as usual, identical
+ * requests arriving while it is in progress wait for its response instead of being forwarded themselves. Runs before
+ * the upstream timing, the sharded search routing and Zuul's {@code RibbonRoutingFilter}, so that only the leading
+ * request is routed and timed as upstream request.
+ *
+ * @author Oliver Gierke
+ * @see CoalescingPostFilter
+ */
+@RequiredArgsConstructor
+public class CoalescingRouteFilter extends ZuulFilter {
+
+	static final String FLIGHT = "coalescingFlight";
+	static final String COALESCED_HEADER = "X-Coalesced";
+
+	private final PathMatcher matcher = new AntPathMatcher();
+	private final @NonNull SingleFlight flights;
+	private final @NonNull CoalescingProperties properties;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "route";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return 7;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		Object uri = context.get("requestURI");
+
+		return context.sendZuulResponse() && context.getRouteHost() == null && context.get("serviceId") != null
+				&& "GET".equals(context.getRequest().getMethod()) && uri != null
+				&& properties.getPaths().stream().anyMatch(it -> matcher.match(it, uri.toString()));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		Object proxy = context.get("proxy");
+		String route = proxy == null ? context.get("serviceId").toString() : proxy.toString();
+		String key = RequestKey.of(context);
+
+		Optional<Flight> flight = flights.lead(route, key);
+
+		if (flight.isPresent()) {
+			context.set(FLIGHT, flight.get());
+			return null;
+		}
+
+		// Otherwise forwarded by Ribbon on its own
+		flights.follow(route, key).ifPresent(it -> {
+
+			it.applyTo(context);
+
+			context.addZuulResponseHeader(COALESCED_HEADER, "true");
+			context.setSendZuulResponse(false);
+		});
+
+		return null;
+	}
+}
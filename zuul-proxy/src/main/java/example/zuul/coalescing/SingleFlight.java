@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import example.zuul.BufferedResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Keeps track of the upstream requests in flight. The first request for a key becomes the leader of a {@link Flight}
+ * and is forwarded, identical requests arriving while the flight is in progress wait for the leader's response. The
+ * number of waiting requests is capped per route.
+ * <p>
+ * Publishes the number of leaders, followers served the shared response, requests rejected due to the cap and
+ * followers that had to be forwarded on their own as well as the coalescing ratio (followers / all requests) per route.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+public class SingleFlight implements PublicMetrics {
+
+	private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, RouteStatistics> routes = new ConcurrentHashMap<>();
+	private final @NonNull CoalescingProperties properties;
+
+	/**
+	 * Starts a {@link Flight} for the given key unless one is already in progress.
+	 *
+	 * @param route must not be {@literal null}.
+	 * @param key must not be {@literal null}.
+	 * @return the new {@link Flight} to complete or {@link Optional#empty()} if a flight is already in progress.
+	 */
+	public Optional<Flight> lead(String route, String key) {
+
+		Flight flight = new Flight(key);
+
+		if (flights.putIfAbsent(key, flight) != null) {
+			return Optional.empty();
+		}
+
+		statistics(route).leaders.incrementAndGet();
+
+		return Optional.of(flight);
+	}
+
+	/**
+	 * Waits for the response of the {@link Flight} in progress for the given key.
+	 *
+	 * @param route must not be {@literal null}.
+	 * @param key must not be {@literal null}.
+	 * @return the shared response or {@link Optional#empty()} if there's no flight in progress anymore, too many
+	 *         requests are waiting already or the flight failed or timed out.
+	 */
+	public Optional<BufferedResponse> follow(String route, String key) {
+
+		Flight flight = flights.get(key);
+
+		if (flight == null) {
+			return Optional.empty();
+		}
+
+		RouteStatistics statistics = statistics(route);
+
+		if (statistics.waiters.incrementAndGet() > properties.getMaxWaiters(route)) {
+
+			statistics.waiters.decrementAndGet();
+			statistics.rejected.incrementAndGet();
+
+			return Optional.empty();
+		}
+
+		try {
+
+			BufferedResponse response = flight.response.get(properties.getTimeout(), TimeUnit.MILLISECONDS);
+			statistics.followers.incrementAndGet();
+
+			return Optional.of(response);
+
+		} catch (ExecutionException | TimeoutException o_O) {
+
+			statistics.fallbacks.incrementAndGet();
+			return Optional.empty();
+
+		} catch (InterruptedException o_O) {
+
+			Thread.currentThread().interrupt();
+			statistics.fallbacks.incrementAndGet();
+
+			return Optional.empty();
+
+		} finally {
+			statistics.waiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Completes the given {@link Flight} with the given response, handing it to all waiting requests.
+	 *
+	 * @param flight must not be {@literal null}.
+	 * @param response must not be {@literal null}.
+	 */
+	public void land(Flight flight, BufferedResponse response) {
+
+		flights.remove(flight.key, flight);
+		flight.response.complete(response);
+	}
+
+	/**
+	 * Aborts the given {@link Flight}, so that all waiting requests are forwarded on their own.
+	 *
+	 * @param flight must not be {@literal null}.
+	 * @param cause must not be {@literal null}.
+	 */
+	public void abort(Flight flight, Throwable cause) {
+
+		flights.remove(flight.key, flight);
+		flight.response.completeExceptionally(cause);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.PublicMetrics#metrics()
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+
+		List<Metric<?>> metrics = new ArrayList<>();
+
+		routes.forEach((route, statistics) -> {
+
+			String prefix = "edge.coalescing." + route;
+			long leaders = statistics.leaders.get();
+			long followers = statistics.followers.get();
+			long rejected = statistics.rejected.get();
+			long fallbacks = statistics.fallbacks.get();
+			long total = leaders + followers + rejected + fallbacks;
+
+			metrics.add(new Metric<>(prefix + ".leaders", leaders));
+			metrics.add(new Metric<>(prefix + ".followers", followers));
+			metrics.add(new Metric<>(prefix + ".rejected", rejected));
+			metrics.add(new Metric<>(prefix + ".fallbacks", fallbacks));
+			metrics.add(new Metric<>(prefix + ".waiters", statistics.waiters.get()));
+			metrics.add(new Metric<>(prefix + ".ratio", total == 0 ? 0d : (double) followers / total));
+		});
+
+		return metrics;
+	}
+
+	private RouteStatistics statistics(String route) {
+		return routes.computeIfAbsent(route, it -> new RouteStatistics());
+	}
+
+	/**
+	 * An upstream request in progress.
+	 *
+	 * @author Oliver Gierke
+	 */
+	@RequiredArgsConstructor
+	public static class Flight {
+
+		private final String key;
+		private final CompletableFuture<BufferedResponse> response = new CompletableFuture<>();
+	}
+
+	private static class RouteStatistics {
+
+		private final AtomicInteger waiters = new AtomicInteger();
+		private final AtomicLong leaders = new AtomicLong(), followers = new AtomicLong(), rejected = new AtomicLong(),
+				fallbacks = new AtomicLong();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import example.metrics.LatencyRecorder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Latency histograms, request and byte counts per route and upstream instance. Recording is lock-free and doesn't
+ * allocate once a route or instance has been seen. The recorded values are rolled up in a fixed interval by a
+ * dedicated thread, which also hands the current snapshot to registered listeners.
+ *
+ * @author Oliver Gierke
+ */
+@Slf4j
+public class EdgeMetrics implements DisposableBean {
+
+	private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+	private final List<Consumer<Map<String, Object>>> listeners = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Creates a new {@link EdgeMetrics} rolling up recorded values in the given interval.
+	 *
+	 * @param interval the interval in milliseconds, must be greater than zero.
+	 */
+	public EdgeMetrics(long interval) {
+
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+			Thread thread = new Thread(runnable, "edge-metrics");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		this.executor.scheduleAtFixedRate(this::roll, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Records a completed request to the given route.
+	 *
+	 * @param route must not be {@literal null}.
+	 * @param timings must not be {@literal null}.
+	 * @param end the time the request was completed in nanoseconds.
+	 * @param requestBytes the number of bytes received from the client, negative if unknown.
+	 * @param responseBytes the number of bytes sent to the client, negative if unknown.
+	 */
+	void record(String route, RequestTimings timings, long end, long requestBytes, long responseBytes) {
+
+		RouteMetrics metrics = routes.get(route);
+
+		if (metrics == null) {
+			metrics = routes.computeIfAbsent(route, it -> new RouteMetrics());
+		}
+
+		metrics.requests.increment();
+		metrics.total.record(end - timings.start);
+
+		if (requestBytes > 0) {
+			metrics.requestBytes.add(requestBytes);
+		}
+
+		if (responseBytes > 0) {
+			metrics.responseBytes.add(responseBytes);
+		}
+
+		if (timings.upstreamStart == 0 || timings.upstreamEnd == 0) {
+			return;
+		}
+
+		long upstream = timings.upstreamEnd - timings.upstreamStart;
+
+		metrics.queued.record(timings.upstreamStart - timings.start);
+		metrics.upstream.record(upstream);
+
+		if (timings.instance != null) {
+
+			LatencyRecorder instance = metrics.instances.get(timings.instance);
+
+			if (instance == null) {
+				instance = metrics.instances.computeIfAbsent(timings.instance, it -> new LatencyRecorder());
+			}
+
+			instance.record(upstream);
+		}
+	}
+
+	/**
+	 * Returns a snapshot of all metrics.
+	 *
+	 * @return
+	 */
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new TreeMap<>();
+		routes.forEach((route, metrics) -> snapshot.put(route, metrics.snapshot()));
+
+		return snapshot;
+	}
+
+	/**
+	 * Registers a listener to be handed a snapshot after every interval.
+	 *
+	 * @param listener must not be {@literal null}.
+	 */
+	public void addListener(Consumer<Map<String, Object>> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes the given listener.
+	 *
+	 * @param listener must not be {@literal null}.
+	 */
+	public void removeListener(Consumer<Map<String, Object>> listener) {
+		listeners.remove(listener);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	void roll() {
+
+		try {
+
+			routes.values().forEach(RouteMetrics::roll);
+
+			if (listeners.isEmpty()) {
+				return;
+			}
+
+			Map<String, Object> snapshot = snapshot();
+			listeners.forEach(it -> it.accept(snapshot));
+
+		} catch (RuntimeException o_O) {
+			log.warn("Rolling up edge metrics failed!", o_O);
+		}
+	}
+
+	/**
+	 * The metrics of a single route.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private static class RouteMetrics {
+
+		private final LongAdder requests = new LongAdder(), requestBytes = new LongAdder(),
+				responseBytes = new LongAdder();
+		private final LatencyRecorder total = new LatencyRecorder(), queued = new LatencyRecorder(),
+				upstream = new LatencyRecorder();
+		private final ConcurrentMap<String, LatencyRecorder> instances = new ConcurrentHashMap<>();
+
+		void roll() {
+
+			total.roll();
+			queued.roll();
+			upstream.roll();
+			instances.values().forEach(LatencyRecorder::roll);
+		}
+
+		Map<String, Object> snapshot() {
+
+			Map<String, Object> instances = new TreeMap<>();
+			this.instances.forEach((instance, recorder) -> instances.put(instance, recorder.snapshot()));
+
+			Map<String, Object> snapshot = new LinkedHashMap<>();
+
+			snapshot.put("requests", requests.sum());
+			snapshot.put("requestBytes", requestBytes.sum());
+			snapshot.put("responseBytes", responseBytes.sum());
+			snapshot.put("total", total.snapshot());
+			snapshot.put("queued", queued.snapshot());
+			snapshot.put("upstream", upstream.snapshot());
+			snapshot.put("instances", instances);
+
+			return snapshot;
+		}
+	}
+}
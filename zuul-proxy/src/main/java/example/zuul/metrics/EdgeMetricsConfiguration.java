@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the filters recording latencies and sizes per route and upstream instance as well as the
+ * {@code /edgemetrics} endpoint exposing them unless {@code edge.metrics.enabled} is set to {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "edge.metrics", name = "enabled", matchIfMissing = true)
+class EdgeMetricsConfiguration {
+
+	@Bean
+	public EdgeMetrics edgeMetrics(@Value("${edge.metrics.interval:1000}") long interval) {
+		return new EdgeMetrics(interval);
+	}
+
+	@Bean
+	public RequestTimingFilter requestTimingFilter() {
+		return new RequestTimingFilter();
+	}
+
+	@Bean
+	public UpstreamStartFilter upstreamStartFilter() {
+		return new UpstreamStartFilter();
+	}
+
+	@Bean
+	public UpstreamTimingFilter upstreamTimingFilter() {
+		return new UpstreamTimingFilter();
+	}
+
+	@Bean
+	public EdgeMetricsFilter edgeMetricsFilter(EdgeMetrics metrics) {
+		return new EdgeMetricsFilter(metrics);
+	}
+
+	@Bean
+	public EdgeMetricsEndpoint edgeMetricsEndpoint(EdgeMetrics metrics) {
+		return new EdgeMetricsEndpoint(metrics);
+	}
+
+	@Bean
+	public EdgeMetricsMvcEndpoint edgeMetricsMvcEndpoint(EdgeMetricsEndpoint endpoint) {
+		return new EdgeMetricsMvcEndpoint(endpoint);
+	}
+}
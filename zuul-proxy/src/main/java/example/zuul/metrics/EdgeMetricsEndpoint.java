@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import lombok.NonNull;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+/**
+ * Exposes the latency histograms, request and byte counts per route and upstream instance under
+ * {@code /edgemetrics}.
+ *
+ * @author Oliver Gierke
+ * @see EdgeMetricsMvcEndpoint
+ */
+public class EdgeMetricsEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+	private final EdgeMetrics metrics;
+
+	/**
+	 * Creates a new {@link EdgeMetricsEndpoint} for the given {@link EdgeMetrics}.
+	 *
+	 * @param metrics must not be {@literal null}.
+	 */
+	public EdgeMetricsEndpoint(@NonNull EdgeMetrics metrics) {
+
+		super("edgemetrics");
+
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the {@link EdgeMetrics} backing the endpoint.
+	 *
+	 * @return
+	 */
+	EdgeMetrics getMetrics() {
+		return metrics;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see org.springframework.boot.actuate.endpoint.Endpoint#invoke()
+	 */
+	@Override
+	public Map<String, Object> invoke() {
+		return metrics.snapshot();
+	}
+}
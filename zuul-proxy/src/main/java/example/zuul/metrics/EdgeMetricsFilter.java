@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Records the timings and sizes of a request with {@link EdgeMetrics} once the response has been sent to the client.
+ * Requests that haven't been matched to a route are recorded for the route {@value #UNROUTED}.
+ *
+ * @author Oliver Gierke
+ * @see RequestTimingFilter
+ * @see UpstreamStartFilter
+ * @see UpstreamTimingFilter
+ */
+@RequiredArgsConstructor
+public class EdgeMetricsFilter extends ZuulFilter {
+
+	static final String UNROUTED = "unrouted";
+
+	private final @NonNull EdgeMetrics metrics;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "post";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return 1001;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+		return RequestTimings.of(RequestContext.getCurrentContext()).isPresent();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		long end = System.nanoTime();
+
+		RequestContext context = RequestContext.getCurrentContext();
+		HttpServletRequest request = context.getRequest();
+
+		Object proxy = context.get("proxy");
+		String route = proxy == null ? UNROUTED : proxy.toString();
+		long requestBytes = request == null ? -1 : request.getContentLengthLong();
+		Long origin = context.getOriginContentLength();
+		long responseBytes = origin == null ? -1 : origin;
+
+		RequestTimings.of(context) //
+				.ifPresent(timings -> metrics.record(route, timings, end, requestBytes, responseBytes));
+
+		return null;
+	}
+}
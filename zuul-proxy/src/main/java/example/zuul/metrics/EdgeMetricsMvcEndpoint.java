@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.boot.actuate.endpoint.mvc.EndpointMvcAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Adds {@code /edgemetrics/stream} to the {@link EdgeMetricsEndpoint}, streaming a snapshot of the metrics as
+ * server-sent event after every interval they're rolled up in.
+ *
+ * @author Oliver Gierke
+ */
+public class EdgeMetricsMvcEndpoint extends EndpointMvcAdapter {
+
+	private final EdgeMetrics metrics;
+
+	/**
+	 * Creates a new {@link EdgeMetricsMvcEndpoint} for the given {@link EdgeMetricsEndpoint}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public EdgeMetricsMvcEndpoint(EdgeMetricsEndpoint delegate) {
+
+		super(delegate);
+
+		this.metrics = delegate.getMetrics();
+	}
+
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Object stream() {
+
+		if (!getDelegate().isEnabled()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+
+		// Never time out, the emitter is completed once the client goes away
+		SseEmitter emitter = new SseEmitter(0L);
+
+		Consumer<Map<String, Object>> listener = new Consumer<Map<String, Object>>() {
+
+			@Override
+			public void accept(Map<String, Object> snapshot) {
+
+				try {
+					emitter.send(snapshot, MediaType.APPLICATION_JSON);
+				} catch (IOException | IllegalStateException o_O) {
+					metrics.removeListener(this);
+					emitter.completeWithError(o_O);
+				}
+			}
+		};
+
+		emitter.onCompletion(() -> metrics.removeListener(listener));
+		emitter.onTimeout(() -> metrics.removeListener(listener));
+
+		metrics.addListener(listener);
+
+		return emitter;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import java.util.Optional;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * The points in time of the phases of a request, kept in its {@link RequestContext}. The timings are recorded by
+ * filters running on the thread processing the request, the upstream phase spans from the route filter running right
+ * before the sharded search routing and Zuul's own routing filters to the first post filter. Thus it doesn't depend on
+ * the load balancing rule in place nor on the thread the Ribbon command is executed on.
+ *
+ * @author Oliver Gierke
+ * @see RequestTimingFilter
+ * @see UpstreamStartFilter
+ * @see UpstreamTimingFilter
+ */
+public class RequestTimings {
+
+	private static final String ATTRIBUTE = RequestTimings.class.getName();
+
+	final long start;
+	long upstreamStart, upstreamEnd;
+	String instance;
+
+	RequestTimings(long start) {
+		this.start = start;
+	}
+
+	/**
+	 * Records the start of the request with the given {@link RequestContext}.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return
+	 */
+	static RequestTimings started(RequestContext context) {
+
+		RequestTimings timings = new RequestTimings(System.nanoTime());
+		context.set(ATTRIBUTE, timings);
+
+		return timings;
+	}
+
+	/**
+	 * Returns the {@link RequestTimings} of the request with the given {@link RequestContext}, if recorded.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return
+	 */
+	public static Optional<RequestTimings> of(RequestContext context) {
+
+		Object timings = context.get(ATTRIBUTE);
+
+		return timings instanceof RequestTimings ? Optional.of((RequestTimings) timings) : Optional.empty();
+	}
+
+	/**
+	 * Records that the request is about to be sent upstream, unless that has already been recorded. Everything before
+	 * is considered time queued at the edge.
+	 */
+	public void upstreamStarted() {
+
+		if (upstreamStart == 0) {
+			this.upstreamStart = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Records the identifier of the upstream instance the request has been sent to, unless already known.
+	 *
+	 * @param instance can be {@literal null}.
+	 */
+	public void upstreamInstance(String instance) {
+
+		if (this.instance == null) {
+			this.instance = instance;
+		}
+	}
+
+	/**
+	 * Records that the upstream instance has responded.
+	 */
+	void upstreamCompleted() {
+
+		if (upstreamStart != 0 && upstreamEnd == 0) {
+			this.upstreamEnd = System.nanoTime();
+		}
+	}
+}
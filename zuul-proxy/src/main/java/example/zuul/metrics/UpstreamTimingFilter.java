@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import com.netflix.client.IResponse;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Records the completion of the upstream request before any other post filter runs, i.e. before the response is
+ * buffered or written to the client. The instance that responded is derived from the URI of the Ribbon response kept
+ * in the {@link RequestContext}, so that it's known no matter which load balancing rule picked it and on which thread.
+ *
+ * @author Oliver Gierke
+ * @see EdgeMetricsFilter
+ */
+public class UpstreamTimingFilter extends ZuulFilter {
+
+	private static final List<String> RESPONSE_ATTRIBUTES = Arrays.asList("ribbonResponse", "zuulResponse");
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "post";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return -2;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+		return true;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		RequestTimings.of(context).ifPresent(timings -> {
+
+			timings.upstreamCompleted();
+			timings.upstreamInstance(getInstance(context));
+		});
+
+		return null;
+	}
+
+	/**
+	 * Returns the identifier of the instance the Ribbon response in the given {@link RequestContext} originates from,
+	 * formatted like Ribbon server identifiers ({@code host:port}).
+	 *
+	 * @param context must not be {@literal null}.
+	 * @return the identifier or {@literal null} if the request wasn't routed by Ribbon.
+	 */
+	static String getInstance(RequestContext context) {
+
+		for (String attribute : RESPONSE_ATTRIBUTES) {
+
+			Object response = context.get(attribute);
+			URI uri = response instanceof IResponse ? ((IResponse) response).getRequestedURI() : null;
+
+			if (uri != null && uri.getHost() != null) {
+				return uri.getPort() < 0 ? uri.getHost() : String.format("%s:%s", uri.getHost(), uri.getPort());
+			}
+		}
+
+		return null;
+	}
+}
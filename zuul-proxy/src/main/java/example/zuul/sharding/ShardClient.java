@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.sharding;
+
+import example.zuul.balancing.LatencyAwareRule;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.http.RequestEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Issues requests to the instances of a shard of a service. The instance is picked among the shard's servers the
+ * service's Ribbon load balancer considers reachable, using its {@link LatencyAwareRule} if configured, the server with
+ * the fewest active requests otherwise. The requests are recorded in Ribbon's server statistics, so that they inform
+ * the balancing of all requests to the service. Requests failing with an I/O error are retried on another instance of
+ * the shard.
+ * <p>
+ * Every request is executed as {@link HystrixCommand} on the bounded {@code edge-shards} thread pool, with the
+ * configured timeout and a circuit breaker per shard.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+class ShardClient {
+
+	private static final HystrixCommandGroupKey GROUP = HystrixCommandGroupKey.Factory.asKey("edge-shards");
+	private static final HystrixThreadPoolKey POOL = HystrixThreadPoolKey.Factory.asKey("edge-shards");
+
+	private final @NonNull SpringClientFactory clients;
+	private final @NonNull RestTemplate template;
+	private final @NonNull ShardingProperties properties;
+
+	/**
+	 * Queues the request created by the given {@link Function} for one of the given instances of the shard with the
+	 * given prefixes.
+	 *
+	 * @param serviceId must not be {@literal null}.
+	 * @param prefixes the geohash prefixes of the shard, must not be {@literal null}.
+	 * @param instances the instances of the shard, must not be {@literal null}.
+	 * @param request creates the request for the picked instance, must not be {@literal null}.
+	 * @return the response body.
+	 */
+	Future<JsonNode> query(String serviceId, Set<String> prefixes, List<ServiceInstance> instances,
+			Function<ServiceInstance, RequestEntity<Void>> request) {
+
+		String shard = prefixes.isEmpty() ? serviceId : serviceId.concat("-").concat(String.join("+", prefixes));
+
+		HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP) //
+				.andCommandKey(HystrixCommandKey.Factory.asKey(shard)) //
+				.andThreadPoolKey(POOL) //
+				.andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter() //
+						.withCoreSize(properties.getThreads()) //
+						.withMaxQueueSize(properties.getQueueSize()) //
+						.withQueueSizeRejectionThreshold(properties.getQueueSize())) //
+				.andCommandPropertiesDefaults(HystrixCommandProperties.Setter() //
+						.withExecutionTimeoutInMilliseconds(properties.getTimeout()));
+
+		return new ShardRequest(setter, serviceId, instances, request).queue();
+	}
+
+	/**
+	 * A request to a single shard.
+	 *
+	 * @author Oliver Gierke
+	 */
+	private class ShardRequest extends HystrixCommand<JsonNode> {
+
+		private final String serviceId;
+		private final List<ServiceInstance> instances;
+		private final Function<ServiceInstance, RequestEntity<Void>> request;
+
+		ShardRequest(Setter setter, String serviceId, List<ServiceInstance> instances,
+				Function<ServiceInstance, RequestEntity<Void>> request) {
+
+			super(setter);
+
+			this.serviceId = serviceId;
+			this.instances = instances;
+			this.request = request;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see com.netflix.hystrix.HystrixCommand#run()
+		 */
+		@Override
+		protected JsonNode run() {
+
+			ILoadBalancer balancer = clients.getLoadBalancer(serviceId);
+
+			if (balancer == null) {
+				throw new IllegalStateException(String.format("No load balancer for service %s!", serviceId));
+			}
+
+			Map<String, ServiceInstance> candidates = instances.stream() //
+					.collect(Collectors.toMap(ShardClient::getHostPort, Function.identity(), (left, right) -> left));
+			List<Server> servers = balancer.getReachableServers().stream() //
+					.filter(it -> candidates.containsKey(it.getHostPort())) //
+					.collect(Collectors.toCollection(ArrayList::new));
+
+			Set<Server> tried = new HashSet<>();
+			RuntimeException failure = null;
+
+			for (int attempt = 0; attempt <= properties.getRetries(); attempt++) {
+
+				servers.removeAll(tried);
+
+				Server server = choose(balancer, servers);
+
+				if (server == null) {
+					break;
+				}
+
+				tried.add(server);
+
+				ServerStats stats = getStats(balancer, server);
+				long start = System.nanoTime();
+
+				if (stats != null) {
+					stats.incrementNumRequests();
+					stats.incrementActiveRequestsCount();
+				}
+
+				try {
+
+					ServiceInstance instance = candidates.get(server.getHostPort());
+					JsonNode body = template.exchange(request.apply(instance), JsonNode.class).getBody();
+
+					if (stats != null) {
+						stats.clearSuccessiveConnectionFailureCount();
+					}
+
+					return body;
+
+				} catch (ResourceAccessException o_O) {
+
+					if (stats != null) {
+						stats.incrementSuccessiveConnectionFailureCount();
+						stats.addToFailureCount();
+					}
+
+					failure = o_O;
+
+				} catch (HttpClientErrorException o_O) {
+					throw new HystrixBadRequestException("Shard rejected the request!", o_O);
+				} finally {
+
+					if (stats != null) {
+						stats.noteResponseTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+						stats.decrementActiveRequestsCount();
+					}
+				}
+			}
+
+			throw failure != null ? failure
+					: new IllegalStateException(String.format("No reachable instance of %s!", getCommandKey().name()));
+		}
+	}
+
+	private static Server choose(ILoadBalancer balancer, List<Server> servers) {
+
+		IRule rule = balancer instanceof BaseLoadBalancer ? ((BaseLoadBalancer) balancer).getRule() : null;
+
+		if (rule instanceof LatencyAwareRule) {
+			return ((LatencyAwareRule) rule).choose(servers);
+		}
+
+		List<Server> shuffled = new ArrayList<>(servers);
+		Collections.shuffle(shuffled);
+
+		return shuffled.stream() //
+				.min(Comparator.comparingInt(it -> {
+
+					ServerStats stats = getStats(balancer, it);
+
+					return stats == null ? 0 : stats.getActiveRequestsCount();
+				})) //
+				.orElse(null);
+	}
+
+	private static ServerStats getStats(ILoadBalancer balancer, Server server) {
+
+		LoadBalancerStats statistics = balancer instanceof AbstractLoadBalancer
+				? ((AbstractLoadBalancer) balancer).getLoadBalancerStats() : null;
+
+		return statistics == null ? null : statistics.getSingleServerStat(server);
+	}
+
+	private static String getHostPort(ServiceInstance instance) {
+		return instance.getHost().concat(":").concat(String.valueOf(instance.getPort()));
+	}
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.sharding;
+
+import example.geo.Distances;
+import example.geo.Geohash;
+import example.zuul.metrics.RequestTimings;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.RequestEntity;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.util.HTTPRequestUtils;
+
+/**
+ * Routes location searches to the shards of the store service. Store instances holding a part of all stores advertise
+ * the geohash prefixes of their stores in their registry metadata, instances advertising the same prefixes form a
+ * shard. The searched circle is covered with geohash cells and only the shards owning any of them are queried, in
+ * parallel through the {@link ShardClient}, with the requested page widened to start at the first result. Their results
+ * are merged in distance order and the requested page is sliced from them. As every shard is asked for all results up
+ * to the end of the requested page, pages reaching beyond the store service's maximum page size are rejected.
+ * <p>
+ * The search parameters are read from the query parameters of the current {@link RequestContext}, i.e. after the edge
+ * cache quantized the location. Requests to a store service that is not sharded are left to Zuul's
+ * {@code RibbonRoutingFilter}, which this filter runs right before.
+ *
+ * @author Oliver Gierke
+ */
+@RequiredArgsConstructor
+public class ShardedSearchRouteFilter extends ZuulFilter {
+
+	static final String SHARDED_INSTANCE = "shards";
+
+	private static final Pattern DISTANCE = Pattern.compile("\\s*(\\d+(?:\\.\\d+)?)\\s*([a-zA-Z]*)\\s*");
+	private static final double KILOMETERS_PER_MILE = 1.609344;
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
+	private final PathMatcher matcher = new AntPathMatcher();
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final @NonNull DiscoveryClient discovery;
+	private final @NonNull ShardClient client;
+	private final @NonNull ShardingProperties properties;
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterType()
+	 */
+	@Override
+	public String filterType() {
+		return "route";
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.ZuulFilter#filterOrder()
+	 */
+	@Override
+	public int filterOrder() {
+		return 9;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#shouldFilter()
+	 */
+	@Override
+	public boolean shouldFilter() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		Object uri = context.get("requestURI");
+
+		return context.sendZuulResponse() && context.getRouteHost() == null && context.get("serviceId") != null
+				&& "GET".equals(context.getRequest().getMethod()) && uri != null
+				&& matcher.match(properties.getPath(), uri.toString());
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.netflix.zuul.IZuulFilter#run()
+	 */
+	@Override
+	public Object run() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		HttpServletRequest request = context.getRequest();
+		Map<String, List<String>> parameters = HTTPRequestUtils.getInstance().getQueryParams();
+
+		String serviceId = context.get("serviceId").toString();
+		Map<Set<String>, List<ServiceInstance>> shards = getShards(serviceId);
+
+		Optional<double[]> location = parseLocation(getParameter(parameters, "location"));
+
+		// Not sharded or not a valid search, forwarded by Ribbon on its own
+		if (shards.isEmpty() || !location.isPresent()) {
+			return null;
+		}
+
+		double latitude = location.get()[0], longitude = location.get()[1];
+		int page = parseInt(getParameter(parameters, "page"), 0);
+		int size = Math.min(properties.getMaxResults(),
+				Math.max(1, parseInt(getParameter(parameters, "size"), DEFAULT_PAGE_SIZE)));
+
+		if ((long) (page + 1) * size > properties.getMaxResults()) {
+
+			context.set("error.status_code", HttpServletResponse.SC_BAD_REQUEST);
+			context.set("error.message", String.format("Sharded searches are limited to the first %s results!",
+					properties.getMaxResults()));
+			context.setSendZuulResponse(false);
+
+			return null;
+		}
+
+		Map<Set<String>, List<ServiceInstance>> targets = route(shards, latitude, longitude,
+				getParameter(parameters, "distance"));
+
+		RequestTimings.of(context).ifPresent(it -> {
+
+			it.upstreamStarted();
+			it.upstreamInstance(SHARDED_INSTANCE);
+		});
+
+		try {
+
+			List<JsonNode> results = scatter(context, serviceId, targets, parameters, (page + 1) * size);
+
+			context.setResponseStatusCode(HttpServletResponse.SC_OK);
+			context.addZuulResponseHeader(HttpHeaders.CONTENT_TYPE, MediaTypes.HAL_JSON_VALUE);
+			context.setResponseDataStream(null);
+			context.setResponseBody(merge(request, results, latitude, longitude, page, size));
+
+		} catch (TimeoutException | ExecutionException | RuntimeException o_O) {
+
+			context.set("error.status_code", HttpServletResponse.SC_BAD_GATEWAY);
+			context.set("error.message", "Searching the store shards failed!");
+			context.set("error.exception", o_O);
+
+		} catch (InterruptedException o_O) {
+
+			Thread.currentThread().interrupt();
+
+			context.set("error.status_code", HttpServletResponse.SC_BAD_GATEWAY);
+			context.set("error.exception", o_O);
+		}
+
+		context.setSendZuulResponse(false);
+
+		return null;
+	}
+
+	/**
+	 * Returns the instances of the service with the given identifier grouped by the geohash prefixes they advertise, an
+	 * empty {@link Map} if no instance holds a part of the stores only.
+	 *
+	 * @param serviceId must not be {@literal null}.
+	 * @return
+	 */
+	private Map<Set<String>, List<ServiceInstance>> getShards(String serviceId) {
+
+		Map<Set<String>, List<ServiceInstance>> shards = discovery.getInstances(serviceId).stream() //
+				.collect(Collectors.groupingBy(this::getPrefixes, LinkedHashMap::new, Collectors.toList()));
+
+		return shards.keySet().stream().allMatch(Set::isEmpty) ? Collections.emptyMap() : shards;
+	}
+
+	private Set<String> getPrefixes(ServiceInstance instance) {
+
+		Map<String, String> metadata = instance.getMetadata();
+		String prefixes = metadata == null ? null : metadata.get(properties.getMetadataKey());
+
+		return StringUtils.commaDelimitedListToSet(prefixes == null ? "" : prefixes.toLowerCase()).stream() //
+				.map(String::trim) //
+				.filter(StringUtils::hasText) //
+				.collect(Collectors.toCollection(TreeSet::new));
+	}
+
+	/**
+	 * Returns the shards owning stores within the given distance of the given location. If any of the shards holds all
+	 * stores, only that one is returned. Distances that can't be interpreted in kilometers cause all shards to be
+	 * queried.
+	 *
+	 * @param shards must not be {@literal null}.
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param distance can be {@literal null}.
+	 * @return
+	 */
+	Map<Set<String>, List<ServiceInstance>> route(Map<Set<String>, List<ServiceInstance>> shards,
+			double latitude, double longitude, String distance) {
+
+		List<ServiceInstance> complete = shards.get(Collections.<String> emptySet());
+
+		if (complete != null) {
+			return Collections.singletonMap(Collections.emptySet(), complete);
+		}
+
+		Optional<Double> kilometers = parseKilometers(distance);
+
+		if (!kilometers.isPresent()) {
+			return shards;
+		}
+
+		double[] box = Distances.boundingBox(latitude, longitude, kilometers.get());
+		SortedSet<String> cells = Geohash.cover(box[0], box[1], box[2], box[3], properties.getMaxCells());
+
+		return shards.entrySet().stream() //
+				.filter(shard -> shard.getKey().stream().anyMatch(
+						prefix -> cells.stream().anyMatch(cell -> cell.startsWith(prefix) || prefix.startsWith(cell)))) //
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue, (left, right) -> left, LinkedHashMap::new));
+	}
+
+	/**
+	 * Issues the current request to each of the given shards in parallel, asking for the given number of results
+	 * starting with the first one.
+	 *
+	 * @param context must not be {@literal null}.
+	 * @param serviceId must not be {@literal null}.
+	 * @param shards must not be {@literal null}.
+	 * @param parameters the query parameters of the current request, can be {@literal null}.
+	 * @param size the number of results to request from every shard.
+	 * @return the response bodies.
+	 */
+	private List<JsonNode> scatter(RequestContext context, String serviceId,
+			Map<Set<String>, List<ServiceInstance>> shards, Map<String, List<String>> parameters, int size)
+			throws InterruptedException, ExecutionException, TimeoutException {
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Collections.singletonList(MediaTypes.HAL_JSON));
+		context.getZuulRequestHeaders().forEach(headers::set);
+
+		Function<ServiceInstance, RequestEntity<Void>> request = instance -> {
+
+			UriComponentsBuilder builder = UriComponentsBuilder.fromUri(instance.getUri()) //
+					.path(context.get("requestURI").toString());
+
+			if (parameters != null) {
+				parameters.forEach((name, values) -> builder.queryParam(name, values.toArray()));
+			}
+
+			URI uri = builder.replaceQueryParam("page", 0) //
+					.replaceQueryParam("size", size) //
+					.build().encode().toUri();
+
+			return new RequestEntity<>(headers, HttpMethod.GET, uri);
+		};
+
+		List<Future<JsonNode>> responses = shards.entrySet().stream() //
+				.map(it -> client.query(serviceId, it.getKey(), it.getValue(), request)) //
+				.collect(Collectors.toList());
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTimeout());
+		List<JsonNode> results = new ArrayList<>(responses.size());
+
+		try {
+
+			for (Future<JsonNode> response : responses) {
+				results.add(response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+			}
+
+		} finally {
+			responses.forEach(it -> it.cancel(true));
+		}
+
+		return results;
+	}
+
+	/**
+	 * Merges the stores contained in the given shard responses in distance order and renders the requested page of them
+	 * as HAL document.
+	 *
+	 * @param request must not be {@literal null}.
+	 * @param results must not be {@literal null}.
+	 * @param latitude in degrees.
+	 * @param longitude in degrees.
+	 * @param page the requested page number.
+	 * @param size the requested page size.
+	 * @return
+	 */
+	private String merge(HttpServletRequest request, List<JsonNode> results, double latitude, double longitude,
+			int page, int size) {
+
+		List<JsonNode> stores = new ArrayList<>();
+		long total = 0;
+
+		for (JsonNode result : results) {
+
+			result.path("_embedded").path("stores").forEach(stores::add);
+			total += result.path("page").path("totalElements").asLong(0);
+		}
+
+		stores.sort(Comparator.comparingDouble(store -> {
+
+			JsonNode location = store.path("address").path("location");
+
+			return Distances.between(latitude, longitude, location.path("y").asDouble(), location.path("x").asDouble());
+		}));
+
+		ObjectNode document = mapper.createObjectNode();
+		ArrayNode content = document.putObject("_embedded").putArray("stores");
+
+		stores.stream().skip((long) page * size).limit(size).forEach(content::add);
+
+		String query = request.getQueryString();
+
+		document.putObject("_links").putObject("self").put("href",
+				request.getRequestURL().append(query == null ? "" : "?".concat(query)).toString());
+
+		ObjectNode metadata = document.putObject("page");
+		metadata.put("size", size);
+		metadata.put("totalElements", total);
+		metadata.put("totalPages", (total + size - 1) / size);
+		metadata.put("number", page);
+
+		try {
+			return new String(mapper.writeValueAsBytes(document), StandardCharsets.UTF_8);
+		} catch (IOException o_O) {
+			throw new UncheckedIOException(o_O);
+		}
+	}
+
+	/**
+	 * Parses coordinates formatted as {@code latitude,longitude}.
+	 *
+	 * @param source can be {@literal null}.
+	 * @return
+	 */
+	private static Optional<double[]> parseLocation(String source) {
+
+		String[] parts = StringUtils.commaDelimitedListToStringArray(source);
+
+		if (parts.length != 2) {
+			return Optional.empty();
+		}
+
+		try {
+			return Optional.of(new double[] { Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()) });
+		} catch (NumberFormatException o_O) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Parses distances formatted as a number followed by {@code km} or {@code mi} (or their long forms) into kilometers.
+	 *
+	 * @param source can be {@literal null}.
+	 * @return the distance in kilometers or {@link Optional#empty()} if the source doesn't carry a supported unit.
+	 */
+	private static Optional<Double> parseKilometers(String source) {
+
+		Matcher matcher = source == null ? null : DISTANCE.matcher(source);
+
+		if (matcher == null || !matcher.matches()) {
+			return Optional.empty();
+		}
+
+		double value = Double.parseDouble(matcher.group(1));
+
+		switch (matcher.group(2).toLowerCase()) {
+			case "km":
+			case "kilometer":
+			case "kilometers":
+				return Optional.of(value);
+			case "mi":
+			case "mile":
+			case "miles":
+				return Optional.of(value * KILOMETERS_PER_MILE);
+			default:
+				return Optional.empty();
+		}
+	}
+
+	private static String getParameter(Map<String, List<String>> parameters, String name) {
+
+		List<String> values = parameters == null ? null : parameters.get(name);
+
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+
+	private static int parseInt(String source, int defaultValue) {
+
+		try {
+			return source == null ? defaultValue : Math.max(0, Integer.parseInt(source.trim()));
+		} catch (NumberFormatException o_O) {
+			return defaultValue;
+		}
+	}
+}
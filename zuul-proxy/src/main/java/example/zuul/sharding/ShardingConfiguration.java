@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.sharding;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Registers the filter to route location searches to the shards of the store service if
+ * {@code edge.sharding.enabled} is not set to {@literal false}.
+ *
+ * @author Oliver Gierke
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "edge.sharding", name = "enabled", matchIfMissing = true)
+class ShardingConfiguration {
+
+	@Bean
+	public ShardedSearchRouteFilter shardedSearchRouteFilter(DiscoveryClient discovery, SpringClientFactory clients,
+			ShardingProperties properties) {
+
+		SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+		factory.setConnectTimeout(properties.getTimeout());
+		factory.setReadTimeout(properties.getTimeout());
+
+		ShardClient client = new ShardClient(clients, new RestTemplate(factory), properties);
+
+		return new ShardedSearchRouteFilter(discovery, client, properties);
+	}
+}
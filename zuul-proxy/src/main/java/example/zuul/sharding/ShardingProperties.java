@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.sharding;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for routing store searches to the shards of the store service.
+ *
+ * @author Oliver Gierke
+ */
+@Data
+@ConfigurationProperties("edge.sharding")
+public class ShardingProperties {
+
+	/**
+	 * Whether to route location searches to the shards owning the searched area and merge their results.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Ant-style pattern of the (upstream) request URI of the location search.
+	 */
+	private String path = "/stores/search/findByAddressLocationNear";
+
+	/**
+	 * The name of the registry metadata entry the instances of a shard advertise their geohash prefixes with.
+	 */
+	private String metadataKey = "shard-prefixes";
+
+	/**
+	 * The maximum number of geohash cells used to cover the searched area.
+	 */
+	private int maxCells = 16;
+
+	/**
+	 * The maximum number of results a shard returns for a single request, i.e. the maximum page size of the store
+	 * service. Larger pages are capped to it, searches for pages reaching beyond it are rejected.
+	 */
+	private int maxResults = 1_000;
+
+	/**
+	 * The time in milliseconds to wait for the responses of all shards.
+	 */
+	private int timeout = 5_000;
+
+	/**
+	 * The number of other instances of a shard to try if a request fails with an I/O error.
+	 */
+	private int retries = 1;
+
+	/**
+	 * The number of threads to query shards with.
+	 */
+	private int threads = 20;
+
+	/**
+	 * The maximum number of shard requests waiting for a thread before further ones are rejected.
+	 */
+	private int queueSize = 100;
+}
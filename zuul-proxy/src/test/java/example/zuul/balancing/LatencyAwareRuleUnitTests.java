@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.balancing;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Unit tests for {@link LatencyAwareRule}.
+ *
+ * @author Oliver Gierke
+ */
+public class LatencyAwareRuleUnitTests {
+
+	Server first = new Server("first", 8080), second = new Server("second", 8080);
+	List<Server> servers = Arrays.asList(first, second);
+
+	BaseLoadBalancer balancer = new BaseLoadBalancer();
+	LatencyAwareRule rule = new LatencyAwareRule(1);
+
+	@Before
+	public void setUp() {
+		rule.setLoadBalancer(balancer);
+	}
+
+	@Test
+	public void picksFasterOfTwoServers() {
+
+		respond(first, 10, 100);
+		respond(second, 10, 10);
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(rule.choose(servers), is(second));
+		}
+	}
+
+	@Test
+	public void weighsLatencyByActiveRequests() {
+
+		respond(first, 10, 100);
+		respond(second, 10, 10);
+
+		for (int i = 0; i < 10; i++) {
+			stats(second).incrementActiveRequestsCount();
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(rule.choose(servers), is(first));
+		}
+	}
+
+	@Test
+	public void derivesLatencyFromResponsesSinceLastObservation() {
+
+		respond(first, 10, 100);
+		rule.choose(servers);
+
+		assertThat(rule.getLatency(first), is(closeTo(100, 0.01)));
+
+		respond(first, 10, 10);
+		rule.choose(servers);
+
+		// Cumulative average is 55, the responses since the last observation took 10ms
+		assertThat(stats(first).getResponseTimeAvg(), is(closeTo(55, 0.01)));
+		assertThat(rule.getLatency(first), is(closeTo(10, 0.01)));
+	}
+
+	@Test
+	public void doesNotPreferServersWithoutResponsesOverLoadedOnes() {
+
+		respond(first, 10, 10);
+
+		for (int i = 0; i < 5; i++) {
+			stats(second).incrementActiveRequestsCount();
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(rule.choose(servers), is(first));
+		}
+	}
+
+	@Test
+	public void assumesAverageLatencyForServersWithoutResponses() {
+
+		Server third = new Server("third", 8080);
+		List<Server> slowAndUnknown = Arrays.asList(first, third);
+
+		respond(first, 10, 100);
+		respond(second, 10, 10);
+		rule.choose(servers);
+
+		// Unknown server is assumed to take 55ms, i.e. it's preferred over the slow one only
+		for (int i = 0; i < 20; i++) {
+			assertThat(rule.choose(slowAndUnknown), is(third));
+		}
+
+		stats(third).incrementActiveRequestsCount();
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(rule.choose(slowAndUnknown), is(first));
+		}
+	}
+
+	@Test
+	public void returnsSingleServerOrNull() {
+
+		assertThat(rule.choose(Arrays.asList(first)), is(first));
+		assertThat(rule.choose(Arrays.<Server> asList()), is(nullValue()));
+	}
+
+	private void respond(Server server, int count, double latency) {
+
+		ServerStats stats = stats(server);
+
+		for (int i = 0; i < count; i++) {
+			stats.noteResponseTime(latency);
+		}
+	}
+
+	private ServerStats stats(Server server) {
+		return balancer.getLoadBalancerStats().getSingleServerStat(server);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.zuul.BufferedResponse;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Unit tests for {@link EdgeCachePreFilter}.
+ *
+ * @author Oliver Gierke
+ */
+public class EdgeCachePreFilterUnitTests {
+
+	EdgeCacheProperties properties = new EdgeCacheProperties();
+	EdgeCache cache = new EdgeCache(properties);
+	EdgeCachePreFilter filter = new EdgeCachePreFilter(cache, properties);
+
+	@Before
+	public void setUp() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@After
+	public void tearDown() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@Test
+	public void roundsCoordinatesToConfiguredPrecision() {
+
+		RequestContext context = setUpRequest("localhost", "location=40.730610,-73.9352&distance=5.12345km");
+
+		filter.run();
+
+		assertThat(context.getRequestQueryParams().get("location"), is(Arrays.asList("40.731,-73.935")));
+		assertThat(context.getRequestQueryParams().get("distance"), is(Arrays.asList("5.12345km")));
+	}
+
+	@Test
+	public void keepsInvalidCoordinatesUnchanged() {
+
+		RequestContext context = setUpRequest("localhost", "location=foo,bar");
+
+		filter.run();
+
+		assertThat(context.getRequestQueryParams().get("location"), is(Arrays.asList("foo,bar")));
+	}
+
+	@Test
+	public void usesSameKeyForNearbyLocations() {
+
+		setUpRequest("localhost", "location=40.73061,-73.93524");
+		filter.run();
+		Object first = RequestContext.getCurrentContext().get(EdgeCachePreFilter.CACHE_KEY);
+
+		RequestContext.getCurrentContext().unset();
+
+		setUpRequest("localhost", "location=40.73089,-73.93501");
+		filter.run();
+		Object second = RequestContext.getCurrentContext().get(EdgeCachePreFilter.CACHE_KEY);
+
+		assertThat(first, is(second));
+	}
+
+	@Test
+	public void includesHostInKey() {
+
+		setUpRequest("localhost", "location=40.73061,-73.93524");
+		filter.run();
+		Object first = RequestContext.getCurrentContext().get(EdgeCachePreFilter.CACHE_KEY);
+
+		RequestContext.getCurrentContext().unset();
+
+		setUpRequest("example.com", "location=40.73061,-73.93524");
+		filter.run();
+		Object second = RequestContext.getCurrentContext().get(EdgeCachePreFilter.CACHE_KEY);
+
+		assertThat(first, is(not(second)));
+	}
+
+	@Test
+	public void servesCachedResponse() throws Exception {
+
+		RequestContext context = setUpRequest("localhost", "location=40.73061,-73.93524");
+		filter.run();
+
+		RequestContext upstream = new RequestContext();
+		upstream.setResponseStatusCode(200);
+		upstream.setResponseBody("body");
+
+		String key = context.get(EdgeCachePreFilter.CACHE_KEY).toString();
+		cache.put(key, BufferedResponse.capture(upstream), "\"1\"", context.getRequest());
+
+		context.unset();
+		context = setUpRequest("localhost", "location=40.73061,-73.93524");
+		filter.run();
+
+		assertThat(context.sendZuulResponse(), is(false));
+		assertThat(context.get(EdgeCachePreFilter.CACHE_HIT), is((Object) true));
+		assertThat(context.getResponseStatusCode(), is(200));
+	}
+
+	private static RequestContext setUpRequest(String host, String query) {
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stores/stores/search/by-location");
+		request.setQueryString(query);
+		request.addHeader(HttpHeaders.HOST, host);
+
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setRequest(request);
+		context.set("serviceId", "stores");
+		context.set("requestURI", "/stores/search/by-location");
+
+		return context;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.cache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.zuul.BufferedResponse;
+import example.zuul.cache.EdgeCache.CachedResponse;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Unit tests for {@link EdgeCache}.
+ *
+ * @author Oliver Gierke
+ */
+public class EdgeCacheUnitTests {
+
+	EdgeCacheProperties properties = new EdgeCacheProperties();
+	MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stores/search/by-location");
+
+	EdgeCache cache;
+
+	@Before
+	public void setUp() {
+		this.cache = new EdgeCache(properties);
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedEntryBeyondMaxEntries() throws Exception {
+
+		properties.setMaxEntries(2);
+
+		cache.put("first", response("first"), "\"1\"", request);
+		cache.put("second", response("second"), "\"2\"", request);
+
+		cache.get("first", request);
+		cache.put("third", response("third"), "\"3\"", request);
+
+		assertThat(cache.get("first", request).isPresent(), is(true));
+		assertThat(cache.get("second", request).isPresent(), is(false));
+		assertThat(cache.get("third", request).isPresent(), is(true));
+	}
+
+	@Test
+	public void evictsEntriesBeyondMaxBytes() throws Exception {
+
+		properties.setMaxBytes(10);
+
+		cache.put("first", response("12345"), "\"1\"", request);
+		cache.put("second", response("12345"), "\"2\"", request);
+		cache.put("third", response("12345"), "\"3\"", request);
+
+		assertThat(cache.get("first", request).isPresent(), is(false));
+		assertThat(cache.get("second", request).isPresent(), is(true));
+		assertThat(cache.get("third", request).isPresent(), is(true));
+		assertThat(getMetric("edge.cache.bytes"), is(10L));
+	}
+
+	@Test
+	public void doesNotCacheResponsesExceedingMaxEntryBytes() throws Exception {
+
+		properties.setMaxEntryBytes(4);
+
+		assertThat(cache.put("key", response("12345"), "\"1\"", request), is(false));
+		assertThat(cache.get("key", request).isPresent(), is(false));
+	}
+
+	@Test
+	public void expiresEntriesAfterTimeToLive() throws Exception {
+
+		properties.setTimeToLive(10);
+
+		cache.put("key", response("body"), "\"1\"", request);
+
+		Thread.sleep(50);
+
+		assertThat(cache.get("key", request).isPresent(), is(false));
+		assertThat(getMetric("edge.cache.entries"), is(0L));
+	}
+
+	@Test
+	public void capsTimeToLiveByMaxAge() throws Exception {
+
+		long now = System.currentTimeMillis();
+
+		cache.put("key", response("body", HttpHeaders.CACHE_CONTROL, "public, max-age=1"), "\"1\"", request);
+
+		Optional<CachedResponse> cached = cache.get("key", request);
+
+		assertThat(cached.isPresent(), is(true));
+		assertThat(cached.get().getExpires(), is(lessThanOrEqualTo(System.currentTimeMillis() + 1000)));
+		assertThat(cached.get().getExpires(), is(greaterThanOrEqualTo(now + 1000)));
+	}
+
+	@Test
+	public void prefersSharedMaxAge() throws Exception {
+
+		BufferedResponse response = response("body", HttpHeaders.CACHE_CONTROL, "max-age=60, s-maxage=0");
+
+		assertThat(cache.isCacheable(response), is(false));
+	}
+
+	@Test
+	public void doesNotCachePrivateOrUncacheableResponses() throws Exception {
+
+		assertThat(cache.isCacheable(response("body", HttpHeaders.CACHE_CONTROL, "private, max-age=60")), is(false));
+		assertThat(cache.isCacheable(response("body", HttpHeaders.CACHE_CONTROL, "no-store")), is(false));
+		assertThat(cache.isCacheable(response("body", HttpHeaders.CACHE_CONTROL, "No-Cache")), is(false));
+		assertThat(cache.isCacheable(response("body", HttpHeaders.CACHE_CONTROL, "max-age=0")), is(false));
+		assertThat(cache.isCacheable(response("body", HttpHeaders.VARY, "*")), is(false));
+		assertThat(cache.isCacheable(response("body", HttpHeaders.CACHE_CONTROL, "public")), is(true));
+		assertThat(cache.isCacheable(response("body")), is(true));
+
+		BufferedResponse response = response("body", HttpHeaders.CACHE_CONTROL, "private");
+
+		assertThat(cache.put("key", response, "\"1\"", request), is(false));
+	}
+
+	@Test
+	public void onlyServesResponsesToRequestsOfTheSameVariant() throws Exception {
+
+		request.addHeader(HttpHeaders.ACCEPT_LANGUAGE, "de");
+
+		cache.put("key", response("body", HttpHeaders.VARY, "Accept-Language, Origin"), "\"1\"", request);
+
+		MockHttpServletRequest other = new MockHttpServletRequest("GET", "/stores/search/by-location");
+		other.addHeader(HttpHeaders.ACCEPT_LANGUAGE, "en");
+
+		MockHttpServletRequest same = new MockHttpServletRequest("GET", "/stores/search/by-location");
+		same.addHeader(HttpHeaders.ACCEPT_LANGUAGE, "de");
+
+		assertThat(cache.get("key", same).isPresent(), is(true));
+		assertThat(cache.get("key", other).isPresent(), is(false));
+	}
+
+	@Test
+	public void matchesEntityTagsWeakly() {
+
+		assertThat(EdgeCache.matches(null, "\"1\""), is(false));
+		assertThat(EdgeCache.matches("\"1\"", "\"1\""), is(true));
+		assertThat(EdgeCache.matches("W/\"1\"", "\"1\""), is(true));
+		assertThat(EdgeCache.matches("\"1\"", "W/\"1\""), is(true));
+		assertThat(EdgeCache.matches("\"2\", W/\"1\"", "\"1\""), is(true));
+		assertThat(EdgeCache.matches("*", "\"1\""), is(true));
+		assertThat(EdgeCache.matches("\"2\"", "\"1\""), is(false));
+	}
+
+	private long getMetric(String name) {
+
+		return cache.metrics().stream() //
+				.filter(it -> it.getName().equals(name)) //
+				.findFirst() //
+				.map(it -> it.getValue().longValue()) //
+				.orElseThrow(() -> new IllegalArgumentException(name));
+	}
+
+	private static BufferedResponse response(String body, String... headers) throws IOException {
+
+		RequestContext context = new RequestContext();
+		context.setResponseStatusCode(200);
+		context.setResponseBody(body);
+
+		for (int i = 0; i < headers.length; i += 2) {
+			context.addZuulResponseHeader(headers[i], headers[i + 1]);
+		}
+
+		return BufferedResponse.capture(context);
+	}
+}
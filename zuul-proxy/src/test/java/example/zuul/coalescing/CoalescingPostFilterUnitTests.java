@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.zuul.BufferedResponse;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Unit tests for {@link CoalescingPostFilter}.
+ *
+ * @author Oliver Gierke
+ */
+public class CoalescingPostFilterUnitTests {
+
+	@After
+	public void tearDown() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@Test
+	public void considersSuccessfulResponseNoFailure() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setResponseStatusCode(200);
+
+		assertThat(CoalescingPostFilter.getFailure(context), is(nullValue()));
+	}
+
+	@Test
+	public void considersErrorStatusCodeAFailure() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setResponseStatusCode(200);
+		context.set(CoalescingPostFilter.ERROR_STATUS_CODE, 502);
+
+		assertThat(CoalescingPostFilter.getFailure(context), is(notNullValue()));
+	}
+
+	@Test
+	public void considersErrorExceptionAFailure() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		IllegalStateException exception = new IllegalStateException();
+
+		context.setResponseStatusCode(200);
+		context.set(CoalescingPostFilter.ERROR_EXCEPTION, exception);
+
+		assertThat(CoalescingPostFilter.getFailure(context), is((Throwable) exception));
+	}
+
+	@Test
+	public void considersServerErrorAFailure() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setResponseStatusCode(503);
+
+		assertThat(CoalescingPostFilter.getFailure(context), is(notNullValue()));
+	}
+
+	@Test
+	public void abortsFlightOfFailedRequest() throws Exception {
+		assertThat(runWithWaitingRequest(200, 500).isPresent(), is(false));
+	}
+
+	@Test
+	public void landsFlightOfSuccessfulRequest() throws Exception {
+
+		Optional<BufferedResponse> response = runWithWaitingRequest(200, null);
+
+		assertThat(response.isPresent(), is(true));
+		assertThat(response.get().getStatus(), is(200));
+	}
+
+	/**
+	 * Runs the filter for a request leading a flight another request is waiting for and returns what the waiting
+	 * request got.
+	 */
+	private static Optional<BufferedResponse> runWithWaitingRequest(int status, Integer errorStatus)
+			throws Exception {
+
+		CoalescingProperties properties = new CoalescingProperties();
+		SingleFlight flights = new SingleFlight(properties);
+		RequestContext context = RequestContext.getCurrentContext();
+
+		context.set(CoalescingRouteFilter.FLIGHT, flights.lead("stores", "key").get());
+		context.setResponseStatusCode(status);
+		context.setResponseBody("body");
+
+		if (errorStatus != null) {
+			context.set(CoalescingPostFilter.ERROR_STATUS_CODE, errorStatus);
+		}
+
+		CompletableFuture<Optional<BufferedResponse>> follower = CompletableFuture
+				.supplyAsync(() -> flights.follow("stores", "key"));
+
+		for (int i = 0; i < 200 && !isWaiting(flights); i++) {
+			Thread.sleep(5);
+		}
+
+		new CoalescingPostFilter(flights).run();
+
+		return follower.get(1, TimeUnit.SECONDS);
+	}
+
+	private static boolean isWaiting(SingleFlight flights) {
+
+		return flights.metrics().stream() //
+				.anyMatch(it -> it.getName().equals("edge.coalescing.stores.waiters") && it.getValue().intValue() > 0);
+	}
+}
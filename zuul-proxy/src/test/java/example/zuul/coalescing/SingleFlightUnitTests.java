@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.coalescing;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import example.zuul.BufferedResponse;
+import example.zuul.coalescing.SingleFlight.Flight;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ *
+ * @author Oliver Gierke
+ */
+public class SingleFlightUnitTests {
+
+	static final String ROUTE = "stores", KEY = "GET /stores/search";
+
+	CoalescingProperties properties;
+	SingleFlight flights;
+
+	@Before
+	public void setUp() {
+
+		this.properties = new CoalescingProperties();
+		this.properties.setTimeout(5_000);
+		this.flights = new SingleFlight(properties);
+	}
+
+	@Test
+	public void onlyFirstRequestLeadsFlight() {
+
+		assertThat(flights.lead(ROUTE, KEY).isPresent(), is(true));
+		assertThat(flights.lead(ROUTE, KEY).isPresent(), is(false));
+		assertThat(flights.lead(ROUTE, "GET /stores/search/other").isPresent(), is(true));
+	}
+
+	@Test
+	public void handsLandedResponseToWaitingRequests() throws Exception {
+
+		Flight flight = flights.lead(ROUTE, KEY).get();
+		CompletableFuture<Optional<BufferedResponse>> follower = follow();
+
+		flights.land(flight, response(200, "body"));
+
+		Optional<BufferedResponse> response = follower.get(1, TimeUnit.SECONDS);
+
+		assertThat(response.isPresent(), is(true));
+		assertThat(response.get().getStatus(), is(200));
+		assertThat(metric("followers"), is(1L));
+	}
+
+	@Test
+	public void startsNewFlightAfterLanding() throws Exception {
+
+		flights.land(flights.lead(ROUTE, KEY).get(), response(200, "body"));
+
+		assertThat(flights.follow(ROUTE, KEY).isPresent(), is(false));
+		assertThat(flights.lead(ROUTE, KEY).isPresent(), is(true));
+	}
+
+	@Test
+	public void forwardsWaitingRequestsOnTheirOwnIfFlightIsAborted() throws Exception {
+
+		Flight flight = flights.lead(ROUTE, KEY).get();
+		CompletableFuture<Optional<BufferedResponse>> follower = follow();
+
+		flights.abort(flight, new IllegalStateException());
+
+		assertThat(follower.get(1, TimeUnit.SECONDS).isPresent(), is(false));
+		assertThat(metric("fallbacks"), is(1L));
+		assertThat(flights.lead(ROUTE, KEY).isPresent(), is(true));
+	}
+
+	@Test
+	public void rejectsRequestsExceedingMaxWaiters() throws Exception {
+
+		properties.setMaxWaiters(1);
+
+		Flight flight = flights.lead(ROUTE, KEY).get();
+		CompletableFuture<Optional<BufferedResponse>> follower = follow();
+
+		assertThat(flights.follow(ROUTE, KEY).isPresent(), is(false));
+		assertThat(metric("rejected"), is(1L));
+
+		flights.land(flight, response(200, "body"));
+
+		assertThat(follower.get(1, TimeUnit.SECONDS).isPresent(), is(true));
+		assertThat(metric("waiters"), is(0L));
+	}
+
+	@Test
+	public void appliesRouteSpecificMaxWaiters() {
+
+		properties.getRouteMaxWaiters().put(ROUTE, 0);
+
+		flights.lead(ROUTE, KEY);
+
+		assertThat(flights.follow(ROUTE, KEY).isPresent(), is(false));
+		assertThat(metric("rejected"), is(1L));
+	}
+
+	@Test
+	public void forwardsWaitingRequestsOnTheirOwnAfterTimeout() {
+
+		properties.setTimeout(50);
+
+		flights.lead(ROUTE, KEY);
+
+		assertThat(flights.follow(ROUTE, KEY).isPresent(), is(false));
+		assertThat(metric("fallbacks"), is(1L));
+		assertThat(metric("waiters"), is(0L));
+	}
+
+	/**
+	 * Follows the flight for {@link #KEY} in a separate thread and returns once the request is waiting.
+	 */
+	private CompletableFuture<Optional<BufferedResponse>> follow() throws InterruptedException {
+
+		long waiting = metric("waiters");
+		CompletableFuture<Optional<BufferedResponse>> follower = CompletableFuture
+				.supplyAsync(() -> flights.follow(ROUTE, KEY));
+
+		for (int i = 0; i < 200 && metric("waiters") == waiting; i++) {
+			Thread.sleep(5);
+		}
+
+		assertThat(metric("waiters"), is(waiting + 1));
+
+		return follower;
+	}
+
+	private long metric(String name) {
+
+		return flights.metrics().stream() //
+				.filter(it -> it.getName().equals("edge.coalescing." + ROUTE + "." + name)) //
+				.map(Metric::getValue) //
+				.mapToLong(Number::longValue) //
+				.findFirst().orElse(0L);
+	}
+
+	static BufferedResponse response(int status, String body) throws IOException {
+
+		RequestContext context = new RequestContext();
+		context.setResponseStatusCode(status);
+		context.setResponseBody(body);
+
+		return BufferedResponse.capture(context);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EdgeMetrics}.
+ *
+ * @author Oliver Gierke
+ */
+public class EdgeMetricsUnitTests {
+
+	static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	EdgeMetrics metrics = new EdgeMetrics(TimeUnit.HOURS.toMillis(1));
+
+	@After
+	public void tearDown() {
+		metrics.destroy();
+	}
+
+	@Test
+	public void recordsRequestPhasesPerRouteAndInstance() {
+
+		RequestTimings timings = new RequestTimings(0);
+		timings.upstreamStart = 2 * MILLIS;
+		timings.upstreamEnd = 12 * MILLIS;
+		timings.instance = "10.0.0.1:8081";
+
+		metrics.record("stores", timings, 15 * MILLIS, 100, 2000);
+		metrics.roll();
+
+		Map<String, Object> route = get(metrics.snapshot(), "stores");
+
+		assertThat(route.get("requests"), is((Object) 1L));
+		assertThat(route.get("requestBytes"), is((Object) 100L));
+		assertThat(route.get("responseBytes"), is((Object) 2000L));
+		assertThat(max(route, "total"), is(closeTo(15, 0.1)));
+		assertThat(max(route, "queued"), is(closeTo(2, 0.1)));
+		assertThat(max(route, "upstream"), is(closeTo(10, 0.1)));
+		assertThat(max(get(route, "instances"), "10.0.0.1:8081"), is(closeTo(10, 0.1)));
+	}
+
+	@Test
+	public void onlyRecordsTotalTimeWithoutUpstreamPhase() {
+
+		metrics.record("stores", new RequestTimings(0), 5 * MILLIS, -1, -1);
+		metrics.roll();
+
+		Map<String, Object> route = get(metrics.snapshot(), "stores");
+
+		assertThat(count(route, "total"), is(1L));
+		assertThat(count(route, "upstream"), is(0L));
+		assertThat(route.get("requestBytes"), is((Object) 0L));
+		assertThat(get(route, "instances").isEmpty(), is(true));
+	}
+
+	@Test
+	public void handsSnapshotToListenersWhenRolling() {
+
+		AtomicReference<Map<String, Object>> received = new AtomicReference<>();
+		Consumer<Map<String, Object>> listener = received::set;
+
+		metrics.addListener(listener);
+
+		metrics.record("customers", new RequestTimings(0), MILLIS, -1, -1);
+		metrics.roll();
+
+		assertThat(received.get(), hasKey("customers"));
+
+		received.set(null);
+		metrics.removeListener(listener);
+		metrics.roll();
+
+		assertThat(received.get(), is(nullValue()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> get(Map<String, Object> source, String key) {
+		return (Map<String, Object>) source.get(key);
+	}
+
+	private static double max(Map<String, Object> route, String key) {
+		return ((Number) get(get(route, key), "total").get("max")).doubleValue();
+	}
+
+	private static long count(Map<String, Object> route, String key) {
+		return ((Number) get(get(route, key), "total").get("count")).longValue();
+	}
+}
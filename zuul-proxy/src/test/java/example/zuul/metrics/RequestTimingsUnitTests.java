@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.netflix.client.IResponse;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Unit tests for {@link RequestTimings} and the filters recording them.
+ *
+ * @author Oliver Gierke
+ */
+public class RequestTimingsUnitTests {
+
+	@After
+	public void tearDown() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@Test
+	public void keepsTimingsInRequestContext() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		assertThat(RequestTimings.of(context).isPresent(), is(false));
+
+		new RequestTimingFilter().run();
+
+		assertThat(RequestTimings.of(context).get().start, is(not(0L)));
+		assertThat(RequestTimings.of(new RequestContext()).isPresent(), is(false));
+	}
+
+	@Test
+	public void recordsUpstreamStartOnlyOnce() {
+
+		RequestTimings timings = new RequestTimings(System.nanoTime());
+
+		timings.upstreamStarted();
+		long start = timings.upstreamStart;
+		timings.upstreamStarted();
+
+		assertThat(start, is(not(0L)));
+		assertThat(timings.upstreamStart, is(start));
+	}
+
+	@Test
+	public void ignoresUpstreamCompletionWithoutStart() {
+
+		RequestTimings timings = new RequestTimings(System.nanoTime());
+		timings.upstreamCompleted();
+
+		assertThat(timings.upstreamEnd, is(0L));
+
+		timings.upstreamStarted();
+		timings.upstreamCompleted();
+
+		assertThat(timings.upstreamEnd, is(greaterThanOrEqualTo(timings.upstreamStart)));
+	}
+
+	@Test
+	public void keepsFirstUpstreamInstance() {
+
+		RequestTimings timings = new RequestTimings(System.nanoTime());
+
+		timings.upstreamInstance(null);
+		timings.upstreamInstance("shards");
+		timings.upstreamInstance("10.0.0.1:8081");
+
+		assertThat(timings.instance, is("shards"));
+	}
+
+	@Test
+	public void recordsUpstreamPhaseAroundRouting() {
+
+		RequestContext context = RequestContext.getCurrentContext();
+
+		new RequestTimingFilter().run();
+
+		UpstreamStartFilter filter = new UpstreamStartFilter();
+
+		assertThat(filter.shouldFilter(), is(true));
+
+		filter.run();
+
+		IResponse response = mock(IResponse.class);
+		doReturn(URI.create("http://10.0.0.1:8081/stores")).when(response).getRequestedURI();
+		context.set("ribbonResponse", response);
+
+		new UpstreamTimingFilter().run();
+
+		RequestTimings timings = RequestTimings.of(context).get();
+
+		assertThat(timings.upstreamStart, is(greaterThanOrEqualTo(timings.start)));
+		assertThat(timings.upstreamEnd, is(greaterThanOrEqualTo(timings.upstreamStart)));
+		assertThat(timings.instance, is("10.0.0.1:8081"));
+	}
+
+	@Test
+	public void skipsUpstreamStartForRequestsAnsweredAtTheEdge() {
+
+		RequestContext.getCurrentContext().setSendZuulResponse(false);
+
+		assertThat(new UpstreamStartFilter().shouldFilter(), is(false));
+	}
+
+	@Test
+	public void leavesInstanceUnknownWithoutRibbonResponse() {
+		assertThat(UpstreamTimingFilter.getInstance(new RequestContext()), is(nullValue()));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.zuul.sharding;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+/**
+ * Unit tests for {@link ShardedSearchRouteFilter}.
+ *
+ * @author Oliver Gierke
+ */
+public class ShardedSearchRouteFilterUnitTests {
+
+	// At 60°N, a circle of 1000 km spans 18.218° of longitude to either side of its center. The latitude delta scaled
+	// by the cosine of the latitude only gives 17.986°, missing the geohash cells beyond 45°E and 0° respectively.
+	static final double LATITUDE = 60;
+	static final String DISTANCE = "1000km";
+
+	static final Set<String> EAST = Collections.singleton("v4bh"), WEST = Collections.singleton("gfzu"),
+			AMERICAS = Collections.singleton("9");
+
+	ShardedSearchRouteFilter filter = new ShardedSearchRouteFilter(mock(DiscoveryClient.class), mock(ShardClient.class),
+			new ShardingProperties());
+
+	@Test
+	public void routesToShardAtEasternEdgeOfCircle() {
+
+		assertThat(filter.route(shards(EAST, AMERICAS), LATITUDE, 26.88, DISTANCE).keySet(), contains(EAST));
+	}
+
+	@Test
+	public void routesToShardAtWesternEdgeOfCircle() {
+
+		assertThat(filter.route(shards(WEST, AMERICAS), LATITUDE, 18.12, DISTANCE).keySet(), contains(WEST));
+	}
+
+	@Test
+	public void routesToAllShardsForUnsupportedDistance() {
+
+		Map<Set<String>, List<ServiceInstance>> shards = shards(EAST, AMERICAS);
+
+		assertThat(filter.route(shards, LATITUDE, 26.88, "1000furlongs"), is(shards));
+	}
+
+	@SafeVarargs
+	private static Map<Set<String>, List<ServiceInstance>> shards(Set<String>... prefixes) {
+
+		Map<Set<String>, List<ServiceInstance>> shards = new LinkedHashMap<>();
+
+		for (Set<String> shard : prefixes) {
+			shards.put(shard, Collections.singletonList(mock(ServiceInstance.class)));
+		}
+
+		return shards;
+	}
+}